@@ -0,0 +1,30 @@
+package ijgm_project.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ponto de entrada do benchmarks.jar: o próprio JMH (org.openjdk.jmh.Main),
+ * mas com o resultado em JSON por padrão ('-rf json -rff jmh-result.json'),
+ * para comparar execuções com um diff. Qualquer opção do JMH pode ser
+ * passada normalmente (ex: '-rff outro.json', 'PhaseBenchmark.vm', '-p size=10').
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        if (!options.contains("-rff")) {
+            options.add("-rff");
+            options.add("jmh-result.json");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,41 @@
+package ijgm_project.bench;
+
+import ijgm_project.vm.OutputSink;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Saída do 'print' que só "consome" os valores (nada é formatado nem
+ * escrito), para medir a VM sem o custo de E/S.
+ */
+final class BlackholeSink implements OutputSink {
+
+    private final Blackhole blackhole;
+
+    BlackholeSink(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void printInt(int value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void printFloat(float value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void printBoolean(boolean value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void printString(String value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,268 @@
+package ijgm_project.bench;
+
+import ijgm_project.lexer.Lexer;
+import ijgm_project.lexer.Token;
+import ijgm_project.parser.Parser;
+import ijgm_project.parser.ast.Statement;
+import ijgm_project.vm.BytecodeChunk;
+import ijgm_project.vm.CompilerVisitor;
+import ijgm_project.vm.OutputSink;
+import ijgm_project.vm.VM;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Macro-benchmark: roda programas inteiros pelo mesmo pipeline do Main
+ * (leitura -> Lexer -> Parser -> CompilerVisitor -> VM), sem a saída de
+ * depuração, e mede o tempo e a memória alocada de cada fase.
+ *
+ * As entradas são arquivos ou diretórios (padrão: benchmarks/corpus, o
+ * corpus fixo gerado pelo ProgramGenerator) ou, com botões do gerador
+ * ("chave=valor", ver ProgramGenerator.Config), um programa gerado na hora.
+ *
+ * Cada programa roda 'warmup' vezes sem medir e depois 'runs' vezes; o
+ * relatório mostra a mediana e o mínimo do tempo e a mediana dos bytes
+ * alocados pela thread (ThreadMXBean) em cada fase.
+ *
+ * Uso: MacroBenchmark [warmup=N] [runs=N] [csv=arquivo] [chave=valor ...] [arquivos/diretórios...]
+ */
+public final class MacroBenchmark {
+
+    private static final String[] PHASES = {"leitura", "léxica", "sintática", "compilação", "execução"};
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Um programa a medir: o nome no relatório e o arquivo (ou o texto, se gerado). */
+    private record Program(String name, Path file, String source) {
+    }
+
+    /** As medidas de um programa: [execução][fase]. */
+    private record Result(String name, long[][] nanos, long[][] bytes, int tokens, long outputLines) {
+    }
+
+    private MacroBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int warmup = 5;
+        int runs = 10;
+        Path csv = null;
+        List<String> generatorSettings = new ArrayList<>();
+        List<Path> inputs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("warmup=")) {
+                warmup = Integer.parseInt(arg.substring("warmup=".length()));
+            } else if (arg.startsWith("runs=")) {
+                runs = Math.max(1, Integer.parseInt(arg.substring("runs=".length())));
+            } else if (arg.startsWith("csv=")) {
+                csv = Paths.get(arg.substring("csv=".length()));
+            } else if (arg.contains("=")) {
+                generatorSettings.add(arg);
+            } else {
+                inputs.add(Paths.get(arg));
+            }
+        }
+
+        List<Program> programs = new ArrayList<>();
+        if (!generatorSettings.isEmpty()) {
+            ProgramGenerator.Config config = ProgramGenerator.Config.DEFAULT.with(generatorSettings);
+            programs.add(new Program("gerado", null, ProgramGenerator.generate(config)));
+        }
+        if (inputs.isEmpty() && programs.isEmpty()) {
+            inputs.add(Paths.get("benchmarks", "corpus"));
+        }
+        for (Path input : inputs) {
+            collect(input, programs);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Program program : programs) {
+            results.add(measure(program, warmup, runs));
+        }
+        printReport(results, warmup, runs);
+        if (csv != null) {
+            try (Writer out = Files.newBufferedWriter(csv)) {
+                writeCsv(results, out);
+            }
+            System.out.println("Resultado exportado para " + csv);
+        }
+    }
+
+    /** Adiciona o arquivo, ou os .txt do diretório (em ordem alfabética). */
+    private static void collect(Path input, List<Program> programs) throws IOException {
+        if (!Files.isDirectory(input)) {
+            programs.add(new Program(input.getFileName().toString(), input, null));
+            return;
+        }
+        try (Stream<Path> files = Files.list(input)) {
+            files.filter(file -> file.toString().endsWith(".txt"))
+                    .sorted()
+                    .forEach(file -> programs.add(new Program(file.getFileName().toString(), file, null)));
+        }
+    }
+
+    private static Result measure(Program program, int warmup, int runs) throws IOException {
+        long[][] nanos = new long[runs][PHASES.length];
+        long[][] bytes = new long[runs][PHASES.length];
+        int tokens = 0;
+        long outputLines = 0;
+        for (int run = -warmup; run < runs; run++) {
+            long[] phaseNanos = new long[PHASES.length];
+            long[] phaseBytes = new long[PHASES.length];
+            Phase phase = new Phase(phaseNanos, phaseBytes);
+
+            phase.start();
+            String source = program.file() != null ? Files.readString(program.file()) : program.source();
+            phase.end(0);
+
+            phase.start();
+            List<Token> tokenList = Lexer.fromSource(source).tokenize();
+            phase.end(1);
+
+            phase.start();
+            List<Statement> ast = new Parser(tokenList).parse();
+            phase.end(2);
+
+            phase.start();
+            BytecodeChunk chunk = new CompilerVisitor().compile(ast);
+            phase.end(3);
+            if (chunk == null) {
+                throw new IllegalStateException("Falha na compilação de " + program.name());
+            }
+
+            CountingSink output = new CountingSink();
+            phase.start();
+            VM.InterpretResult result = new VM(chunk, output).run();
+            phase.end(4);
+            if (result != VM.InterpretResult.OK) {
+                throw new IllegalStateException("Erro de execução em " + program.name());
+            }
+
+            if (run >= 0) {
+                nanos[run] = phaseNanos;
+                bytes[run] = phaseBytes;
+            }
+            tokens = tokenList.size();
+            outputLines = output.lines;
+        }
+        return new Result(program.name(), nanos, bytes, tokens, outputLines);
+    }
+
+    // --- Relatório ---
+
+    private static void printReport(List<Result> results, int warmup, int runs) {
+        System.out.println("--- Macro-benchmark (" + warmup + " aquecimentos, " + runs + " medições) ---");
+        System.out.printf("%-24s %-11s %12s %12s %14s%n", "programa", "fase", "mediana ms", "mínimo ms", "alocado KB");
+        for (Result result : results) {
+            long totalNanos = 0;
+            long totalBytes = 0;
+            for (int phase = 0; phase < PHASES.length; phase++) {
+                long median = median(result.nanos(), phase);
+                long allocated = median(result.bytes(), phase);
+                totalNanos += median;
+                totalBytes += allocated;
+                System.out.printf(Locale.ROOT, "%-24s %-11s %12.3f %12.3f %14.1f%n",
+                        phase == 0 ? result.name() : "", PHASES[phase], median / 1e6,
+                        minimum(result.nanos(), phase) / 1e6, allocated / 1024.0);
+            }
+            System.out.printf(Locale.ROOT, "%-24s %-11s %12.3f %12s %14.1f  (%d tokens, %.0f tokens/s; %d linhas de saída)%n",
+                    "", "total", totalNanos / 1e6, "", totalBytes / 1024.0, result.tokens(),
+                    result.tokens() / (median(result.nanos(), 1) / 1e9), result.outputLines());
+        }
+        System.out.println("--- Fim ---");
+    }
+
+    /** programa,fase,mediana_ns,minimo_ns,alocado_bytes (uma linha por fase). */
+    private static void writeCsv(List<Result> results, Writer out) throws IOException {
+        out.write("programa,fase,mediana_ns,minimo_ns,alocado_bytes\n");
+        for (Result result : results) {
+            for (int phase = 0; phase < PHASES.length; phase++) {
+                out.write(result.name() + "," + PHASES[phase] + "," + median(result.nanos(), phase) + ","
+                        + minimum(result.nanos(), phase) + "," + median(result.bytes(), phase) + "\n");
+            }
+        }
+    }
+
+    private static long median(long[][] samples, int phase) {
+        long[] values = column(samples, phase);
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static long minimum(long[][] samples, int phase) {
+        return Arrays.stream(column(samples, phase)).min().orElse(0);
+    }
+
+    private static long[] column(long[][] samples, int phase) {
+        long[] values = new long[samples.length];
+        for (int run = 0; run < samples.length; run++) {
+            values[run] = samples[run][phase];
+        }
+        return values;
+    }
+
+    // --- Helpers ---
+
+    /** Cronômetro de uma fase: tempo e bytes alocados pela thread atual. */
+    private static final class Phase {
+        private final long[] nanos;
+        private final long[] bytes;
+        private long startNanos;
+        private long startBytes;
+
+        Phase(long[] nanos, long[] bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        void start() {
+            startBytes = THREADS.getCurrentThreadAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        void end(int phase) {
+            nanos[phase] = System.nanoTime() - startNanos;
+            bytes[phase] = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+        }
+    }
+
+    /** Descarta a saída do 'print', só contando as linhas. */
+    private static final class CountingSink implements OutputSink {
+        private long lines;
+
+        @Override
+        public void printInt(int value) {
+            lines++;
+        }
+
+        @Override
+        public void printFloat(float value) {
+            lines++;
+        }
+
+        @Override
+        public void printBoolean(boolean value) {
+            lines++;
+        }
+
+        @Override
+        public void printString(String value) {
+            lines++;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ijgm_project.bench;
+
+import ijgm_project.lexer.Lexer;
+import ijgm_project.lexer.Token;
+import ijgm_project.parser.Parser;
+import ijgm_project.parser.ast.Statement;
+import ijgm_project.vm.BytecodeChunk;
+import ijgm_project.vm.CompilerVisitor;
+import ijgm_project.vm.VM;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mede cada fase do pipeline separadamente, sobre os programas sintéticos
+ * de Workloads (forma x tamanho):
+ * - lexer: Lexer.tokenize (o fonte já está em memória);
+ * - parser: Parser.parse sobre os tokens já gerados;
+ * - compiler: CompilerVisitor.compile sobre a AST já gerada;
+ * - vm: VM.run sobre o chunk já compilado (uma VM nova por execução, com a
+ *   saída descartada; o modo do JIT segue "ijgm.jit", ex:
+ *   '-jvmArgsAppend -Dijgm.jit=off').
+ *
+ * As entradas de cada fase são preparadas uma vez por combinação de
+ * parâmetros, então uma fase nunca mede o custo das anteriores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+
+    @Param({"NESTING", "STRAIGHT_LINE", "NUMERIC_LOOP", "STRINGS"})
+    public Workloads.Shape shape;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private String source;
+    private List<Token> tokens;
+    private List<Statement> ast;
+    private BytecodeChunk chunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = shape.generate(size);
+        tokens = Lexer.fromSource(source).tokenize();
+        ast = new Parser(tokens).parse();
+        chunk = new CompilerVisitor().compile(ast);
+        if (chunk == null) {
+            throw new IllegalStateException("Programa gerado não compilou: " + shape + "/" + size);
+        }
+    }
+
+    @Benchmark
+    public List<Token> lexer() {
+        return Lexer.fromSource(source).tokenize();
+    }
+
+    @Benchmark
+    public List<Statement> parser() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public BytecodeChunk compiler() {
+        return new CompilerVisitor().compile(ast);
+    }
+
+    @Benchmark
+    public VM.InterpretResult vm(Blackhole blackhole) {
+        return new VM(chunk, new BlackholeSink(blackhole)).run();
+    }
+}
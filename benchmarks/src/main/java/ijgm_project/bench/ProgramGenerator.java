@@ -0,0 +1,354 @@
+package ijgm_project.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gerador de programas IJGM sintéticos "realistas" (para o MacroBenchmark
+ * e o corpus em benchmarks/corpus).
+ *
+ * Só usa a gramática que o Parser aceita: todas as declarações no início
+ * ('int'/'float'; os textos ficam em variáveis 'int', já que os valores são
+ * dinâmicos e 'string x;' não é aceito como declaração), depois comandos
+ * (atribuição, ++/--, print, if/else, while e blocos). Cada variável
+ * mantém sempre o mesmo tipo, as divisões são só por literais não nulos e
+ * todo laço tem um contador próprio, então o programa sempre termina sem
+ * erro de execução.
+ *
+ * Os "botões" ficam em Config (ver Config.with); com a mesma configuração
+ * (inclusive a semente), o programa gerado é sempre o mesmo.
+ *
+ * Uso: ProgramGenerator [chave=valor ...] [arquivo]
+ * (sem arquivo, o programa sai no System.out)
+ */
+public final class ProgramGenerator {
+
+    /**
+     * A configuração do gerador.
+     * @param declarations Quantas variáveis de dados são declaradas.
+     * @param statements Quantos comandos (aproximadamente) o programa tem, fora os prints.
+     * @param depth A profundidade máxima de laços aninhados.
+     * @param tripCount Quantas voltas cada laço dá (um laço de profundidade d roda tripCount^d vezes).
+     * @param intWeight Peso dos inteiros na mistura de tipos.
+     * @param floatWeight Peso dos floats na mistura de tipos.
+     * @param stringWeight Peso dos textos na mistura de tipos.
+     * @param prints Quantos comandos 'print' (sempre fora dos laços).
+     * @param seed A semente do gerador.
+     */
+    public record Config(int declarations, int statements, int depth, int tripCount,
+                         int intWeight, int floatWeight, int stringWeight, int prints, long seed) {
+
+        /** A configuração padrão. */
+        public static final Config DEFAULT = new Config(16, 200, 2, 100, 5, 3, 2, 20, 1L);
+
+        /**
+         * Uma cópia com um dos botões alterado.
+         * @param key O nome do botão (ex: "depth"); "mix" aceita "int:float:string" (ex: "5:3:2").
+         * @param value O novo valor.
+         * @return A nova configuração.
+         */
+        public Config with(String key, String value) {
+            return switch (key) {
+                case "declarations" -> new Config(Integer.parseInt(value), statements, depth, tripCount,
+                        intWeight, floatWeight, stringWeight, prints, seed);
+                case "statements" -> new Config(declarations, Integer.parseInt(value), depth, tripCount,
+                        intWeight, floatWeight, stringWeight, prints, seed);
+                case "depth" -> new Config(declarations, statements, Integer.parseInt(value), tripCount,
+                        intWeight, floatWeight, stringWeight, prints, seed);
+                case "trips" -> new Config(declarations, statements, depth, Integer.parseInt(value),
+                        intWeight, floatWeight, stringWeight, prints, seed);
+                case "mix" -> {
+                    String[] weights = value.split(":");
+                    if (weights.length != 3) {
+                        throw new IllegalArgumentException("mix deve ser int:float:string, ex: 5:3:2");
+                    }
+                    yield new Config(declarations, statements, depth, tripCount, Integer.parseInt(weights[0]),
+                            Integer.parseInt(weights[1]), Integer.parseInt(weights[2]), prints, seed);
+                }
+                case "prints" -> new Config(declarations, statements, depth, tripCount,
+                        intWeight, floatWeight, stringWeight, Integer.parseInt(value), seed);
+                case "seed" -> new Config(declarations, statements, depth, tripCount,
+                        intWeight, floatWeight, stringWeight, prints, Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Botão desconhecido: " + key);
+            };
+        }
+
+        /**
+         * Aplica uma lista de "chave=valor" sobre esta configuração.
+         * @param settings Os botões (ex: ["depth=3", "mix=1:0:0"]).
+         * @return A nova configuração.
+         */
+        public Config with(List<String> settings) {
+            Config config = this;
+            for (String setting : settings) {
+                int equals = setting.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("Esperado chave=valor, encontrado: " + setting);
+                }
+                config = config.with(setting.substring(0, equals), setting.substring(equals + 1));
+            }
+            return config;
+        }
+
+        @Override
+        public String toString() {
+            return "declarations=" + declarations + " statements=" + statements + " depth=" + depth
+                    + " trips=" + tripCount + " mix=" + intWeight + ":" + floatWeight + ":" + stringWeight
+                    + " prints=" + prints + " seed=" + seed;
+        }
+    }
+
+    private enum Type { INT, FLOAT, STRING }
+
+    private final Config config;
+    private final Random random;
+    private final StringBuilder out = new StringBuilder();
+
+    // As variáveis de dados de cada tipo (nomes)
+    private final List<String> ints = new ArrayList<>();
+    private final List<String> floats = new ArrayList<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private int indent;
+    private int loopDepth;
+    private int literalCounter;
+
+    private ProgramGenerator(Config config) {
+        this.config = config;
+        this.random = new Random(config.seed());
+    }
+
+    /**
+     * Gera um programa.
+     * @param config A configuração (ver Config).
+     * @return O código-fonte, com a configuração em um comentário no início.
+     */
+    public static String generate(Config config) {
+        if (config.intWeight() + config.floatWeight() + config.stringWeight() <= 0) {
+            throw new IllegalArgumentException("A mistura de tipos precisa de algum peso positivo.");
+        }
+        return new ProgramGenerator(config).program();
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> settings = new ArrayList<>();
+        Path file = null;
+        for (String arg : args) {
+            if (arg.contains("=")) {
+                settings.add(arg);
+            } else {
+                file = Paths.get(arg);
+            }
+        }
+        String program = generate(Config.DEFAULT.with(settings));
+        if (file == null) {
+            System.out.print(program);
+        } else {
+            Files.writeString(file, program);
+        }
+    }
+
+    // --- Estrutura do programa ---
+
+    private String program() {
+        out.append("// Gerado por ProgramGenerator: ").append(config).append('\n');
+
+        // 1. Declarações: os dados (pela mistura de tipos) e um contador por nível de laço.
+        //    A primeira é sempre um inteiro (usado nas condições e nos textos).
+        for (int k = 0; k < Math.max(1, config.declarations()); k++) {
+            switch (k == 0 ? Type.INT : pickType()) {
+                case INT -> declare("int", "i" + k, ints);
+                case FLOAT -> declare("float", "f" + k, floats);
+                default -> declare("int", "s" + k, strings);
+            }
+        }
+        for (int level = 0; level < config.depth(); level++) {
+            line("int c" + level + ";");
+        }
+
+        // 2. Valores iniciais
+        for (String name : ints) {
+            line(name + " = " + random.nextInt(100) + ";");
+        }
+        for (String name : floats) {
+            line(name + " = " + random.nextInt(100) + "." + random.nextInt(10) + ";");
+        }
+        for (String name : strings) {
+            line(name + " = \"" + nextLiteral() + "\";");
+        }
+
+        // 3. Os comandos, em "blocos" de topo; os prints ficam entre eles (nunca em laços)
+        int remaining = config.statements();
+        int printsLeft = config.prints();
+        while (remaining > 0) {
+            int block = Math.min(remaining, 1 + random.nextInt(12));
+            remaining -= block;
+            if (config.depth() > 0 && random.nextInt(3) == 0) {
+                loop(block);
+            } else {
+                statements(block);
+            }
+            if (printsLeft > 0 && random.nextInt(2) == 0) {
+                printsLeft -= prints(Math.min(printsLeft, 1 + random.nextInt(3)));
+            }
+        }
+        prints(printsLeft);
+        return out.toString();
+    }
+
+    /** Um laço (com laços internos, até a profundidade máxima) com cerca de 'budget' comandos. */
+    private void loop(int budget) {
+        String counter = "c" + loopDepth;
+        line(counter + " = 0;");
+        line("while (" + counter + " < " + config.tripCount() + ") {");
+        indent++;
+        loopDepth++;
+        int inner = budget > 2 && loopDepth < config.depth() && random.nextInt(2) == 0 ? budget / 2 : 0;
+        statements(budget - inner);
+        if (inner > 0) {
+            loop(inner);
+        }
+        line(counter + "++;");
+        loopDepth--;
+        indent--;
+        line("}");
+    }
+
+    private void statements(int count) {
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(10);
+            if (kind == 0 && count - i > 2) {
+                // if/else com parte dos comandos restantes
+                int body = 1 + random.nextInt(Math.min(3, count - i - 1));
+                line("if (" + condition() + ") {");
+                indent++;
+                statements(body);
+                indent--;
+                if (random.nextBoolean()) {
+                    line("} else {");
+                    indent++;
+                    statements(1);
+                    indent--;
+                    i++;
+                }
+                line("}");
+                i += body;
+            } else if (kind == 1) {
+                line(pick(ints) + (random.nextBoolean() ? "++;" : "--;"));
+            } else {
+                assignment();
+            }
+        }
+    }
+
+    private int prints(int count) {
+        for (int i = 0; i < count; i++) {
+            line("print " + switch (pickType()) {
+                case INT -> pick(ints);
+                case FLOAT -> floats.isEmpty() ? pick(ints) : pick(floats);
+                default -> strings.isEmpty() ? "\"" + nextLiteral() + "\"" : pick(strings);
+            } + ";");
+        }
+        return count;
+    }
+
+    // --- Comandos e expressões ---
+
+    private void assignment() {
+        switch (pickType()) {
+            case FLOAT -> {
+                if (!floats.isEmpty()) {
+                    line(pick(floats) + " = " + floatExpression() + ";");
+                    return;
+                }
+            }
+            case STRING -> {
+                if (!strings.isEmpty()) {
+                    line(pick(strings) + " = " + stringExpression() + ";");
+                    return;
+                }
+            }
+            default -> {
+            }
+        }
+        line(pick(ints) + " = " + intExpression() + ";");
+    }
+
+    private String intExpression() {
+        String a = pick(ints);
+        String b = pick(ints);
+        return switch (random.nextInt(5)) {
+            case 0 -> a + " + " + (1 + random.nextInt(50));
+            case 1 -> a + " - " + b;
+            case 2 -> "(" + a + " * 3 - " + b + ") / " + (2 + random.nextInt(9));
+            case 3 -> a + " / " + (1 + random.nextInt(7)) + " + " + b;
+            default -> a + " * 2 - " + b + " / 3";
+        };
+    }
+
+    private String floatExpression() {
+        String f = pick(floats);
+        String other = random.nextBoolean() ? pick(floats) : pick(ints);
+        return switch (random.nextInt(4)) {
+            case 0 -> f + " * 0.5 + " + other;
+            case 1 -> f + " + " + random.nextInt(10) + ".25";
+            case 2 -> "(" + f + " - " + other + ") / 4.0";
+            default -> other + " * 1.5 - " + f + " / 2.0";
+        };
+    }
+
+    private String stringExpression() {
+        String number = !floats.isEmpty() && random.nextBoolean() ? pick(floats) : pick(ints);
+        // Concatenar na própria variável só fora dos laços (senão o texto cresce a cada volta)
+        if (loopDepth == 0 && random.nextInt(3) == 0) {
+            return pick(strings) + " + \"" + nextLiteral() + "\"";
+        }
+        return "\"" + nextLiteral() + "\" + " + number;
+    }
+
+    private String condition() {
+        if (!strings.isEmpty() && random.nextInt(5) == 0) {
+            return pick(strings) + " == \"" + nextLiteral() + "\"";
+        }
+        if (!floats.isEmpty() && random.nextInt(4) == 0) {
+            return pick(floats) + " > " + random.nextInt(100) + ".0";
+        }
+        String[] comparisons = {"<", "<=", ">", ">=", "==", "!="};
+        String comparison = pick(ints) + " " + comparisons[random.nextInt(comparisons.length)] + " "
+                + random.nextInt(100);
+        return random.nextInt(4) == 0 ? comparison + " && " + pick(ints) + " != 0" : comparison;
+    }
+
+    // --- Helpers ---
+
+    private void declare(String type, String name, List<String> names) {
+        names.add(name);
+        line(type + " " + name + ";");
+    }
+
+    private Type pickType() {
+        int total = config.intWeight() + config.floatWeight() + config.stringWeight();
+        int roll = random.nextInt(total);
+        if (roll < config.intWeight()) {
+            return Type.INT;
+        }
+        return roll < config.intWeight() + config.floatWeight() ? Type.FLOAT : Type.STRING;
+    }
+
+    private String pick(List<String> names) {
+        return names.get(random.nextInt(names.size()));
+    }
+
+    private String nextLiteral() {
+        return "txt" + literalCounter++;
+    }
+
+    private void line(String text) {
+        out.append("    ".repeat(indent)).append(text).append('\n');
+    }
+}
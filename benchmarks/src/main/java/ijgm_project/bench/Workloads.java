@@ -0,0 +1,111 @@
+package ijgm_project.bench;
+
+/**
+ * Programas IJGM sintéticos para os benchmarks, em tamanhos crescentes.
+ *
+ * Cada forma ("shape") estressa uma parte diferente do pipeline; 'size'
+ * controla o tamanho de forma linear (profundidade, número de comandos ou
+ * número de iterações, conforme a forma). Só usa a gramática que o Parser
+ * aceita: declarações no início (int/float/bool; textos vão em uma variável
+ * 'int', já que os valores são dinâmicos), depois os comandos.
+ */
+public final class Workloads {
+
+    private Workloads() {
+    }
+
+    /** As formas de programa geradas. */
+    public enum Shape {
+        /** 'size' níveis de if/escopo aninhados (parser recursivo e pulos longos). */
+        NESTING {
+            @Override
+            String generate(int size) {
+                StringBuilder out = new StringBuilder("int x;\nint y;\nx = 0;\ny = 0;\n");
+                for (int level = 0; level < size; level++) {
+                    indent(out, level);
+                    out.append(level % 2 == 0 ? "if (x >= " + level / 2 + ") {\n" : "{\n");
+                    indent(out, level + 1);
+                    out.append("x = x + 1;\n");
+                }
+                for (int level = size - 1; level >= 0; level--) {
+                    indent(out, level + 1);
+                    out.append("y = y + x * 2;\n");
+                    indent(out, level);
+                    out.append("}\n");
+                }
+                return out.append("print x;\nprint y;\n").toString();
+            }
+        },
+
+        /** 'size' x 10 comandos em sequência, sem laços (lexer, parser e compilador). */
+        STRAIGHT_LINE {
+            @Override
+            String generate(int size) {
+                StringBuilder out = new StringBuilder("int a;\nint b;\nint c;\nfloat f;\nbool ok;\n");
+                out.append("a = 1;\nb = 2;\nc = 3;\nf = 0.5;\nok = true;\n");
+                for (int i = 0; i < size * 10; i++) {
+                    switch (i % 5) {
+                        case 0 -> out.append("a = a + ").append(i % 97).append(";\n");
+                        case 1 -> out.append("b = (a - b) * 3 + c / 7;\n");
+                        case 2 -> out.append("f = f * 1.5 - a + ").append(i % 13).append(".25;\n");
+                        case 3 -> out.append("ok = a > b && f <= 1000.0 || c != ").append(i % 11).append(";\n");
+                        default -> out.append("c = c + a / 5 - ").append(i % 7).append(";\n");
+                    }
+                }
+                return out.append("print a;\nprint b;\nprint c;\nprint f;\nprint ok;\n").toString();
+            }
+        },
+
+        /** Um laço aritmético de 'size' x 100 iterações (o loop de despacho da VM). */
+        NUMERIC_LOOP {
+            @Override
+            String generate(int size) {
+                return "int i;\nint s;\nfloat f;\n"
+                        + "i = 0;\ns = 0;\nf = 0.0;\n"
+                        + "while (i < " + size * 100 + ") {\n"
+                        + "  s = s + i * 3 - s / 7;\n"
+                        + "  f = f + 0.5;\n"
+                        + "  if (s > 1000000) {\n"
+                        + "    s = s - 1000000;\n"
+                        + "  }\n"
+                        + "  i++;\n"
+                        + "}\n"
+                        + "print s;\nprint f;\n";
+            }
+        },
+
+        /** 'size' literais de texto distintos e um laço de 'size' concatenações. */
+        STRINGS {
+            @Override
+            String generate(int size) {
+                StringBuilder out = new StringBuilder("int i;\nint s;\nint t;\n");
+                out.append("i = 0;\ns = \"\";\nt = \"\";\n");
+                for (int k = 0; k < size; k++) {
+                    out.append("t = \"texto ").append(k).append("\" + ").append(k).append(";\n");
+                    if (k % 10 == 0) {
+                        out.append("print t;\n");
+                    }
+                }
+                out.append("while (i < ").append(size).append(") {\n")
+                        .append("  s = s + \"item \" + i + \";\";\n")
+                        .append("  if (s == t) {\n")
+                        .append("    print \"igual\";\n")
+                        .append("  }\n")
+                        .append("  i++;\n")
+                        .append("}\n");
+                return out.append("print s;\n").toString();
+            }
+        };
+
+        /**
+         * Gera o código-fonte.
+         * @param size O tamanho (ver a descrição de cada forma).
+         * @return Um programa IJGM válido.
+         */
+        abstract String generate(int size);
+    }
+
+    private static void indent(StringBuilder out, int level) {
+        out.append("  ".repeat(level));
+    }
+}
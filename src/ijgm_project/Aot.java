@@ -0,0 +1,88 @@
+package ijgm_project;
+
+import ijgm_project.lexer.Lexer;
+import ijgm_project.parser.Parser;
+import ijgm_project.parser.ast.Statement;
+import ijgm_project.vm.AotCompiler;
+import ijgm_project.vm.BytecodeChunk;
+import ijgm_project.vm.ChunkSerializer;
+import ijgm_project.vm.CompilerVisitor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Ponto de entrada do modo AOT ("ahead-of-time"), ao lado do Main:
+ * compila um programa IJGM para uma classe (ou jar) independente, que roda
+ * direto na JVM, sem lexer, parser, compilador ou VM da IJGM.
+ *
+ * Uso: Aot [fonte] [destino] [NomeDaClasse]
+ * - fonte: o arquivo-fonte (padrão: input/teste.txt)
+ * - destino: um diretório (padrão: out), um arquivo .jar ou um arquivo .ijbc
+ *   (o bytecode da IJGM, para o Main com -Dijgm.bytecode ou o Run)
+ * - NomeDaClasse: o nome da classe gerada (padrão: Program)
+ *
+ * Depois: 'java -cp out Program' (ou 'java -jar programa.jar').
+ *
+ * Se o programa não compila (ou a gravação falha), nada é gerado e o
+ * processo termina com código 1.
+ */
+public class Aot {
+    /**
+     * Compila o arquivo-fonte e grava o artefato.
+     * @param args Fonte, destino e nome da classe (todos opcionais).
+     */
+    public static void main(String[] args) {
+        int status = run(args);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * O trabalho do main, sem encerrar a JVM.
+     * @return O código de saída: 0 se o artefato foi gravado, 1 se não.
+     */
+    static int run(String[] args) {
+        String filePath = args.length > 0 ? args[0] : "input/teste.txt";
+        Path output = Paths.get(args.length > 1 ? args[1] : "out");
+        String className = args.length > 2 ? args[2] : "Program";
+
+        try {
+            // Fases 1 a 3, como no Main (sem a saída de depuração; os tokens vão direto do Lexer para o Parser)
+            Lexer lexer = new Lexer(filePath);
+            Parser parser = new Parser(lexer.tokens());
+            List<Statement> ast = parser.parse();
+            BytecodeChunk chunk = new CompilerVisitor().compile(ast);
+            if (chunk == null) {
+                // (O CompilerVisitor já imprimiu o erro)
+                System.err.println("Falha na compilação. Nada foi gerado.");
+                return 1;
+            }
+
+            if (output.toString().endsWith(ChunkSerializer.EXTENSION)) {
+                ChunkSerializer.write(chunk, output);
+                System.out.println("Gerado: " + output + " (java -Dijgm.bytecode=" + output + " ijgm_project.Main)");
+                return 0;
+            }
+
+            // Fase 4: Bytecode -> classe da JVM
+            byte[] classBytes = AotCompiler.compile(chunk, className);
+            if (output.toString().endsWith(".jar")) {
+                AotCompiler.writeJar(classBytes, className, output);
+                System.out.println("Gerado: " + output + " (java -jar " + output + ")");
+            } else {
+                Path file = AotCompiler.writeClass(classBytes, className, output);
+                System.out.println("Gerado: " + file + " (java -cp " + output + " " + className + ")");
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Erro de E/S: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+        return 1;
+    }
+}
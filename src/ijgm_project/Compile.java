@@ -0,0 +1,45 @@
+package ijgm_project;
+
+import ijgm_project.vm.BatchCompiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Ponto de entrada do modo "compilação em lote", ao lado do Main: compila
+ * todos os .txt de uma árvore de diretórios em paralelo (ver BatchCompiler)
+ * e grava um .ijbc para cada um, na mesma estrutura de diretórios. Os .ijbc
+ * rodam depois no Main (-Dijgm.bytecode=arquivo.ijbc) ou no Run.
+ *
+ * Uso: Compile [fontes] [destino] (padrão: input e out). Quantos arquivos
+ * são compilados ao mesmo tempo: -Dijgm.compile.threads=N (padrão: o número
+ * de processadores).
+ *
+ * Ao final, imprime os erros de todos os arquivos (cada um com o seu
+ * caminho) e um resumo.
+ */
+public class Compile {
+    /**
+     * Compila a árvore de fontes e imprime o relatório.
+     * @param args Diretório dos fontes e diretório de destino (opcionais).
+     */
+    public static void main(String[] args) {
+        Path sources = Paths.get(args.length > 0 ? args[0] : "input");
+        Path output = Paths.get(args.length > 1 ? args[1] : "out");
+        int threads = Integer.getInteger("ijgm.compile.threads", Runtime.getRuntime().availableProcessors());
+
+        try {
+            BatchCompiler.Report report = new BatchCompiler(threads).compileTree(sources, ".txt", output);
+            for (String diagnostic : report.diagnostics()) {
+                System.err.println(diagnostic);
+            }
+            System.out.println("--- Compilação em lote (" + sources + " -> " + output + ") ---");
+            System.out.println(report);
+        } catch (IOException e) {
+            System.err.println("Erro de E/S: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Erro: " + e.getMessage());
+        }
+    }
+}
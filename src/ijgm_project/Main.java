@@ -9,12 +9,25 @@ import ijgm_project.visitor.PrintVisitor;
 
 // --- NOVAS IMPORTAÇÕES ---
 import ijgm_project.vm.CompilerVisitor;
+import ijgm_project.vm.BytecodeCache;
 import ijgm_project.vm.BytecodeChunk;
+import ijgm_project.vm.ChunkSerializer;
 import ijgm_project.vm.Decompiler;
 import ijgm_project.vm.VM;
+import ijgm_project.vm.RegisterChunk;
+import ijgm_project.vm.RegisterCompiler;
+import ijgm_project.vm.RegisterVM;
+import ijgm_project.vm.AsyncOutputSink;
+import ijgm_project.vm.OutputSink;
+import ijgm_project.vm.Profiler;
+import ijgm_project.vm.SamplingProfiler;
+import ijgm_project.interpreter.AstInterpreter;
 // --- FIM DAS NOVAS IMPORTAÇÕES ---
 
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -24,6 +37,34 @@ import java.util.List;
  * 3. Compilação (AST -> Bytecode)
  * 4. Execução (VM)
  * É o ponto de entrada do projeto.
+ *
+ * O backend de execução é escolhido pela propriedade 'ijgm.engine':
+ * - vm (padrão): fases 3 e 4 acima;
+ * - ast: executa a AST direto no interpretador auto-especializante
+ *   (ver interpreter.AstInterpreter), sem gerar bytecode;
+ * - regvm: fases 3 e 4 com bytecode de registradores (ver vm.RegisterCompiler
+ *   e vm.RegisterVM) em vez da máquina de pilha.
+ *
+ * A saída do 'print' é escolhida pela propriedade 'ijgm.output':
+ * - buffered (padrão): System.out com buffer (ver vm.BufferedOutputSink);
+ * - async: uma thread escritora alimentada por uma fila (vm.AsyncOutputSink).
+ *
+ * Com '-Dijgm.profile=counts' (ou 'time'), a VM coleta um perfil da execução
+ * (ver vm.Profiler), impresso ao final; '-Dijgm.profile.csv=arquivo.csv'
+ * também o exporta em CSV. Com '-Dijgm.profile=sample', uma thread amostra
+ * a VM (ver vm.SamplingProfiler) e o resumo sai por linha do fonte e por
+ * pilha de laços; '-Dijgm.profile.flame=arquivo.txt' grava as pilhas no
+ * formato "collapsed" dos flame graphs.
+ *
+ * Com '-Dijgm.fuel=N', a VM para depois de N voltas de laço (ver VM.setFuel).
+ *
+ * Com '-Dijgm.cache=diretório', o bytecode compilado fica em um cache em
+ * disco (ver vm.BytecodeCache): se o fonte não mudou, as fases 1 a 3 são
+ * puladas e o chunk é lido do cache.
+ *
+ * Com '-Dijgm.bytecode=arquivo.ijbc', o Main roda um programa já compilado
+ * (ver Aot e vm.ChunkSerializer): o arquivo é mapeado em memória e vai
+ * direto para a fase 4.
  */
 public class Main {
     /**
@@ -34,10 +75,33 @@ public class Main {
         // Define o caminho para o arquivo de código-fonte a ser lido.
         String filePath = "input/teste.txt";
 
-        try {
+        try (OutputSink output = createOutput()) {
+            // --- BYTECODE PRÉ-COMPILADO (.ijbc) ---
+            String bytecodeFile = System.getProperty("ijgm.bytecode");
+            if (bytecodeFile != null) {
+                System.out.println("--- FASES 1 a 3: BYTECODE PRÉ-COMPILADO (" + bytecodeFile + ") ---");
+                execute(ChunkSerializer.map(Paths.get(bytecodeFile)), output);
+                return;
+            }
+
+            // --- CACHE DE BYTECODE (só com -Dijgm.cache e a VM de pilha) ---
+            BytecodeCache cache = System.getProperty("ijgm.engine", "vm").equals("vm")
+                    ? BytecodeCache.fromProperties() : null;
+            String source = null;
+            if (cache != null) {
+                source = new String(Files.readAllBytes(Paths.get(filePath)));
+                BytecodeChunk cached = cache.get(source);
+                if (cached != null) {
+                    System.out.println("--- FASES 1 a 3: BYTECODE DO CACHE ("
+                            + cache.fileOf(BytecodeCache.key(source)) + ") ---");
+                    execute(cached, output);
+                    return;
+                }
+            }
+
             // --- FASE 1: ANÁLISE LÉXICA (Sem mudança) ---
             System.out.println("--- FASE 1: ANÁLISE LÉXICA ---");
-            Lexer lexer = new Lexer(filePath);
+            Lexer lexer = source != null ? Lexer.fromSource(source) : new Lexer(filePath);
             List<Token> tokens = lexer.tokenize();
             System.out.println("Tokens gerados: " + tokens);
 
@@ -53,6 +117,38 @@ public class Main {
                 statement.accept(printVisitor);
             }
 
+            // --- BACKEND ALTERNATIVO: INTERPRETADOR DE AST (sem bytecode) ---
+            if (System.getProperty("ijgm.engine", "vm").equals("ast")) {
+                System.out.println("\n--- FASE 3: EXECUÇÃO (AST auto-especializante) ---");
+                AstInterpreter interpreter = AstInterpreter.create(ast, output);
+                if (interpreter == null) {
+                    System.err.println("Falha na compilação. Execução abortada.");
+                    return;
+                }
+                interpreter.run();
+                System.out.println("\n(AST: " + interpreter.getSpecializationCount() + " nós especializados, "
+                        + interpreter.getDespecializationCount() + " de-especializações)");
+                return;
+            }
+
+            // --- BACKEND ALTERNATIVO: VM DE REGISTRADORES ---
+            if (System.getProperty("ijgm.engine", "vm").equals("regvm")) {
+                System.out.println("\n--- FASE 3: COMPILAÇÃO (AST -> Bytecode de registradores) ---");
+                RegisterChunk registerChunk = new RegisterCompiler().compile(ast);
+                if (registerChunk == null) {
+                    System.err.println("Falha na compilação. Execução abortada.");
+                    return;
+                }
+                new Decompiler().disassemble(registerChunk);
+
+                System.out.println("\n--- FASE 4: EXECUÇÃO (VM de registradores) ---");
+                RegisterVM registerVM = new RegisterVM(registerChunk, output);
+                registerVM.run();
+                System.out.println("\n(VM de registradores: " + registerVM.getDispatchCount()
+                        + " instruções executadas)");
+                return;
+            }
+
             // --- FASE 3: COMPILAÇÃO (Novo) ---
             System.out.println("\n--- FASE 3: COMPILAÇÃO (AST -> Bytecode) ---");
             
@@ -72,17 +168,12 @@ public class Main {
                 System.err.println("Falha na compilação. Execução abortada.");
                 return; // Para a execução
             }
+            if (cache != null) {
+                cache.put(source, chunk);
+            }
 
-            // --- FASE 4: EXECUÇÃO NA VM (Novo) ---
-            System.out.println("\n--- FASE 4: EXECUÇÃO (VM) ---");
-            
-            // 1. Instancia a nova VM com o "cartucho"
-            VM vm = new VM(chunk);
-            
-            // 2. Roda a VM
-            vm.run();
+            execute(chunk, output);
 
-            
             /* --- CÓDIGO DO MOTOR ANTIGO (DESATIVADO) ---
              * System.out.println("\n--- FASE 3: ANÁLISE SEMÂNTICA E EXECUÇÃO ---");
              * InterpreterVisitor visitor = new InterpreterVisitor();
@@ -102,4 +193,72 @@ public class Main {
             // e.printStackTrace(); 
         }
     }
-}
\ No newline at end of file
+
+    /** Fase 4: executa o chunk na VM e imprime as estatísticas (e o perfil, se pedido). */
+    private static void execute(BytecodeChunk chunk, OutputSink output) {
+        // --- FASE 4: EXECUÇÃO NA VM (Novo) ---
+        System.out.println("\n--- FASE 4: EXECUÇÃO (VM) ---");
+
+        // 1. Instancia a nova VM com o "cartucho"
+        VM vm = new VM(chunk, output);
+
+        // 2. Roda a VM (com '-Dijgm.fuel', no máximo N voltas de laço)
+        Long fuel = Long.getLong("ijgm.fuel");
+        if (fuel != null) {
+            vm.setFuel(fuel);
+        }
+        if (vm.run() == VM.InterpretResult.YIELDED) {
+            System.err.println("Execução interrompida: limite de combustível (" + fuel + " voltas de laço) esgotado.");
+        }
+
+        // 3. Estatísticas do Quickening (sítios especializados / de-especializados)
+        System.out.println("\n(Quickening: " + vm.getQuickenCount() + " sítios especializados, "
+                + vm.getDeoptimizationCount() + " de-especializações)");
+        System.out.println("(JIT: " + vm.getJitCompileCount() + " regiões compiladas, "
+                + vm.getJitDeoptimizationCount() + " de-otimizações)");
+
+        // 4. Perfil da execução (só com -Dijgm.profile)
+        if (vm.getProfiler() != null) {
+            printProfile(vm.getProfiler(), new Decompiler());
+        }
+        if (vm.getSamplingProfiler() != null) {
+            printSamples(vm.getSamplingProfiler(), new Decompiler());
+        }
+    }
+
+    /** Imprime o perfil e, se pedido ("ijgm.profile.csv"), o exporta em CSV. */
+    private static void printProfile(Profiler profiler, Decompiler decompiler) {
+        System.out.println();
+        decompiler.printProfile(profiler);
+        String csv = System.getProperty("ijgm.profile.csv");
+        if (csv != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(csv))) {
+                profiler.writeCsv(out);
+                System.out.println("Perfil exportado para " + csv);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o perfil: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Imprime o perfil por amostragem e, se pedido ("ijgm.profile.flame"), grava as pilhas. */
+    private static void printSamples(SamplingProfiler sampler, Decompiler decompiler) {
+        System.out.println();
+        decompiler.printSamples(sampler);
+        String flame = System.getProperty("ijgm.profile.flame");
+        if (flame != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(flame))) {
+                sampler.writeCollapsed(out);
+                System.out.println("Pilhas exportadas para " + flame);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o perfil: " + e.getMessage());
+            }
+        }
+    }
+
+    /** O destino da saída do 'print', conforme a propriedade 'ijgm.output'. */
+    private static OutputSink createOutput() {
+        OutputSink stdout = OutputSink.stdout();
+        return System.getProperty("ijgm.output", "buffered").equals("async") ? new AsyncOutputSink(stdout) : stdout;
+    }
+}
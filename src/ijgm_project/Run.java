@@ -0,0 +1,102 @@
+package ijgm_project;
+
+import ijgm_project.vm.BytecodeCache;
+import ijgm_project.vm.ChunkSerializer;
+import ijgm_project.vm.ScriptExecutor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Ponto de entrada do modo "lote", ao lado do Main: roda vários programas
+ * IJGM ao mesmo tempo no ScriptExecutor (uma VM por programa) e imprime,
+ * na ordem dos arquivos, o resultado e a saída de cada um, seguidos das
+ * métricas do executor.
+ *
+ * Uso: Run [arquivos/diretórios...] (padrão: input/teste.txt; de um
+ * diretório, todos os .txt; arquivos .ijbc, gerados pelo Aot, rodam sem
+ * recompilar). Quantos programas rodam ao mesmo tempo:
+ * -Dijgm.executor.concurrency=N (padrão: o número de processadores).
+ * Limite de combustível (voltas de laço) por programa:
+ * -Dijgm.executor.fuel=N (padrão: sem limite); tamanho da fatia de tempo:
+ * -Dijgm.executor.slice=N (ver ScriptExecutor). Com -Dijgm.cache=diretório,
+ * os programas compilados ficam em um cache em disco (ver BytecodeCache).
+ */
+public class Run {
+    /**
+     * Roda os programas e imprime os resultados.
+     * @param args Os arquivos ou diretórios (opcionais).
+     */
+    public static void main(String[] args) {
+        List<Path> files = new ArrayList<>();
+        BytecodeCache cache;
+        try {
+            cache = BytecodeCache.fromProperties();
+            if (args.length == 0) {
+                files.add(Paths.get("input/teste.txt"));
+            }
+            for (String arg : args) {
+                collect(Paths.get(arg), files);
+            }
+        } catch (IOException e) {
+            System.err.println("Erro de E/S: " + e.getMessage());
+            return;
+        }
+
+        int concurrency = Integer.getInteger("ijgm.executor.concurrency",
+                Runtime.getRuntime().availableProcessors());
+        long fuelLimit = Long.getLong("ijgm.executor.fuel", 0);
+        try (ScriptExecutor executor = new ScriptExecutor(concurrency, fuelLimit, cache)) {
+            List<CompletableFuture<ScriptExecutor.ScriptResult>> results = new ArrayList<>();
+            for (Path file : files) {
+                try {
+                    if (file.toString().endsWith(ChunkSerializer.EXTENSION)) {
+                        results.add(executor.submit(ChunkSerializer.map(file)));
+                    } else {
+                        results.add(executor.submit(Files.readString(file)));
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    results.add(CompletableFuture.failedFuture(e));
+                }
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                System.out.println("--- " + files.get(i) + " ---");
+                try {
+                    ScriptExecutor.ScriptResult result = results.get(i).join();
+                    result.output().forEach(System.out::println);
+                    System.out.printf(Locale.ROOT, "%s (%.3f ms, %d voltas)%s%n", result.status(),
+                            result.nanos() / 1e6, result.fuel(),
+                            result.error() != null ? ": " + result.error() : "");
+                } catch (RuntimeException e) {
+                    System.out.println("Erro: " + (e.getCause() != null ? e.getCause() : e));
+                }
+            }
+
+            System.out.println("--- Executor (" + executor.getMaxConcurrency() + " ao mesmo tempo, "
+                    + (executor.usesVirtualThreads() ? "threads virtuais" : "threads de plataforma") + ") ---");
+            System.out.println(executor.getMetrics());
+            if (cache != null) {
+                System.out.println(cache);
+            }
+        }
+    }
+
+    /** Adiciona o arquivo, ou os .txt do diretório (em ordem alfabética). */
+    private static void collect(Path input, List<Path> files) throws IOException {
+        if (!Files.isDirectory(input)) {
+            files.add(input);
+            return;
+        }
+        try (Stream<Path> entries = Files.list(input)) {
+            entries.filter(file -> file.toString().endsWith(".txt")).sorted().forEach(files::add);
+        }
+    }
+}
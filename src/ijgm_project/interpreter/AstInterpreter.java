@@ -0,0 +1,88 @@
+package ijgm_project.interpreter;
+
+import ijgm_project.parser.ast.Statement;
+import ijgm_project.vm.OutputSink;
+import ijgm_project.vm.VM;
+
+import java.util.List;
+
+/**
+ * Backend alternativo: executa a AST diretamente, sem gerar bytecode.
+ *
+ * A AST é traduzida (NodeBuilder) para uma árvore de nós executáveis que se
+ * auto-especializam: cada nó observa os tipos que recebe e se reescreve em
+ * uma variante tipada (ex: BinaryNode -> IntArithmetic), e as variáveis já
+ * chegam resolvidas para slots. Para scripts curtos isso evita a compilação
+ * para bytecode e a decodificação do chunk.
+ *
+ * A saída (inclusive as mensagens de erro) é a mesma da VM.
+ */
+public final class AstInterpreter {
+
+    private final ProgramNode program;
+    private final Frame frame;
+    private final OutputSink output;
+
+    private AstInterpreter(ProgramNode program, Frame frame, OutputSink output) {
+        this.program = program;
+        this.frame = frame;
+        this.output = output;
+    }
+
+    /**
+     * Prepara a árvore executável.
+     * @param ast A AST produzida pelo Parser.
+     * @return O interpretador, ou null se houver um erro de compilação
+     *         (reportado como no CompilerVisitor).
+     */
+    public static AstInterpreter create(List<Statement> ast) {
+        return create(ast, OutputSink.stdout());
+    }
+
+    /**
+     * Prepara a árvore executável, com um destino próprio para a saída.
+     * @param ast A AST produzida pelo Parser.
+     * @param output Para onde vai a saída do 'print' (esvaziado ao fim de run()).
+     * @return O interpretador, ou null se houver um erro de compilação.
+     */
+    public static AstInterpreter create(List<Statement> ast, OutputSink output) {
+        try {
+            NodeBuilder builder = new NodeBuilder();
+            ProgramNode program = builder.build(ast);
+            return new AstInterpreter(program, new Frame(builder.getSlotNames(), output), output);
+        } catch (Exception e) {
+            System.err.println("Erro de Compilação: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Executa o programa.
+     * @return O resultado da execução (OK ou RUNTIME_ERROR), como em VM.run().
+     */
+    public VM.InterpretResult run() {
+        try {
+            program.execute(frame);
+            output.flush();
+            return VM.InterpretResult.OK;
+        } catch (ScriptError e) {
+            output.flush(); // A saída já impressa aparece antes do erro
+            System.err.println(e.getMessage());
+            return VM.InterpretResult.RUNTIME_ERROR;
+        } catch (Exception e) {
+            output.flush();
+            System.err.println("Erro de VM: " + e.getMessage());
+            return VM.InterpretResult.RUNTIME_ERROR;
+        }
+    }
+
+    /** Quantos nós se reescreveram em uma variante especializada. */
+    public int getSpecializationCount() {
+        return program.getSpecializationCount();
+    }
+
+    /** Quantos nós especializados voltaram para a variante genérica. */
+    public int getDespecializationCount() {
+        return program.getDespecializationCount();
+    }
+}
@@ -0,0 +1,426 @@
+package ijgm_project.interpreter;
+
+import ijgm_project.lexer.TokenType;
+import ijgm_project.vm.Rope;
+
+import java.util.Objects;
+
+/**
+ * Expressão binária ("a op b").
+ *
+ * Começa "não inicializada": na primeira execução avalia os dois lados e,
+ * pelos tipos observados, se reescreve em uma variante especializada
+ * (aritmética de int, aritmética de float, comparação de int, ...). As
+ * variantes especializadas pedem os operandos já tipados aos filhos
+ * (executeInt/executeFloat/executeBoolean) e não alocam nada. Se um
+ * operando vier com outro tipo, o nó vira a variante genérica, que
+ * implementa a semântica completa da VM (coerção int -> float,
+ * concatenação de strings e as mesmas mensagens de erro).
+ */
+abstract class BinaryNode extends ExpressionNode {
+
+    final TokenType operator;
+    ExpressionNode left;
+    ExpressionNode right;
+
+    BinaryNode(TokenType operator, ExpressionNode left, ExpressionNode right) {
+        this.operator = operator;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    static BinaryNode create(TokenType operator, ExpressionNode left, ExpressionNode right) {
+        return new Uninitialized(operator, left, right);
+    }
+
+    @Override
+    void replaceChild(Node oldChild, Node newChild) {
+        if (left == oldChild) {
+            left = (ExpressionNode) newChild;
+        } else if (right == oldChild) {
+            right = (ExpressionNode) newChild;
+        }
+    }
+
+    /** De-especializa e termina a operação com os valores já calculados. */
+    final Object generalize(Object a, Object b) {
+        replace(new Generic(operator, left, right), true);
+        return evaluate(operator, a, b);
+    }
+
+    // --- Semântica genérica (a mesma da VM) ---
+
+    private static boolean isNumber(Object value) {
+        return value instanceof Integer || value instanceof Float;
+    }
+
+    private static float asFloat(Object value) {
+        return ((Number) value).floatValue();
+    }
+
+    /** Texto para concatenação (uma string ou Rope não é achatada). */
+    private static CharSequence text(Object value) {
+        return value instanceof CharSequence text ? text : String.valueOf(value);
+    }
+
+    /** Igualdade de 'a == b' (como Objects.equals, mas textos comparam o conteúdo). */
+    private static boolean valuesEqual(Object a, Object b) {
+        if (a instanceof CharSequence x && b instanceof CharSequence y) {
+            return Rope.contentEquals(x, y);
+        }
+        return Objects.equals(a, b);
+    }
+
+    static Object evaluate(TokenType operator, Object a, Object b) {
+        switch (operator) {
+            case PLUS -> {
+                if (a instanceof CharSequence || b instanceof CharSequence) {
+                    return Rope.concat(text(a), text(b));
+                }
+                if (!isNumber(a) || !isNumber(b)) {
+                    throw new RuntimeException("Operands must be two numbers or two strings for '+'.");
+                }
+            }
+            case EQUAL_EQUAL -> {
+                return valuesEqual(a, b);
+            }
+            case NOT_EQUAL -> {
+                return !valuesEqual(a, b);
+            }
+            case AND, OR -> {
+                if (!(a instanceof Boolean) || !(b instanceof Boolean)) {
+                    throw new ScriptError("Operandos para '" + (operator == TokenType.AND ? "&&" : "||")
+                            + "' devem ser booleanos.");
+                }
+                return operator == TokenType.AND ? (Boolean) a && (Boolean) b : (Boolean) a || (Boolean) b;
+            }
+            default -> {
+                if (!isNumber(a) || !isNumber(b)) {
+                    throw new RuntimeException("Operands must be two numbers for this operation.");
+                }
+            }
+        }
+        if (a instanceof Integer x && b instanceof Integer y) {
+            return isComparison(operator) ? (Object) compareInts(operator, x, y) : (Object) intArithmetic(operator, x, y);
+        }
+        float x = asFloat(a);
+        float y = asFloat(b);
+        return isComparison(operator) ? (Object) compareFloats(operator, x, y) : (Object) floatArithmetic(operator, x, y);
+    }
+
+    static boolean isComparison(TokenType operator) {
+        return switch (operator) {
+            case GREATER_THAN, GREATER_EQUAL, LESS_THAN, LESS_EQUAL, EQUAL_EQUAL, NOT_EQUAL -> true;
+            default -> false;
+        };
+    }
+
+    static int intArithmetic(TokenType operator, int a, int b) {
+        return switch (operator) {
+            case PLUS -> a + b;
+            case MINUS -> a - b;
+            case MULTIPLY -> a * b;
+            default -> { // DIVIDE
+                if (b == 0) {
+                    throw new RuntimeException("Divisão por zero.");
+                }
+                yield a / b;
+            }
+        };
+    }
+
+    static float floatArithmetic(TokenType operator, float a, float b) {
+        return switch (operator) {
+            case PLUS -> a + b;
+            case MINUS -> a - b;
+            case MULTIPLY -> a * b;
+            default -> { // DIVIDE
+                if (b == 0.0f) {
+                    throw new RuntimeException("Divisão por zero.");
+                }
+                yield a / b;
+            }
+        };
+    }
+
+    static boolean compareInts(TokenType operator, int a, int b) {
+        return switch (operator) {
+            case GREATER_THAN -> a > b;
+            case GREATER_EQUAL -> a >= b;
+            case LESS_THAN -> a < b;
+            case LESS_EQUAL -> a <= b;
+            case EQUAL_EQUAL -> a == b;
+            default -> a != b; // NOT_EQUAL
+        };
+    }
+
+    static boolean compareFloats(TokenType operator, float a, float b) {
+        return switch (operator) {
+            case GREATER_THAN -> a > b;
+            case GREATER_EQUAL -> a >= b;
+            case LESS_THAN -> a < b;
+            default -> a <= b; // LESS_EQUAL
+        };
+    }
+
+    // --- Variantes ---
+
+    static final class Uninitialized extends BinaryNode {
+        Uninitialized(TokenType operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object a = left.execute(frame);
+            Object b = right.execute(frame);
+            Object result = evaluate(operator, a, b);
+            replace(specialize(a, b), false);
+            return result;
+        }
+
+        private BinaryNode specialize(Object a, Object b) {
+            boolean ints = a instanceof Integer && b instanceof Integer;
+            boolean numbers = isNumber(a) && isNumber(b);
+            switch (operator) {
+                case PLUS, MINUS, MULTIPLY, DIVIDE -> {
+                    if (ints) {
+                        return new IntArithmetic(operator, left, right);
+                    }
+                    if (numbers) {
+                        return new FloatArithmetic(operator, left, right, a instanceof Integer, b instanceof Integer);
+                    }
+                }
+                case GREATER_THAN, GREATER_EQUAL, LESS_THAN, LESS_EQUAL -> {
+                    if (ints) {
+                        return new IntComparison(operator, left, right);
+                    }
+                    if (numbers) {
+                        return new FloatComparison(operator, left, right, a instanceof Integer, b instanceof Integer);
+                    }
+                }
+                case EQUAL_EQUAL, NOT_EQUAL -> {
+                    if (ints) {
+                        return new IntComparison(operator, left, right);
+                    }
+                    if (a instanceof Boolean && b instanceof Boolean) {
+                        return new BooleanLogic(operator, left, right);
+                    }
+                }
+                case AND, OR -> {
+                    if (a instanceof Boolean && b instanceof Boolean) {
+                        return new BooleanLogic(operator, left, right);
+                    }
+                }
+                default -> {
+                    // Sem especialização
+                }
+            }
+            return new Generic(operator, left, right);
+        }
+    }
+
+    /** + - * / com dois ints. */
+    static final class IntArithmetic extends BinaryNode {
+        IntArithmetic(TokenType operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return e.getResult();
+            }
+        }
+
+        @Override
+        int executeInt(Frame frame) throws UnexpectedResultException {
+            int a;
+            try {
+                a = left.executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return expectInt(generalize(e.getResult(), right.execute(frame)));
+            }
+            int b;
+            try {
+                b = right.executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return expectInt(generalize(a, e.getResult()));
+            }
+            return intArithmetic(operator, a, b);
+        }
+    }
+
+    /** + - * / com floats (um dos lados pode ser int, convertido como na VM). */
+    static final class FloatArithmetic extends BinaryNode {
+        private final boolean leftInt;
+        private final boolean rightInt;
+
+        FloatArithmetic(TokenType operator, ExpressionNode left, ExpressionNode right, boolean leftInt, boolean rightInt) {
+            super(operator, left, right);
+            this.leftInt = leftInt;
+            this.rightInt = rightInt;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeFloat(frame);
+            } catch (UnexpectedResultException e) {
+                return e.getResult();
+            }
+        }
+
+        @Override
+        float executeFloat(Frame frame) throws UnexpectedResultException {
+            int intA = 0; // O valor original, se o lado esquerdo for int (para generalize)
+            float a;
+            try {
+                if (leftInt) {
+                    intA = left.executeInt(frame);
+                    a = intA;
+                } else {
+                    a = left.executeFloat(frame);
+                }
+            } catch (UnexpectedResultException e) {
+                return expectFloat(generalize(e.getResult(), right.execute(frame)));
+            }
+            float b;
+            try {
+                b = rightInt ? right.executeInt(frame) : right.executeFloat(frame);
+            } catch (UnexpectedResultException e) {
+                return expectFloat(generalize(leftInt ? (Object) intA : (Object) a, e.getResult()));
+            }
+            return floatArithmetic(operator, a, b);
+        }
+    }
+
+    /** Comparações (inclusive == e !=) entre dois ints. */
+    static final class IntComparison extends BinaryNode {
+        IntComparison(TokenType operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeBoolean(frame);
+            } catch (UnexpectedResultException e) {
+                return e.getResult();
+            }
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) throws UnexpectedResultException {
+            int a;
+            try {
+                a = left.executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return expectBoolean(generalize(e.getResult(), right.execute(frame)));
+            }
+            int b;
+            try {
+                b = right.executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return expectBoolean(generalize(a, e.getResult()));
+            }
+            return compareInts(operator, a, b);
+        }
+    }
+
+    /** > >= < <= com floats (um dos lados pode ser int). */
+    static final class FloatComparison extends BinaryNode {
+        private final boolean leftInt;
+        private final boolean rightInt;
+
+        FloatComparison(TokenType operator, ExpressionNode left, ExpressionNode right, boolean leftInt, boolean rightInt) {
+            super(operator, left, right);
+            this.leftInt = leftInt;
+            this.rightInt = rightInt;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeBoolean(frame);
+            } catch (UnexpectedResultException e) {
+                return e.getResult();
+            }
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) throws UnexpectedResultException {
+            int intA = 0; // O valor original, se o lado esquerdo for int (para generalize)
+            float a;
+            try {
+                if (leftInt) {
+                    intA = left.executeInt(frame);
+                    a = intA;
+                } else {
+                    a = left.executeFloat(frame);
+                }
+            } catch (UnexpectedResultException e) {
+                return expectBoolean(generalize(e.getResult(), right.execute(frame)));
+            }
+            float b;
+            try {
+                b = rightInt ? right.executeInt(frame) : right.executeFloat(frame);
+            } catch (UnexpectedResultException e) {
+                return expectBoolean(generalize(leftInt ? (Object) intA : (Object) a, e.getResult()));
+            }
+            return compareFloats(operator, a, b);
+        }
+    }
+
+    /** && || == != entre dois booleanos (os dois lados são sempre avaliados, como na VM). */
+    static final class BooleanLogic extends BinaryNode {
+        BooleanLogic(TokenType operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                return executeBoolean(frame);
+            } catch (UnexpectedResultException e) {
+                return e.getResult();
+            }
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) throws UnexpectedResultException {
+            boolean a;
+            try {
+                a = left.executeBoolean(frame);
+            } catch (UnexpectedResultException e) {
+                return expectBoolean(generalize(e.getResult(), right.execute(frame)));
+            }
+            boolean b;
+            try {
+                b = right.executeBoolean(frame);
+            } catch (UnexpectedResultException e) {
+                return expectBoolean(generalize(a, e.getResult()));
+            }
+            return switch (operator) {
+                case AND -> a & b;
+                case OR -> a | b;
+                case EQUAL_EQUAL -> a == b;
+                default -> a != b; // NOT_EQUAL
+            };
+        }
+    }
+
+    static final class Generic extends BinaryNode {
+        Generic(TokenType operator, ExpressionNode left, ExpressionNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object a = left.execute(frame);
+            return evaluate(operator, a, right.execute(frame));
+        }
+    }
+}
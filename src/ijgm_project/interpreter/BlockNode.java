@@ -0,0 +1,35 @@
+package ijgm_project.interpreter;
+
+import java.util.List;
+
+/**
+ * Uma sequência de comandos (corpo de 'if'/'while', bloco '{ }' ou o programa).
+ */
+final class BlockNode extends StatementNode {
+
+    private final StatementNode[] statements;
+
+    BlockNode(List<StatementNode> statements) {
+        this.statements = statements.toArray(new StatementNode[0]);
+        for (StatementNode statement : this.statements) {
+            adopt(statement);
+        }
+    }
+
+    @Override
+    void replaceChild(Node oldChild, Node newChild) {
+        for (int i = 0; i < statements.length; i++) {
+            if (statements[i] == oldChild) {
+                statements[i] = (StatementNode) newChild;
+                return;
+            }
+        }
+    }
+
+    @Override
+    void execute(Frame frame) {
+        for (StatementNode statement : statements) {
+            statement.execute(frame);
+        }
+    }
+}
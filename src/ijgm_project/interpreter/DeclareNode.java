@@ -0,0 +1,20 @@
+package ijgm_project.interpreter;
+
+/**
+ * Declaração "tipo x;": define o slot com o valor padrão do tipo.
+ */
+final class DeclareNode extends StatementNode {
+
+    private final int slot;
+    private final Object defaultValue;
+
+    DeclareNode(int slot, Object defaultValue) {
+        this.slot = slot;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    void execute(Frame frame) {
+        frame.set(slot, defaultValue);
+    }
+}
@@ -0,0 +1,49 @@
+package ijgm_project.interpreter;
+
+/**
+ * Nó de expressão.
+ *
+ * Além do execute() genérico (valor "encaixotado"), oferece versões
+ * tipadas. Um nó especializado as implementa sem alocar; a versão padrão
+ * executa o genérico e confere o tipo. Se o valor não for do tipo pedido,
+ * ele volta dentro de uma UnexpectedResultException, para que o pai se
+ * de-especialize sem perder o valor já calculado.
+ */
+abstract class ExpressionNode extends Node {
+
+    /** Avalia a expressão: Integer, Float, Boolean, String ou null. */
+    abstract Object execute(Frame frame);
+
+    int executeInt(Frame frame) throws UnexpectedResultException {
+        return expectInt(execute(frame));
+    }
+
+    float executeFloat(Frame frame) throws UnexpectedResultException {
+        return expectFloat(execute(frame));
+    }
+
+    boolean executeBoolean(Frame frame) throws UnexpectedResultException {
+        return expectBoolean(execute(frame));
+    }
+
+    static int expectInt(Object value) throws UnexpectedResultException {
+        if (value instanceof Integer i) {
+            return i;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    static float expectFloat(Object value) throws UnexpectedResultException {
+        if (value instanceof Float f) {
+            return f;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    static boolean expectBoolean(Object value) throws UnexpectedResultException {
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        throw new UnexpectedResultException(value);
+    }
+}
@@ -0,0 +1,94 @@
+package ijgm_project.interpreter;
+
+import ijgm_project.vm.OutputSink;
+
+/**
+ * As variáveis do programa durante a execução pela AST.
+ *
+ * Usa a mesma representação de valores da VM (ver vm.ValueTag): cada slot
+ * guarda uma tag de tipo, um 'long' com o valor primitivo (int, bits do
+ * float ou 0/1 do bool) e uma referência (só para strings). Assim os nós
+ * especializados leem e escrevem int/float/bool sem "encaixotar".
+ *
+ * Cada declaração (global ou de bloco) recebe um slot próprio, resolvido
+ * uma única vez pelo NodeBuilder.
+ */
+final class Frame {
+
+    static final byte NONE = 0; // Slot ainda não definido
+    static final byte INT = 1;
+    static final byte FLOAT = 2;
+    static final byte BOOL = 3;
+    static final byte STRING = 4;
+    static final byte NULL = 5;
+
+    final byte[] tags;
+    final long[] prims;
+    final Object[] refs;
+
+    // Para onde vai a saída do 'print'
+    final OutputSink output;
+
+    // Nomes das variáveis (só para as mensagens de erro)
+    private final String[] names;
+
+    Frame(String[] names, OutputSink output) {
+        this.names = names;
+        this.output = output;
+        this.tags = new byte[names.length];
+        this.prims = new long[names.length];
+        this.refs = new Object[names.length];
+    }
+
+    String nameOf(int slot) {
+        return names[slot];
+    }
+
+    /** Lê o slot como valor "encaixotado" (Integer, Float, Boolean, String ou null). */
+    Object get(int slot) {
+        return switch (tags[slot]) {
+            case INT -> (int) prims[slot];
+            case FLOAT -> Float.intBitsToFloat((int) prims[slot]);
+            case BOOL -> prims[slot] != 0;
+            case STRING -> refs[slot];
+            default -> null;
+        };
+    }
+
+    /** Escreve um valor "encaixotado" no slot. */
+    void set(int slot, Object value) {
+        if (value instanceof Integer i) {
+            setInt(slot, i);
+        } else if (value instanceof Float f) {
+            setFloat(slot, f);
+        } else if (value instanceof Boolean b) {
+            setBoolean(slot, b);
+        } else if (value instanceof CharSequence text) { // String ou Rope
+            tags[slot] = STRING;
+            prims[slot] = 0L;
+            refs[slot] = text;
+        } else {
+            tags[slot] = NULL;
+            prims[slot] = 0L;
+            refs[slot] = null;
+        }
+    }
+
+    void setInt(int slot, int value) {
+        tags[slot] = INT;
+        prims[slot] = value;
+        refs[slot] = null;
+    }
+
+    void setFloat(int slot, float value) {
+        tags[slot] = FLOAT;
+        prims[slot] = Float.floatToRawIntBits(value);
+        refs[slot] = null;
+    }
+
+    void setBoolean(int slot, boolean value) {
+        tags[slot] = BOOL;
+        prims[slot] = value ? 1L : 0L;
+        refs[slot] = null;
+    }
+}
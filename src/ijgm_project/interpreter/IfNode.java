@@ -0,0 +1,33 @@
+package ijgm_project.interpreter;
+
+/**
+ * "if (cond) { ... } else { ... }".
+ */
+final class IfNode extends StatementNode {
+
+    private ExpressionNode condition;
+    private final BlockNode thenBody;
+    private final BlockNode elseBody; // Pode ser null
+
+    IfNode(ExpressionNode condition, BlockNode thenBody, BlockNode elseBody) {
+        this.condition = adopt(condition);
+        this.thenBody = adopt(thenBody);
+        this.elseBody = adopt(elseBody);
+    }
+
+    @Override
+    void replaceChild(Node oldChild, Node newChild) {
+        if (condition == oldChild) {
+            condition = (ExpressionNode) newChild;
+        }
+    }
+
+    @Override
+    void execute(Frame frame) {
+        if (condition(condition, frame)) {
+            thenBody.execute(frame);
+        } else if (elseBody != null) {
+            elseBody.execute(frame);
+        }
+    }
+}
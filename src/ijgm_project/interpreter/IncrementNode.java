@@ -0,0 +1,92 @@
+package ijgm_project.interpreter;
+
+/**
+ * "x++;" e "x--;". Especializa-se pelo tipo do slot (int ou float).
+ */
+abstract class IncrementNode extends StatementNode {
+
+    final int slot;
+    final boolean global;
+    final int delta; // +1 ou -1
+
+    IncrementNode(int slot, boolean global, int delta) {
+        this.slot = slot;
+        this.global = global;
+        this.delta = delta;
+    }
+
+    static IncrementNode create(int slot, boolean global, int delta) {
+        return new Uninitialized(slot, global, delta);
+    }
+
+    /** Semântica completa (e mensagens) de OP_INCREMENT_* / OP_DECREMENT_* da VM. */
+    final void incrementGeneric(Frame frame) {
+        String operator = delta > 0 ? "++" : "--";
+        if (global && frame.tags[slot] == Frame.NONE) {
+            throw new ScriptError("Variável global '" + frame.nameOf(slot) + "' não definida para '" + operator + "'.");
+        }
+        switch (frame.tags[slot]) {
+            case Frame.INT -> frame.prims[slot] = (int) frame.prims[slot] + delta;
+            case Frame.FLOAT -> frame.prims[slot] = Float.floatToRawIntBits(
+                    Float.intBitsToFloat((int) frame.prims[slot]) + delta);
+            default -> throw new ScriptError("Operando '" + operator + "' deve ser um número (Integer ou Float).");
+        }
+    }
+
+    static final class Uninitialized extends IncrementNode {
+        Uninitialized(int slot, boolean global, int delta) {
+            super(slot, global, delta);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            incrementGeneric(frame);
+            replace(switch (frame.tags[slot]) {
+                case Frame.INT -> new IntIncrement(slot, global, delta);
+                case Frame.FLOAT -> new FloatIncrement(slot, global, delta);
+                default -> new Generic(slot, global, delta);
+            }, false);
+        }
+    }
+
+    static final class IntIncrement extends IncrementNode {
+        IntIncrement(int slot, boolean global, int delta) {
+            super(slot, global, delta);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            if (frame.tags[slot] == Frame.INT) {
+                frame.prims[slot] = (int) frame.prims[slot] + delta;
+            } else {
+                replace(new Generic(slot, global, delta), true).incrementGeneric(frame);
+            }
+        }
+    }
+
+    static final class FloatIncrement extends IncrementNode {
+        FloatIncrement(int slot, boolean global, int delta) {
+            super(slot, global, delta);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            if (frame.tags[slot] == Frame.FLOAT) {
+                frame.prims[slot] = Float.floatToRawIntBits(Float.intBitsToFloat((int) frame.prims[slot]) + delta);
+            } else {
+                replace(new Generic(slot, global, delta), true).incrementGeneric(frame);
+            }
+        }
+    }
+
+    static final class Generic extends IncrementNode {
+        Generic(int slot, boolean global, int delta) {
+            super(slot, global, delta);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            incrementGeneric(frame);
+        }
+    }
+}
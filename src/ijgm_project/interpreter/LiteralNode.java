@@ -0,0 +1,93 @@
+package ijgm_project.interpreter;
+
+/**
+ * Literais. O tipo já é conhecido ao construir a árvore, então cada
+ * literal nasce especializado (e o valor "encaixotado" é criado uma vez só).
+ */
+abstract class LiteralNode extends ExpressionNode {
+
+    static LiteralNode of(Object value) {
+        if (value instanceof Integer i) {
+            return new IntLiteral(i);
+        }
+        if (value instanceof Float f) {
+            return new FloatLiteral(f);
+        }
+        if (value instanceof Boolean b) {
+            return new BooleanLiteral(b);
+        }
+        return new ObjectLiteral(value);
+    }
+
+    static final class IntLiteral extends LiteralNode {
+        private final int value;
+        private final Integer boxed;
+
+        IntLiteral(int value) {
+            this.value = value;
+            this.boxed = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return boxed;
+        }
+
+        @Override
+        int executeInt(Frame frame) {
+            return value;
+        }
+    }
+
+    static final class FloatLiteral extends LiteralNode {
+        private final float value;
+        private final Float boxed;
+
+        FloatLiteral(float value) {
+            this.value = value;
+            this.boxed = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return boxed;
+        }
+
+        @Override
+        float executeFloat(Frame frame) {
+            return value;
+        }
+    }
+
+    static final class BooleanLiteral extends LiteralNode {
+        private final boolean value;
+
+        BooleanLiteral(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return value;
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) {
+            return value;
+        }
+    }
+
+    /** Strings (e o nulo). */
+    static final class ObjectLiteral extends LiteralNode {
+        private final Object value;
+
+        ObjectLiteral(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return value;
+        }
+    }
+}
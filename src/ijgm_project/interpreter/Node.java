@@ -0,0 +1,50 @@
+package ijgm_project.interpreter;
+
+/**
+ * Base de todos os nós executáveis.
+ *
+ * Um nó pode se REESCREVER (replace) em uma variante mais específica depois
+ * de observar os tipos em tempo de execução, por exemplo uma soma genérica
+ * que vira uma soma de inteiros. Se a hipótese falhar mais tarde, o nó
+ * especializado se reescreve na variante genérica (de-especialização), que
+ * nunca falha por tipo.
+ */
+abstract class Node {
+
+    private Node parent;
+
+    /** Torna este nó o pai de 'child' (necessário para que o filho possa se reescrever). */
+    final <T extends Node> T adopt(T child) {
+        if (child != null) {
+            ((Node) child).parent = this;
+        }
+        return child;
+    }
+
+    /**
+     * Troca este nó por 'replacement' no pai.
+     * @param generalization true se for uma de-especialização (volta ao genérico).
+     * @return O nó substituto (para encadear a execução).
+     */
+    final <T extends Node> T replace(T replacement, boolean generalization) {
+        if (parent == null) {
+            throw new IllegalStateException("Nó sem pai não pode ser reescrito: " + getClass().getSimpleName());
+        }
+        parent.replaceChild(this, replacement);
+        ((Node) replacement).parent = parent;
+
+        Node root = parent;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        if (root instanceof ProgramNode program) {
+            program.countRewrite(generalization);
+        }
+        return replacement;
+    }
+
+    /** Substitui o filho 'oldChild' por 'newChild'. Nós com filhos reescritíveis sobrescrevem. */
+    void replaceChild(Node oldChild, Node newChild) {
+        throw new IllegalStateException(getClass().getSimpleName() + " não tem filhos reescritíveis.");
+    }
+}
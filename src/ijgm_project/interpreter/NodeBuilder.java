@@ -0,0 +1,167 @@
+package ijgm_project.interpreter;
+
+import ijgm_project.parser.ast.*;
+import ijgm_project.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traduz a AST (parser.ast) para a árvore de nós executáveis.
+ *
+ * Faz o papel do CompilerVisitor para este backend: resolve cada nome de
+ * variável para um slot do Frame (com as mesmas regras de escopo e os
+ * mesmos erros de compilação da CompilerSymbolTable), de modo que nenhum
+ * nó procura nomes durante a execução.
+ */
+final class NodeBuilder implements Visitor<Node> {
+
+    /** Um nome resolvido: o slot no Frame e se é global. */
+    private record Slot(int index, boolean global) {
+    }
+
+    private final Map<String, Integer> globals = new HashMap<>();
+    private final LinkedList<Map<String, Integer>> scopes = new LinkedList<>();
+    private final List<String> names = new ArrayList<>();
+
+    ProgramNode build(List<Statement> ast) {
+        return new ProgramNode(block(ast));
+    }
+
+    /** Os nomes de todos os slots (o tamanho do Frame). */
+    String[] getSlotNames() {
+        return names.toArray(new String[0]);
+    }
+
+    private BlockNode block(List<Statement> statements) {
+        List<StatementNode> nodes = new ArrayList<>();
+        if (statements != null) {
+            for (Statement statement : statements) {
+                nodes.add((StatementNode) statement.accept(this));
+            }
+        }
+        return new BlockNode(nodes);
+    }
+
+    private ExpressionNode expression(Expression expression) {
+        return (ExpressionNode) expression.accept(this);
+    }
+
+    // --- Resolução de nomes (mesmas regras da CompilerSymbolTable) ---
+
+    private Slot declare(String name) {
+        Map<String, Integer> scope = scopes.isEmpty() ? globals : scopes.peekFirst();
+        if (scope.containsKey(name)) {
+            throw new RuntimeException(scopes.isEmpty()
+                    ? "Erro de Compilação: Variável global '" + name + "' já declarada."
+                    : "Erro de Compilação: Variável '" + name + "' já declarada neste escopo.");
+        }
+        int index = names.size();
+        names.add(name);
+        scope.put(name, index);
+        return new Slot(index, scopes.isEmpty());
+    }
+
+    private Slot resolve(String name) {
+        for (Map<String, Integer> scope : scopes) {
+            Integer index = scope.get(name);
+            if (index != null) {
+                return new Slot(index, false);
+            }
+        }
+        Integer index = globals.get(name);
+        if (index == null) {
+            throw new RuntimeException("Erro de Compilação: Variável '" + name + "' não foi declarada.");
+        }
+        return new Slot(index, true);
+    }
+
+    // --- Comandos ---
+
+    @Override
+    public Node visit(DeclarationStatement statement) {
+        Object defaultValue = switch (statement.getType()) {
+            case INT -> 0;
+            case FLOAT -> 0.0f;
+            case BOOL -> false;
+            case STRING_TYPE -> "";
+            default -> null;
+        };
+        return new DeclareNode(declare(statement.getVariableName()).index(), defaultValue);
+    }
+
+    @Override
+    public Node visit(AssignStatement statement) {
+        // A expressão é resolvida antes do nome, como no CompilerVisitor
+        ExpressionNode value = expression(statement.getExpression());
+        Slot slot = resolve(statement.getVariableName());
+        return WriteVariableNode.create(slot.index(), slot.global(), value);
+    }
+
+    @Override
+    public Node visit(IncrementStatement statement) {
+        Slot slot = resolve(statement.getVariableName());
+        return IncrementNode.create(slot.index(), slot.global(), 1);
+    }
+
+    @Override
+    public Node visit(DecrementStatement statement) {
+        Slot slot = resolve(statement.getVariableName());
+        return IncrementNode.create(slot.index(), slot.global(), -1);
+    }
+
+    @Override
+    public Node visit(PrintStatement statement) {
+        return new PrintNode(expression(statement.getExpression()));
+    }
+
+    @Override
+    public Node visit(ScopeStatement statement) {
+        scopes.addFirst(new HashMap<>());
+        BlockNode body = block(statement.getStatements());
+        scopes.removeFirst();
+        return body;
+    }
+
+    @Override
+    public Node visit(IfStatement statement) {
+        ExpressionNode condition = expression(statement.getCondition());
+        BlockNode thenBody = block(statement.getThenBody());
+        BlockNode elseBody = statement.getElseBody() != null ? block(statement.getElseBody()) : null;
+        return new IfNode(condition, thenBody, elseBody);
+    }
+
+    @Override
+    public Node visit(WhileStatement statement) {
+        ExpressionNode condition = expression(statement.getCondition());
+        return new WhileNode(condition, block(statement.getBody()));
+    }
+
+    // --- Expressões ---
+
+    @Override
+    public Node visit(BinaryExpression expression) {
+        ExpressionNode left = expression(expression.getLeft());
+        ExpressionNode right = expression(expression.getRight());
+        return switch (expression.getOperator()) {
+            case PLUS, MINUS, MULTIPLY, DIVIDE,
+                 EQUAL_EQUAL, NOT_EQUAL, GREATER_THAN, GREATER_EQUAL, LESS_THAN, LESS_EQUAL,
+                 AND, OR -> BinaryNode.create(expression.getOperator(), left, right);
+            default -> throw new RuntimeException("Operador binário desconhecido: " + expression.getOperator());
+        };
+    }
+
+    @Override
+    public Node visit(VariableExpression expression) {
+        Slot slot = resolve(expression.getName());
+        return ReadVariableNode.create(slot.index(), slot.global());
+    }
+
+    @Override
+    public Node visit(LiteralExpression expression) {
+        return LiteralNode.of(expression.getValue());
+    }
+}
@@ -0,0 +1,25 @@
+package ijgm_project.interpreter;
+
+/**
+ * "print expr;". Não se especializa: o custo está na saída, não no valor.
+ */
+final class PrintNode extends StatementNode {
+
+    private ExpressionNode value;
+
+    PrintNode(ExpressionNode value) {
+        this.value = adopt(value);
+    }
+
+    @Override
+    void replaceChild(Node oldChild, Node newChild) {
+        if (value == oldChild) {
+            value = (ExpressionNode) newChild;
+        }
+    }
+
+    @Override
+    void execute(Frame frame) {
+        frame.output.print(value.execute(frame));
+    }
+}
@@ -0,0 +1,37 @@
+package ijgm_project.interpreter;
+
+/**
+ * Raiz da árvore executável. Também conta as reescritas feitas pelos nós
+ * (ver Node.replace), para as estatísticas do Main.
+ */
+final class ProgramNode extends Node {
+
+    private final BlockNode body;
+
+    private int specializationCount;
+    private int despecializationCount;
+
+    ProgramNode(BlockNode body) {
+        this.body = adopt(body);
+    }
+
+    void execute(Frame frame) {
+        body.execute(frame);
+    }
+
+    void countRewrite(boolean generalization) {
+        if (generalization) {
+            despecializationCount++;
+        } else {
+            specializationCount++;
+        }
+    }
+
+    int getSpecializationCount() {
+        return specializationCount;
+    }
+
+    int getDespecializationCount() {
+        return despecializationCount;
+    }
+}
@@ -0,0 +1,128 @@
+package ijgm_project.interpreter;
+
+/**
+ * Leitura de variável, já resolvida para um slot do Frame.
+ *
+ * Começa "não inicializada"; na primeira execução olha o tipo que o slot
+ * tem e se reescreve em uma leitura de int, float, bool ou string. Se o
+ * tipo do slot mudar depois, vira a leitura genérica.
+ */
+abstract class ReadVariableNode extends ExpressionNode {
+
+    final int slot;
+    final boolean global;
+
+    ReadVariableNode(int slot, boolean global) {
+        this.slot = slot;
+        this.global = global;
+    }
+
+    static ReadVariableNode create(int slot, boolean global) {
+        return new Uninitialized(slot, global);
+    }
+
+    /** Leitura sem especialização (com a checagem de global indefinida da VM). */
+    final Object readGeneric(Frame frame) {
+        if (global && frame.tags[slot] == Frame.NONE) {
+            throw new ScriptError("Variável global '" + frame.nameOf(slot) + "' não definida.");
+        }
+        return frame.get(slot);
+    }
+
+    /** De-especializa (o slot mudou de tipo) e devolve o valor atual. */
+    final Object generalize(Frame frame) {
+        Object value = readGeneric(frame);
+        replace(new Generic(slot, global), true);
+        return value;
+    }
+
+    static final class Uninitialized extends ReadVariableNode {
+        Uninitialized(int slot, boolean global) {
+            super(slot, global);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object value = readGeneric(frame);
+            ReadVariableNode specialized = switch (frame.tags[slot]) {
+                case Frame.INT -> new IntRead(slot, global);
+                case Frame.FLOAT -> new FloatRead(slot, global);
+                case Frame.BOOL -> new BooleanRead(slot, global);
+                default -> new Generic(slot, global);
+            };
+            replace(specialized, false);
+            return value;
+        }
+    }
+
+    static final class IntRead extends ReadVariableNode {
+        IntRead(int slot, boolean global) {
+            super(slot, global);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return frame.tags[slot] == Frame.INT ? (Object) (int) frame.prims[slot] : generalize(frame);
+        }
+
+        @Override
+        int executeInt(Frame frame) throws UnexpectedResultException {
+            if (frame.tags[slot] == Frame.INT) {
+                return (int) frame.prims[slot];
+            }
+            throw new UnexpectedResultException(generalize(frame));
+        }
+    }
+
+    static final class FloatRead extends ReadVariableNode {
+        FloatRead(int slot, boolean global) {
+            super(slot, global);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return frame.tags[slot] == Frame.FLOAT
+                    ? (Object) Float.intBitsToFloat((int) frame.prims[slot])
+                    : generalize(frame);
+        }
+
+        @Override
+        float executeFloat(Frame frame) throws UnexpectedResultException {
+            if (frame.tags[slot] == Frame.FLOAT) {
+                return Float.intBitsToFloat((int) frame.prims[slot]);
+            }
+            throw new UnexpectedResultException(generalize(frame));
+        }
+    }
+
+    static final class BooleanRead extends ReadVariableNode {
+        BooleanRead(int slot, boolean global) {
+            super(slot, global);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return frame.tags[slot] == Frame.BOOL ? (Object) (frame.prims[slot] != 0) : generalize(frame);
+        }
+
+        @Override
+        boolean executeBoolean(Frame frame) throws UnexpectedResultException {
+            if (frame.tags[slot] == Frame.BOOL) {
+                return frame.prims[slot] != 0;
+            }
+            throw new UnexpectedResultException(generalize(frame));
+        }
+    }
+
+    /** Strings e slots cujo tipo já mudou: sempre pelo caminho "encaixotado". */
+    static final class Generic extends ReadVariableNode {
+        Generic(int slot, boolean global) {
+            super(slot, global);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return readGeneric(frame);
+        }
+    }
+}
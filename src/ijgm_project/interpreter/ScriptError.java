@@ -0,0 +1,17 @@
+package ijgm_project.interpreter;
+
+/**
+ * Erro de execução com a mensagem exata que a VM imprime em runtimeError()
+ * (ex: "Condição do 'if' ou 'while' deve ser um booleano.").
+ *
+ * Os demais erros (ex: divisão por zero) são RuntimeException comuns e
+ * saem com o prefixo "Erro de VM: ", também como na VM.
+ */
+final class ScriptError extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    ScriptError(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package ijgm_project.interpreter;
+
+/**
+ * Nó de comando (statement).
+ */
+abstract class StatementNode extends Node {
+
+    abstract void execute(Frame frame);
+
+    /** Avalia a condição de um 'if'/'while' (só booleanos são aceitos, como na VM). */
+    static boolean condition(ExpressionNode condition, Frame frame) {
+        try {
+            return condition.executeBoolean(frame);
+        } catch (UnexpectedResultException e) {
+            throw new ScriptError("Condição do 'if' ou 'while' deve ser um booleano.");
+        }
+    }
+}
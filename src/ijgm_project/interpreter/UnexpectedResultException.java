@@ -0,0 +1,22 @@
+package ijgm_project.interpreter;
+
+/**
+ * Lançada por um executeInt/executeFloat/executeBoolean quando o valor não
+ * é do tipo esperado. Carrega o valor já calculado, para que o nó chamador
+ * possa se de-especializar e continuar sem reavaliar a expressão.
+ */
+final class UnexpectedResultException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object result;
+
+    UnexpectedResultException(Object result) {
+        super(null, null, false, false); // Sem stack trace: faz parte do fluxo normal
+        this.result = result;
+    }
+
+    Object getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package ijgm_project.interpreter;
+
+/**
+ * "while (cond) { ... }".
+ */
+final class WhileNode extends StatementNode {
+
+    private ExpressionNode condition;
+    private final BlockNode body;
+
+    WhileNode(ExpressionNode condition, BlockNode body) {
+        this.condition = adopt(condition);
+        this.body = adopt(body);
+    }
+
+    @Override
+    void replaceChild(Node oldChild, Node newChild) {
+        if (condition == oldChild) {
+            condition = (ExpressionNode) newChild;
+        }
+    }
+
+    @Override
+    void execute(Frame frame) {
+        while (condition(condition, frame)) {
+            body.execute(frame);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ijgm_project.interpreter;
+
+/**
+ * Atribuição "x = expr;".
+ *
+ * Especializa-se pelo tipo do valor atribuído: uma escrita de int chama
+ * executeInt() na expressão e grava o primitivo direto no slot, sem
+ * "encaixotar" o resultado.
+ */
+abstract class WriteVariableNode extends StatementNode {
+
+    final int slot;
+    final boolean global;
+    ExpressionNode value;
+
+    WriteVariableNode(int slot, boolean global, ExpressionNode value) {
+        this.slot = slot;
+        this.global = global;
+        this.value = adopt(value);
+    }
+
+    static WriteVariableNode create(int slot, boolean global, ExpressionNode value) {
+        return new Uninitialized(slot, global, value);
+    }
+
+    @Override
+    void replaceChild(Node oldChild, Node newChild) {
+        if (value == oldChild) {
+            value = (ExpressionNode) newChild;
+        }
+    }
+
+    final void checkDefined(Frame frame) {
+        if (global && frame.tags[slot] == Frame.NONE) {
+            throw new ScriptError("Variável global '" + frame.nameOf(slot) + "' não definida.");
+        }
+    }
+
+    final void writeGeneric(Frame frame, Object result) {
+        checkDefined(frame);
+        frame.set(slot, result);
+    }
+
+    /** De-especializa (a expressão mudou de tipo) e grava o valor já calculado. */
+    final void generalize(Frame frame, Object result) {
+        replace(new Generic(slot, global, value), true);
+        writeGeneric(frame, result);
+    }
+
+    static final class Uninitialized extends WriteVariableNode {
+        Uninitialized(int slot, boolean global, ExpressionNode value) {
+            super(slot, global, value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            Object result = value.execute(frame);
+            WriteVariableNode specialized;
+            if (result instanceof Integer) {
+                specialized = new IntWrite(slot, global, value);
+            } else if (result instanceof Float) {
+                specialized = new FloatWrite(slot, global, value);
+            } else if (result instanceof Boolean) {
+                specialized = new BooleanWrite(slot, global, value);
+            } else {
+                specialized = new Generic(slot, global, value);
+            }
+            replace(specialized, false);
+            writeGeneric(frame, result);
+        }
+    }
+
+    static final class IntWrite extends WriteVariableNode {
+        IntWrite(int slot, boolean global, ExpressionNode value) {
+            super(slot, global, value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            try {
+                int result = value.executeInt(frame);
+                checkDefined(frame);
+                frame.setInt(slot, result);
+            } catch (UnexpectedResultException e) {
+                generalize(frame, e.getResult());
+            }
+        }
+    }
+
+    static final class FloatWrite extends WriteVariableNode {
+        FloatWrite(int slot, boolean global, ExpressionNode value) {
+            super(slot, global, value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            try {
+                float result = value.executeFloat(frame);
+                checkDefined(frame);
+                frame.setFloat(slot, result);
+            } catch (UnexpectedResultException e) {
+                generalize(frame, e.getResult());
+            }
+        }
+    }
+
+    static final class BooleanWrite extends WriteVariableNode {
+        BooleanWrite(int slot, boolean global, ExpressionNode value) {
+            super(slot, global, value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            try {
+                boolean result = value.executeBoolean(frame);
+                checkDefined(frame);
+                frame.setBoolean(slot, result);
+            } catch (UnexpectedResultException e) {
+                generalize(frame, e.getResult());
+            }
+        }
+    }
+
+    static final class Generic extends WriteVariableNode {
+        Generic(int slot, boolean global, ExpressionNode value) {
+            super(slot, global, value);
+        }
+
+        @Override
+        void execute(Frame frame) {
+            writeGeneric(frame, value.execute(frame));
+        }
+    }
+}
@@ -1,10 +1,26 @@
 package ijgm_project.lexer;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Analisador Léxico (Scanner).
@@ -12,39 +28,231 @@ import java.util.List;
  * o código-fonte em uma sequência de tokens.
  * * (Refatorado para quebrar responsabilidades, centralizar erros e usar
  * helpers).
+ *
+ * (Atualizado) O Lexer agora é "puxado": tokens() devolve um Iterator que
+ * lê o fonte aos poucos (de um Reader, de um CharSequence ou de um arquivo
+ * mapeado em memória, ver fromMappedFile) e produz cada token só quando o
+ * Parser pede o próximo. Só fica em memória um buffer de BUFFER_SIZE
+ * caracteres (que só cresce para caber um lexema maior que ele), então o
+ * uso de memória não depende do tamanho do arquivo. tokenize() continua existindo (junta tudo em uma lista).
  */
 public class Lexer {
-    private final String sourceCode;
-    private final List<Token> tokens = new ArrayList<>();
-    private int position = 0;
+    // Quantos caracteres do fonte ficam no buffer de leitura
+    private static final int BUFFER_SIZE = 8192;
+
+    // A origem do fonte: um Reader ou um CharSequence (exatamente um dos dois)
+    private final Reader reader;
+    private final CharSequence text;
+    private int textPosition = 0;
+
+    // A janela do fonte já lida: buffer[lexemeStart, bufferPos) é o lexema
+    // atual e buffer[bufferPos, bufferLimit) ainda não foi consumido
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int lexemeStart = 0;
+    private int bufferPos = 0;
+    private int bufferLimit = 0;
+    private boolean sourceExhausted = false;
+
+    private Token scanned; // O token produzido pelo último scanToken(), ou null
+    private boolean eofEmitted = false;
+
+    private int position = 0; // Quantos caracteres já foram consumidos
     private int line = 1;
     private int column = 1;
     private int start = 0; // Marca o início do lexema atual
 
     public Lexer(String filePath) throws IOException {
-        this.sourceCode = new String(Files.readAllBytes(Paths.get(filePath)));
+        // (Mesmo charset do antigo 'new String(bytes)'; bytes inválidos viram o caractere de substituição)
+        this(new InputStreamReader(Files.newInputStream(Paths.get(filePath)), Charset.defaultCharset()));
+    }
+
+    /**
+     * Cria um Lexer que lê o fonte aos poucos de um Reader (fechado ao fim
+     * dos tokens, em um erro léxico ou em close()).
+     * @param reader O código-fonte.
+     */
+    public Lexer(Reader reader) {
+        this.reader = reader;
+        this.text = null;
+    }
+
+    private Lexer(CharSequence sourceCode) {
+        this.reader = null;
+        this.text = sourceCode;
+    }
+
+    /**
+     * Cria um Lexer sobre um código-fonte já em memória (sem ler arquivo),
+     * ex: programas gerados ou os benchmarks. Aceita qualquer CharSequence
+     * (ex: um CharBuffer sobre um arquivo mapeado), que não é copiado.
+     * @param sourceCode O código-fonte completo.
+     */
+    public static Lexer fromSource(CharSequence sourceCode) {
+        return new Lexer(sourceCode);
+    }
+
+    /**
+     * Cria um Lexer sobre um arquivo mapeado em memória (FileChannel.map):
+     * os bytes são decodificados aos poucos, conforme os tokens são pedidos,
+     * e as páginas do arquivo não contam no heap.
+     * @param file O arquivo-fonte (até 2 GB, o limite de um mapeamento).
+     * @param charset A codificação do arquivo.
+     */
+    public static Lexer fromMappedFile(Path file, Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Lexer(new DecodingReader(bytes, charset));
+        }
+    }
+
+    /**
+     * Os tokens do fonte, produzidos sob demanda (o último é sempre EOF).
+     * O fonte é lido uma única vez: o Iterator pode ser pedido só uma vez.
+     * Um erro léxico é lançado por hasNext()/next(), quando o Parser chega nele.
+     * @return O Iterator dos tokens.
+     */
+    public Iterator<Token> tokens() {
+        return new Iterator<>() {
+            private Token next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = nextToken();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Token next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Token token = next;
+                next = null;
+                return token;
+            }
+        };
     }
 
     /**
      * Método principal para a análise léxica.
      * Percorre o código-fonte caractere por caractere e identifica os tokens.
+     * (Guarda todos os tokens; para fontes grandes, prefira tokens().)
      * * @return Uma lista sequencial de objetos Token.
      */
     public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        tokens().forEachRemaining(tokens::add);
+        return tokens;
+    }
+
+    /**
+     * Fecha o Reader do fonte (se houver). Só é preciso se os tokens não
+     * forem lidos até o fim.
+     */
+    public void close() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // Nada a fazer: o fonte já foi lido (ou abandonado)
+            }
+        }
+    }
+
+    /**
+     * Escaneia até produzir o próximo token (pulando espaços e comentários).
+     * @return O token, ou null depois do EOF.
+     */
+    private Token nextToken() {
         while (!isAtEnd()) {
             start = position; // Marca o início do novo token
+            lexemeStart = bufferPos;
+            scanned = null;
             scanToken();
+            if (scanned != null) {
+                return scanned;
+            }
         }
-        tokens.add(new Token(TokenType.EOF, "", line, column));
-        return tokens;
+        if (eofEmitted) {
+            return null;
+        }
+        eofEmitted = true;
+        close();
+        return new Token(TokenType.EOF, "", line, column);
     }
 
     /**
      * Verifica se o analisador chegou ao fim do código-fonte.
-     * * @return true se a posição atual for maior ou igual ao tamanho do código.
+     * * @return true se não há mais caracteres para ler.
      */
     private boolean isAtEnd() {
-        return position >= sourceCode.length();
+        return !available(0);
+    }
+
+    /**
+     * Garante que o caractere 'ahead' posições à frente está no buffer,
+     * lendo mais do fonte se preciso.
+     * @return false se o fonte acaba antes dele.
+     */
+    private boolean available(int ahead) {
+        if (bufferPos + ahead < bufferLimit) {
+            return true;
+        }
+        if (sourceExhausted) {
+            return false;
+        }
+        // Move o lexema atual (e o que não foi consumido) para o início e completa o buffer
+        if (lexemeStart > 0) {
+            System.arraycopy(buffer, lexemeStart, buffer, 0, bufferLimit - lexemeStart);
+            bufferPos -= lexemeStart;
+            bufferLimit -= lexemeStart;
+            lexemeStart = 0;
+        }
+        while (bufferPos + ahead >= bufferLimit && !sourceExhausted) {
+            // Sempre pelo menos 2 chars livres: um par substituto (ex: um emoji) não cabe em 1
+            if (buffer.length - bufferLimit < 2) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2); // Um lexema maior que o buffer
+            }
+            int count = read(buffer, bufferLimit, buffer.length - bufferLimit);
+            if (count < 0) {
+                sourceExhausted = true;
+            } else if (count == 0) {
+                // O Reader não conseguiu escrever no espaço livre: cresce em vez de repetir a mesma leitura
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                bufferLimit += count;
+            }
+        }
+        return bufferPos + ahead < bufferLimit;
+    }
+
+    /** Lê do fonte para o buffer (como Reader.read: -1 no fim). */
+    private int read(char[] target, int offset, int length) {
+        if (text != null) {
+            int count = Math.min(length, text.length() - textPosition);
+            if (count <= 0) {
+                return -1;
+            }
+            if (text instanceof String string) {
+                string.getChars(textPosition, textPosition + count, target, offset);
+            } else if (text instanceof CharBuffer chars) {
+                chars.get(chars.position() + textPosition, target, offset, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    target[offset + i] = text.charAt(textPosition + i);
+                }
+            }
+            textPosition += count;
+            return count;
+        }
+        try {
+            return reader.read(target, offset, length);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Erro ao ler o código-fonte: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -52,6 +260,7 @@ public class Lexer {
      * * @param message A mensagem de erro específica.
      */
     private void lexicalError(String message) {
+        close();
         throw new RuntimeException(
                 "Erro Léxico: " + message + " na linha " + line + ", coluna " + (column - (position - start)));
     }
@@ -62,7 +271,10 @@ public class Lexer {
      * * @return O caractere na posição atual (antes de avançar).
      */
     private char advance() {
-        char currentChar = sourceCode.charAt(position);
+        if (!available(0)) {
+            throw new IllegalStateException("Fim do código-fonte.");
+        }
+        char currentChar = buffer[bufferPos++];
         position++;
 
         if (currentChar == '\n') {
@@ -75,21 +287,32 @@ public class Lexer {
     }
 
     /**
-     * Adiciona um token à lista.
+     * Como advance(), mas descarta o lexema até aqui (usado nos comentários,
+     * que podem ser longos e não viram tokens: o buffer não precisa guardá-los).
+     * * @return O caractere consumido.
+     */
+    private char skip() {
+        char currentChar = advance();
+        lexemeStart = bufferPos;
+        return currentChar;
+    }
+
+    /**
+     * Produz o token do lexema atual.
      * * @param type O tipo de token (TokenType).
      */
     private void addToken(TokenType type) {
-        String value = sourceCode.substring(start, position);
-        tokens.add(new Token(type, value, line, (column - value.length())));
+        String value = new String(buffer, lexemeStart, bufferPos - lexemeStart);
+        scanned = new Token(type, value, line, (column - value.length()));
     }
 
     /**
-     * Adiciona um token à lista (sobrecarga para literais).
+     * Produz um token (sobrecarga para literais).
      * * @param type  O tipo de token (TokenType).
      * @param value O valor literal (para Strings, Números).
      */
     private void addToken(TokenType type, String value) {
-        tokens.add(new Token(type, value, line, (column - (position - start))));
+        scanned = new Token(type, value, line, (column - (position - start)));
     }
 
     /**
@@ -100,10 +323,21 @@ public class Lexer {
 
 
     private char peekNext() {
-        if (position >= sourceCode.length()) { 
+        if (!available(0)) {
+            return '\0';
+        }
+        return buffer[bufferPos]; // 'bufferPos' é o *próximo* caractere a ser lido
+    }
+
+    /**
+     * Olha o caractere depois do próximo, sem avançar.
+     * * @return O caractere ou '\0' se estiver no fim do arquivo.
+     */
+    private char peekSecond() {
+        if (!available(1)) {
             return '\0';
         }
-        return sourceCode.charAt(position); // 'position' é o *próximo* caractere a ser lido
+        return buffer[bufferPos + 1];
     }
 
     /**
@@ -169,7 +403,7 @@ public class Lexer {
                 if (match('/')) { // Comentário de linha (ex: //)
                     // Consome até o fim da linha
                     while (peekNext() != '\n' && !isAtEnd()) {
-                        advance();
+                        skip();
                     }
                 } else if (match('*')) { // Comentário de bloco (ex: /* ... */)
                     skipBlockComment();
@@ -199,9 +433,8 @@ public class Lexer {
      */
     private void skipBlockComment() {
         // O '/*' já foi consumido por advance() e match()
-        while (!(peekNext() == '*' && position + 1 < sourceCode.length() && sourceCode.charAt(position + 1) == '/')
-                && !isAtEnd()) {
-            advance(); // advance() lida com quebras de linha
+        while (!(peekNext() == '*' && peekSecond() == '/') && !isAtEnd()) {
+            skip(); // skip() lida com quebras de linha
         }
 
         if (isAtEnd()) {
@@ -210,8 +443,8 @@ public class Lexer {
         }
 
         // Consome os dois caracteres finais '*/'
-        advance(); // Consome o '*'
-        advance(); // Consome o '/'
+        skip(); // Consome o '*'
+        skip(); // Consome o '/'
     }
 
     /**
@@ -246,7 +479,7 @@ public class Lexer {
     private void scanNumber() {
         // O primeiro dígito já foi consumido por advance()
         StringBuilder numberBuilder = new StringBuilder();
-        numberBuilder.append(sourceCode.charAt(start)); // Adiciona o primeiro dígito
+        numberBuilder.append(buffer[lexemeStart]); // Adiciona o primeiro dígito
 
         // Lê a parte inteira
         while (Character.isDigit(peekNext())) {
@@ -254,8 +487,7 @@ public class Lexer {
         }
 
         // Verifica e lê a parte decimal (Float)
-        if (peekNext() == '.' && position + 1 < sourceCode.length()
-                && Character.isDigit(sourceCode.charAt(position + 1))) {
+        if (peekNext() == '.' && Character.isDigit(peekSecond())) {
             numberBuilder.append(advance()); // Consome o '.'
 
             while (Character.isDigit(peekNext())) {
@@ -274,7 +506,7 @@ public class Lexer {
     private void scanIdentifier() {
         // A primeira letra já foi consumida por advance()
         StringBuilder idBuilder = new StringBuilder();
-        idBuilder.append(sourceCode.charAt(start)); // Adiciona a primeira letra
+        idBuilder.append(buffer[lexemeStart]); // Adiciona a primeira letra
 
         while (Character.isLetterOrDigit(peekNext())) {
             idBuilder.append(advance());
@@ -295,6 +527,52 @@ public class Lexer {
             case "false" -> TokenType.FALSE;
             default -> TokenType.IDENTIFIER;
         };
-        addToken(type); // Adiciona o token (o 'value' é pego pelo substring)
+        addToken(type); // Adiciona o token (o 'value' é o lexema)
+    }
+
+    /**
+     * Um Reader que decodifica os bytes de um buffer (ex: um arquivo
+     * mapeado) aos poucos, sem copiá-los para o heap.
+     */
+    private static final class DecodingReader extends Reader {
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder;
+        private boolean inputDone = false;
+        private boolean flushed = false;
+
+        DecodingReader(ByteBuffer bytes, Charset charset) {
+            this.bytes = bytes;
+            // Como 'new String(bytes)': bytes inválidos viram o caractere de substituição
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        /**
+         * Decodifica até 'length' chars. Com 'length' menor que 2, um par
+         * substituto não cabe e nada é escrito (devolve 0; o Lexer sempre
+         * oferece pelo menos 2 chars).
+         */
+        @Override
+        public int read(char[] target, int offset, int length) {
+            if (flushed) {
+                return -1;
+            }
+            CharBuffer out = CharBuffer.wrap(target, offset, length);
+            if (!inputDone) {
+                CoderResult result = decoder.decode(bytes, out, true);
+                inputDone = result.isUnderflow(); // (Overflow: o resto vem na próxima leitura)
+            }
+            if (inputDone) {
+                flushed = decoder.flush(out).isUnderflow();
+            }
+            int count = out.position() - offset;
+            return count == 0 && flushed ? -1 : count;
+        }
+
+        @Override
+        public void close() {
+            // O mapeamento é liberado pelo coletor de lixo
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,7 @@ import ijgm_project.lexer.TokenType;
 import static ijgm_project.lexer.TokenType.*;
 import ijgm_project.parser.ast.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -13,18 +14,59 @@ import java.util.List;
  * Implementa o algoritmo Recursivo-Descendente para construir a AST.
  * Possui lógica de Recuperação de Erros (Panic-Mode).
  * (Refatorado para usar consume() corretamente nas regras de expressão).
+ * (Os erros também ficam em getErrors(); o BatchCompiler cria o Parser sem
+ *  imprimi-los, para não disputar o System.err entre as threads.)
  */
 public class Parser {
+    /** A mensagem da exceção de parse() quando houve erros sintáticos (os detalhes estão em getErrors()). */
+    public static final String FAILURE_MESSAGE = "Análise sintática falhou. Corrija os erros acima.";
+
     private final Iterator<Token> tokens;
     private Token currentToken;
     private Token previousToken;
     private boolean hadError = false;
+    private final boolean printErrors;
+    private final List<String> errors = new ArrayList<>();
 
     public Parser(List<Token> tokens) {
-        this.tokens = tokens.iterator();
+        this(tokens, true);
+    }
+
+    /**
+     * @param tokens Os tokens do programa.
+     * @param printErrors Se os erros sintáticos são impressos no System.err ao serem encontrados.
+     */
+    public Parser(List<Token> tokens, boolean printErrors) {
+        this(tokens.iterator(), printErrors);
+    }
+
+    /**
+     * Cria o Parser sobre um fluxo de tokens (ex: Lexer.tokens()), que é
+     * consumido um token de cada vez, sem precisar da lista inteira.
+     * @param tokens Os tokens do programa.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this(tokens, true);
+    }
+
+    /**
+     * @param tokens Os tokens do programa (consumidos sob demanda).
+     * @param printErrors Se os erros sintáticos são impressos no System.err ao serem encontrados.
+     */
+    public Parser(Iterator<Token> tokens, boolean printErrors) {
+        this.tokens = tokens;
+        this.printErrors = printErrors;
         advance();
     }
 
+    /**
+     * Os erros sintáticos encontrados até agora, na ordem.
+     * @return As mensagens (somente leitura).
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
     /**
      * Avança para o próximo token no fluxo.
      */
@@ -55,12 +97,16 @@ public class Parser {
     }
 
     /**
-     * Imprime a mensagem de erro sintático e marca que um erro ocorreu.
+     * Registra (e imprime, se pedido) a mensagem de erro sintático e marca que um erro ocorreu.
      * * @param message A mensagem de erro.
      */
     private void reportError(String message) {
-        System.err.println("Erro Sintático: " + message + " na linha " + currentToken.getLine() + ", coluna "
-                + currentToken.getColumn());
+        String error = "Erro Sintático: " + message + " na linha " + currentToken.getLine() + ", coluna "
+                + currentToken.getColumn();
+        errors.add(error);
+        if (printErrors) {
+            System.err.println(error);
+        }
         this.hadError = true;
     }
 
@@ -111,7 +157,7 @@ public class Parser {
 
         // Lança exceção final se houver erros para impedir a execução do Interpreter
         if (this.hadError) {
-            throw new RuntimeException("Análise sintática falhou. Corrija os erros acima.");
+            throw new RuntimeException(FAILURE_MESSAGE);
         }
 
         return statements;
@@ -123,29 +169,32 @@ public class Parser {
     private DeclarationStatement parseDeclaration() {
         // O loop 'parse()' já garantiu que currentToken é um tipo (INT, FLOAT, etc.)
         TokenType type = currentToken.getType();
+        int line = currentToken.getLine();
         advance(); // Consome o token de tipo (ex: 'int')
 
         String varName = currentToken.getValue();
         consume(TokenType.IDENTIFIER); // Consome e valida o nome da variável
         consume(TokenType.SEMICOLON); // Consome e valida o ';'
-        return new DeclarationStatement(type, varName);
+        return new DeclarationStatement(type, varName, line);
     }
 
     /**
      * Regra: Comando -> Atribuição | Condicional | Repetição | Print
      */
     private Statement parseStatement() {
+        // A linha do primeiro token do comando (guardada no nó, ver Statement.getLine())
+        int line = currentToken.getLine();
 
         if (match(IDENTIFIER))
-            return parseAssignmentOrIncrementOrDecrement();
+            return parseAssignmentOrIncrementOrDecrement(line);
         if (match(OPEN_BRACE))
-            return parseScope();
+            return parseScope(line);
         if (match(PRINT))
-            return parsePrintStatement();
+            return parsePrintStatement(line);
         if (match(WHILE))
-            return parseWhileStatement();
+            return parseWhileStatement(line);
         if (match(IF))
-            return parseIfStatement();
+            return parseIfStatement(line);
 
         // Erro: Token inesperado.
         reportError("Token inesperado no início de um comando: " + currentToken.getType());
@@ -157,7 +206,7 @@ public class Parser {
 
     }
 
-    private Statement parseScope() {
+    private Statement parseScope(int line) {
         List<Statement> statements = new ArrayList<>();
         while (!check(CLOSE_BRACE, EOF)) {
             statements.add(parseStatement());
@@ -168,7 +217,7 @@ public class Parser {
         } else {
             consume(TokenType.CLOSE_BRACE); // Consome o '}'
         }
-        return new ScopeStatement(statements);
+        return new ScopeStatement(statements, line);
     }
 
     /**
@@ -198,7 +247,7 @@ public class Parser {
      * OU
      * Regra: Decremento -> id -- ;
      */
-    private Statement parseAssignmentOrIncrementOrDecrement() {
+    private Statement parseAssignmentOrIncrementOrDecrement(int line) {
         String varName = previous().getValue();
         if (null == currentToken.getType()) {
             reportError("Esperado '=', '++' ou '--' após o identificador '" + varName + "'");
@@ -209,17 +258,17 @@ public class Parser {
         if (match(ASSIGN)) {
             Expression expr = parseExpression();
             consume(TokenType.SEMICOLON);
-            return new AssignStatement(varName, expr);
+            return new AssignStatement(varName, expr, line);
         }
 
         if (match(INCREMENT)) {
             consume(TokenType.SEMICOLON);
-            return new IncrementStatement(varName);
+            return new IncrementStatement(varName, line);
         }
 
         if (match(DECREMENT)) {
             consume(TokenType.SEMICOLON);
-            return new DecrementStatement(varName);
+            return new DecrementStatement(varName, line);
         }
 
         reportError("Esperado '=', '++' ou '--' após o identificador '" + varName + "'");
@@ -230,27 +279,27 @@ public class Parser {
     /**
      * Regra: Print -> print Expressao ;
      */
-    private Statement parsePrintStatement() {
+    private Statement parsePrintStatement(int line) {
         Expression expr = parseExpression();
         consume(TokenType.SEMICOLON);
-        return new PrintStatement(expr);
+        return new PrintStatement(expr, line);
     }
 
     /**
      * Regra: Repetição (While) -> while (Expressao) Bloco
      */
-    private Statement parseWhileStatement() {
+    private Statement parseWhileStatement(int line) {
         consume(TokenType.OPEN_PAREN);
         Expression condition = parseExpression();
         consume(TokenType.CLOSE_PAREN);
         List<Statement> body = parseBlock(); // Usa a função helper parseBlock
-        return new WhileStatement(condition, body);
+        return new WhileStatement(condition, body, line);
     }
 
     /**
      * Regra: Condicional (If-Else) -> if (Expressao) Bloco [else Bloco]
      */
-    private Statement parseIfStatement() {
+    private Statement parseIfStatement(int line) {
         consume(TokenType.OPEN_PAREN);
         Expression condition = parseExpression();
         consume(TokenType.CLOSE_PAREN);
@@ -262,7 +311,7 @@ public class Parser {
             // Este parser refatorado só permite 'else { ... }'
             elseBody = parseBlock(); // Usa a função helper parseBlock
         }
-        return new IfStatement(condition, thenBody, elseBody);
+        return new IfStatement(condition, thenBody, elseBody, line);
     }
 
     // ---------------------------------------------------------
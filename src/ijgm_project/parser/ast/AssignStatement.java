@@ -5,10 +5,12 @@ import ijgm_project.visitor.Visitor;
 public class AssignStatement implements Statement {
     private final String variableName;
     private final Expression expression;
+    private final int line;
 
-    public AssignStatement(String variableName, Expression expression) {
+    public AssignStatement(String variableName, Expression expression, int line) {
         this.variableName = variableName;
         this.expression = expression;
+        this.line = line;
     }
 
     public String getVariableName() {
@@ -26,4 +28,9 @@ public class AssignStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
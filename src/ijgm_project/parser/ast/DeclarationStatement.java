@@ -6,10 +6,12 @@ import ijgm_project.visitor.Visitor;
 public class DeclarationStatement implements Statement {
     private final TokenType type;
     private final String variableName;
+    private final int line;
 
-    public DeclarationStatement(TokenType type, String variableName) {
+    public DeclarationStatement(TokenType type, String variableName, int line) {
         this.type = type;
         this.variableName = variableName;
+        this.line = line;
     }
 
     public TokenType getType() {
@@ -27,4 +29,9 @@ public class DeclarationStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
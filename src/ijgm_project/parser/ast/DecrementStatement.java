@@ -4,9 +4,11 @@ import ijgm_project.visitor.Visitor;
 
 public class DecrementStatement implements Statement {
     private final String variableName;
+    private final int line;
 
-    public DecrementStatement(String variableName) {
+    public DecrementStatement(String variableName, int line) {
         this.variableName = variableName;
+        this.line = line;
     }
 
     public String getVariableName() {
@@ -20,4 +22,9 @@ public class DecrementStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
@@ -7,11 +7,13 @@ public class IfStatement implements Statement {
     private final Expression condition;
     private final List<Statement> thenBody;
     private final List<Statement> elseBody;
+    private final int line;
 
-    public IfStatement(Expression condition, List<Statement> thenBody, List<Statement> elseBody) {
+    public IfStatement(Expression condition, List<Statement> thenBody, List<Statement> elseBody, int line) {
         this.condition = condition;
         this.thenBody = thenBody;
         this.elseBody = elseBody;
+        this.line = line;
     }
 
     public Expression getCondition() {
@@ -33,4 +35,9 @@ public class IfStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
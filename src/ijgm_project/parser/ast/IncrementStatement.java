@@ -4,9 +4,11 @@ import ijgm_project.visitor.Visitor;
 
 public class IncrementStatement implements Statement {
     private final String variableName;
+    private final int line;
 
-    public IncrementStatement(String variableName) {
+    public IncrementStatement(String variableName, int line) {
         this.variableName = variableName;
+        this.line = line;
     }
 
     public String getVariableName() {
@@ -20,4 +22,9 @@ public class IncrementStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
@@ -4,9 +4,11 @@ import ijgm_project.visitor.Visitor;
 
 public class PrintStatement implements Statement {
     private final Expression expression;
+    private final int line;
 
-    public PrintStatement(Expression expression) {
+    public PrintStatement(Expression expression, int line) {
         this.expression = expression;
+        this.line = line;
     }
 
     public Expression getExpression() {
@@ -20,4 +22,9 @@ public class PrintStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
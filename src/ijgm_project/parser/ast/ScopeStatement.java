@@ -7,9 +7,11 @@ import java.util.List;
 public class ScopeStatement implements Statement {
 
     private final List<Statement> statements;
+    private final int line;
 
-    public ScopeStatement(List<Statement> statements) {
+    public ScopeStatement(List<Statement> statements, int line) {
         this.statements = statements;
+        this.line = line;
     }
 
     @Override
@@ -19,5 +21,10 @@ public class ScopeStatement implements Statement {
 
     public List<Statement> getStatements() {
         return statements;
-    }    
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
@@ -5,6 +5,8 @@ import ijgm_project.visitor.Visitor;
 /**
  * Interface base para todos os comandos (statements) da AST.
  * (Refatorada com Genéricos).
+ * (Cada comando guarda a linha do fonte onde começa, para a tabela de
+ * linhas do bytecode; ver vm.LineTable).
  */
 public interface Statement {
     /**
@@ -14,4 +16,9 @@ public interface Statement {
      * @return O resultado da visita (tipo R).
      */
     <R> R accept(Visitor<R> visitor);
+
+    /**
+     * @return A linha do arquivo-fonte onde o comando começa.
+     */
+    int getLine();
 }
\ No newline at end of file
@@ -6,10 +6,12 @@ import java.util.List;
 public class WhileStatement implements Statement {
     private final Expression condition;
     private final List<Statement> body;
+    private final int line;
 
-    public WhileStatement(Expression condition, List<Statement> body) {
+    public WhileStatement(Expression condition, List<Statement> body, int line) {
         this.condition = condition;
         this.body = body;
+        this.line = line;
     }
 
     public Expression getCondition() {
@@ -27,4 +29,9 @@ public class WhileStatement implements Statement {
     public <R> R accept(Visitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package ijgm_project.vm;
+
+import static ijgm_project.vm.ClassFileWriter.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Compilador "ahead-of-time": transforma um programa IJGM inteiro em uma
+ * classe da JVM independente, com um 'public static void main(String[])'.
+ *
+ * A classe gerada não referencia NADA do projeto IJGM (nem a VM, nem o
+ * JitRuntime): as globais viram variáveis locais do 'main' (primitivas
+ * sempre que o tipo é estável), e as rotinas de apoio (impressão, conversão
+ * para texto, divisão por zero) são geradas dentro da própria classe, com a
+ * mesma saída do interpretador ("Output: ...").
+ *
+ * Uso típico: 'java ijgm_project.Aot programa.txt out Program', e depois
+ * 'java -cp out Program'.
+ *
+ * A tradução é a mesma do JitCompiler; o que ele não suporta (ex: uma
+ * global que muda de tipo dentro de um laço) é rejeitado com um erro. Já
+ * uma instrução que a VM rejeitaria ao executar (ex: 'if (10)') compila:
+ * ela imprime o mesmo erro e encerra com código 1, só se for alcançada.
+ */
+public final class AotCompiler {
+
+    private static final String STRING = "java/lang/String";
+    private static final String PRINT_STREAM = "java/io/PrintStream";
+    private static final String CONCAT_DESCRIPTOR = "(Ljava/lang/String;)Ljava/lang/String;";
+    private static final String TEXT = "Ljava/lang/CharSequence;";
+
+    private AotCompiler() {
+    }
+
+    /**
+     * Compila o chunk para os bytes de uma classe independente.
+     * @param chunk O chunk de bytecode do programa.
+     * @param className O nome da classe gerada (ex: "Program" ou "app.Program").
+     * @return O conteúdo do arquivo .class.
+     * @throws RuntimeException se o programa usa algo que o AOT não suporta.
+     */
+    public static byte[] compile(BytecodeChunk chunk, String className) {
+        String internalName = className.replace('.', '/');
+        ClassFileWriter cw = new ClassFileWriter(ACC_PUBLIC | ACC_FINAL | ACC_SUPER, internalName, "java/lang/Object");
+        JitCompiler.compileProgram(chunk, cw, internalName);
+        writeRuntime(cw, internalName);
+        return cw.toByteArray();
+    }
+
+    /**
+     * Grava a classe em 'dir' (com os subdiretórios do pacote, se houver).
+     * @return O caminho do arquivo .class gravado.
+     */
+    public static Path writeClass(byte[] classBytes, String className, Path dir) throws IOException {
+        Path file = dir.resolve(className.replace('.', '/') + ".class");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, classBytes);
+        return file;
+    }
+
+    /**
+     * Grava a classe em um jar executável ('java -jar'), com Main-Class no manifesto.
+     */
+    public static void writeJar(byte[] classBytes, String className, Path jar) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, className);
+        if (jar.getParent() != null) {
+            Files.createDirectories(jar.getParent());
+        }
+        try (OutputStream file = Files.newOutputStream(jar);
+             JarOutputStream out = new JarOutputStream(file, manifest)) {
+            out.putNextEntry(new JarEntry(className.replace('.', '/') + ".class"));
+            out.write(classBytes);
+            out.closeEntry();
+        }
+    }
+
+    // --- Rotinas de apoio (mesmos nomes e semântica de JitRuntime; aqui o print
+    // não recebe um OutputSink e escreve direto no System.out) ---
+
+    private static void writeRuntime(ClassFileWriter cw, String owner) {
+        writePrint(cw, "printInt", "(I)V", ILOAD, "(I)Ljava/lang/String;");
+        writePrint(cw, "printFloat", "(F)V", FLOAD, "(F)Ljava/lang/String;");
+        writePrint(cw, "printBool", "(Z)V", ILOAD, "(Z)Ljava/lang/String;");
+        writePrint(cw, "printString", "(" + TEXT + ")V", ALOAD, "(Ljava/lang/Object;)Ljava/lang/String;");
+
+        writeToString(cw, "intToString", "(I)Ljava/lang/String;", ILOAD);
+        writeToString(cw, "floatToString", "(F)Ljava/lang/String;", FLOAD);
+        writeToString(cw, "boolToString", "(Z)Ljava/lang/String;", ILOAD);
+
+        // Os textos são CharSequence (como no JIT), mas aqui sempre Strings
+        ClassFileWriter.Code concat = cw.method(ACC_PRIVATE | ACC_STATIC, "concat",
+                "(" + TEXT + TEXT + ")" + TEXT, 2);
+        concat.local(ALOAD, 0);
+        concat.invoke(INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;");
+        concat.local(ALOAD, 1);
+        concat.invoke(INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;");
+        concat.invoke(INVOKEVIRTUAL, STRING, "concat", CONCAT_DESCRIPTOR);
+        concat.op(ARETURN, -1);
+        concat.end();
+
+        ClassFileWriter.Code textEquals = cw.method(ACC_PRIVATE | ACC_STATIC, "textEquals",
+                "(" + TEXT + TEXT + ")Z", 2);
+        textEquals.local(ALOAD, 0);
+        textEquals.invoke(INVOKEVIRTUAL, "java/lang/Object", "toString", "()Ljava/lang/String;");
+        textEquals.local(ALOAD, 1);
+        textEquals.invoke(INVOKEVIRTUAL, STRING, "equals", "(Ljava/lang/Object;)Z");
+        textEquals.op(IRETURN, -1);
+        textEquals.end();
+
+        // checkDivisor(I)I e checkDivisor(F)F: devolvem o divisor, ou falham
+        ClassFileWriter.Code intDivisor = cw.method(ACC_PRIVATE | ACC_STATIC, "checkDivisor", "(I)I", 1);
+        Label intOk = new Label();
+        intDivisor.local(ILOAD, 0);
+        intDivisor.jump(IFNE, intOk);
+        failDivision(intDivisor, owner);
+        intDivisor.mark(intOk);
+        intDivisor.local(ILOAD, 0);
+        intDivisor.op(IRETURN, -1);
+        intDivisor.end();
+
+        ClassFileWriter.Code floatDivisor = cw.method(ACC_PRIVATE | ACC_STATIC, "checkDivisor", "(F)F", 1);
+        Label floatOk = new Label();
+        floatDivisor.local(FLOAD, 0);
+        floatDivisor.fconst(0.0f);
+        floatDivisor.op(FCMPL, -1); // 0 para 0.0 e -0.0; NaN não é zero
+        floatDivisor.jump(IFNE, floatOk);
+        failDivision(floatDivisor, owner);
+        floatDivisor.mark(floatOk);
+        floatDivisor.local(FLOAD, 0);
+        floatDivisor.op(FRETURN, -1);
+        floatDivisor.end();
+
+        // floatEquals(FF)Z: igualdade de Float.equals (compara os bits)
+        ClassFileWriter.Code floatEquals = cw.method(ACC_PRIVATE | ACC_STATIC, "floatEquals", "(FF)Z", 2);
+        Label different = new Label();
+        floatEquals.local(FLOAD, 0);
+        floatEquals.invoke(INVOKESTATIC, "java/lang/Float", "floatToIntBits", "(F)I");
+        floatEquals.local(FLOAD, 1);
+        floatEquals.invoke(INVOKESTATIC, "java/lang/Float", "floatToIntBits", "(F)I");
+        floatEquals.jump(IF_ICMPNE, different);
+        floatEquals.iconst(1);
+        floatEquals.op(IRETURN, -1);
+        floatEquals.mark(different);
+        floatEquals.iconst(0);
+        floatEquals.op(IRETURN, -1);
+        floatEquals.end();
+
+        // fail(String): imprime a mensagem da VM (já com o "Erro de VM: ", se a VM o
+        // usa) no stderr, como a VM, mas encerra com código 1
+        ClassFileWriter.Code fail = cw.method(ACC_PRIVATE | ACC_STATIC, "fail", "(Ljava/lang/String;)V", 1);
+        fail.field(GETSTATIC, "java/lang/System", "err", "Ljava/io/PrintStream;");
+        fail.local(ALOAD, 0);
+        fail.invoke(INVOKEVIRTUAL, PRINT_STREAM, "println", "(Ljava/lang/String;)V");
+        fail.iconst(1);
+        fail.invoke(INVOKESTATIC, "java/lang/System", "exit", "(I)V");
+        fail.op(RETURN, 0);
+        fail.end();
+    }
+
+    /** System.out.println("Output: " + valor), com o valor convertido por String.valueOf. */
+    private static void writePrint(ClassFileWriter cw, String name, String descriptor, int load, String valueOf) {
+        ClassFileWriter.Code print = cw.method(ACC_PRIVATE | ACC_STATIC, name, descriptor, 1);
+        print.field(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        print.sconst("Output: ");
+        print.local(load, 0);
+        if (valueOf != null) {
+            print.invoke(INVOKESTATIC, STRING, "valueOf", valueOf);
+        }
+        print.invoke(INVOKEVIRTUAL, STRING, "concat", CONCAT_DESCRIPTOR);
+        print.invoke(INVOKEVIRTUAL, PRINT_STREAM, "println", "(Ljava/lang/String;)V");
+        print.op(RETURN, 0);
+        print.end();
+    }
+
+    private static void writeToString(ClassFileWriter cw, String name, String descriptor, int load) {
+        ClassFileWriter.Code toString = cw.method(ACC_PRIVATE | ACC_STATIC, name, descriptor, 1);
+        toString.local(load, 0);
+        toString.invoke(INVOKESTATIC, STRING, "valueOf", descriptor);
+        toString.op(ARETURN, -1);
+        toString.end();
+    }
+
+    private static void failDivision(ClassFileWriter.Code code, String owner) {
+        code.sconst("Erro de VM: Divisão por zero.");
+        code.invoke(INVOKESTATIC, owner, "fail", "(Ljava/lang/String;)V");
+    }
+}
@@ -0,0 +1,167 @@
+package ijgm_project.vm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutputSink assíncrono: a VM só converte o valor para texto e o coloca em
+ * uma fila; uma thread escritora esvazia a fila, em lotes, em outro
+ * OutputSink (normalmente um BufferedOutputSink).
+ *
+ * A fila é limitada: se a escrita não acompanhar, a VM espera (em vez de
+ * acumular a saída inteira na memória). flush() espera a fila esvaziar e o
+ * destino ser esvaziado; close() faz o flush e encerra a thread.
+ */
+public final class AsyncOutputSink implements OutputSink {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    // Marca de fim da fila (comparada por identidade)
+    private static final String END = new String("<fim>");
+
+    private final OutputSink target;
+    private final BlockingQueue<String> queue;
+    private final Thread writer;
+
+    // Linhas entregues à fila (só a VM escreve) e já escritas (só a thread escreve)
+    private long submitted;
+    private long written;
+    private final Object progress = new Object();
+    private volatile RuntimeException failure;
+    private boolean closed;
+
+    /**
+     * @param target O destino real das linhas (usado só pela thread escritora).
+     */
+    public AsyncOutputSink(OutputSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param target O destino real das linhas (usado só pela thread escritora).
+     * @param capacity Quantas linhas podem esperar na fila.
+     */
+    public AsyncOutputSink(OutputSink target, int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drainLoop, "ijgm-output");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void printInt(int value) {
+        enqueue(Integer.toString(value));
+    }
+
+    @Override
+    public void printFloat(float value) {
+        enqueue(Float.toString(value));
+    }
+
+    @Override
+    public void printBoolean(boolean value) {
+        enqueue(value ? "true" : "false");
+    }
+
+    @Override
+    public void printString(String value) {
+        enqueue(String.valueOf(value));
+    }
+
+    @Override
+    public void flush() {
+        long expected = submitted;
+        synchronized (progress) {
+            while (written < expected && failure == null) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        put(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(String text) {
+        if (closed) {
+            throw new IllegalStateException("Saída já fechada.");
+        }
+        checkFailure();
+        put(text);
+        submitted++;
+    }
+
+    /** Espera por espaço na fila (sem travar para sempre se a thread escritora falhou). */
+    private void put(String text) {
+        try {
+            while (!queue.offer(text, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Impressão interrompida.");
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new RuntimeException("Falha na escrita da saída: " + failure.getMessage(), failure);
+        }
+    }
+
+    /** O laço da thread escritora: escreve lotes e esvazia o destino quando a fila esvazia. */
+    private void drainLoop() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                int lines = 0;
+                for (String text : batch) {
+                    if (text == END) {
+                        target.flush();
+                        return;
+                    }
+                    target.printString(text);
+                    lines++;
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    target.flush();
+                }
+                synchronized (progress) {
+                    written += lines;
+                    progress.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure = e;
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+}
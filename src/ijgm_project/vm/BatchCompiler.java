@@ -0,0 +1,204 @@
+package ijgm_project.vm;
+
+import ijgm_project.lexer.Lexer;
+import ijgm_project.parser.Parser;
+import ijgm_project.parser.ast.Statement;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Compila uma árvore de fontes IJGM em paralelo, gravando um arquivo .ijbc
+ * (ver ChunkSerializer) para cada fonte que compilar.
+ *
+ * Cada arquivo é uma tarefa independente em um ForkJoinPool de 'threads'
+ * threads (compilar é só CPU, então mais threads que processadores não
+ * ajudam): a tarefa cria o seu próprio Lexer, Parser e CompilerVisitor (e,
+ * com ele, a sua CompilerSymbolTable e o seu ChunkBuilder), e nada é
+ * compartilhado entre as tarefas. Os erros não são impressos pelo caminho
+ * (o Parser é criado sem imprimir e o CompilerVisitor usa compileOrThrow):
+ * cada tarefa devolve os seus diagnósticos, e o Report os junta na ordem
+ * dos arquivos.
+ *
+ * A árvore de saída espelha a de entrada: "fontes/a/b.txt" vira
+ * "destino/a/b.ijbc".
+ */
+public final class BatchCompiler {
+
+    /**
+     * O resultado de um arquivo.
+     * @param source O arquivo-fonte.
+     * @param output O arquivo .ijbc gravado, ou null se o fonte não compilou.
+     * @param diagnostics Os erros (léxicos, sintáticos, de compilação ou de E/S), na ordem.
+     * @param codeBytes O tamanho do código gerado, em bytes.
+     * @param nanos Quanto tempo a tarefa levou (leitura, compilação e gravação).
+     */
+    public record FileResult(Path source, Path output, List<String> diagnostics, int codeBytes, long nanos) {
+
+        public boolean isOk() {
+            return output != null;
+        }
+    }
+
+    /**
+     * O relatório de uma compilação em lote.
+     * @param results O resultado de cada arquivo, na ordem dos caminhos.
+     * @param threads Quantas threads compilaram.
+     * @param wallNanos O tempo total, do início da primeira tarefa ao fim da última.
+     */
+    public record Report(List<FileResult> results, int threads, long wallNanos) {
+
+        public int failed() {
+            return (int) results.stream().filter(result -> !result.isOk()).count();
+        }
+
+        /** Os diagnósticos de todos os arquivos, cada um prefixado pelo seu caminho. */
+        public List<String> diagnostics() {
+            List<String> all = new ArrayList<>();
+            for (FileResult result : results) {
+                for (String diagnostic : result.diagnostics()) {
+                    all.add(result.source() + ": " + diagnostic);
+                }
+            }
+            return all;
+        }
+
+        @Override
+        public String toString() {
+            long taskNanos = results.stream().mapToLong(FileResult::nanos).sum();
+            long codeBytes = results.stream().mapToLong(FileResult::codeBytes).sum();
+            return String.format(Locale.ROOT,
+                    "%d arquivos, %d compilados, %d com erro, %d bytes de código, %.1f ms (%d threads, %.1fx paralelo)",
+                    results.size(), results.size() - failed(), failed(), codeBytes, wallNanos / 1e6, threads,
+                    wallNanos > 0 ? (double) taskNanos / wallNanos : 0);
+        }
+    }
+
+    private final int threads;
+
+    /**
+     * @param threads Quantos arquivos podem ser compilados ao mesmo tempo.
+     */
+    public BatchCompiler(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads deve ser pelo menos 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Compila todos os arquivos com a extensão dada sob 'sourceRoot'.
+     * @param sourceRoot O diretório dos fontes (percorrido recursivamente).
+     * @param extension A extensão dos fontes (ex: ".txt").
+     * @param outputRoot O diretório dos .ijbc (criado, se preciso).
+     * @return O relatório, com os arquivos na ordem dos caminhos.
+     */
+    public Report compileTree(Path sourceRoot, String extension, Path outputRoot) throws IOException {
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(sourceRoot)) {
+            sources = files.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(extension))
+                    .sorted()
+                    .toList();
+        }
+
+        List<Callable<FileResult>> tasks = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            String relative = sourceRoot.relativize(source).toString();
+            String name = relative.substring(0, relative.length() - extension.length()) + ChunkSerializer.EXTENSION;
+            Path output = outputRoot.resolve(name);
+            tasks.add(() -> compileFile(source, output));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<FileResult>> futures = pool.invokeAll(tasks);
+            long wallNanos = System.nanoTime() - start;
+            List<FileResult> results = new ArrayList<>(futures.size());
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get()); // (Já terminou; compileFile não lança exceções)
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new Report(results, threads, wallNanos);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compila um código-fonte sem imprimir nada.
+     * @param source O código-fonte IJGM.
+     * @param diagnostics Recebe os erros, se houver.
+     * @return O chunk, ou null se o fonte não compilou.
+     */
+    static BytecodeChunk compile(String source, List<String> diagnostics) {
+        return compile(Lexer.fromSource(source), diagnostics);
+    }
+
+    /**
+     * Compila os tokens de um Lexer sem imprimir nada. O Parser puxa os
+     * tokens um a um (Lexer.tokens()), sem juntá-los em uma lista.
+     * @param lexer O Lexer do código-fonte.
+     * @param diagnostics Recebe os erros, se houver.
+     * @return O chunk, ou null se o fonte não compilou.
+     */
+    static BytecodeChunk compile(Lexer lexer, List<String> diagnostics) {
+        List<Statement> ast;
+        Parser parser = null;
+        try {
+            parser = new Parser(lexer.tokens(), false);
+            ast = parser.parse();
+        } catch (RuntimeException e) {
+            if (parser != null) {
+                diagnostics.addAll(parser.getErrors());
+            }
+            // Erro léxico ou erro do Parser sem recuperação (o resumo final não acrescenta nada)
+            if (!Parser.FAILURE_MESSAGE.equals(e.getMessage())) {
+                diagnostics.add(e.getMessage());
+            }
+            return null;
+        }
+        try {
+            return new CompilerVisitor().compileOrThrow(ast);
+        } catch (RuntimeException e) {
+            String message = String.valueOf(e.getMessage());
+            // (A maioria das mensagens do compilador já vem com o prefixo)
+            diagnostics.add(message.startsWith("Erro de Compilação") ? message : "Erro de Compilação: " + message);
+            return null;
+        }
+    }
+
+    // --- HELPER METHODS ---
+
+    /** Uma tarefa: lê, compila e grava um arquivo (os erros vão para o resultado). */
+    private static FileResult compileFile(Path source, Path output) {
+        long start = System.nanoTime();
+        List<String> diagnostics = new ArrayList<>();
+        BytecodeChunk chunk = null;
+        try {
+            chunk = compile(Lexer.fromMappedFile(source, StandardCharsets.UTF_8), diagnostics);
+            if (chunk != null) {
+                Files.createDirectories(output.getParent());
+                ChunkSerializer.write(chunk, output);
+            }
+        } catch (IOException e) {
+            diagnostics.add("Erro de E/S: " + e.getMessage());
+            chunk = null;
+        }
+        return new FileResult(source, chunk != null ? output : null, List.copyOf(diagnostics),
+                chunk != null ? chunk.size() : 0, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,196 @@
+package ijgm_project.vm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * OutputSink com buffer: cada linha é codificada direto em um byte[] e o
+ * buffer só é escrito no OutputStream quando enche (ou no flush).
+ *
+ * Inteiros, booleanos e textos ASCII são codificados sem criar Strings
+ * intermediárias; o resto passa pelo Charset.
+ */
+public final class BufferedOutputSink implements OutputSink {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    // Espaço para "Output: " + o maior int ("-2147483648") + a quebra de linha
+    private static final int MAX_NUMBER_LINE = 32;
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final OutputStream out;
+    private final Charset charset;
+    private final byte[] prefix;
+    private final byte[] newline;
+    private final byte[] buffer;
+    private int count;
+
+    /**
+     * Escreve em 'out' com a codificação da saída padrão.
+     */
+    public BufferedOutputSink(OutputStream out) {
+        this(out, stdoutCharset(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out O destino (não é fechado por close()).
+     * @param charset A codificação dos textos.
+     * @param capacity O tamanho do buffer, em bytes.
+     */
+    public BufferedOutputSink(OutputStream out, Charset charset, int capacity) {
+        this.out = out;
+        this.charset = charset;
+        this.prefix = PREFIX.getBytes(charset);
+        this.newline = System.lineSeparator().getBytes(charset);
+        this.buffer = new byte[Math.max(capacity, MAX_NUMBER_LINE + prefix.length + newline.length)];
+    }
+
+    @Override
+    public void printInt(int value) {
+        reserve(MAX_NUMBER_LINE + prefix.length + newline.length);
+        writeBytes(prefix);
+        writeInt(value);
+        writeBytes(newline);
+    }
+
+    @Override
+    public void printFloat(float value) {
+        printString(Float.toString(value));
+    }
+
+    @Override
+    public void printBoolean(boolean value) {
+        reserve(prefix.length + FALSE.length + newline.length);
+        writeBytes(prefix);
+        writeBytes(value ? TRUE : FALSE);
+        writeBytes(newline);
+    }
+
+    @Override
+    public void printString(String value) {
+        if (value == null) {
+            value = "null";
+        }
+        if (isAscii(value)) {
+            // O texto pode encher o buffer até o fim: a quebra de linha usa write()
+            reserve(prefix.length);
+            writeBytes(prefix);
+            writeAscii(value);
+            write(newline);
+        } else {
+            reserve(prefix.length);
+            writeBytes(prefix);
+            write(value.getBytes(charset));
+            write(newline);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            drain();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- Codificação ---
+
+    /** Garante 'n' bytes livres no buffer (escrevendo o que já está nele). */
+    private void reserve(int n) {
+        if (buffer.length - count < n) {
+            try {
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /** Copia bytes que cabem no espaço já reservado. */
+    private void writeBytes(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /** Copia bytes de qualquer tamanho (escrevendo o buffer quando enche). */
+    private void write(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (count == buffer.length) {
+                reserve(1);
+            }
+            int n = Math.min(bytes.length - offset, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, n);
+            count += n;
+            offset += n;
+        }
+    }
+
+    private void writeAscii(String text) {
+        int length = text.length();
+        int offset = 0;
+        while (offset < length) {
+            if (count == buffer.length) {
+                reserve(1);
+            }
+            int n = Math.min(length - offset, buffer.length - count);
+            for (int i = 0; i < n; i++) {
+                buffer[count++] = (byte) text.charAt(offset + i);
+            }
+            offset += n;
+        }
+    }
+
+    /** Escreve os dígitos de 'value' (em ASCII), sem passar por Integer.toString. */
+    private void writeInt(int value) {
+        long v = value; // long: -Integer.MIN_VALUE não cabe em um int
+        if (v < 0) {
+            buffer[count++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long p = 10; p <= v; p *= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        count += digits;
+    }
+
+    private boolean isAscii(String text) {
+        if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+                && !charset.equals(StandardCharsets.ISO_8859_1)) {
+            return false; // Codificações onde ASCII não é 1 byte = 1 char
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** A codificação usada pelo System.out (a mesma regra do PrintStream da JVM). */
+    private static Charset stdoutCharset() {
+        String encoding = System.getProperty("sun.stdout.encoding");
+        if (encoding != null && Charset.isSupported(encoding)) {
+            return Charset.forName(encoding);
+        }
+        return Charset.defaultCharset();
+    }
+}
@@ -0,0 +1,287 @@
+package ijgm_project.vm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache em disco de chunks compilados: um programa que não mudou é
+ * carregado do disco (ver ChunkSerializer) em vez de passar de novo pelo
+ * Lexer, pelo Parser e pelo CompilerVisitor.
+ *
+ * A chave de cada programa é o SHA-256 do código-fonte junto com a versão
+ * do compilador (o formato do ChunkSerializer, COMPILER_VERSION e o conjunto
+ * de opcodes); cada entrada é um arquivo "chave.chunk" no diretório do
+ * cache. A gravação é atômica (arquivo temporário + rename), então vários
+ * processos podem usar o mesmo diretório: quem lê nunca vê um arquivo pela
+ * metade. Uma entrada inválida (corrompida, de outra versão) é apagada e
+ * tratada como ausente.
+ *
+ * Remoção: entradas sem uso há mais de 'maxAgeMillis' são apagadas e, se o
+ * total passar de 'maxBytes', as usadas há mais tempo saem primeiro (cada
+ * acerto atualiza a data de modificação do arquivo). Um temporário que
+ * sobrou de um processo interrompido antes do rename ("chave*.tmp") é
+ * apagado quando passa de TEMP_GRACE_MILLIS (antes disso, pode ser uma
+ * gravação em andamento de outro processo).
+ *
+ * Propriedades (ver fromProperties): "ijgm.cache" (o diretório; sem ele não
+ * há cache), "ijgm.cache.size" (MB, padrão 64) e "ijgm.cache.age" (dias,
+ * padrão 30).
+ */
+public final class BytecodeCache {
+
+    /** Mudar quando o CompilerVisitor passar a gerar outro código para o mesmo fonte. */
+    public static final int COMPILER_VERSION = 1;
+
+    private static final String SUFFIX = ".chunk";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Nenhuma gravação demora tanto: um temporário mais velho é um órfão
+    private static final long TEMP_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Entra em toda chave: um compilador diferente nunca reaproveita entradas antigas
+    private static final String VERSION = "ijgm " + ChunkSerializer.FORMAT_VERSION + "." + COMPILER_VERSION
+            + " " + opcodeFingerprint();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+
+    // Tamanho aproximado do diretório (recontado a cada remoção)
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Abre (e cria, se preciso) o cache, já removendo as entradas velhas.
+     * @param directory O diretório das entradas.
+     * @param maxBytes O tamanho máximo do diretório, em bytes.
+     * @param maxAgeMillis Há quanto tempo uma entrada pode estar sem uso.
+     */
+    public BytecodeCache(Path directory, long maxBytes, long maxAgeMillis) throws IOException {
+        if (maxBytes <= 0 || maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("Tamanho e idade máximos devem ser positivos.");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        Files.createDirectories(directory);
+        evict();
+    }
+
+    /**
+     * O cache configurado pelas propriedades "ijgm.cache*".
+     * @return O cache, ou null se "ijgm.cache" não foi definida.
+     */
+    public static BytecodeCache fromProperties() throws IOException {
+        String directory = System.getProperty("ijgm.cache");
+        if (directory == null) {
+            return null;
+        }
+        long megabytes = Long.getLong("ijgm.cache.size", 64);
+        long days = Long.getLong("ijgm.cache.age", 30);
+        return new BytecodeCache(Paths.get(directory), megabytes * 1024 * 1024, TimeUnit.DAYS.toMillis(days));
+    }
+
+    /**
+     * A chave de um código-fonte (SHA-256, em hexadecimal).
+     */
+    public static String key(String source) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(VERSION.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Toda JVM tem SHA-256
+        }
+    }
+
+    /**
+     * Procura o chunk compilado deste código-fonte.
+     * @return O chunk, ou null se não está no cache.
+     */
+    public BytecodeChunk get(String source) {
+        Path file = fileOf(key(source));
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            misses.incrementAndGet(); // (NoSuchFileException: simplesmente não está no cache)
+            return null;
+        }
+        try {
+            BytecodeChunk chunk = ChunkSerializer.fromBytes(ByteBuffer.wrap(bytes));
+            chunk.decode(); // Valida o código agora (a VM reaproveita a decodificação)
+            touch(file);
+            hits.incrementAndGet();
+            return chunk;
+        } catch (RuntimeException e) {
+            // Corrompido ou de outra versão: descarta
+            delete(file);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Guarda o chunk compilado deste código-fonte (substitui o anterior).
+     * Uma falha de E/S não é fatal: o programa só não fica no cache.
+     */
+    public void put(String source, BytecodeChunk chunk) {
+        byte[] bytes = ChunkSerializer.toBytes(chunk);
+        String key = key(source);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, fileOf(key), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, fileOf(key), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            writes.incrementAndGet();
+            if (totalBytes.addAndGet(bytes.length) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            // O cache é só uma otimização
+        } finally {
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * O chunk do cache ou, se não estiver lá, o compilado por 'compiler' (que
+     * então é guardado; um null do compilador não é guardado).
+     */
+    public BytecodeChunk getOrCompile(String source, Function<String, BytecodeChunk> compiler) {
+        BytecodeChunk chunk = get(source);
+        if (chunk == null) {
+            chunk = compiler.apply(source);
+            if (chunk != null) {
+                put(source, chunk);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Apaga as entradas velhas (e os temporários órfãos) e, se o diretório
+     * ainda passar do tamanho máximo, as entradas usadas há mais tempo.
+     */
+    public synchronized void evict() throws IOException {
+        record Entry(Path file, long size, long modified) {
+        }
+        List<Entry> entries = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        long oldest = now - maxAgeMillis;
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*{" + SUFFIX + "," + TEMP_SUFFIX + "}")) {
+            for (Path file : files) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue; // Apagado por outro processo
+                }
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    if (modified < now - TEMP_GRACE_MILLIS) {
+                        evictFile(file); // Sobrou de um put interrompido antes do rename
+                    }
+                } else if (modified < oldest) {
+                    evictFile(file);
+                } else {
+                    entries.add(new Entry(file, attributes.size(), modified));
+                    total += attributes.size();
+                }
+            }
+        }
+        if (total > maxBytes) {
+            entries.sort(Comparator.comparingLong(Entry::modified));
+            for (Entry entry : entries) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                evictFile(entry.file());
+                total -= entry.size();
+            }
+        }
+        totalBytes.set(total);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** O arquivo da entrada de um código-fonte (exista ou não). */
+    public Path fileOf(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    @Override
+    public String toString() {
+        return "Cache de bytecode (" + directory + "): " + hits.get() + " acertos, " + misses.get() + " faltas, "
+                + writes.get() + " gravações, " + evictions.get() + " remoções";
+    }
+
+    // --- HELPER METHODS ---
+
+    private void evictFile(Path file) {
+        if (delete(file)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Marca a entrada como usada agora (a remoção por tamanho tira as usadas há mais tempo). */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Só afeta a ordem de remoção
+        }
+    }
+
+    /** Os nomes e valores dos opcodes: muda se o conjunto de instruções mudar. */
+    private static String opcodeFingerprint() {
+        StringBuilder names = new StringBuilder();
+        for (OpCode op : OpCode.values()) {
+            names.append(op.name()).append('=').append(op.getValue()).append('/').append(op.getOperandBytes()).append(';');
+        }
+        return Integer.toHexString(names.toString().hashCode());
+    }
+}
@@ -1,6 +1,8 @@
 package ijgm_project.vm;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -8,65 +10,140 @@ import java.util.List;
  * Esta classe é um container de dados (um "cartucho").
  * Ela armazena as instruções (Opcodes) e os dados (constantes)
  * que a VM irá executar.
+ *
+ * (Refatorado: o chunk agora é imutável e "congelado". O CompilerVisitor
+ * escreve em um ChunkBuilder, e o método freeze() produz este objeto,
+ * com o código guardado em um byte[] primitivo.)
+ *
+ * (Atualizado) O código fica em um ByteBuffer somente leitura: o de um
+ * chunk compilado envolve o byte[] do builder, e o de um chunk carregado de
+ * um arquivo .ijbc (ver ChunkSerializer.map) é um pedaço do próprio arquivo
+ * mapeado em memória, sem cópia.
  */
 public class BytecodeChunk {
 
-    // 1. A lista de instruções (Opcodes)
-    // O CompilerVisitor escreve aqui, a VM lê daqui.
-    private final List<Byte> code;
+    // 1. As instruções (Opcodes), em um buffer somente leitura (acessado
+    // só por posição absoluta, então pode ser lido por várias threads).
+    private final ByteBuffer code;
 
     // 2. A "Pool de Constantes"
     // Armazena valores literais (números, strings, etc.)
     // que as instruções usam.
     private final List<Object> constants;
 
+    // 3. A tabela de Globais
+    // O nome de cada variável global, indexado pelo seu slot.
+    private final List<String> globalNames;
+
+    // Estatísticas da pool, de quando o chunk foi compilado
+    private final ConstantPool.Statistics poolStatistics;
+
+    // Offset do bytecode -> linha do fonte (e as faixas dos laços)
+    private final LineTable lineTable;
+
+    // 4. A forma pré-decodificada (ver decode()), calculada uma única vez.
+    // Corridas simultâneas só podem produzir objetos equivalentes e imutáveis.
+    private volatile DecodedChunk decoded;
+
+    /**
+     * Construtor: usado pelo ChunkBuilder.freeze().
+     * @param code O bytecode final (não é copiado; o builder entrega um array exclusivo).
+     * @param constants A pool de constantes final.
+     * @param globalNames Os nomes das globais, na ordem dos slots.
+     * @param poolStatistics As estatísticas da pool de constantes.
+     * @param lineTable A tabela de linhas do código.
+     */
+    BytecodeChunk(byte[] code, List<Object> constants, List<String> globalNames,
+                  ConstantPool.Statistics poolStatistics, LineTable lineTable) {
+        this(ByteBuffer.wrap(code), constants, globalNames, poolStatistics, lineTable);
+    }
+
     /**
-     * Construtor: Inicializa as listas vazias.
+     * Construtor: usado pelo ChunkSerializer.
+     * @param code O bytecode, da posição 0 até o limite (não é copiado; pode ser um arquivo mapeado).
+     * @param constants A pool de constantes final.
+     * @param globalNames Os nomes das globais, na ordem dos slots.
+     * @param poolStatistics As estatísticas da pool de constantes.
+     * @param lineTable A tabela de linhas do código.
      */
-    public BytecodeChunk() {
-        this.code = new ArrayList<>();
-        this.constants = new ArrayList<>();
+    BytecodeChunk(ByteBuffer code, List<Object> constants, List<String> globalNames,
+                  ConstantPool.Statistics poolStatistics, LineTable lineTable) {
+        this.code = code.slice().asReadOnlyBuffer();
+        this.constants = Collections.unmodifiableList(constants);
+        this.globalNames = Collections.unmodifiableList(globalNames);
+        this.poolStatistics = poolStatistics;
+        this.lineTable = lineTable;
     }
 
-    // --- MÉTODOS USADOS PELO COMPILADOR (CompilerVisitor) ---
+    // --- MÉTODOS USADOS PELA MÁQUINA VIRTUAL (VM) ---
 
     /**
-     * Escreve um único byte (uma instrução ou um operando) no chunk.
-     * @param b O byte a ser escrito.
+     * Acesso direto ao bytecode (apenas para o pacote 'vm').
+     * Quem chama deve ler só por posição absoluta (get(int)), sem mexer na posição do buffer.
+     * @return O buffer interno (somente leitura).
      */
-    public void writeByte(byte b) {
-        this.code.add(b);
+    ByteBuffer code() {
+        return this.code;
     }
 
     /**
-     * Adiciona um valor (ex: 10, "ola") à pool de constantes.
-     * @param value O objeto a ser adicionado.
-     * @return O índice (posição) onde o valor foi armazenado.
-     *
-     * Este índice é crucial. O CompilerVisitor usará este índice
-     * como o operando para a instrução OP_PUSH_CONST.
+     * Retorna a forma pré-decodificada deste chunk (ver DecodedChunk).
+     * A decodificação acontece só na primeira chamada; execuções repetidas
+     * do mesmo chunk reaproveitam o resultado.
+     * @return O fluxo de instruções pré-decodificado.
      */
-    public int addConstant(Object value) {
-        if(this.constants.contains(value)) {
-            return this.constants.indexOf(value);
+    public DecodedChunk decode() {
+        DecodedChunk result = decoded;
+        if (result == null) {
+            result = DecodedChunk.of(this);
+            decoded = result;
         }
-        this.constants.add(value);
-        // Retorna o índice do item que acabamos de adicionar
-        return this.constants.size() - 1;
+        return result;
     }
 
-    // --- MÉTODOS USADOS PELA MÁQUINA VIRTUAL (VM) ---
+    /**
+     * Retorna o tamanho do bytecode, em bytes.
+     * @return O número de bytes do código.
+     */
+    public int size() {
+        return this.code.limit();
+    }
 
     /**
-     * Retorna a lista completa de instruções (bytecode).
-     * @return A lista de bytes.
+     * Lê um único byte do código.
+     * @param offset A posição do byte.
+     * @return O byte naquela posição.
      */
-    public List<Byte> getCode() {
-        return this.code;
+    public byte getByte(int offset) {
+        return this.code.get(offset);
+    }
+
+    /**
+     * Retorna o tamanho da instrução que começa em 'offset' (opcode + operandos),
+     * levando em conta o prefixo OP_WIDE (operandos de 16 bits).
+     * @param offset A posição do opcode (ou do prefixo OP_WIDE).
+     * @return O número de bytes até a próxima instrução.
+     */
+    public int instructionLength(int offset) {
+        OpCode op = OpCode.fromByte(this.code.get(offset));
+        if (op == OpCode.OP_WIDE) {
+            return 2 + 2 * OpCode.fromByte(this.code.get(offset + 1)).getOperandBytes();
+        }
+        return op.getLength();
     }
 
     /**
-     * Retorna a lista completa de constantes.
+     * Retorna uma cópia do bytecode (o chunk continua imutável).
+     * @return Uma cópia do array de bytes.
+     */
+    public byte[] getCode() {
+        byte[] copy = new byte[this.code.limit()];
+        this.code.get(0, copy);
+        return copy;
+    }
+
+    /**
+     * Retorna a lista completa de constantes (somente leitura).
      * @return A lista de objetos.
      */
     public List<Object> getConstants() {
@@ -83,8 +160,42 @@ public class BytecodeChunk {
         return this.constants.get(index);
     }
 
+    /**
+     * Retorna as estatísticas da pool de constantes (tamanho por tipo,
+     * pedidos e reaproveitamentos durante a compilação).
+     */
+    public ConstantPool.Statistics getPoolStatistics() {
+        return this.poolStatistics;
+    }
+
+    /**
+     * Retorna a tabela de linhas: a linha do fonte de cada instrução e as
+     * faixas dos laços (usada pelo Decompiler e pelo SamplingProfiler).
+     */
+    public LineTable getLineTable() {
+        return this.lineTable;
+    }
+
+    /**
+     * Retorna o número de variáveis globais (a VM aloca um slot para cada).
+     * @return A quantidade de slots globais.
+     */
+    public int getGlobalCount() {
+        return this.globalNames.size();
+    }
+
+    /**
+     * Retorna o nome da global que ocupa um slot.
+     * @param slot O slot da global.
+     * @return O nome da variável.
+     */
+    public String getGlobalName(int slot) {
+        return this.globalNames.get(slot);
+    }
+
     @Override
     public String toString() {
-        return "BytecodeChunk [code=" + code + ", constants=" + constants + "]";
+        return "BytecodeChunk [code=" + Arrays.toString(getCode()) + ", constants=" + constants
+                + ", globals=" + globalNames + "]";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package ijgm_project.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Construtor ("builder") de um BytecodeChunk.
+ *
+ * O CompilerVisitor escreve as instruções aqui, em um buffer primitivo
+ * que cresce sob demanda. Ao final, freeze() produz o BytecodeChunk
+ * imutável que a VM executa.
+ */
+public class ChunkBuilder {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Buffer primitivo de bytecode. Só as posições [0, size) são válidas.
+    private byte[] code;
+    private int size;
+
+    // A "Pool de Constantes" em construção (indexada por tipo e valor).
+    private final ConstantPool constants;
+
+    // Nomes das variáveis globais, indexados pelo seu slot.
+    private final List<String> globalNames;
+
+    // Tabela de linhas em construção (ver LineTable): corridas (offset, linha)
+    // e as faixas dos laços.
+    private int[] lineStarts;
+    private int[] lineNumbers;
+    private int lineCount;
+    private final List<LineTable.Loop> loops;
+
+    private boolean frozen;
+
+    public ChunkBuilder() {
+        this.code = new byte[INITIAL_CAPACITY];
+        this.size = 0;
+        this.constants = new ConstantPool();
+        this.globalNames = new ArrayList<>();
+        this.lineStarts = new int[16];
+        this.lineNumbers = new int[16];
+        this.lineCount = 0;
+        this.loops = new ArrayList<>();
+        this.frozen = false;
+    }
+
+    /**
+     * Escreve um único byte (uma instrução ou um operando) no buffer.
+     * @param b O byte a ser escrito.
+     */
+    public void writeByte(byte b) {
+        checkNotFrozen();
+        if (size == code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[size++] = b;
+    }
+
+    /**
+     * Sobrescreve um byte já escrito (usado pelo patchJump).
+     * @param offset A posição do byte a ser alterado.
+     * @param b O novo valor.
+     */
+    public void patchByte(int offset, byte b) {
+        checkNotFrozen();
+        if (offset < 0 || offset >= size) {
+            throw new IndexOutOfBoundsException("Offset de patch inválido: " + offset);
+        }
+        code[offset] = b;
+    }
+
+    /**
+     * Retorna o número de bytes escritos até agora
+     * (ou seja, o endereço da próxima instrução).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adiciona um valor (ex: 10, "ola") à pool de constantes.
+     * @param value O objeto a ser adicionado.
+     * @return O índice (posição) onde o valor foi armazenado.
+     *
+     * Este índice é crucial. O CompilerVisitor usará este índice
+     * como o operando para a instrução OP_PUSH_CONST.
+     * (Valores iguais, e do mesmo tipo, reaproveitam o mesmo índice; ver ConstantPool.)
+     */
+    public int addConstant(Object value) {
+        checkNotFrozen();
+        return this.constants.add(value);
+    }
+
+    /**
+     * Registra uma nova variável global.
+     * @param name O nome da variável.
+     * @return O slot (denso: 0, 1, 2...) atribuído à global.
+     */
+    public int addGlobal(String name) {
+        checkNotFrozen();
+        this.globalNames.add(constants.internName(name));
+        return this.globalNames.size() - 1;
+    }
+
+    /**
+     * Marca que as próximas instruções vêm da linha 'line' do fonte.
+     * (Só abre uma nova corrida na tabela de linhas se a linha mudou.)
+     * @param line A linha do comando que será compilado.
+     */
+    public void markLine(int line) {
+        checkNotFrozen();
+        if (lineCount > 0 && lineNumbers[lineCount - 1] == line) {
+            return;
+        }
+        if (lineCount > 0 && lineStarts[lineCount - 1] == size) {
+            // Nenhuma instrução foi emitida na corrida anterior: reaproveita
+            lineNumbers[lineCount - 1] = line;
+            return;
+        }
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lineNumbers = Arrays.copyOf(lineNumbers, lineCount * 2);
+        }
+        lineStarts[lineCount] = size;
+        lineNumbers[lineCount] = line;
+        lineCount++;
+    }
+
+    /**
+     * Registra um laço que começa em 'start' e termina aqui (no tamanho atual).
+     * @param start O offset da primeira instrução do laço (a condição).
+     * @param line A linha do 'while'.
+     */
+    public void addLoop(int start, int line) {
+        checkNotFrozen();
+        this.loops.add(new LineTable.Loop(start, size, line));
+    }
+
+    /**
+     * "Congela" o builder, produzindo o BytecodeChunk final.
+     * Depois desta chamada o builder não aceita mais escritas.
+     * @return O chunk imutável, com o código em um byte[] do tamanho exato.
+     */
+    public BytecodeChunk freeze() {
+        checkNotFrozen();
+        frozen = true;
+        return new BytecodeChunk(Arrays.copyOf(code, size), new ArrayList<>(constants.values()),
+                new ArrayList<>(globalNames), constants.statistics(),
+                new LineTable(Arrays.copyOf(lineStarts, lineCount), Arrays.copyOf(lineNumbers, lineCount), loops));
+    }
+
+    /**
+     * Estatísticas da pool de constantes até agora.
+     */
+    public ConstantPool.Statistics getPoolStatistics() {
+        return constants.statistics();
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("ChunkBuilder já foi congelado.");
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package ijgm_project.vm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forma binária de um BytecodeChunk (os arquivos .ijbc), para guardá-lo em
+ * disco (ver BytecodeCache e Aot) e carregá-lo de volta sem passar pelo
+ * Lexer, pelo Parser e pelo CompilerVisitor.
+ *
+ * Formato (big-endian; "u4" = 4 bytes sem sinal, "str" = u4 com o tamanho
+ * em bytes seguido do texto em UTF-8):
+ *
+ *   u4 magic ("IJBC")   u2 versão   u2 flags (bit 0: tem tabela de linhas)
+ *   u4 n, n constantes: u1 tag (ValueTag) + valor (int: u4; float: os 4 bytes
+ *      de Float.floatToRawIntBits; bool: u1; string: str; null: nada)
+ *   u4 n, n nomes de globais (str), na ordem dos slots
+ *   u4 n, n bytes de código
+ *   [tabela de linhas: u4 n, n corridas (u4 offset, u4 linha);
+ *    u4 n, n laços (u4 início, u4 fim, u4 linha)]
+ *
+ * As estatísticas da pool são refeitas a partir das constantes (os pedidos
+ * e reaproveitamentos da compilação não são guardados).
+ *
+ * A seção de código não é copiada na leitura: o chunk fica com um pedaço
+ * do próprio buffer. Com map(), esse buffer é o arquivo mapeado em memória
+ * (FileChannel.map), então carregar um programa grande custa só ler a pool,
+ * as globais e a tabela de linhas, e as páginas do código são compartilhadas
+ * entre processos.
+ *
+ * Um arquivo pode ter sido corrompido ou montado à mão. A pool, as globais
+ * e a tabela de linhas são conferidas na leitura; o código, só na primeira
+ * decodificação (BytecodeChunk.decode, que a VM faz ao ser criada e que
+ * percorre o código de qualquer forma): pulos para o meio de uma instrução,
+ * constantes fora da pool e globais fora da tabela são recusados ali, com
+ * o mesmo IllegalArgumentException, e não viram um comportamento estranho.
+ */
+public final class ChunkSerializer {
+
+    /** "IJBC" em ASCII. */
+    public static final int MAGIC = 0x494A4243;
+    /** Mudar a cada alteração do formato (arquivos de outra versão são recusados). */
+    public static final int FORMAT_VERSION = 1;
+
+    /** A extensão dos arquivos de bytecode. */
+    public static final String EXTENSION = ".ijbc";
+
+    private static final int FLAG_LINES = 1;
+
+    private ChunkSerializer() {
+    }
+
+    /**
+     * Serializa o chunk.
+     * @return Os bytes, no formato acima.
+     */
+    public static byte[] toBytes(BytecodeChunk chunk) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + chunk.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            LineTable lines = chunk.getLineTable();
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeShort(lines != null ? FLAG_LINES : 0);
+
+            List<Object> constants = chunk.getConstants();
+            out.writeInt(constants.size());
+            for (Object value : constants) {
+                byte tag = ValueTag.of(value);
+                out.writeByte(tag);
+                switch (tag) {
+                    case ValueTag.INT -> out.writeInt((Integer) value);
+                    case ValueTag.FLOAT -> out.writeInt(Float.floatToRawIntBits((Float) value));
+                    case ValueTag.BOOL -> out.writeByte((Boolean) value ? 1 : 0);
+                    case ValueTag.STRING -> writeString(out, (String) value);
+                    default -> { } // NULL: só a tag
+                }
+            }
+
+            out.writeInt(chunk.getGlobalCount());
+            for (int slot = 0; slot < chunk.getGlobalCount(); slot++) {
+                writeString(out, chunk.getGlobalName(slot));
+            }
+
+            out.writeInt(chunk.size());
+            out.write(chunk.getCode());
+
+            if (lines != null) {
+                out.writeInt(lines.size());
+                for (int run = 0; run < lines.size(); run++) {
+                    out.writeInt(lines.runStart(run));
+                    out.writeInt(lines.runLine(run));
+                }
+                out.writeInt(lines.getLoops().size());
+                for (LineTable.Loop loop : lines.getLoops()) {
+                    out.writeInt(loop.start());
+                    out.writeInt(loop.end());
+                    out.writeInt(loop.line());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // (Não acontece com um ByteArrayOutputStream)
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reconstrói um chunk serializado por toBytes.
+     * @param buffer Os bytes, a partir da posição atual (o buffer é consumido;
+     *               o chunk passa a usar a seção de código dele, sem cópia).
+     * @return O chunk (o código é validado na primeira chamada a decode()).
+     * @throws IllegalArgumentException se os bytes não são um chunk válido desta versão.
+     */
+    public static BytecodeChunk fromBytes(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Bytecode inválido: assinatura desconhecida.");
+            }
+            int version = Short.toUnsignedInt(buffer.getShort());
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Bytecode da versão " + version + " (esperada: "
+                        + FORMAT_VERSION + ").");
+            }
+            int flags = Short.toUnsignedInt(buffer.getShort());
+
+            int constantCount = count(buffer);
+            List<Object> constants = new ArrayList<>(constantCount);
+            int[] countByTag = new int[ValueTag.NULL + 1];
+            for (int i = 0; i < constantCount; i++) {
+                byte tag = buffer.get();
+                Object value = switch (tag) {
+                    case ValueTag.INT -> Integer.valueOf(buffer.getInt());
+                    case ValueTag.FLOAT -> Float.valueOf(Float.intBitsToFloat(buffer.getInt()));
+                    case ValueTag.BOOL -> Boolean.valueOf(buffer.get() != 0);
+                    case ValueTag.STRING -> readString(buffer);
+                    case ValueTag.NULL -> null;
+                    default -> throw new IllegalArgumentException("Bytecode inválido: constante com tag " + tag + ".");
+                };
+                constants.add(value);
+                countByTag[tag]++;
+            }
+
+            int globalCount = count(buffer);
+            List<String> globals = new ArrayList<>(globalCount);
+            for (int i = 0; i < globalCount; i++) {
+                globals.add(readString(buffer));
+            }
+
+            int codeLength = count(buffer);
+            ByteBuffer code = buffer.slice(buffer.position(), codeLength);
+            buffer.position(buffer.position() + codeLength);
+
+            LineTable lines = (flags & FLAG_LINES) != 0
+                    ? readLineTable(buffer, codeLength)
+                    : new LineTable(new int[0], new int[0], List.of());
+
+            ConstantPool.Statistics statistics = new ConstantPool.Statistics(constantCount,
+                    countByTag[ValueTag.INT], countByTag[ValueTag.FLOAT], countByTag[ValueTag.BOOL],
+                    countByTag[ValueTag.STRING], countByTag[ValueTag.NULL], 0, 0, globalCount);
+            return new BytecodeChunk(code, constants, globals, statistics, lines);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Bytecode inválido: arquivo truncado.");
+        }
+    }
+
+    /**
+     * Grava o chunk em um arquivo .ijbc.
+     * @param chunk O chunk.
+     * @param file O arquivo (substituído, se já existir).
+     */
+    public static void write(BytecodeChunk chunk, Path file) throws IOException {
+        Files.write(file, toBytes(chunk));
+    }
+
+    /**
+     * Carrega um arquivo .ijbc mapeando-o em memória: só a pool, as globais
+     * e a tabela de linhas são lidas agora; o código é usado direto do
+     * mapeamento (que continua válido depois que o arquivo é fechado) e
+     * validado na primeira decodificação.
+     * @param file O arquivo.
+     * @return O chunk.
+     * @throws IllegalArgumentException se o arquivo não é um chunk válido desta versão.
+     */
+    public static BytecodeChunk map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return fromBytes(buffer);
+        }
+    }
+
+    // --- HELPER METHODS ---
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Lê a tabela de linhas, recusando corridas fora de ordem ou fora do
+     * código e laços que não cabem nele (o Profiler e as mensagens de erro
+     * confiam nela).
+     */
+    private static LineTable readLineTable(ByteBuffer buffer, int codeLength) {
+        int runCount = count(buffer);
+        int[] starts = new int[runCount];
+        int[] lineNumbers = new int[runCount];
+        for (int run = 0; run < runCount; run++) {
+            starts[run] = buffer.getInt();
+            lineNumbers[run] = buffer.getInt();
+            if (starts[run] < 0 || starts[run] >= codeLength || (run > 0 && starts[run] < starts[run - 1])) {
+                throw new IllegalArgumentException("Bytecode inválido: corrida de linha no offset " + starts[run] + ".");
+            }
+            if (lineNumbers[run] < 0) {
+                throw new IllegalArgumentException("Bytecode inválido: linha " + lineNumbers[run] + ".");
+            }
+        }
+        int loopCount = count(buffer);
+        List<LineTable.Loop> loops = new ArrayList<>(loopCount);
+        for (int i = 0; i < loopCount; i++) {
+            LineTable.Loop loop = new LineTable.Loop(buffer.getInt(), buffer.getInt(), buffer.getInt());
+            if (loop.start() < 0 || loop.end() <= loop.start() || loop.end() > codeLength || loop.line() < 0) {
+                throw new IllegalArgumentException("Bytecode inválido: laço " + loop + ".");
+            }
+            loops.add(loop);
+        }
+        return new LineTable(starts, lineNumbers, loops);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] utf8 = new byte[count(buffer)];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /** Lê um tamanho (u4), recusando valores que não cabem no que resta do buffer. */
+    private static int count(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Bytecode inválido: tamanho " + Integer.toUnsignedString(count) + ".");
+        }
+        return count;
+    }
+}
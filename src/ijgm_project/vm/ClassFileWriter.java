@@ -0,0 +1,568 @@
+package ijgm_project.vm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escritor mínimo de arquivos .class da JVM (sem dependências externas).
+ *
+ * Suporta apenas o que os geradores de código da IJGM precisam: uma classe
+ * com campos, métodos e o atributo Code (com handlers "pega tudo", ver
+ * Code.handler).
+ *
+ * Gera a versão 49 (Java 5) do formato: nela o verificador da JVM ainda
+ * infere os tipos sozinho, então não é preciso calcular o atributo
+ * StackMapTable (que a versão 50+ exige em todo desvio).
+ */
+public final class ClassFileWriter {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 49;
+
+    // --- Flags de acesso ---
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    // --- Instruções da JVM usadas pelos geradores ---
+    public static final int ACONST_NULL = 0x01;
+    public static final int ICONST_0 = 0x03;
+    public static final int FCONST_0 = 0x0b;
+    public static final int FCONST_1 = 0x0c;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC = 0x12;
+    public static final int LDC_W = 0x13;
+    public static final int ILOAD = 0x15;
+    public static final int FLOAD = 0x17;
+    public static final int ALOAD = 0x19;
+    public static final int IALOAD = 0x2e;
+    public static final int LALOAD = 0x2f;
+    public static final int AALOAD = 0x32;
+    public static final int BALOAD = 0x33;
+    public static final int ISTORE = 0x36;
+    public static final int FSTORE = 0x38;
+    public static final int ASTORE = 0x3a;
+    public static final int IASTORE = 0x4f;
+    public static final int LASTORE = 0x50;
+    public static final int AASTORE = 0x53;
+    public static final int BASTORE = 0x54;
+    public static final int POP = 0x57;
+    public static final int POP2 = 0x58;
+    public static final int DUP = 0x59;
+    public static final int SWAP = 0x5f;
+    public static final int IADD = 0x60;
+    public static final int FADD = 0x62;
+    public static final int ISUB = 0x64;
+    public static final int FSUB = 0x66;
+    public static final int IMUL = 0x68;
+    public static final int FMUL = 0x6a;
+    public static final int IDIV = 0x6c;
+    public static final int FDIV = 0x6e;
+    public static final int INEG = 0x74;
+    public static final int FNEG = 0x76;
+    public static final int IAND = 0x7e;
+    public static final int IOR = 0x80;
+    public static final int IXOR = 0x82;
+    public static final int IINC = 0x84;
+    public static final int I2L = 0x85;
+    public static final int I2F = 0x86;
+    public static final int L2I = 0x88;
+    public static final int FCMPL = 0x95;
+    public static final int FCMPG = 0x96;
+    public static final int IFEQ = 0x99;
+    public static final int IFNE = 0x9a;
+    public static final int IFLT = 0x9b;
+    public static final int IFGE = 0x9c;
+    public static final int IFGT = 0x9d;
+    public static final int IFLE = 0x9e;
+    public static final int IF_ICMPEQ = 0x9f;
+    public static final int IF_ICMPNE = 0xa0;
+    public static final int IF_ICMPLT = 0xa1;
+    public static final int IF_ICMPGE = 0xa2;
+    public static final int IF_ICMPGT = 0xa3;
+    public static final int IF_ICMPLE = 0xa4;
+    public static final int GOTO = 0xa7;
+    public static final int IRETURN = 0xac;
+    public static final int FRETURN = 0xae;
+    public static final int ARETURN = 0xb0;
+    public static final int RETURN = 0xb1;
+    public static final int GETSTATIC = 0xb2;
+    public static final int PUTSTATIC = 0xb3;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+    public static final int INVOKESTATIC = 0xb8;
+    public static final int ATHROW = 0xbf;
+    public static final int CHECKCAST = 0xc0;
+    public static final int WIDE = 0xc4;
+
+    // --- Pool de constantes ---
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1; // O índice 0 não é usado
+
+    private final int access;
+    private final int thisClass;
+    private final int superClass;
+    private final List<Integer> interfaces = new ArrayList<>();
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * @param access As flags da classe (ex: ACC_PUBLIC | ACC_FINAL).
+     * @param name O nome interno da classe (ex: "ijgm_project/vm/Loop").
+     * @param superName O nome interno da superclasse.
+     * @param interfaceNames Nomes internos das interfaces implementadas.
+     */
+    public ClassFileWriter(int access, String name, String superName, String... interfaceNames) {
+        this.access = access | ACC_SUPER;
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+        for (String interfaceName : interfaceNames) {
+            interfaces.add(classRef(interfaceName));
+        }
+    }
+
+    // --- Entradas da pool (cada uma é criada uma só vez) ---
+
+    public int utf8(String value) {
+        return entry("U" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        }, 1);
+    }
+
+    public int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, out -> {
+            out.writeByte(7);
+            out.writeShort(name);
+        }, 1);
+    }
+
+    public int string(String value) {
+        int utf = utf8(value);
+        return entry("S" + value, out -> {
+            out.writeByte(8);
+            out.writeShort(utf);
+        }, 1);
+    }
+
+    public int integer(int value) {
+        return entry("I" + value, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        }, 1);
+    }
+
+    public int floatConstant(float value) {
+        // Chave pelos bits, para distinguir 0.0f de -0.0f (e NaNs)
+        return entry("F" + Float.floatToRawIntBits(value), out -> {
+            out.writeByte(4);
+            out.writeFloat(value);
+        }, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int n = utf8(name);
+        int d = utf8(descriptor);
+        return entry("N" + name + ":" + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(n);
+            out.writeShort(d);
+        }, 1);
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int c = classRef(owner);
+        int nt = nameAndType(name, descriptor);
+        return entry("M" + tag + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(c);
+            out.writeShort(nt);
+        }, 1);
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, EntryWriter writer, int slots) {
+        Integer existing = poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            writer.write(pool);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int index = poolCount;
+        poolCount += slots;
+        if (poolCount > 0xFFFF) {
+            throw new IllegalStateException("Pool de constantes muito grande.");
+        }
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    // --- Membros ---
+
+    /** Declara um campo (sem valor inicial). */
+    public void addField(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0); // Sem atributos
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Começa um método. O corpo é escrito no Code devolvido, e o método só
+     * entra na classe quando Code.end() é chamado.
+     * @param maxLocals O número de slots de variáveis locais (incluindo 'this' e parâmetros).
+     */
+    public Code method(int access, String name, String descriptor, int maxLocals) {
+        return new Code(access, name, descriptor, maxLocals);
+    }
+
+    /** Gera os bytes do arquivo .class. */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0); // minor
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.size());
+            for (int i : interfaces) {
+                out.writeShort(i);
+            }
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // Sem atributos de classe
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Destino de um desvio (goto/if*). Pode ser usado antes de ser marcado:
+     * os offsets pendentes são corrigidos em Code.mark().
+     */
+    public static final class Label {
+        private int position = -1;
+        private int stack = -1; // Altura da pilha da JVM no destino
+        private final List<int[]> fixups = new ArrayList<>(); // {posição do opcode, posição do offset}
+    }
+
+    /**
+     * Montador do corpo de um método. Acompanha a altura da pilha de
+     * operandos para calcular o max_stack automaticamente.
+     */
+    public final class Code {
+        private final int methodAccess;
+        private final String name;
+        private final String descriptor;
+        private final int maxLocals;
+
+        private byte[] code = new byte[256];
+        private int size;
+        private int stack;
+        private int maxStack;
+        private final List<Label[]> handlers = new ArrayList<>(); // {início, fim, handler}
+
+        private Code(int access, String name, String descriptor, int maxLocals) {
+            this.methodAccess = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = maxLocals;
+        }
+
+        private void u1(int b) {
+            if (size == code.length) {
+                code = Arrays.copyOf(code, size * 2);
+            }
+            code[size++] = (byte) b;
+        }
+
+        private void u2(int v) {
+            u1(v >> 8);
+            u1(v);
+        }
+
+        private void adjust(int delta) {
+            stack += delta;
+            if (stack < 0) {
+                throw new IllegalStateException("Pilha da JVM negativa em " + name);
+            }
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        /** Emite uma instrução sem operandos, com o efeito 'delta' na pilha. */
+        public void op(int opcode, int delta) {
+            u1(opcode);
+            adjust(delta);
+            if (opcode == GOTO || opcode == IRETURN || opcode == FRETURN || opcode == ARETURN || opcode == RETURN
+                    || opcode == ATHROW) {
+                stack = 0; // O código seguinte só é alcançado por um Label
+            }
+        }
+
+        public void iconst(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(BIPUSH);
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(SIPUSH);
+                u2(value);
+            } else {
+                ldc(integer(value));
+                return;
+            }
+            adjust(1);
+        }
+
+        public void fconst(float value) {
+            if (Float.floatToRawIntBits(value) == 0) {
+                u1(FCONST_0);
+                adjust(1);
+            } else if (value == 1.0f) {
+                u1(FCONST_1);
+                adjust(1);
+            } else {
+                ldc(floatConstant(value));
+            }
+        }
+
+        public void sconst(String value) {
+            ldc(string(value));
+        }
+
+        private void ldc(int index) {
+            if (index <= 0xFF) {
+                u1(LDC);
+                u1(index);
+            } else {
+                u1(LDC_W);
+                u2(index);
+            }
+            adjust(1);
+        }
+
+        /** Instruções de variável local (ILOAD/FLOAD/ALOAD/ISTORE/FSTORE/ASTORE). */
+        public void local(int opcode, int slot) {
+            if (slot > 0xFF) {
+                u1(WIDE);
+                u1(opcode);
+                u2(slot);
+            } else {
+                u1(opcode);
+                u1(slot);
+            }
+            adjust(opcode == ISTORE || opcode == FSTORE || opcode == ASTORE ? -1 : 1);
+        }
+
+        public void iinc(int slot, int delta) {
+            if (slot > 0xFF || delta < Byte.MIN_VALUE || delta > Byte.MAX_VALUE) {
+                u1(WIDE);
+                u1(IINC);
+                u2(slot);
+                u2(delta);
+            } else {
+                u1(IINC);
+                u1(slot);
+                u1(delta);
+            }
+        }
+
+        /** INVOKESTATIC/INVOKEVIRTUAL/INVOKESPECIAL; o efeito na pilha vem do descritor. */
+        public void invoke(int opcode, String owner, String methodName, String methodDescriptor) {
+            u1(opcode);
+            u2(methodRef(owner, methodName, methodDescriptor));
+            int delta = returnSlots(methodDescriptor) - argumentSlots(methodDescriptor);
+            adjust(opcode == INVOKESTATIC ? delta : delta - 1);
+        }
+
+        /** GETSTATIC/PUTSTATIC. */
+        public void field(int opcode, String owner, String fieldName, String fieldDescriptor) {
+            u1(opcode);
+            u2(fieldRef(owner, fieldName, fieldDescriptor));
+            int slots = slotsOf(fieldDescriptor.charAt(0));
+            adjust(opcode == GETSTATIC ? slots : -slots);
+        }
+
+        public void checkcast(String internalName) {
+            u1(CHECKCAST);
+            u2(classRef(internalName));
+        }
+
+        /** Emite um desvio (IFxx, IF_ICMPxx ou GOTO) para 'target'. */
+        public void jump(int opcode, Label target) {
+            int delta = opcode == GOTO ? 0 : (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE ? -2 : -1);
+            adjust(delta);
+            int at = size;
+            u1(opcode);
+            if (target.position >= 0) {
+                u2(checkOffset(target.position - at));
+            } else {
+                target.fixups.add(new int[] {at, size});
+                u2(0);
+            }
+            if (target.stack < 0) {
+                target.stack = stack;
+            }
+            if (opcode == GOTO) {
+                stack = 0;
+            }
+        }
+
+        /** Marca a posição atual como o destino de 'label'. */
+        public void mark(Label label) {
+            label.position = size;
+            if (label.stack >= 0) {
+                stack = label.stack;
+            } else {
+                label.stack = stack;
+            }
+            for (int[] fixup : label.fixups) {
+                int offset = checkOffset(size - fixup[0]);
+                code[fixup[1]] = (byte) (offset >> 8);
+                code[fixup[1] + 1] = (byte) offset;
+            }
+            label.fixups.clear();
+        }
+
+        private int checkOffset(int offset) {
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("Desvio muito longo em " + name);
+            }
+            return offset;
+        }
+
+        /**
+         * Qualquer exceção lançada em [start, end) desvia para 'handler', que
+         * começa com ela na pilha (catch_type 0, como o de um 'finally').
+         * Os três labels precisam estar marcados até end().
+         */
+        public void handler(Label start, Label end, Label handler) {
+            handlers.add(new Label[] {start, end, handler});
+            if (handler.stack < 0) {
+                handler.stack = 1;
+            }
+        }
+
+        /** Finaliza o método e o adiciona à classe. */
+        public void end() {
+            if (size > 0xFFFF) {
+                throw new IllegalStateException("Método muito grande: " + name);
+            }
+            for (Label[] handler : handlers) {
+                for (Label label : handler) {
+                    if (label.position < 0) {
+                        throw new IllegalStateException("Label de handler não marcado em " + name);
+                    }
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeShort(methodAccess);
+                out.writeShort(utf8(name));
+                out.writeShort(utf8(descriptor));
+                out.writeShort(1); // Um atributo: Code
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + size + 8 * handlers.size());
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(size);
+                out.write(code, 0, size);
+                out.writeShort(handlers.size());
+                for (Label[] handler : handlers) {
+                    out.writeShort(handler[0].position);
+                    out.writeShort(handler[1].position);
+                    out.writeShort(handler[2].position);
+                    out.writeShort(0); // Qualquer exceção
+                }
+                out.writeShort(0); // Sem atributos
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+    }
+
+    // --- Descritores ---
+
+    private static int argumentSlots(String descriptor) {
+        int slots = 0;
+        int i = 1; // Pula '('
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            if (c == '[') {
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                i = skipType(descriptor, i);
+                slots += 1; // Arrays são referências
+            } else {
+                i = skipType(descriptor, i);
+                slots += slotsOf(c);
+            }
+        }
+        return slots;
+    }
+
+    private static int skipType(String descriptor, int i) {
+        return descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+    }
+
+    private static int returnSlots(String descriptor) {
+        return slotsOf(descriptor.charAt(descriptor.indexOf(')') + 1));
+    }
+
+    private static int slotsOf(char type) {
+        return switch (type) {
+            case 'V' -> 0;
+            case 'J', 'D' -> 2;
+            default -> 1;
+        };
+    }
+}
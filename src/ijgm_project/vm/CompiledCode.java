@@ -0,0 +1,25 @@
+package ijgm_project.vm;
+
+/**
+ * Código IJGM compilado para uma classe da JVM pelo JitCompiler (tier 2).
+ *
+ * A classe gerada recebe as globais da VM (arrays paralelos de tag/primitivo/
+ * referência, ver ValueTag), executa a região compilada com as globais em
+ * variáveis locais da JVM e as devolve aos arrays ao sair.
+ */
+interface CompiledCode {
+
+    /** Retorno de execute() quando os tipos das globais não batem com os da compilação. */
+    int DEOPT = -1;
+
+    /**
+     * Executa a região compilada (o 'print' escreve em 'output', como na VM).
+     * @param fuel Só no código com medição de combustível (ver VM.setFuel):
+     *             fuel[0] é o orçamento de entrada e, na saída, o que sobrou
+     *             (-1 = acabou em um pulo para trás, e a VM continua nesse
+     *             pulo). Sem medição, é ignorado (pode ser null).
+     * @return O índice (no fluxo pré-decodificado) onde o interpretador deve
+     *         continuar, ou DEOPT (nada foi executado nem alterado).
+     */
+    int execute(byte[] globalTags, long[] globalPrims, Object[] globalRefs, OutputSink output, int[] fuel);
+}
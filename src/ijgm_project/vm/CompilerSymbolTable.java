@@ -21,7 +21,7 @@ public class CompilerSymbolTable {
      * O Compilador usará isso para saber qual OpCode emitir.
      */
     public static class Symbol {
-        /** O índice (slot) da variável local ou o índice da constante para a global. */
+        /** O índice (slot) da variável local ou o slot (denso) da global. */
         public final int index;
         
         /** Verdadeiro se for uma variável local (na pilha), falso se for global. */
@@ -34,8 +34,8 @@ public class CompilerSymbolTable {
     }
 
     // 1. Tabela de Globais
-    // Mapeia o nome da variável (String) ao seu índice na pool de constantes
-    // (Integer).
+    // Mapeia o nome da variável (String) ao seu slot global (Integer).
+    // Os slots são densos (0, 1, 2...), então a VM guarda as globais em um array.
     private final Map<String, Integer> globals;
 
     // 2. Pilha de Escopos Locais
@@ -101,22 +101,22 @@ public class CompilerSymbolTable {
      * Declara uma nova variável no escopo ATUAL (seja global ou local).
      *
      * @param name O nome da variável (ex: "x").
-     * @param chunk O "cartucho" de bytecode, necessário para adicionar o nome
-     * da variável à pool de constantes (se for global).
+     * @param chunk O builder do "cartucho" de bytecode, necessário para registrar o
+     * nome da variável na tabela de globais do chunk (se for global).
      * @return O Símbolo (endereço) da variável recém-criada.
      */
-    public Symbol declare(String name, BytecodeChunk chunk) {
+    public Symbol declare(String name, ChunkBuilder chunk) {
         if (isGlobalScope()) {
             // --- Declaração GLOBAL ---
             if (globals.containsKey(name)) {
                 throw new RuntimeException("Erro de Compilação: Variável global '" + name + "' já declarada.");
             }
             
-            // Variáveis globais são "endereçadas" por um índice na pool de constantes
-            // que armazena o NOME da variável.
-            int constantIndex = chunk.addConstant(name);
-            globals.put(name, constantIndex);
-            return new Symbol(constantIndex, false); // isLocal = false
+            // Variáveis globais são "endereçadas" por um slot denso, atribuído
+            // em tempo de compilação. O chunk guarda o nome (para mensagens de erro).
+            int slot = chunk.addGlobal(name);
+            globals.put(name, slot);
+            return new Symbol(slot, false); // isLocal = false
             
         } else {
             // --- Declaração LOCAL ---
@@ -154,7 +154,7 @@ public class CompilerSymbolTable {
 
         // 2. Se não for local, tenta resolver como GLOBAL
         if (globals.containsKey(name)) {
-            // Encontrou! Retorna o Símbolo com o índice da constante global.
+            // Encontrou! Retorna o Símbolo com o slot da global.
             return new Symbol(globals.get(name), false); // isLocal = false
         }
         
@@ -1,34 +1,87 @@
 package ijgm_project.vm;
 
+import ijgm_project.lexer.TokenType;
 import ijgm_project.parser.ast.*;
 import ijgm_project.visitor.Visitor;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Traduz a AST para Bytecode.
  * (Corrigido para usar OpCode.getValue() - A Boa Prática)
  * (Corrigido o bug de "off-by-one" do emitLoopJump)
+ * (Emite superinstruções para os padrões mais comuns, ver OpCode seção 8)
+ * (Operandos largos: usa o prefixo OP_WIDE quando um índice ou um pulo não
+ *  cabe em um byte, ver OpCode seção 9)
+ * (Registra a linha do fonte de cada comando e a faixa de cada laço na
+ *  tabela de linhas do chunk, ver LineTable)
  */
 public class CompilerVisitor implements Visitor<Void> {
 
-    private final BytecodeChunk chunk;
-    private final CompilerSymbolTable table;
+    private ChunkBuilder chunk;
+    private CompilerSymbolTable table;
+
+    // Se falso, emite apenas as instruções básicas (usado pelo SuperinstructionMiner,
+    // que precisa ver as sequências originais para contar os n-gramas).
+    private final boolean superinstructions;
+
+    // Relaxamento dos pulos para frente: o tamanho de um pulo só é conhecido
+    // depois de compilar o corpo. Cada pulo para frente recebe um número de
+    // série (na ordem de emissão); se um pulo curto não couber, ele entra em
+    // 'wideJumps' e o programa é recompilado com aquele pulo na forma larga.
+    private final Set<Integer> wideJumps = new HashSet<>();
+    private int jumpSerial;
+    private boolean needsRelaxation;
+
+    /** Um pulo para frente ainda não "remendado" (ver patchJump). */
+    private record PendingJump(int offsetAddress, int serial, boolean wide) {
+    }
 
     public CompilerVisitor() {
-        this.chunk = new BytecodeChunk();
+        this(true);
+    }
+
+    public CompilerVisitor(boolean superinstructions) {
+        this.chunk = new ChunkBuilder();
         this.table = new CompilerSymbolTable();
+        this.superinstructions = superinstructions;
     }
 
+    /**
+     * Compila o programa, imprimindo o erro (se houver) no System.err.
+     * @return O chunk, ou null se a compilação falhou.
+     */
     public BytecodeChunk compile(List<Statement> ast) {
         try {
+            return compileOrThrow(ast);
+        } catch (RuntimeException e) {
+            System.err.println("Erro de Compilação: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compila o programa sem imprimir nada (usado pelo BatchCompiler).
+     * @return O chunk.
+     * @throws RuntimeException se a compilação falhou (ex: variável não declarada).
+     */
+    public BytecodeChunk compileOrThrow(List<Statement> ast) {
+        // Cada passada só pode alargar pulos (nunca encolher), então o laço termina.
+        while (true) {
+            this.chunk = new ChunkBuilder();
+            this.table = new CompilerSymbolTable();
+            this.jumpSerial = 0;
+            this.needsRelaxation = false;
+
             for (Statement stmt : ast) {
-                stmt.accept(this);
+                compileStatement(stmt);
             }
             chunk.writeByte(OpCode.OP_RETURN.getValue());
-            return this.chunk;
-        } catch (Exception e) {
-            System.err.println("Erro de Compilação: " + e.getMessage());
-            return null;
+
+            if (!needsRelaxation) {
+                return this.chunk.freeze();
+            }
         }
     }
 
@@ -36,8 +89,7 @@ public class CompilerVisitor implements Visitor<Void> {
     @Override
     public Void visit(LiteralExpression expression) {
         int constantIndex = chunk.addConstant(expression.getValue());
-        chunk.writeByte(OpCode.OP_PUSH_CONST.getValue());
-        chunk.writeByte((byte) constantIndex); 
+        emitWithOperand(OpCode.OP_PUSH_CONST, constantIndex);
         return null;
     }
 
@@ -69,11 +121,9 @@ public class CompilerVisitor implements Visitor<Void> {
         CompilerSymbolTable.Symbol symbol = table.resolve(expression.getName());
 
         if (symbol.isLocal) {
-            chunk.writeByte(OpCode.OP_LOAD_LOCAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_LOAD_LOCAL, symbol.index);
         } else {
-            chunk.writeByte(OpCode.OP_LOAD_GLOBAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_LOAD_GLOBAL, symbol.index);
         }
         return null;
     }
@@ -91,30 +141,34 @@ public class CompilerVisitor implements Visitor<Void> {
         };
         
         int constIndex = chunk.addConstant(defaultValue);
-        chunk.writeByte(OpCode.OP_PUSH_CONST.getValue());
-        chunk.writeByte((byte) constIndex);
+        emitWithOperand(OpCode.OP_PUSH_CONST, constIndex);
 
         CompilerSymbolTable.Symbol symbol = table.declare(statement.getVariableName(), chunk);
 
         if (!symbol.isLocal) {
-            chunk.writeByte(OpCode.OP_DEFINE_GLOBAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_DEFINE_GLOBAL, symbol.index);
         }
         return null;
     }
 
     @Override
     public Void visit(AssignStatement statement) {
+        if (superinstructions) {
+            emitFusedAssign(statement);
+            return null;
+        }
+
         statement.getExpression().accept(this);
         CompilerSymbolTable.Symbol symbol = table.resolve(statement.getVariableName());
 
         if (symbol.isLocal) {
-            chunk.writeByte(OpCode.OP_STORE_LOCAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_STORE_LOCAL, symbol.index);
         } else {
-            chunk.writeByte(OpCode.OP_STORE_GLOBAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_STORE_GLOBAL, symbol.index);
         }
+        // O STORE deixa o valor na pilha; como a atribuição é um comando,
+        // ele é descartado aqui (senão a pilha cresceria a cada iteração de loop).
+        chunk.writeByte(OpCode.OP_POP.getValue());
         return null;
     }
     
@@ -123,11 +177,9 @@ public class CompilerVisitor implements Visitor<Void> {
         CompilerSymbolTable.Symbol symbol = table.resolve(statement.getVariableName());
 
         if (symbol.isLocal) {
-            chunk.writeByte(OpCode.OP_INCREMENT_LOCAL.getValue());
-            chunk.writeByte((byte) symbol.index);
-               } else {
-            chunk.writeByte(OpCode.OP_INCREMENT_GLOBAL.getValue());
-           chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_INCREMENT_LOCAL, symbol.index);
+        } else {
+            emitWithOperand(OpCode.OP_INCREMENT_GLOBAL, symbol.index);
         }
         return null;
     }
@@ -137,11 +189,9 @@ public class CompilerVisitor implements Visitor<Void> {
         CompilerSymbolTable.Symbol symbol = table.resolve(statement.getVariableName());
 
         if (symbol.isLocal) {
-            chunk.writeByte(OpCode.OP_DECREMENT_LOCAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_DECREMENT_LOCAL, symbol.index);
         } else {
-            chunk.writeByte(OpCode.OP_DECREMENT_GLOBAL.getValue());
-            chunk.writeByte((byte) symbol.index);
+            emitWithOperand(OpCode.OP_DECREMENT_GLOBAL, symbol.index);
         }
         return null;
     }
@@ -149,6 +199,21 @@ public class CompilerVisitor implements Visitor<Void> {
 
     @Override
     public Void visit(PrintStatement statement) {
+        // Superinstrução: print k; -> OP_PRINT_CONST k
+        if (superinstructions && statement.getExpression() instanceof LiteralExpression literal) {
+            int constIndex = chunk.addConstant(literal.getValue());
+            emitWithOperand(OpCode.OP_PRINT_CONST, constIndex);
+            return null;
+        }
+        // Superinstrução: print x; (x global) -> OP_PRINT_GLOBAL x
+        if (superinstructions && statement.getExpression() instanceof VariableExpression variable) {
+            CompilerSymbolTable.Symbol symbol = table.resolve(variable.getName());
+            if (!symbol.isLocal) {
+                emitWithOperand(OpCode.OP_PRINT_GLOBAL, symbol.index);
+                return null;
+            }
+        }
+
         statement.getExpression().accept(this);
         chunk.writeByte(OpCode.OP_PRINT.getValue());
         return null;
@@ -159,9 +224,10 @@ public class CompilerVisitor implements Visitor<Void> {
         table.beginScope();
 
         for (Statement stmt : statement.getStatements()) {
-            stmt.accept(this);
+            compileStatement(stmt);
         }
 
+        chunk.markLine(statement.getLine());
         int numPopped = table.endScope();
 
         for (int i = 0; i < numPopped; i++) {
@@ -172,21 +238,20 @@ public class CompilerVisitor implements Visitor<Void> {
 
     @Override
     public Void visit(IfStatement statement) {
-        statement.getCondition().accept(this);
-
-        int thenJump = emitJump(OpCode.OP_JUMP_IF_FALSE.getValue());
+        PendingJump thenJump = emitConditionJump(statement.getCondition());
 
         for (Statement stmt : statement.getThenBody()) {
-            stmt.accept(this);
+            compileStatement(stmt);
         }
 
-        int elseJump = emitJump(OpCode.OP_JUMP.getValue());
+        chunk.markLine(statement.getLine());
+        PendingJump elseJump = emitJump(OpCode.OP_JUMP);
 
         patchJump(thenJump);
 
         if (statement.getElseBody() != null) {
             for (Statement stmt : statement.getElseBody()) {
-                stmt.accept(this);
+                compileStatement(stmt);
             }
         }
 
@@ -197,58 +262,204 @@ public class CompilerVisitor implements Visitor<Void> {
 
     @Override
     public Void visit(WhileStatement statement) {
-        int loopStart = chunk.getCode().size();
+        int loopStart = chunk.size();
 
-        statement.getCondition().accept(this);
-
-        int exitJump = emitJump(OpCode.OP_JUMP_IF_FALSE.getValue());
+        PendingJump exitJump = emitConditionJump(statement.getCondition());
 
         for (Statement stmt : statement.getBody()) {
-            stmt.accept(this);
+            compileStatement(stmt);
         }
 
+        // O pulo para trás pertence ao 'while', não ao último comando do corpo
+        chunk.markLine(statement.getLine());
         emitLoopJump(loopStart); // <-- Chamada do método corrigido
+        chunk.addLoop(loopStart, statement.getLine());
 
         patchJump(exitJump);
 
         return null;
     }
 
+    // --- SUPERINSTRUÇÕES ---
+
+    /**
+     * Compila uma atribuição usando superinstruções:
+     * - x = x <op> k;  -> OP_UPDATE_*_CONST x k op
+     * - x = expr;      -> ... OP_SET_* x  (STORE + POP em um só despacho)
+     */
+    private void emitFusedAssign(AssignStatement statement) {
+        CompilerSymbolTable.Symbol symbol = table.resolve(statement.getVariableName());
+        Expression expression = statement.getExpression();
+
+        if (expression instanceof BinaryExpression binary
+                && binary.getLeft() instanceof VariableExpression variable
+                && variable.getName().equals(statement.getVariableName())
+                && binary.getRight() instanceof LiteralExpression literal) {
+            OpCode arithmetic = arithmeticOpCode(binary.getOperator());
+            int constIndex = chunk.addConstant(literal.getValue());
+            // A superinstrução não tem forma larga: só funde se os operandos couberem em um byte
+            if (arithmetic != null && fitsInByte(symbol.index) && fitsInByte(constIndex)) {
+                chunk.writeByte(symbol.isLocal
+                        ? OpCode.OP_UPDATE_LOCAL_CONST.getValue()
+                        : OpCode.OP_UPDATE_GLOBAL_CONST.getValue());
+                chunk.writeByte((byte) symbol.index);
+                chunk.writeByte((byte) constIndex);
+                chunk.writeByte(arithmetic.getValue());
+                return;
+            }
+        }
+
+        expression.accept(this);
+        emitWithOperand(symbol.isLocal ? OpCode.OP_SET_LOCAL : OpCode.OP_SET_GLOBAL, symbol.index);
+    }
+
+    /**
+     * Compila a condição de um 'if'/'while' e o pulo condicional que a segue.
+     * Se a condição for "variável <cmp> literal", emite OP_CMP_*_CONST_JUMP.
+     * (A superinstrução não tem forma larga: se o pulo ou os operandos não
+     * couberem em um byte, volta para a comparação + OP_JUMP_IF_FALSE.)
+     * @return O pulo pendente (para o patchJump).
+     */
+    private PendingJump emitConditionJump(Expression condition) {
+        if (superinstructions
+                && !wideJumps.contains(jumpSerial)
+                && condition instanceof BinaryExpression binary
+                && binary.getLeft() instanceof VariableExpression variable
+                && binary.getRight() instanceof LiteralExpression literal) {
+            OpCode comparison = comparisonOpCode(binary.getOperator());
+            CompilerSymbolTable.Symbol symbol = table.resolve(variable.getName());
+            int constIndex = chunk.addConstant(literal.getValue());
+            if (comparison != null && fitsInByte(symbol.index) && fitsInByte(constIndex)) {
+                chunk.writeByte(symbol.isLocal
+                        ? OpCode.OP_CMP_LOCAL_CONST_JUMP.getValue()
+                        : OpCode.OP_CMP_GLOBAL_CONST_JUMP.getValue());
+                chunk.writeByte((byte) symbol.index);
+                chunk.writeByte((byte) constIndex);
+                chunk.writeByte(comparison.getValue());
+                chunk.writeByte((byte) 0xFF); // Placeholder do offset (último operando)
+                return new PendingJump(chunk.size() - 1, jumpSerial++, false);
+            }
+        }
+
+        condition.accept(this);
+        return emitJump(OpCode.OP_JUMP_IF_FALSE);
+    }
+
+    /** Opcode aritmético que pode ser fundido em OP_UPDATE_*_CONST (ou null). */
+    private static OpCode arithmeticOpCode(TokenType operator) {
+        return switch (operator) {
+            case PLUS -> OpCode.OP_ADD;
+            case MINUS -> OpCode.OP_SUBTRACT;
+            case MULTIPLY -> OpCode.OP_MULTIPLY;
+            case DIVIDE -> OpCode.OP_DIVIDE;
+            default -> null;
+        };
+    }
+
+    /** Opcode de comparação que pode ser fundido em OP_CMP_*_CONST_JUMP (ou null). */
+    private static OpCode comparisonOpCode(TokenType operator) {
+        return switch (operator) {
+            case EQUAL_EQUAL -> OpCode.OP_EQUAL;
+            case NOT_EQUAL -> OpCode.OP_NOT_EQUAL;
+            case GREATER_THAN -> OpCode.OP_GREATER;
+            case GREATER_EQUAL -> OpCode.OP_GREATER_EQUAL;
+            case LESS_THAN -> OpCode.OP_LESS;
+            case LESS_EQUAL -> OpCode.OP_LESS_EQUAL;
+            default -> null;
+        };
+    }
+
     // --- MÉTODOS AUXILIARES (Helpers) ---
 
-    // (Helper de 'if', não muda e está correto)
-    private int emitJump(byte instruction) {
-        chunk.writeByte(instruction);
+    /** Compila um comando, marcando antes a sua linha na tabela de linhas. */
+    private void compileStatement(Statement stmt) {
+        chunk.markLine(stmt.getLine());
+        stmt.accept(this);
+    }
+
+    /** Verdadeiro se o operando cabe na forma compacta (um byte sem sinal). */
+    private static boolean fitsInByte(int operand) {
+        return operand <= 0xFF;
+    }
+
+    /**
+     * Emite uma instrução de um operando (constante ou slot), escolhendo a
+     * forma compacta (1 byte) ou a larga (OP_WIDE + 2 bytes).
+     */
+    private void emitWithOperand(OpCode op, int operand) {
+        if (fitsInByte(operand)) {
+            chunk.writeByte(op.getValue());
+            chunk.writeByte((byte) operand);
+        } else if (operand <= 0xFFFF) {
+            chunk.writeByte(OpCode.OP_WIDE.getValue());
+            chunk.writeByte(op.getValue());
+            chunk.writeByte((byte) (operand >> 8));
+            chunk.writeByte((byte) operand);
+        } else {
+            throw new RuntimeException("Erro de Compilação: Operando de " + op + " muito grande (" + operand + ").");
+        }
+    }
+
+    // Emite um pulo para frente com offset provisório.
+    // A forma (curta ou larga) foi decidida pela passada anterior (ver compile()).
+    private PendingJump emitJump(OpCode instruction) {
+        int serial = jumpSerial++;
+        boolean wide = wideJumps.contains(serial);
+        if (wide) {
+            chunk.writeByte(OpCode.OP_WIDE.getValue());
+        }
+        chunk.writeByte(instruction.getValue());
         chunk.writeByte((byte) 0xFF); // Placeholder
-        return chunk.getCode().size() - 1; // Endereço do placeholder
+        if (wide) {
+            chunk.writeByte((byte) 0xFF);
+        }
+        return new PendingJump(chunk.size() - (wide ? 2 : 1), serial, wide); // Endereço do placeholder
     }
 
-    // (Helper de 'if', não muda e está correto)
-    private void patchJump(int offsetAddress) {
-        // O pulo é relativo ao *fim* da instrução de pulo (ip + 2)
-        int jump = chunk.getCode().size() - offsetAddress - 1;
+    private void patchJump(PendingJump pending) {
+        // O pulo é relativo ao *fim* da instrução de pulo (o offset é sempre
+        // o último operando, inclusive nas superinstruções OP_CMP_*_CONST_JUMP)
+        int jump = chunk.size() - pending.offsetAddress() - (pending.wide() ? 2 : 1);
+
+        if (!pending.wide()) {
+            // O offset curto é um byte COM sinal: no máximo 127 para frente
+            if (jump > Byte.MAX_VALUE) {
+                wideJumps.add(pending.serial());
+                needsRelaxation = true;
+                return;
+            }
+            chunk.patchByte(pending.offsetAddress(), (byte) jump);
+            return;
+        }
 
-        if (jump > 255) {
+        if (jump > Short.MAX_VALUE) {
             throw new RuntimeException("Erro de Compilação: Bloco de código muito grande para pular.");
         }
-
-        chunk.getCode().set(offsetAddress, (byte) jump);
+        chunk.patchByte(pending.offsetAddress(), (byte) (jump >> 8));
+        chunk.patchByte(pending.offsetAddress() + 1, (byte) jump);
     }
 
     // --- CORREÇÃO (FURO DO JUMP) ---
     // A lógica de cálculo do offset para pulos para trás é diferente.
+    // (O destino já é conhecido, então a forma curta/larga é escolhida na hora.)
     private void emitLoopJump(int loopStart) {
-        chunk.writeByte(OpCode.OP_JUMP.getValue());
+        // O offset é (destino - fim da instrução): forma curta = 2 bytes
+        int offset = loopStart - (chunk.size() + 2);
 
-        // O offset é (destino - (local_atual + 2))
-        // +1 para o operando que estamos prestes a escrever
-        int ip_after_jump = chunk.getCode().size() + 1; 
-        int offset = loopStart - ip_after_jump;
+        if (offset >= Byte.MIN_VALUE) {
+            chunk.writeByte(OpCode.OP_JUMP.getValue());
+            chunk.writeByte((byte) offset);
+            return;
+        }
 
-        if (Math.abs(offset) > 255) {
+        // Forma larga = 4 bytes (OP_WIDE OP_JUMP hi lo)
+        offset = loopStart - (chunk.size() + 4);
+        if (offset < Short.MIN_VALUE) {
             throw new RuntimeException("Erro de Compilação: Corpo de loop muito grande.");
         }
-
+        chunk.writeByte(OpCode.OP_WIDE.getValue());
+        chunk.writeByte(OpCode.OP_JUMP.getValue());
+        chunk.writeByte((byte) (offset >> 8));
         chunk.writeByte((byte) offset);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package ijgm_project.vm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pool de constantes em construção (usada pelo ChunkBuilder e pelo
+ * RegisterCompiler).
+ *
+ * Cada valor é indexado por (tipo, valor) em um HashMap, então adicionar
+ * uma constante custa O(1) em vez das duas buscas lineares de antes
+ * (contains + indexOf). O tipo faz parte da chave: Integer 0, Float 0.0 e
+ * "0" são constantes diferentes (assim como 0.0 e -0.0).
+ *
+ * Os nomes de variáveis não entram na pool: ficam em uma tabela própria,
+ * onde são "internados" (o mesmo nome é sempre a mesma String), sem se
+ * misturar com os literais de string do programa.
+ */
+public final class ConstantPool {
+
+    /** Chave do índice: o tipo (ValueTag) e o valor. */
+    private record Key(byte tag, Object value) {
+    }
+
+    private final List<Object> values = new ArrayList<>();
+    private final Map<Key, Integer> index = new HashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+
+    // Estatísticas
+    private final int[] countByTag = new int[ValueTag.NULL + 1];
+    private int lookups;
+    private int hits;
+
+    /**
+     * Adiciona o valor (se ainda não existir) e devolve o seu índice.
+     * @param value Integer, Float, Boolean, String ou null.
+     */
+    public int add(Object value) {
+        byte tag = ValueTag.of(value);
+        lookups++;
+        Key key = new Key(tag, value);
+        Integer existing = index.get(key);
+        if (existing != null) {
+            hits++;
+            return existing;
+        }
+        int position = values.size();
+        values.add(value);
+        index.put(key, position);
+        countByTag[tag]++;
+        return position;
+    }
+
+    public Object get(int position) {
+        return values.get(position);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /** Os valores, na ordem dos índices (somente leitura). */
+    public List<Object> values() {
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Devolve a instância canônica do nome de variável (o mesmo nome é
+     * sempre a mesma String).
+     */
+    public String internName(String name) {
+        String canonical = names.putIfAbsent(name, name);
+        return canonical != null ? canonical : name;
+    }
+
+    /** Um retrato das estatísticas da pool neste momento. */
+    public Statistics statistics() {
+        return new Statistics(values.size(), countByTag[ValueTag.INT], countByTag[ValueTag.FLOAT],
+                countByTag[ValueTag.BOOL], countByTag[ValueTag.STRING], countByTag[ValueTag.NULL],
+                lookups, hits, names.size());
+    }
+
+    /**
+     * Estatísticas da pool.
+     * @param constants Quantas constantes distintas (o tamanho da pool);
+     *        ints, floats, booleans, strings e nulls separam esse total por tipo.
+     * @param lookups Quantas vezes uma constante foi pedida (add).
+     * @param hits Quantos pedidos reaproveitaram uma constante já existente.
+     * @param names Quantos nomes de variável distintos foram internados.
+     */
+    public record Statistics(int constants, int ints, int floats, int booleans, int strings, int nulls,
+                             int lookups, int hits, int names) {
+
+        @Override
+        public String toString() {
+            return constants + " constantes (" + ints + " int, " + floats + " float, " + booleans + " bool, "
+                    + strings + " string, " + nulls + " null); " + lookups + " pedidos, " + hits
+                    + " reaproveitados; " + names + " nomes";
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package ijgm_project.vm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forma "pré-decodificada" de um BytecodeChunk, pronta para o loop da VM.
+ *
+ * O bytecode (bytes) é compacto, mas caro de interpretar: a cada instrução
+ * seria preciso converter o byte em OpCode, remontar operandos (inclusive os
+ * largos, após OP_WIDE) e calcular o destino dos pulos. Aqui isso é feito
+ * UMA vez por chunk (ver BytecodeChunk.decode()):
+ *
+ * - 'code' é um int[] com, para cada instrução, o valor do opcode seguido
+ *   dos seus operandos já como int (o prefixo OP_WIDE desaparece);
+ * - operandos de pulo viram o índice ABSOLUTO da instrução de destino em 'code';
+ * - a pool de constantes já vem resolvida em Object[] e "desmontada" em
+ *   tag/primitivo/referência (ver ValueTag).
+ *
+ * Cada instrução ocupa exatamente op.getLength() posições em 'code'.
+ *
+ * A decodificação também valida o bytecode (que pode vir de um arquivo, ver
+ * ChunkSerializer): opcodes conhecidos e inteiros, pulos para o início de
+ * uma instrução, constantes e globais dentro da pool e da tabela do chunk.
+ * Os slots de locais dependem da pilha em execução e não são verificados.
+ * Os arrays são compartilhados e nunca devem ser modificados (a VM trabalha
+ * sobre uma cópia de 'code', porque o Quickening a reescreve).
+ */
+public final class DecodedChunk {
+
+    private static final int OPCODE_COUNT = OpCode.values().length;
+
+    private final BytecodeChunk chunk;
+
+    // O fluxo de instruções pré-decodificado.
+    private final int[] code;
+
+    // Para cada posição de 'code', o offset (em bytes) da instrução original
+    // no BytecodeChunk. Útil para mensagens de erro e ferramentas de análise.
+    private final int[] byteOffsets;
+
+    // As constantes, resolvidas e "desmontadas".
+    private final Object[] constants;
+    private final byte[] constTags;
+    private final long[] constPrims;
+    private final Object[] constRefs;
+
+    private DecodedChunk(BytecodeChunk chunk, int[] code, int[] byteOffsets) {
+        this.chunk = chunk;
+        this.code = code;
+        this.byteOffsets = byteOffsets;
+
+        List<Object> pool = chunk.getConstants();
+        int count = pool.size();
+        this.constants = pool.toArray();
+        this.constTags = new byte[count];
+        this.constPrims = new long[count];
+        this.constRefs = new Object[count];
+        for (int i = 0; i < count; i++) {
+            Object value = constants[i];
+            constTags[i] = ValueTag.of(value);
+            constPrims[i] = ValueTag.bitsOf(value);
+            constRefs[i] = ValueTag.refOf(value);
+        }
+    }
+
+    /**
+     * Decodifica um chunk. Prefira BytecodeChunk.decode(), que guarda o resultado.
+     * @param chunk O chunk de bytecode.
+     * @return A forma pré-decodificada.
+     * @throws IllegalArgumentException se o bytecode é inválido (ver acima).
+     */
+    static DecodedChunk of(BytecodeChunk chunk) {
+        ByteBuffer bytes = chunk.code();
+        int size = bytes.limit();
+
+        // 1. Primeira passada: o índice em 'code' de cada offset de instrução
+        //    (necessário para converter offsets relativos em alvos absolutos).
+        //    Os offsets no meio de uma instrução ficam com -1.
+        int[] indexOf = new int[size + 1];
+        Arrays.fill(indexOf, -1);
+        int length = 0;
+        for (int offset = 0; offset < size; offset += chunk.instructionLength(offset)) {
+            indexOf[offset] = length;
+            length += checkedOpCode(bytes, offset).getLength();
+        }
+        indexOf[size] = length;
+
+        // 2. Segunda passada: emite opcode + operandos já resolvidos
+        int[] code = new int[length];
+        int[] byteOffsets = new int[length];
+        int index = 0;
+        for (int offset = 0; offset < size; ) {
+            boolean wide = bytes.get(offset) == OpCode.OP_WIDE.getValue();
+            int opOffset = wide ? offset + 1 : offset;
+            OpCode op = OpCode.fromByte(bytes.get(opOffset));
+            int next = offset + chunk.instructionLength(offset);
+
+            Arrays.fill(byteOffsets, index, index + op.getLength(), offset);
+            code[index] = op.getValue();
+            switch (op) {
+                case OP_JUMP, OP_JUMP_IF_FALSE -> {
+                    int jump = wide
+                            ? (short) (((bytes.get(opOffset + 1) & 0xFF) << 8) | (bytes.get(opOffset + 2) & 0xFF))
+                            : bytes.get(opOffset + 1);
+                    code[index + 1] = target(indexOf, next + jump, offset);
+                }
+                case OP_UPDATE_GLOBAL_CONST, OP_UPDATE_LOCAL_CONST -> {
+                    code[index + 1] = bytes.get(opOffset + 1) & 0xFF; // slot
+                    code[index + 2] = bytes.get(opOffset + 2) & 0xFF; // constante
+                    code[index + 3] = bytes.get(opOffset + 3);        // operação
+                }
+                case OP_CMP_GLOBAL_CONST_JUMP, OP_CMP_LOCAL_CONST_JUMP -> {
+                    code[index + 1] = bytes.get(opOffset + 1) & 0xFF; // slot
+                    code[index + 2] = bytes.get(opOffset + 2) & 0xFF; // constante
+                    code[index + 3] = bytes.get(opOffset + 3);        // comparação
+                    code[index + 4] = target(indexOf, next + bytes.get(opOffset + 4), offset);
+                }
+                default -> {
+                    if (op.getOperandBytes() == 1) {
+                        code[index + 1] = wide
+                                ? ((bytes.get(opOffset + 1) & 0xFF) << 8) | (bytes.get(opOffset + 2) & 0xFF)
+                                : bytes.get(opOffset + 1) & 0xFF;
+                    }
+                }
+            }
+            checkOperands(chunk, op, code, index, offset);
+            index += op.getLength();
+            offset = next;
+        }
+        return new DecodedChunk(chunk, code, byteOffsets);
+    }
+
+    /**
+     * O opcode "de verdade" de uma instrução (pula o prefixo OP_WIDE),
+     * recusando opcodes desconhecidos ou internos da VM e instruções cortadas
+     * pelo fim do código.
+     */
+    private static OpCode checkedOpCode(ByteBuffer bytes, int offset) {
+        OpCode op = opCodeAt(bytes, offset);
+        int length = op.getLength();
+        if (op == OpCode.OP_WIDE) {
+            if (offset + 1 >= bytes.limit()) {
+                throw invalid("OP_WIDE no fim do código", offset);
+            }
+            op = opCodeAt(bytes, offset + 1);
+            if (!op.isWidenable()) {
+                throw invalid("OP_WIDE antes de " + op, offset);
+            }
+            length = 2 + 2 * op.getOperandBytes();
+        }
+        // (Só existem na cópia do código da VM, ver VM.setFuel e o JIT)
+        if (op == OpCode.OP_JIT_ENTER || op == OpCode.OP_JUMP_FUEL) {
+            throw invalid("instrução interna " + op, offset);
+        }
+        if (offset + length > bytes.limit()) {
+            throw invalid(op + " cortada pelo fim do código", offset);
+        }
+        return op;
+    }
+
+    private static OpCode opCodeAt(ByteBuffer bytes, int offset) {
+        int value = bytes.get(offset) & 0xFF;
+        if (value >= OPCODE_COUNT) {
+            throw invalid("opcode desconhecido " + value, offset);
+        }
+        return OpCode.fromValue(value);
+    }
+
+    /** Converte um offset de destino (em bytes) no índice da instrução em 'code'. */
+    private static int target(int[] indexOf, int byteTarget, int offset) {
+        if (byteTarget < 0 || byteTarget >= indexOf.length || indexOf[byteTarget] < 0) {
+            throw invalid("pulo para o offset " + byteTarget + ", que não é o início de uma instrução", offset);
+        }
+        return indexOf[byteTarget];
+    }
+
+    /** Confere as constantes, as globais e a operação das superinstruções de uma instrução decodificada. */
+    private static void checkOperands(BytecodeChunk chunk, OpCode op, int[] code, int index, int offset) {
+        switch (op) {
+            case OP_PUSH_CONST, OP_PRINT_CONST -> checkConstant(chunk, code[index + 1], offset);
+            case OP_DEFINE_GLOBAL, OP_LOAD_GLOBAL, OP_STORE_GLOBAL, OP_SET_GLOBAL,
+                 OP_INCREMENT_GLOBAL, OP_DECREMENT_GLOBAL, OP_PRINT_GLOBAL -> checkGlobal(chunk, code[index + 1], offset);
+            case OP_UPDATE_GLOBAL_CONST, OP_UPDATE_LOCAL_CONST, OP_CMP_GLOBAL_CONST_JUMP, OP_CMP_LOCAL_CONST_JUMP -> {
+                if (op == OpCode.OP_UPDATE_GLOBAL_CONST || op == OpCode.OP_CMP_GLOBAL_CONST_JUMP) {
+                    checkGlobal(chunk, code[index + 1], offset);
+                }
+                checkConstant(chunk, code[index + 2], offset);
+                // As mesmas operações que o CompilerVisitor funde (aritmética ou comparação)
+                boolean update = op == OpCode.OP_UPDATE_GLOBAL_CONST || op == OpCode.OP_UPDATE_LOCAL_CONST;
+                OpCode first = update ? OpCode.OP_ADD : OpCode.OP_EQUAL;
+                OpCode last = update ? OpCode.OP_DIVIDE : OpCode.OP_LESS_EQUAL;
+                int operation = code[index + 3];
+                if (operation < first.getValue() || operation > last.getValue()) {
+                    throw invalid("operação " + operation + " em " + op, offset);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void checkConstant(BytecodeChunk chunk, int constant, int offset) {
+        if (constant >= chunk.getConstants().size()) {
+            throw invalid("constante " + constant + " fora da pool (" + chunk.getConstants().size()
+                    + " constantes)", offset);
+        }
+    }
+
+    private static void checkGlobal(BytecodeChunk chunk, int global, int offset) {
+        if (global >= chunk.getGlobalCount()) {
+            throw invalid("global " + global + " fora da tabela (" + chunk.getGlobalCount() + " globais)", offset);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String detail, int offset) {
+        return new IllegalArgumentException("Bytecode inválido: " + detail + " no offset " + offset + ".");
+    }
+
+    /** O chunk original (nomes das globais, constantes, etc.). */
+    public BytecodeChunk getChunk() {
+        return chunk;
+    }
+
+    /** O fluxo pré-decodificado (compartilhado: NÃO modifique). */
+    int[] code() {
+        return code;
+    }
+
+    /**
+     * Retorna o tamanho do fluxo pré-decodificado.
+     * @return O número de posições (opcodes + operandos).
+     */
+    public int size() {
+        return code.length;
+    }
+
+    /**
+     * Retorna o offset, no bytecode original, da instrução que ocupa 'index'.
+     * @param index Uma posição do fluxo pré-decodificado.
+     * @return O offset em bytes no BytecodeChunk.
+     */
+    public int getByteOffset(int index) {
+        return byteOffsets[index];
+    }
+
+    /**
+     * Retorna as constantes já resolvidas (cópia).
+     * @return As constantes, na ordem da pool.
+     */
+    public Object[] getConstants() {
+        return constants.clone();
+    }
+
+    byte[] constTags() {
+        return constTags;
+    }
+
+    long[] constPrims() {
+        return constPrims;
+    }
+
+    Object[] constRefs() {
+        return constRefs;
+    }
+}
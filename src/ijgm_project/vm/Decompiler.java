@@ -1,6 +1,9 @@
 package ijgm_project.vm;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Classe utilitária para "desmontar" (disassemble) um BytecodeChunk
@@ -22,13 +25,16 @@ public class Decompiler {
 
         System.out.println("--- Descompilador ---");
 
-        // 1. Imprimir a Pool de Constantes
+        // 1. Imprimir a Pool de Constantes e a tabela de Globais
         printConstants(chunk);
+        printGlobals(chunk);
 
         // 2. Imprimir o Bytecode
         System.out.println("\n--- Bytecode ---");
         int ip = 0; // "Instruction Pointer" (Ponteiro de Instrução)
-        while (ip < chunk.getCode().size()) {
+        while (ip < chunk.size()) {
+            // A linha do fonte à esquerda ('|' = mesma linha da instrução anterior)
+            printLine(chunk, ip);
             // O loop avança o ip com base no tamanho da instrução
             ip = disassembleInstruction(chunk, ip);
         }
@@ -36,11 +42,97 @@ public class Decompiler {
         System.out.println("--- Fim ---");
     }
 
+    /**
+     * Imprime o perfil de uma execução: a listagem do bytecode com as
+     * execuções de cada instrução à esquerda, e depois o resumo por opcode.
+     * @param profiler O perfil coletado pela VM (ver VM.getProfiler()).
+     */
+    public void printProfile(Profiler profiler) {
+        BytecodeChunk chunk = profiler.getDecoded().getChunk();
+        long total = Math.max(1, profiler.getTotalCount());
+
+        System.out.println("--- Perfil de execução (" + profiler.getTotalCount() + " instruções) ---");
+        System.out.printf("%12s %6s  %s\n", "execuções", "%", "instrução");
+        int ip = 0;
+        while (ip < chunk.size()) {
+            long count = profiler.getCountAt(ip);
+            System.out.printf("%12d %5.1f%%  ", count, 100.0 * count / total);
+            printLine(chunk, ip);
+            ip = disassembleInstruction(chunk, ip);
+        }
+
+        System.out.println("\n--- Perfil por opcode ---");
+        boolean timing = profiler.isTiming();
+        long totalNanos = 0;
+        for (OpCode op : OpCode.values()) {
+            totalNanos += profiler.getEstimatedNanos(op);
+        }
+        if (timing) {
+            System.out.printf("%-26s %12s %6s %14s %6s\n", "opcode", "execuções", "%", "ns (estimado)", "%");
+        } else {
+            System.out.printf("%-26s %12s %6s\n", "opcode", "execuções", "%");
+        }
+        List<OpCode> executed = new ArrayList<>();
+        for (OpCode op : OpCode.values()) {
+            if (profiler.getOpcodeCount(op) > 0) {
+                executed.add(op);
+            }
+        }
+        executed.sort(Comparator.comparingLong(profiler::getOpcodeCount).reversed());
+        for (OpCode op : executed) {
+            long count = profiler.getOpcodeCount(op);
+            if (timing) {
+                long nanos = profiler.getEstimatedNanos(op);
+                System.out.printf("%-26s %12d %5.1f%% %14d %5.1f%%\n", op.name(), count, 100.0 * count / total,
+                        nanos, 100.0 * nanos / Math.max(1, totalNanos));
+            } else {
+                System.out.printf("%-26s %12d %5.1f%%\n", op.name(), count, 100.0 * count / total);
+            }
+        }
+        System.out.println("--- Fim do perfil ---");
+    }
+
+    /**
+     * Imprime o resumo de um perfil por amostragem: as amostras por linha
+     * do fonte (das mais amostradas para as menos) e por pilha de laços.
+     * @param sampler O perfil coletado pela VM (ver VM.getSamplingProfiler()).
+     */
+    public void printSamples(SamplingProfiler sampler) {
+        long total = Math.max(1, sampler.getTotalSamples());
+        System.out.println("--- Perfil por amostragem (" + sampler.getTotalSamples() + " amostras, 1 a cada "
+                + sampler.getPeriodMicros() + " µs; " + sampler.getCompiledSamples() + " em tier 2) ---");
+
+        System.out.printf("%6s %10s %6s\n", "linha", "amostras", "%");
+        List<Map.Entry<Integer, Long>> lines = new ArrayList<>(sampler.getSamplesByLine().entrySet());
+        lines.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+        for (Map.Entry<Integer, Long> entry : lines) {
+            System.out.printf("%6d %10d %5.1f%%\n", entry.getKey(), entry.getValue(), 100.0 * entry.getValue() / total);
+        }
+
+        System.out.println("\n--- Pilhas (formato \"collapsed\", para flame graphs) ---");
+        for (Map.Entry<String, Long> entry : sampler.getCollapsedStacks().entrySet()) {
+            System.out.println(entry.getKey() + " " + entry.getValue());
+        }
+        System.out.println("--- Fim do perfil ---");
+    }
+
+    /** Imprime a linha do fonte da instrução em 'ip' ("   |" se for a mesma da anterior). */
+    private void printLine(BytecodeChunk chunk, int ip) {
+        LineTable lines = chunk.getLineTable();
+        int line = lines.getLine(ip);
+        if (ip > 0 && line == lines.getLine(ip - 1)) {
+            System.out.print("   | ");
+        } else {
+            System.out.printf("%4d ", line);
+        }
+    }
+
     /**
      * Imprime a seção de constantes do chunk.
      */
     private void printConstants(BytecodeChunk chunk) {
         System.out.println("--- Constantes ---");
+        System.out.println("(" + chunk.getPoolStatistics() + ")");
         List<Object> constants = chunk.getConstants();
         if (constants.isEmpty()) {
             System.out.println("(Vazio)");
@@ -58,6 +150,22 @@ public class Decompiler {
         }
     }
 
+    /**
+     * Imprime a tabela de globais do chunk (slot -> nome).
+     */
+    private void printGlobals(BytecodeChunk chunk) {
+        System.out.println("--- Globais ---");
+        if (chunk.getGlobalCount() == 0) {
+            System.out.println("(Vazio)");
+            return;
+        }
+
+        for (int slot = 0; slot < chunk.getGlobalCount(); slot++) {
+            // Formata a saída: 0000: nome
+            System.out.printf("%04d: %s\n", slot, chunk.getGlobalName(slot));
+        }
+    }
+
     /**
      * Desmonta e imprime uma única instrução na posição 'ip'.
      * @param chunk O chunk que está sendo lido.
@@ -65,7 +173,7 @@ public class Decompiler {
      * @return O índice da *próxima* instrução.
      */
     private int disassembleInstruction(BytecodeChunk chunk, int ip) {
-        byte instructionByte = chunk.getCode().get(ip);
+        byte instructionByte = chunk.getByte(ip);
         OpCode op;
 
         try {
@@ -76,6 +184,11 @@ public class Decompiler {
             return ip + 1;
         }
 
+        // Prefixo OP_WIDE: desmonta a instrução seguinte com operando de 16 bits
+        if (op == OpCode.OP_WIDE) {
+            return wideInstruction(chunk, ip);
+        }
+
         // Usa um switch para lidar com instruções de diferentes tamanhos
         switch (op) {
             // --- 1. Instruções Simples (1 byte) ---
@@ -98,33 +211,71 @@ public class Decompiler {
             case OP_POP:
             case OP_PRINT:
             case OP_RETURN:
+            // --- Versões "aceleradas" (Quickening), só aparecem em código já executado ---
+            case OP_ADD_II:
+            case OP_ADD_FF:
+            case OP_CONCAT_SS:
+            case OP_SUBTRACT_II:
+            case OP_SUBTRACT_FF:
+            case OP_MULTIPLY_II:
+            case OP_MULTIPLY_FF:
+            case OP_DIVIDE_II:
+            case OP_DIVIDE_FF:
+            case OP_GREATER_II:
+            case OP_GREATER_FF:
+            case OP_GREATER_EQUAL_II:
+            case OP_GREATER_EQUAL_FF:
+            case OP_LESS_II:
+            case OP_LESS_FF:
+            case OP_LESS_EQUAL_II:
+            case OP_LESS_EQUAL_FF:
+            case OP_EQUAL_II:
+            case OP_NOT_EQUAL_II:
+            // --- Entrada de código compilado (JIT), também só em tempo de execução ---
+            case OP_JIT_ENTER:
                 return simpleInstruction(op.name(), ip);
 
             // --- 2. Instruções de Constante (1 byte + 1 operando) ---
             // Usam um índice para a pool de constantes
             case OP_PUSH_CONST:
-                return constantInstruction("OP_PUSH_CONST", chunk, ip);
+            case OP_PRINT_CONST:
+                return constantInstruction(op.name(), chunk, ip, false);
 
             // --- 3. Instruções de Slot (1 byte + 1 operando) ---
-            // Usam um índice para slots de variáveis (locais ou globais)
-            case OP_DEFINE_GLOBAL:
-            case OP_LOAD_GLOBAL:
-            case OP_STORE_GLOBAL:
+            // Usam um índice para slots de variáveis locais
             case OP_LOAD_LOCAL:
             case OP_STORE_LOCAL:
             // --- MUDANÇA AQUI ---
             case OP_INCREMENT_LOCAL:
-            case OP_INCREMENT_GLOBAL:
             case OP_DECREMENT_LOCAL:
-            case OP_DECREMENT_GLOBAL:
             // --- FIM DA MUDANÇA ---
-                return slotInstruction(op.name(), chunk, ip);
+            case OP_SET_LOCAL:
+                return slotInstruction(op.name(), chunk, ip, false);
+
+            // Usam um slot da tabela de globais (mostra também o nome)
+            case OP_DEFINE_GLOBAL:
+            case OP_LOAD_GLOBAL:
+            case OP_STORE_GLOBAL:
+            case OP_INCREMENT_GLOBAL:
+            case OP_DECREMENT_GLOBAL:
+            case OP_SET_GLOBAL:
+            case OP_PRINT_GLOBAL:
+                return globalInstruction(op.name(), chunk, ip, false);
+
+            // --- 5. Superinstruções com vários operandos ---
+            case OP_UPDATE_GLOBAL_CONST:
+            case OP_UPDATE_LOCAL_CONST:
+                return updateInstruction(op, chunk, ip);
+            case OP_CMP_GLOBAL_CONST_JUMP:
+            case OP_CMP_LOCAL_CONST_JUMP:
+                return compareJumpInstruction(op, chunk, ip);
 
             // --- 4. Instruções de Salto (1 byte + 1 operando) ---
             // Usam um operando de "offset" para pular
             case OP_JUMP_IF_FALSE:
             case OP_JUMP:
-                return jumpInstruction(op.name(), chunk, ip);
+            case OP_JUMP_FUEL: // (Só em tempo de execução, como o OP_JIT_ENTER)
+                return jumpInstruction(op.name(), chunk, ip, false);
 
             default:
                 // Caso algum OpCode tenha sido esquecido no switch
@@ -133,8 +284,61 @@ public class Decompiler {
         }
     }
 
+    /**
+     * Desmonta uma instrução prefixada por OP_WIDE (operando de 16 bits).
+     * @param chunk O chunk.
+     * @param ip O índice do prefixo OP_WIDE.
+     * @return O próximo índice (ip + 4: prefixo + OpCode + 2 bytes de operando).
+     */
+    private int wideInstruction(BytecodeChunk chunk, int ip) {
+        OpCode op = OpCode.fromByte(chunk.getByte(ip + 1));
+        String name = "OP_WIDE " + op.name();
+
+        switch (op) {
+            case OP_PUSH_CONST:
+            case OP_PRINT_CONST:
+                return constantInstruction(name, chunk, ip, true);
+            case OP_LOAD_LOCAL:
+            case OP_STORE_LOCAL:
+            case OP_INCREMENT_LOCAL:
+            case OP_DECREMENT_LOCAL:
+            case OP_SET_LOCAL:
+                return slotInstruction(name, chunk, ip, true);
+            case OP_DEFINE_GLOBAL:
+            case OP_LOAD_GLOBAL:
+            case OP_STORE_GLOBAL:
+            case OP_INCREMENT_GLOBAL:
+            case OP_DECREMENT_GLOBAL:
+            case OP_SET_GLOBAL:
+            case OP_PRINT_GLOBAL:
+                return globalInstruction(name, chunk, ip, true);
+            case OP_JUMP_IF_FALSE:
+            case OP_JUMP:
+                return jumpInstruction(name, chunk, ip, true);
+            default:
+                System.out.printf("%04d OP_WIDE inválido antes de: %s\n", ip, op.name());
+                return ip + 2;
+        }
+    }
+
     // --- Métodos Auxiliares de Formatação ---
 
+    /**
+     * Lê o operando (sem sinal) de uma instrução: 1 byte, ou 2 bytes após OP_WIDE.
+     * @param ip O índice da instrução (ou do prefixo OP_WIDE).
+     */
+    private int operand(BytecodeChunk chunk, int ip, boolean wide) {
+        if (wide) {
+            return ((chunk.getByte(ip + 2) & 0xFF) << 8) | (chunk.getByte(ip + 3) & 0xFF);
+        }
+        return chunk.getByte(ip + 1) & 0xFF;
+    }
+
+    /** Tamanho de uma instrução de um operando: 2 bytes, ou 4 com o prefixo OP_WIDE. */
+    private int length(boolean wide) {
+        return wide ? 4 : 2;
+    }
+
     /**
      * Formata uma instrução simples (sem operandos).
      * @param name O nome do OpCode.
@@ -151,11 +355,12 @@ public class Decompiler {
      * @param name O nome do OpCode.
      * @param chunk O chunk, para acessar as constantes.
      * @param ip O índice da instrução.
-     * @return O próximo índice (ip + 2).
+     * @param wide Se a instrução veio prefixada por OP_WIDE.
+     * @return O próximo índice (ip + 2, ou ip + 4 se 'wide').
      */
-    private int constantInstruction(String name, BytecodeChunk chunk, int ip) {
-        // O operando é o byte logo após a instrução
-        byte constantIndex = chunk.getCode().get(ip + 1);
+    private int constantInstruction(String name, BytecodeChunk chunk, int ip, boolean wide) {
+        // O operando é o byte (ou os dois bytes) logo após a instrução
+        int constantIndex = operand(chunk, ip, wide);
         Object value = chunk.getConstant(constantIndex);
 
         // %-18s -> Alinha o nome à esquerda com 18 caracteres
@@ -166,7 +371,7 @@ public class Decompiler {
                 constantIndex,
                 value
         );
-        return ip + 2; // Avança 2 bytes (OpCode + Operando)
+        return ip + length(wide); // Avança OpCode + Operando
     }
 
     /**
@@ -174,18 +379,92 @@ public class Decompiler {
      * @param name O nome do OpCode.
      * @param chunk O chunk.
      * @param ip O índice da instrução.
-     * @return O próximo índice (ip + 2).
+     * @param wide Se a instrução veio prefixada por OP_WIDE.
+     * @return O próximo índice (ip + 2, ou ip + 4 se 'wide').
      */
-    private int slotInstruction(String name, BytecodeChunk chunk, int ip) {
-        // O operando é o byte logo após a instrução
-        byte slotIndex = chunk.getCode().get(ip + 1);
+    private int slotInstruction(String name, BytecodeChunk chunk, int ip, boolean wide) {
+        // O operando é o byte (ou os dois bytes) logo após a instrução
+        int slotIndex = operand(chunk, ip, wide);
 
         System.out.printf("%04d %-18s %4d\n",
                 ip,
                 name,
                 slotIndex
         );
-        return ip + 2; // Avança 2 bytes (OpCode + Operando)
+        return ip + length(wide); // Avança OpCode + Operando
+    }
+
+    /**
+     * Formata uma instrução que usa um slot global (mostra o nome da variável).
+     * @param name O nome do OpCode.
+     * @param chunk O chunk, para acessar a tabela de globais.
+     * @param ip O índice da instrução.
+     * @param wide Se a instrução veio prefixada por OP_WIDE.
+     * @return O próximo índice (ip + 2, ou ip + 4 se 'wide').
+     */
+    private int globalInstruction(String name, BytecodeChunk chunk, int ip, boolean wide) {
+        int slot = operand(chunk, ip, wide);
+
+        System.out.printf("%04d %-18s %4d (%s)\n",
+                ip,
+                name,
+                slot,
+                chunk.getGlobalName(slot)
+        );
+        return ip + length(wide); // Avança OpCode + Operando
+    }
+
+    /**
+     * Formata OP_UPDATE_*_CONST (x = x <op> k).
+     * @param op O OpCode (versão global ou local).
+     * @param chunk O chunk.
+     * @param ip O índice da instrução.
+     * @return O próximo índice (ip + 4).
+     */
+    private int updateInstruction(OpCode op, BytecodeChunk chunk, int ip) {
+        int slot = chunk.getByte(ip + 1) & 0xFF;
+        int constantIndex = chunk.getByte(ip + 2) & 0xFF;
+        OpCode arithmetic = OpCode.fromByte(chunk.getByte(ip + 3));
+
+        System.out.printf("%04d %-18s %4d %s %s '%s'\n",
+                ip,
+                op.name(),
+                slot,
+                variableName(op == OpCode.OP_UPDATE_GLOBAL_CONST, chunk, slot),
+                arithmetic.name(),
+                chunk.getConstant(constantIndex)
+        );
+        return ip + 4;
+    }
+
+    /**
+     * Formata OP_CMP_*_CONST_JUMP (pula se "x <cmp> k" for falso).
+     * @param op O OpCode (versão global ou local).
+     * @param chunk O chunk.
+     * @param ip O índice da instrução.
+     * @return O próximo índice (ip + 5).
+     */
+    private int compareJumpInstruction(OpCode op, BytecodeChunk chunk, int ip) {
+        int slot = chunk.getByte(ip + 1) & 0xFF;
+        int constantIndex = chunk.getByte(ip + 2) & 0xFF;
+        OpCode comparison = OpCode.fromByte(chunk.getByte(ip + 3));
+        byte offset = chunk.getByte(ip + 4);
+
+        System.out.printf("%04d %-18s %4d %s %s '%s' (se falso, salta para %04d)\n",
+                ip,
+                op.name(),
+                slot,
+                variableName(op == OpCode.OP_CMP_GLOBAL_CONST_JUMP, chunk, slot),
+                comparison.name(),
+                chunk.getConstant(constantIndex),
+                (ip + 5) + offset
+        );
+        return ip + 5;
+    }
+
+    /** Nome legível de um slot: o nome da global, ou "local#N". */
+    private String variableName(boolean global, BytecodeChunk chunk, int slot) {
+        return global ? "(" + chunk.getGlobalName(slot) + ")" : "(local#" + slot + ")";
     }
 
     /**
@@ -193,15 +472,16 @@ public class Decompiler {
      * @param name O nome do OpCode.
      * @param chunk O chunk.
      * @param ip O índice da instrução.
-     * @return O próximo índice (ip + 2).
+     * @param wide Se a instrução veio prefixada por OP_WIDE.
+     * @return O próximo índice (ip + 2, ou ip + 4 se 'wide').
      */
-    private int jumpInstruction(String name, BytecodeChunk chunk, int ip) {
+    private int jumpInstruction(String name, BytecodeChunk chunk, int ip, boolean wide) {
         // O operando é o byte logo após a instrução
-        // O offset é um byte *assinado* (signed byte)
-        byte offset = chunk.getCode().get(ip + 1);
-        
-        // O salto é relativo ao *fim* da instrução atual (ip + 2)
-        int targetAddress = (ip + 2) + offset;
+        // O offset é um byte *assinado* (signed byte), ou um short após OP_WIDE
+        int offset = wide ? (short) operand(chunk, ip, true) : chunk.getByte(ip + 1);
+
+        // O salto é relativo ao *fim* da instrução atual (ip + 2, ou ip + 4)
+        int targetAddress = (ip + length(wide)) + offset;
 
         System.out.printf("%04d %-18s %4d (salta para %04d)\n",
                 ip,
@@ -209,6 +489,76 @@ public class Decompiler {
                 offset,
                 targetAddress
         );
-        return ip + 2; // Avança 2 bytes (OpCode + Operando)
+        return ip + length(wide); // Avança OpCode + Operando
+    }
+
+    // --- Bytecode de registradores (RegisterCompiler / RegisterVM) ---
+
+    /**
+     * Desmonta e imprime um chunk de registradores.
+     * @param chunk O chunk gerado pelo RegisterCompiler.
+     */
+    public void disassemble(RegisterChunk chunk) {
+        if (chunk == null) {
+            System.out.println("Chunk nulo.");
+            return;
+        }
+
+        System.out.println("--- Descompilador (registradores) ---");
+
+        // 1. Constantes: ficam nos registradores logo após as variáveis e temporários
+        System.out.println("--- Constantes ---");
+        List<Object> constants = chunk.getConstants();
+        if (constants.isEmpty()) {
+            System.out.println("(Vazio)");
+        }
+        for (int i = 0; i < constants.size(); i++) {
+            Object value = constants.get(i);
+            System.out.printf("k%d: '%s' (%s)\n", i, value, value.getClass().getSimpleName());
+        }
+        System.out.printf("--- Registradores: %d (+ %d constantes) ---\n",
+                chunk.getRegisterCount(), constants.size());
+
+        // 2. Instruções
+        System.out.println("\n--- Bytecode ---");
+        int ip = 0;
+        while (ip < chunk.size()) {
+            ip = disassembleInstruction(chunk, ip);
+        }
+
+        System.out.println("--- Fim ---");
+    }
+
+    /**
+     * Formata uma instrução de registradores, guiada pelos operandos do OpCode
+     * (R = registrador, T = destino de salto, C = OpCode de comparação).
+     * @return O índice da próxima instrução.
+     */
+    private int disassembleInstruction(RegisterChunk chunk, int ip) {
+        int[] code = chunk.code();
+        RegisterOpCode op;
+        try {
+            op = RegisterOpCode.fromValue(code[ip]);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            System.out.printf("%04d Erro: OpCode desconhecido (%d)\n", ip, code[ip]);
+            return ip + 1;
+        }
+
+        StringBuilder operands = new StringBuilder();
+        String kinds = op.getOperands();
+        for (int i = 0; i < kinds.length(); i++) {
+            int operand = code[ip + 1 + i];
+            if (i > 0) {
+                operands.append(", ");
+            }
+            switch (kinds.charAt(i)) {
+                case 'R' -> operands.append(chunk.describeRegister(operand));
+                case 'C' -> operands.append(RegisterOpCode.fromValue(operand).name());
+                default -> operands.append(String.format("-> %04d", operand)); // 'T'
+            }
+        }
+
+        System.out.printf("%04d %-18s %s\n", ip, op.name(), operands);
+        return ip + op.getLength();
     }
-}
\ No newline at end of file
+}
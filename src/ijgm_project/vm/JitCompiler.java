@@ -0,0 +1,977 @@
+package ijgm_project.vm;
+
+import static ijgm_project.vm.ClassFileWriter.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Compilador "tier 2": traduz uma região do fluxo pré-decodificado (um laço
+ * 'while' quente ou o chunk inteiro) para uma classe da JVM, carregada como
+ * classe oculta (hidden class). O JIT do HotSpot então otimiza esse código
+ * como qualquer outro método Java.
+ *
+ * Como funciona:
+ * 1. Inferência de tipos: interpreta a região "abstratamente", partindo dos
+ *    tipos que as globais têm AGORA na VM. Cada posição da pilha e cada global
+ *    recebe um tipo fixo (int, float, bool ou string) em cada instrução.
+ * 2. Geração de código: cada global usada vira uma variável local da JVM
+ *    (um slot por tipo), e a aritmética estável vira iadd/fadd/etc.
+ * 3. Na entrada, o código gerado confere se as globais ainda têm os tipos
+ *    esperados (senão devolve CompiledCode.DEOPT); em cada saída, escreve as
+ *    globais de volta nos arrays da VM e devolve o índice onde ela continua.
+ *
+ * Qualquer coisa não suportada (variáveis locais, tipos que mudam entre
+ * caminhos, erros de tipo detectáveis) faz a compilação desistir: a região
+ * continua no interpretador, que dá as mesmas mensagens de erro de sempre.
+ *
+ * (Atualizado) A mesma tradução gera o 'main' dos programas compilados
+ * antes da execução (ver AotCompiler): aí não há VM, guardas nem saídas
+ * para o interpretador, e as rotinas de apoio ficam na própria classe.
+ *
+ * (Atualizado) Numa VM com o combustível limitado (VM.setFuel), cada pulo
+ * para trás do código gerado decrementa um contador local; quando o
+ * orçamento acaba, a região sai para a VM no próprio pulo. Sem limite, o
+ * código gerado é o mesmo de antes.
+ */
+final class JitCompiler {
+
+    private static final boolean VERBOSE = Boolean.getBoolean("ijgm.jit.verbose");
+
+    private static final String CLASS_NAME = "ijgm_project/vm/CompiledRegion";
+    private static final String INTERFACE_NAME = "ijgm_project/vm/CompiledCode";
+    private static final String OUTPUT_DESCRIPTOR = "Lijgm_project/vm/OutputSink;";
+    // Strings são CharSequence no código gerado: podem ser String ou Rope
+    private static final String TEXT = "Ljava/lang/CharSequence;";
+    private static final String EXECUTE_DESCRIPTOR = "([B[J[Ljava/lang/Object;" + OUTPUT_DESCRIPTOR + "[I)I";
+
+    // Slots fixos do método execute(): 0 = this, 1..3 = os arrays das globais,
+    // 4 = o OutputSink da VM, 5 = a "célula" de combustível (ver CompiledCode)
+    private static final int TAGS = 1;
+    private static final int PRIMS = 2;
+    private static final int REFS = 3;
+    private static final int OUTPUT = 4;
+    private static final int FUEL = 5;
+    private static final int FIRST_VAR = 6;
+
+    // No 'main' de um programa AOT, só o slot 0 (String[] args) é fixo
+    private static final int FIRST_PROGRAM_VAR = 1;
+
+    // Cada global tem três slots na JVM (um por "tipo de slot"), porque o
+    // tipo de uma global pode mudar dentro da região (ex: int -> float).
+    private static final int KIND_INT = 0; // int e bool
+    private static final int KIND_FLOAT = 1;
+    private static final int KIND_REF = 2; // string
+    private static final int SLOTS_PER_VAR = 3;
+
+    /** A compilação desistiu (a região fica no interpretador). */
+    private static class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * A instrução sempre falharia na VM (ex: um 'if' com condição int), com a
+     * mensagem da VM. O JIT desiste da região (a VM dá o erro); o AOT gera a
+     * mesma falha ali, para quando (e se) o programa chegar nela.
+     */
+    private static final class RuntimeFailure extends Unsupported {
+        private static final long serialVersionUID = 1L;
+
+        RuntimeFailure(String vmMessage) {
+            super(vmMessage);
+        }
+    }
+
+    /** Estado abstrato: o tipo de cada posição da pilha e de cada global usada. */
+    private static final class Frame {
+        byte[] stack;
+        int sp;
+        final byte[] vars;
+
+        Frame(int stackCapacity, byte[] vars) {
+            this.stack = new byte[stackCapacity];
+            this.vars = vars;
+        }
+
+        Frame copy() {
+            Frame copy = new Frame(stack.length, vars.clone());
+            System.arraycopy(stack, 0, copy.stack, 0, sp);
+            copy.sp = sp;
+            return copy;
+        }
+
+        void push(byte type) {
+            if (sp == stack.length) {
+                stack = Arrays.copyOf(stack, sp * 2);
+            }
+            stack[sp++] = type;
+        }
+
+        byte pop() {
+            if (sp == 0) {
+                throw new Unsupported("pilha vazia");
+            }
+            return stack[--sp];
+        }
+
+        byte peek() {
+            return stack[sp - 1];
+        }
+
+        boolean sameTypes(Frame other) {
+            return sp == other.sp
+                    && Arrays.equals(stack, 0, sp, other.stack, 0, sp)
+                    && Arrays.equals(vars, other.vars);
+        }
+    }
+
+    /** Uma saída da região: o destino no fluxo e os tipos das globais naquele ponto. */
+    private record Exit(Label label, int target, byte[] vars) {
+    }
+
+    private final int[] code;
+    private final int start;
+    private final int end;
+    private final BytecodeChunk chunk;
+    private final byte[] constTags;
+    private final long[] constPrims;
+    private final Object[] constRefs;
+
+    // Onde estão as rotinas de apoio (JitRuntime, ou a própria classe no AOT)
+    private final String runtimeOwner;
+    private final int firstVar;
+
+    // Medição de combustível: o slot do contador local (depois das globais),
+    // ou -1 se a região roda sem medição
+    private final int fuelSlot;
+
+    // Globais usadas na região: slot da global -> índice da variável (ou -1), e o inverso
+    private final int[] varOf;
+    private final int[] globalOf;
+
+    private final Frame[] states;
+
+    // Só durante a geração de código (na inferência, asm == null)
+    private ClassFileWriter.Code asm;
+    private Label[] labels;
+    private final List<Exit> exits = new ArrayList<>();
+
+    private JitCompiler(DecodedChunk decoded, int start, int end, String runtimeOwner, int firstVar, boolean metered) {
+        this.code = decoded.code();
+        this.start = start;
+        this.end = end;
+        this.chunk = decoded.getChunk();
+        this.constTags = decoded.constTags();
+        this.constPrims = decoded.constPrims();
+        this.constRefs = decoded.constRefs();
+        this.runtimeOwner = runtimeOwner;
+        this.firstVar = firstVar;
+        this.states = new Frame[end - start];
+
+        this.varOf = new int[chunk.getGlobalCount()];
+        Arrays.fill(varOf, -1);
+        int count = 0;
+        for (int pc = start; pc < end; pc += OpCode.fromValue(code[pc]).getLength()) {
+            if (usesGlobal(OpCode.fromValue(code[pc])) && varOf[code[pc + 1]] < 0) {
+                varOf[code[pc + 1]] = count++;
+            }
+        }
+        this.globalOf = new int[count];
+        for (int slot = 0; slot < varOf.length; slot++) {
+            if (varOf[slot] >= 0) {
+                globalOf[varOf[slot]] = slot;
+            }
+        }
+        this.fuelSlot = metered ? firstVar + SLOTS_PER_VAR * count : -1;
+    }
+
+    // --- API usada pela VM ---
+
+    /**
+     * Compila o chunk inteiro (entrada no índice 0, com todas as globais indefinidas).
+     * @return O código compilado, ou null se o chunk usa algo não suportado.
+     */
+    static CompiledCode compileChunk(BytecodeChunk chunk) {
+        DecodedChunk decoded = chunk.decode();
+        return compileRegion(decoded, 0, decoded.size(), new byte[chunk.getGlobalCount()], false);
+    }
+
+    /**
+     * Compila a região [start, end) do fluxo pré-decodificado.
+     * @param globalTags As tags atuais das globais (os tipos de entrada esperados).
+     * @param metered Se cada pulo para trás gasta combustível (ver VM.setFuel).
+     * @return O código compilado, ou null se a região usa algo não suportado.
+     */
+    static CompiledCode compileRegion(DecodedChunk decoded, int start, int end, byte[] globalTags, boolean metered) {
+        try {
+            JitCompiler compiler = new JitCompiler(decoded, start, end, JitRuntime.OWNER, FIRST_VAR, metered);
+            byte[] entryTypes = new byte[compiler.globalOf.length];
+            for (int v = 0; v < entryTypes.length; v++) {
+                entryTypes[v] = globalTags[compiler.globalOf[v]];
+            }
+            compiler.infer(entryTypes);
+            byte[] classBytes = compiler.generate(entryTypes);
+            return define(classBytes);
+        } catch (Unsupported | IllegalStateException e) {
+            if (VERBOSE) {
+                System.err.println("[JIT] região " + start + ".." + end + " não compilada: " + e.getMessage());
+            }
+            return null;
+        } catch (Throwable e) {
+            // Erro ao carregar a classe (ex: VerifyError): nunca deveria acontecer,
+            // mas o interpretador continua correto de qualquer forma.
+            if (VERBOSE) {
+                System.err.println("[JIT] falha ao carregar região " + start + ".." + end + ": " + e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gera, em 'cw', o método 'public static void main(String[])' que executa
+     * o chunk inteiro. As rotinas de apoio (mesmos nomes e descritores de
+     * JitRuntime, exceto os 'print', que não recebem o OutputSink) são
+     * chamadas em 'className', que precisa defini-las (inclusive 'fail', que
+     * imprime o erro da VM e encerra: uma instrução mal tipada não impede a
+     * compilação, só falha se for executada).
+     * @throws RuntimeException se o programa usa algo que não dá para compilar.
+     */
+    static void compileProgram(BytecodeChunk chunk, ClassFileWriter cw, String className) {
+        DecodedChunk decoded = chunk.decode();
+        try {
+            JitCompiler compiler = new JitCompiler(decoded, 0, decoded.size(), className, FIRST_PROGRAM_VAR, false);
+            compiler.infer(new byte[compiler.globalOf.length]);
+            compiler.generateMain(cw);
+        } catch (Unsupported e) {
+            throw new RuntimeException("Programa não suportado pelo compilador AOT: " + e.getMessage());
+        }
+    }
+
+    private static CompiledCode define(byte[] classBytes) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classBytes, true);
+        return (CompiledCode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+    }
+
+    // --- 1. Inferência de tipos ---
+
+    private void infer(byte[] entryTypes) {
+        states[0] = new Frame(8, entryTypes.clone());
+        Deque<Integer> worklist = new ArrayDeque<>();
+        worklist.push(start);
+        while (!worklist.isEmpty()) {
+            int pc = worklist.pop();
+            step(pc, states[pc - start].copy(), worklist);
+        }
+    }
+
+    /** Junta o estado 'f' ao estado de entrada de 'target' (na inferência). */
+    private void merge(int target, Frame f, Deque<Integer> worklist) {
+        Frame existing = states[target - start];
+        if (existing == null) {
+            states[target - start] = f.copy();
+            worklist.push(target);
+        } else if (!existing.sameTypes(f)) {
+            throw new Unsupported("tipos diferentes ao chegar em " + target);
+        }
+    }
+
+    // --- 2. Geração de código ---
+
+    private byte[] generate(byte[] entryTypes) {
+        ClassFileWriter cw = new ClassFileWriter(ACC_PUBLIC | ACC_FINAL, CLASS_NAME, "java/lang/Object", INTERFACE_NAME);
+
+        ClassFileWriter.Code init = cw.method(ACC_PUBLIC, "<init>", "()V", 1);
+        init.local(ALOAD, 0);
+        init.invoke(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        init.op(RETURN, 0);
+        init.end();
+
+        asm = cw.method(ACC_PUBLIC, "execute", EXECUTE_DESCRIPTOR,
+                firstVar + SLOTS_PER_VAR * globalOf.length + (fuelSlot >= 0 ? 1 : 0));
+        labels = new Label[end - start];
+
+        // Guardas: os tipos das globais precisam ser os da compilação
+        Label deopt = new Label();
+        for (int v = 0; v < globalOf.length; v++) {
+            asm.local(ALOAD, TAGS);
+            asm.iconst(globalOf[v]);
+            asm.op(BALOAD, -1);
+            asm.iconst(entryTypes[v]);
+            asm.jump(IF_ICMPNE, deopt);
+        }
+
+        initializeSlots();
+        for (int v = 0; v < globalOf.length; v++) {
+            loadEntryValue(v, entryTypes[v]);
+        }
+        if (fuelSlot >= 0) {
+            // O orçamento vira uma variável local (o laço não toca na memória)
+            asm.local(ALOAD, FUEL);
+            asm.iconst(0);
+            asm.op(IALOAD, -1);
+            asm.local(ISTORE, fuelSlot);
+        }
+        Label bodyStart = new Label();
+        Label bodyEnd = new Label();
+        asm.mark(bodyStart);
+        generateBody();
+        asm.mark(bodyEnd);
+
+        if (fuelSlot >= 0) {
+            // Um erro de execução no meio do laço (ex: divisão por zero) também
+            // devolve o combustível que sobrou: a VM cobra as voltas já dadas
+            Label failure = new Label();
+            asm.handler(bodyStart, bodyEnd, failure);
+            asm.mark(failure);
+            asm.local(ALOAD, FUEL);
+            asm.iconst(0);
+            asm.local(ILOAD, fuelSlot);
+            asm.op(IASTORE, -3);
+            asm.op(ATHROW, -1);
+        }
+
+        // Saídas: devolve as globais (e o combustível que sobrou) à VM e diz onde continuar
+        for (Exit exit : exits) {
+            asm.mark(exit.label());
+            for (int v = 0; v < globalOf.length; v++) {
+                if (exit.vars()[v] != ValueTag.NONE) {
+                    storeExitValue(v, exit.vars()[v]);
+                }
+            }
+            if (fuelSlot >= 0) {
+                asm.local(ALOAD, FUEL);
+                asm.iconst(0);
+                asm.local(ILOAD, fuelSlot);
+                asm.op(IASTORE, -3);
+            }
+            asm.iconst(exit.target());
+            asm.op(IRETURN, -1);
+        }
+
+        asm.mark(deopt);
+        asm.iconst(CompiledCode.DEOPT);
+        asm.op(IRETURN, -1);
+        asm.end();
+        return cw.toByteArray();
+    }
+
+    /** O 'main' de um programa AOT: todas as globais começam indefinidas e toda saída termina o programa. */
+    private void generateMain(ClassFileWriter cw) {
+        asm = cw.method(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V", firstVar + SLOTS_PER_VAR * globalOf.length);
+        labels = new Label[end - start];
+
+        initializeSlots();
+        generateBody();
+        for (Exit exit : exits) {
+            asm.mark(exit.label());
+            asm.op(RETURN, 0);
+        }
+        asm.end();
+    }
+
+    /** Todos os slots começam inicializados (o verificador exige isso nas junções). */
+    private void initializeSlots() {
+        for (int v = 0; v < globalOf.length; v++) {
+            asm.iconst(0);
+            asm.local(ISTORE, slot(v, KIND_INT));
+            asm.fconst(0.0f);
+            asm.local(FSTORE, slot(v, KIND_FLOAT));
+            asm.op(ACONST_NULL, 1);
+            asm.local(ASTORE, slot(v, KIND_REF));
+        }
+    }
+
+    /** Corpo: as instruções alcançáveis, na ordem do fluxo. */
+    private void generateBody() {
+        for (int pc = start; pc < end; pc += OpCode.fromValue(code[pc]).getLength()) {
+            if (states[pc - start] != null) {
+                asm.mark(label(pc));
+                step(pc, states[pc - start].copy(), null);
+            }
+        }
+    }
+
+    private Label label(int pc) {
+        Label label = labels[pc - start];
+        if (label == null) {
+            label = labels[pc - start] = new Label();
+        }
+        return label;
+    }
+
+    private int slot(int v, int kind) {
+        return firstVar + SLOTS_PER_VAR * v + kind;
+    }
+
+    private static int kindOf(byte type) {
+        return switch (type) {
+            case ValueTag.INT, ValueTag.BOOL -> KIND_INT;
+            case ValueTag.FLOAT -> KIND_FLOAT;
+            case ValueTag.STRING -> KIND_REF;
+            default -> throw new Unsupported("tipo sem representação: " + type);
+        };
+    }
+
+    /** Lê a global 'v' dos arrays da VM para o seu slot local. */
+    private void loadEntryValue(int v, byte type) {
+        if (type == ValueTag.NONE) {
+            return;
+        }
+        if (type == ValueTag.STRING) {
+            asm.local(ALOAD, REFS);
+            asm.iconst(globalOf[v]);
+            asm.op(AALOAD, -1);
+            asm.checkcast("java/lang/CharSequence");
+            asm.local(ASTORE, slot(v, KIND_REF));
+            return;
+        }
+        asm.local(ALOAD, PRIMS);
+        asm.iconst(globalOf[v]);
+        asm.op(LALOAD, 0);
+        asm.op(L2I, -1);
+        if (type == ValueTag.FLOAT) {
+            asm.invoke(INVOKESTATIC, "java/lang/Float", "intBitsToFloat", "(I)F");
+            asm.local(FSTORE, slot(v, KIND_FLOAT));
+        } else {
+            asm.local(ISTORE, slot(v, kindOf(type)));
+        }
+    }
+
+    /** Escreve o slot local da global 'v' de volta nos arrays da VM. */
+    private void storeExitValue(int v, byte type) {
+        int global = globalOf[v];
+        asm.local(ALOAD, TAGS);
+        asm.iconst(global);
+        asm.iconst(type);
+        asm.op(BASTORE, -3);
+
+        asm.local(ALOAD, PRIMS);
+        asm.iconst(global);
+        switch (type) {
+            case ValueTag.FLOAT -> {
+                asm.local(FLOAD, slot(v, KIND_FLOAT));
+                asm.invoke(INVOKESTATIC, "java/lang/Float", "floatToRawIntBits", "(F)I");
+            }
+            case ValueTag.STRING -> asm.iconst(0);
+            default -> asm.local(ILOAD, slot(v, KIND_INT));
+        }
+        asm.op(I2L, 1);
+        asm.op(LASTORE, -4);
+
+        asm.local(ALOAD, REFS);
+        asm.iconst(global);
+        if (type == ValueTag.STRING) {
+            asm.local(ALOAD, slot(v, KIND_REF));
+        } else {
+            asm.op(ACONST_NULL, 1);
+        }
+        asm.op(AASTORE, -3);
+    }
+
+    // --- Tradução de uma instrução (usada pelas duas fases) ---
+
+    /**
+     * Traduz a instrução em 'pc'. No AOT, uma instrução que falharia na VM
+     * vira uma chamada a 'fail' (a mesma mensagem, no mesmo ponto) e não tem
+     * sucessores; o código já emitido para ela fica na pilha, sem problema.
+     */
+    private void step(int pc, Frame f, Deque<Integer> worklist) {
+        try {
+            translate(pc, f, worklist);
+        } catch (RuntimeFailure e) {
+            if (firstVar == FIRST_VAR) {
+                throw e;
+            }
+            if (asm != null) {
+                asm.sconst(e.getMessage());
+                asm.invoke(INVOKESTATIC, runtimeOwner, "fail", "(Ljava/lang/String;)V");
+                asm.op(RETURN, 0);
+            }
+        }
+    }
+
+    /**
+     * Aplica a instrução em 'pc' ao estado 'f'. Na inferência (worklist != null)
+     * propaga o estado aos sucessores; na geração, emite o código da JVM.
+     */
+    private void translate(int pc, Frame f, Deque<Integer> worklist) {
+        OpCode op = OpCode.fromValue(code[pc]);
+        int next = pc + op.getLength();
+
+        switch (op) {
+            case OP_PUSH_CONST -> pushConstant(code[pc + 1], f);
+            case OP_PUSH_TRUE, OP_PUSH_FALSE -> {
+                emitIconst(op == OpCode.OP_PUSH_TRUE ? 1 : 0);
+                f.push(ValueTag.BOOL);
+            }
+            case OP_POP -> {
+                f.pop();
+                emit(POP, -1);
+            }
+
+            case OP_ADD, OP_SUBTRACT, OP_MULTIPLY, OP_DIVIDE,
+                 OP_EQUAL, OP_NOT_EQUAL, OP_GREATER, OP_GREATER_EQUAL, OP_LESS, OP_LESS_EQUAL,
+                 OP_AND, OP_OR -> binary(op, f);
+            case OP_NEGATE -> {
+                byte type = f.peek();
+                if (type == ValueTag.INT) {
+                    emit(INEG, 0);
+                } else if (type == ValueTag.FLOAT) {
+                    emit(FNEG, 0);
+                } else {
+                    throw new RuntimeFailure("Operando para '-' deve ser um número.");
+                }
+            }
+            case OP_NOT -> {
+                // Apenas 'false' é "falso": bool -> !bool; qualquer outro valor -> false
+                byte type = f.pop();
+                if (type == ValueTag.BOOL) {
+                    emitIconst(1);
+                    emit(IXOR, -1);
+                } else {
+                    emit(POP, -1);
+                    emitIconst(0);
+                }
+                f.push(ValueTag.BOOL);
+            }
+
+            case OP_DEFINE_GLOBAL -> storeGlobal(code[pc + 1], f);
+            case OP_LOAD_GLOBAL -> loadGlobal(code[pc + 1], f);
+            case OP_STORE_GLOBAL -> {
+                requireDefined(code[pc + 1], f);
+                byte type = f.peek();
+                emit(DUP, 1);
+                f.push(type);
+                storeGlobal(code[pc + 1], f);
+            }
+            case OP_SET_GLOBAL -> {
+                requireDefined(code[pc + 1], f);
+                storeGlobal(code[pc + 1], f);
+            }
+            case OP_INCREMENT_GLOBAL, OP_DECREMENT_GLOBAL -> {
+                int v = varOf[code[pc + 1]];
+                int delta = op == OpCode.OP_INCREMENT_GLOBAL ? 1 : -1;
+                byte type = f.vars[v];
+                if (type == ValueTag.INT) {
+                    if (asm != null) {
+                        asm.iinc(slot(v, KIND_INT), delta);
+                    }
+                } else if (type == ValueTag.FLOAT) {
+                    if (asm != null) {
+                        asm.local(FLOAD, slot(v, KIND_FLOAT));
+                        asm.fconst(1.0f);
+                        asm.op(delta > 0 ? FADD : FSUB, -1);
+                        asm.local(FSTORE, slot(v, KIND_FLOAT));
+                    }
+                } else {
+                    String name = op == OpCode.OP_INCREMENT_GLOBAL ? "++" : "--";
+                    throw new RuntimeFailure(type == ValueTag.NONE
+                            ? "Variável global '" + chunk.getGlobalName(code[pc + 1]) + "' não definida para '" + name + "'."
+                            : "Operando '" + name + "' deve ser um número (Integer ou Float).");
+                }
+            }
+
+            case OP_JUMP -> {
+                int target = code[pc + 1];
+                if (fuelSlot >= 0 && target >= start && target < pc) {
+                    backEdge(pc, target, f, worklist);
+                } else {
+                    jump(GOTO, target, f, worklist);
+                }
+                return; // Sem "fall-through"
+            }
+            case OP_JUMP_IF_FALSE -> {
+                if (f.pop() != ValueTag.BOOL) {
+                    throw new RuntimeFailure("Condição do 'if' ou 'while' deve ser um booleano.");
+                }
+                jump(IFEQ, code[pc + 1], f, worklist);
+            }
+
+            case OP_PRINT -> print(f);
+            case OP_RETURN -> {
+                // A VM executa o próprio OP_RETURN ao continuar
+                exit(GOTO, pc, f);
+                return;
+            }
+
+            // --- Superinstruções (expandidas) ---
+            case OP_PRINT_CONST -> {
+                pushConstant(code[pc + 1], f);
+                print(f);
+            }
+            case OP_PRINT_GLOBAL -> {
+                loadGlobal(code[pc + 1], f);
+                print(f);
+            }
+            case OP_UPDATE_GLOBAL_CONST -> {
+                loadGlobal(code[pc + 1], f);
+                pushConstant(code[pc + 2], f);
+                binary(OpCode.fromValue(code[pc + 3]), f);
+                storeGlobal(code[pc + 1], f);
+            }
+            case OP_CMP_GLOBAL_CONST_JUMP -> {
+                loadGlobal(code[pc + 1], f);
+                pushConstant(code[pc + 2], f);
+                compareAndJump(OpCode.fromValue(code[pc + 3]), code[pc + 4], f, worklist);
+            }
+
+            default -> throw new Unsupported("instrução não suportada: " + op);
+        }
+
+        // Continua na próxima instrução
+        if (next < end) {
+            if (worklist != null) {
+                merge(next, f, worklist);
+            }
+        } else {
+            exit(GOTO, next, f);
+        }
+    }
+
+    private static boolean usesGlobal(OpCode op) {
+        return switch (op) {
+            case OP_DEFINE_GLOBAL, OP_LOAD_GLOBAL, OP_STORE_GLOBAL, OP_SET_GLOBAL,
+                 OP_INCREMENT_GLOBAL, OP_DECREMENT_GLOBAL, OP_PRINT_GLOBAL,
+                 OP_UPDATE_GLOBAL_CONST, OP_CMP_GLOBAL_CONST_JUMP -> true;
+            default -> false;
+        };
+    }
+
+    // --- Helpers de emissão (não fazem nada durante a inferência) ---
+
+    private void emit(int opcode, int delta) {
+        if (asm != null) {
+            asm.op(opcode, delta);
+        }
+    }
+
+    private void emitIconst(int value) {
+        if (asm != null) {
+            asm.iconst(value);
+        }
+    }
+
+    private void emitInvoke(String name, String descriptor) {
+        if (asm != null) {
+            asm.invoke(INVOKESTATIC, runtimeOwner, name, descriptor);
+        }
+    }
+
+    private void pushConstant(int index, Frame f) {
+        byte type = constTags[index];
+        if (asm != null) {
+            switch (type) {
+                case ValueTag.INT, ValueTag.BOOL -> asm.iconst((int) constPrims[index]);
+                case ValueTag.FLOAT -> asm.fconst(Float.intBitsToFloat((int) constPrims[index]));
+                case ValueTag.STRING -> asm.sconst((String) constRefs[index]);
+                default -> throw new Unsupported("constante nula");
+            }
+        } else if (type == ValueTag.NULL) {
+            throw new Unsupported("constante nula");
+        }
+        f.push(type);
+    }
+
+    private void requireDefined(int global, Frame f) {
+        if (f.vars[varOf[global]] == ValueTag.NONE) {
+            // (Os tipos de todos os caminhos são iguais: NONE é "nunca definida aqui")
+            throw new RuntimeFailure("Variável global '" + chunk.getGlobalName(global) + "' não definida.");
+        }
+    }
+
+    private void loadGlobal(int global, Frame f) {
+        requireDefined(global, f);
+        int v = varOf[global];
+        byte type = f.vars[v];
+        if (asm != null) {
+            int kind = kindOf(type);
+            asm.local(kind == KIND_INT ? ILOAD : kind == KIND_FLOAT ? FLOAD : ALOAD, slot(v, kind));
+        }
+        f.push(type);
+    }
+
+    private void storeGlobal(int global, Frame f) {
+        int v = varOf[global];
+        byte type = f.pop();
+        int kind = kindOf(type);
+        if (asm != null) {
+            asm.local(kind == KIND_INT ? ISTORE : kind == KIND_FLOAT ? FSTORE : ASTORE, slot(v, kind));
+        }
+        f.vars[v] = type;
+    }
+
+    /**
+     * 'print' do valor no topo. No JIT, vai para o OutputSink da VM (passado
+     * junto com o valor); no AOT, as rotinas da classe usam o System.out.
+     */
+    private void print(Frame f) {
+        String value = switch (f.pop()) {
+            case ValueTag.INT -> "I";
+            case ValueTag.FLOAT -> "F";
+            case ValueTag.BOOL -> "Z";
+            default -> TEXT;
+        };
+        String name = switch (value) {
+            case "I" -> "printInt";
+            case "F" -> "printFloat";
+            case "Z" -> "printBool";
+            default -> "printString";
+        };
+        if (firstVar == FIRST_VAR) {
+            if (asm != null) {
+                asm.local(ALOAD, OUTPUT);
+            }
+            emitInvoke(name, "(" + value + OUTPUT_DESCRIPTOR + ")V");
+        } else {
+            emitInvoke(name, "(" + value + ")V");
+        }
+    }
+
+    /** Desvio para 'target': dentro da região vai para o label; fora, para uma saída. */
+    private void jump(int opcode, int target, Frame f, Deque<Integer> worklist) {
+        if (target >= start && target < end) {
+            if (worklist != null) {
+                merge(target, f, worklist);
+            } else {
+                asm.jump(opcode, label(target));
+            }
+        } else {
+            exit(opcode, target, f);
+        }
+    }
+
+    /**
+     * Pulo para trás (em 'pc') com medição de combustível, a mesma conta da
+     * VM: gasta uma unidade e volta ao início do laço; se o orçamento acabou
+     * (< 0), sai para a VM no próprio pulo, que ela cobra (ou suspende ali).
+     */
+    private void backEdge(int pc, int target, Frame f, Deque<Integer> worklist) {
+        if (worklist != null) {
+            merge(target, f, worklist);
+        } else {
+            asm.iinc(fuelSlot, -1);
+            asm.local(ILOAD, fuelSlot);
+            asm.jump(IFGE, label(target));
+        }
+        exit(GOTO, pc, f);
+    }
+
+    /** Sai da região (devolvendo as globais à VM) para continuar em 'target'. */
+    private void exit(int opcode, int target, Frame f) {
+        if (f.sp != 0) {
+            throw new Unsupported("saída com valores na pilha");
+        }
+        if (asm != null) {
+            Label label = new Label();
+            exits.add(new Exit(label, target, f.vars.clone()));
+            asm.jump(opcode, label);
+        }
+    }
+
+    // --- Operações binárias ---
+
+    private static boolean isNumber(byte type) {
+        return type == ValueTag.INT || type == ValueTag.FLOAT;
+    }
+
+    /** Converte os dois operandos do topo para float (coerção int -> float). */
+    private void toFloats(byte a, byte b) {
+        if (b == ValueTag.INT) {
+            emit(I2F, 0);
+        }
+        if (a == ValueTag.INT) {
+            emit(SWAP, 0);
+            emit(I2F, 0);
+            emit(SWAP, 0);
+        }
+    }
+
+    private void binary(OpCode op, Frame f) {
+        byte b = f.pop();
+        byte a = f.pop();
+        switch (op) {
+            case OP_ADD -> {
+                if (a == ValueTag.STRING || b == ValueTag.STRING) {
+                    toText(b);
+                    emit(SWAP, 0);
+                    toText(a);
+                    emit(SWAP, 0);
+                    emitInvoke("concat", "(" + TEXT + TEXT + ")" + TEXT);
+                    f.push(ValueTag.STRING);
+                } else {
+                    arithmetic(op, a, b, IADD, FADD, f);
+                }
+            }
+            case OP_SUBTRACT -> arithmetic(op, a, b, ISUB, FSUB, f);
+            case OP_MULTIPLY -> arithmetic(op, a, b, IMUL, FMUL, f);
+            case OP_DIVIDE -> {
+                requireNumbers(op, a, b);
+                if (a == ValueTag.INT && b == ValueTag.INT) {
+                    emitInvoke("checkDivisor", "(I)I");
+                    emit(IDIV, -1);
+                    f.push(ValueTag.INT);
+                } else {
+                    toFloats(a, b);
+                    emitInvoke("checkDivisor", "(F)F");
+                    emit(FDIV, -1);
+                    f.push(ValueTag.FLOAT);
+                }
+            }
+            case OP_EQUAL, OP_NOT_EQUAL -> {
+                equality(a, b);
+                if (op == OpCode.OP_NOT_EQUAL) {
+                    emitIconst(1);
+                    emit(IXOR, -1);
+                }
+                f.push(ValueTag.BOOL);
+            }
+            case OP_GREATER, OP_GREATER_EQUAL, OP_LESS, OP_LESS_EQUAL -> {
+                requireNumbers(op, a, b);
+                if (asm != null) {
+                    // Calcula o bool com um desvio "se falso"
+                    Label isFalse = new Label();
+                    Label done = new Label();
+                    branchIfFalse(op, a, b, isFalse);
+                    asm.iconst(1);
+                    asm.jump(GOTO, done);
+                    asm.mark(isFalse);
+                    asm.iconst(0);
+                    asm.mark(done);
+                }
+                f.push(ValueTag.BOOL);
+            }
+            case OP_AND, OP_OR -> {
+                if (a != ValueTag.BOOL || b != ValueTag.BOOL) {
+                    throw new RuntimeFailure("Operandos para '" + (op == OpCode.OP_AND ? "&&" : "||")
+                            + "' devem ser booleanos.");
+                }
+                emit(op == OpCode.OP_AND ? IAND : IOR, -1);
+                f.push(ValueTag.BOOL);
+            }
+            default -> throw new Unsupported("operação não suportada: " + op);
+        }
+    }
+
+    private void requireNumbers(OpCode op, byte a, byte b) {
+        if (!isNumber(a) || !isNumber(b)) {
+            // (Na VM, estes erros vêm de uma exceção, daí o prefixo)
+            throw new RuntimeFailure(op == OpCode.OP_ADD
+                    ? "Erro de VM: Operands must be two numbers or two strings for '+'."
+                    : "Erro de VM: Operands must be two numbers for this operation.");
+        }
+    }
+
+    private void arithmetic(OpCode op, byte a, byte b, int intOpcode, int floatOpcode, Frame f) {
+        requireNumbers(op, a, b);
+        if (a == ValueTag.INT && b == ValueTag.INT) {
+            emit(intOpcode, -1);
+            f.push(ValueTag.INT);
+        } else {
+            toFloats(a, b);
+            emit(floatOpcode, -1);
+            f.push(ValueTag.FLOAT);
+        }
+    }
+
+    /** Converte o valor do topo para String (como ValueTag.toString). */
+    private void toText(byte type) {
+        switch (type) {
+            case ValueTag.INT -> emitInvoke("intToString", "(I)Ljava/lang/String;");
+            case ValueTag.FLOAT -> emitInvoke("floatToString", "(F)Ljava/lang/String;");
+            case ValueTag.BOOL -> emitInvoke("boolToString", "(Z)Ljava/lang/String;");
+            default -> {
+                // Já é texto (String ou Rope)
+            }
+        }
+    }
+
+    /** Igualdade com a semântica de ValueTag.equals (tipos diferentes nunca são iguais). */
+    private void equality(byte a, byte b) {
+        if (a != b) {
+            emit(POP, -1);
+            emit(POP, -1);
+            emitIconst(0);
+            return;
+        }
+        switch (a) {
+            case ValueTag.FLOAT -> emitInvoke("floatEquals", "(FF)Z");
+            case ValueTag.STRING -> emitInvoke("textEquals", "(" + TEXT + TEXT + ")Z");
+            default -> {
+                if (asm != null) {
+                    Label isFalse = new Label();
+                    Label done = new Label();
+                    asm.jump(IF_ICMPNE, isFalse);
+                    asm.iconst(1);
+                    asm.jump(GOTO, done);
+                    asm.mark(isFalse);
+                    asm.iconst(0);
+                    asm.mark(done);
+                }
+            }
+        }
+    }
+
+    /**
+     * Emite "se NÃO (a op b), desvia para 'target'" para uma comparação de ordem.
+     * Para floats, FCMPL/FCMPG fazem qualquer comparação com NaN ser falsa.
+     */
+    private void branchIfFalse(OpCode op, byte a, byte b, Label target) {
+        if (a == ValueTag.INT && b == ValueTag.INT) {
+            asm.jump(switch (op) {
+                case OP_GREATER -> IF_ICMPLE;
+                case OP_GREATER_EQUAL -> IF_ICMPLT;
+                case OP_LESS -> IF_ICMPGE;
+                default -> IF_ICMPGT; // OP_LESS_EQUAL
+            }, target);
+            return;
+        }
+        toFloats(a, b);
+        switch (op) {
+            case OP_GREATER -> {
+                asm.op(FCMPL, -1);
+                asm.jump(IFLE, target);
+            }
+            case OP_GREATER_EQUAL -> {
+                asm.op(FCMPL, -1);
+                asm.jump(IFLT, target);
+            }
+            case OP_LESS -> {
+                asm.op(FCMPG, -1);
+                asm.jump(IFGE, target);
+            }
+            default -> { // OP_LESS_EQUAL
+                asm.op(FCMPG, -1);
+                asm.jump(IFGT, target);
+            }
+        }
+    }
+
+    /** OP_CMP_*_CONST_JUMP: compara os dois valores do topo e desvia para 'target' se for falso. */
+    private void compareAndJump(OpCode op, int target, Frame f, Deque<Integer> worklist) {
+        byte b = f.stack[f.sp - 1];
+        byte a = f.stack[f.sp - 2];
+        boolean ordered = op != OpCode.OP_EQUAL && op != OpCode.OP_NOT_EQUAL;
+        if (ordered && isNumber(a) && isNumber(b) && target >= start && target < end) {
+            // Caminho direto: a própria comparação da JVM desvia
+            f.sp -= 2;
+            if (worklist != null) {
+                merge(target, f, worklist);
+            } else {
+                branchIfFalse(op, a, b, label(target));
+            }
+            return;
+        }
+        binary(op, f);
+        f.pop();
+        jump(IFEQ, target, f, worklist);
+    }
+}
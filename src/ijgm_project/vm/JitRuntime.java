@@ -0,0 +1,71 @@
+package ijgm_project.vm;
+
+/**
+ * Rotinas de apoio chamadas pelo código gerado pelo JitCompiler.
+ *
+ * Tudo o que não vira uma instrução simples da JVM (impressão, conversão
+ * para texto, erros de execução) passa por aqui, com a MESMA semântica da VM.
+ */
+final class JitRuntime {
+
+    static final String OWNER = "ijgm_project/vm/JitRuntime";
+
+    private JitRuntime() {
+    }
+
+    static void printInt(int value, OutputSink output) {
+        output.printInt(value);
+    }
+
+    static void printFloat(float value, OutputSink output) {
+        output.printFloat(value);
+    }
+
+    static void printBool(boolean value, OutputSink output) {
+        output.printBoolean(value);
+    }
+
+    static void printString(CharSequence value, OutputSink output) {
+        output.printString(value.toString());
+    }
+
+    static String intToString(int value) {
+        return Integer.toString(value);
+    }
+
+    static String floatToString(float value) {
+        return Float.toString(value);
+    }
+
+    static String boolToString(boolean value) {
+        return value ? "true" : "false";
+    }
+
+    static CharSequence concat(CharSequence a, CharSequence b) {
+        return Rope.concat(a, b);
+    }
+
+    static boolean textEquals(CharSequence a, CharSequence b) {
+        return Rope.contentEquals(a, b);
+    }
+
+    /** Devolve o divisor, ou falha como a VM ("Divisão por zero."). */
+    static int checkDivisor(int divisor) {
+        if (divisor == 0) {
+            throw new RuntimeException("Divisão por zero.");
+        }
+        return divisor;
+    }
+
+    static float checkDivisor(float divisor) {
+        if (divisor == 0.0f) {
+            throw new RuntimeException("Divisão por zero.");
+        }
+        return divisor;
+    }
+
+    /** Igualdade de floats com a semântica de Float.equals (ver ValueTag.equals). */
+    static boolean floatEquals(float a, float b) {
+        return Float.floatToIntBits(a) == Float.floatToIntBits(b);
+    }
+}
@@ -0,0 +1,111 @@
+package ijgm_project.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tabela de linhas de um BytecodeChunk: liga o bytecode de volta ao fonte.
+ *
+ * O CompilerVisitor marca, no ChunkBuilder, a linha de cada comando antes
+ * de compilá-lo. A tabela guarda só as "corridas": a partir de starts[i]
+ * (um offset do bytecode) e até o início da corrida seguinte, as instruções
+ * vieram da linha lines[i]. Um programa de N comandos gera no máximo N
+ * corridas, independentemente do tamanho do bytecode.
+ *
+ * Também guarda a faixa de bytecode de cada laço 'while' (da condição até o
+ * pulo para trás, inclusive), para reconstruir o aninhamento dos laços em
+ * um offset qualquer (ver loopsAt e o SamplingProfiler).
+ */
+public final class LineTable {
+
+    /**
+     * Um laço 'while': as instruções em [start, end) e a linha do 'while'.
+     */
+    public record Loop(int start, int end, int line) {
+    }
+
+    // Corridas: offset inicial e linha, ordenadas por offset
+    private final int[] starts;
+    private final int[] lines;
+
+    // Os laços, ordenados pelo início (um laço externo vem antes dos internos)
+    private final List<Loop> loops;
+
+    /**
+     * Construtor: usado pelo ChunkBuilder.freeze() e pelo ChunkSerializer.
+     * @param starts Os offsets onde cada corrida começa (crescentes; não é copiado).
+     * @param lines A linha de cada corrida (não é copiado).
+     * @param loops Os laços, em qualquer ordem.
+     */
+    LineTable(int[] starts, int[] lines, List<Loop> loops) {
+        this.starts = starts;
+        this.lines = lines;
+        List<Loop> sorted = new ArrayList<>(loops);
+        sorted.sort((a, b) -> a.start() != b.start()
+                ? Integer.compare(a.start(), b.start())
+                : Integer.compare(b.end(), a.end()));
+        this.loops = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Retorna a linha do fonte que gerou a instrução em 'byteOffset'.
+     * @param byteOffset Um offset do bytecode.
+     * @return A linha (a partir de 1), ou 0 se o offset não tem linha conhecida.
+     */
+    public int getLine(int byteOffset) {
+        int run = Arrays.binarySearch(starts, byteOffset);
+        if (run < 0) {
+            run = -run - 2; // A corrida que começa antes do offset
+        }
+        return run < 0 ? 0 : lines[run];
+    }
+
+    /**
+     * Retorna os laços que contêm o offset, do mais externo ao mais interno.
+     * @param byteOffset Um offset do bytecode.
+     * @return Os laços (lista vazia se o offset está fora de qualquer laço).
+     */
+    public List<Loop> loopsAt(int byteOffset) {
+        List<Loop> result = new ArrayList<>();
+        for (Loop loop : loops) {
+            if (loop.start() > byteOffset) {
+                break;
+            }
+            if (byteOffset < loop.end()) {
+                result.add(loop);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Todos os laços do chunk, ordenados pelo início.
+     */
+    public List<Loop> getLoops() {
+        return loops;
+    }
+
+    /**
+     * @return O número de corridas (trechos contíguos de uma mesma linha).
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /** O offset onde a corrida 'run' começa (usado pelo ChunkSerializer). */
+    int runStart(int run) {
+        return starts[run];
+    }
+
+    /** A linha da corrida 'run' (usado pelo ChunkSerializer). */
+    int runLine(int run) {
+        return lines[run];
+    }
+
+    @Override
+    public String toString() {
+        return "LineTable [corridas=" + starts.length + ", laços=" + loops.size() + "]";
+    }
+}
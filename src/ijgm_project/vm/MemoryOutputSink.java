@@ -0,0 +1,55 @@
+package ijgm_project.vm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OutputSink que guarda na memória as linhas impressas (com o prefixo
+ * "Output: "), para testes e para quem embute a VM e quer a saída como dado.
+ */
+public final class MemoryOutputSink implements OutputSink {
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Override
+    public void printInt(int value) {
+        lines.add(PREFIX + value);
+    }
+
+    @Override
+    public void printFloat(float value) {
+        lines.add(PREFIX + value);
+    }
+
+    @Override
+    public void printBoolean(boolean value) {
+        lines.add(PREFIX + value);
+    }
+
+    @Override
+    public void printString(String value) {
+        lines.add(PREFIX + value);
+    }
+
+    @Override
+    public void flush() {
+        // Nada a fazer: as linhas já estão na lista
+    }
+
+    /** As linhas impressas até agora, na ordem (somente leitura). */
+    public List<String> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    /** A saída como um texto só, uma linha por 'print'. */
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(), lines);
+    }
+
+    /** Descarta as linhas guardadas. */
+    public void clear() {
+        lines.clear();
+    }
+}
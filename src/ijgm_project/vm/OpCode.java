@@ -9,7 +9,7 @@ package ijgm_project.vm;
 public enum OpCode {
 
     // --- 1. Constantes e Literais ---
-    OP_PUSH_CONST(0),
+    OP_PUSH_CONST(0, 1),
     OP_PUSH_TRUE(1),
     OP_PUSH_FALSE(2),
 
@@ -32,41 +32,115 @@ public enum OpCode {
     OP_OR(16),
 
     // --- 4. Variáveis e Escopo ---
-    OP_DEFINE_GLOBAL(17),
-    OP_LOAD_GLOBAL(18),
-    OP_STORE_GLOBAL(19),
-    OP_LOAD_LOCAL(20),
-    OP_STORE_LOCAL(21),
+    OP_DEFINE_GLOBAL(17, 1),
+    OP_LOAD_GLOBAL(18, 1),
+    OP_STORE_GLOBAL(19, 1),
+    OP_LOAD_LOCAL(20, 1),
+    OP_STORE_LOCAL(21, 1),
 
     // --- 5. Controle de Fluxo ---
-    OP_JUMP_IF_FALSE(22),
-    OP_JUMP(23),
+    OP_JUMP_IF_FALSE(22, 1),
+    OP_JUMP(23, 1),
 
     // --- 6. Auxiliares e Extras ---
     OP_POP(24),
     OP_PRINT(25),
-    OP_INCREMENT_LOCAL(26),
-    OP_INCREMENT_GLOBAL(27),
+    OP_INCREMENT_LOCAL(26, 1),
+    OP_INCREMENT_GLOBAL(27, 1),
     OP_RETURN(28),
 
     // --- NOVOS OPCODES ---
-    OP_DECREMENT_LOCAL(29),
-    OP_DECREMENT_GLOBAL(30);
+    OP_DECREMENT_LOCAL(29, 1),
+    OP_DECREMENT_GLOBAL(30, 1),
+
+    // --- 7. Opcodes "acelerados" (Quickening) ---
+    // Nunca são emitidos pelo compilador. A VM reescreve, em tempo de
+    // execução, um OP_ADD/OP_LESS/etc. genérico para uma destas versões
+    // especializadas, de acordo com os tipos de operandos observados.
+    // Sufixos: II = int/int, FF = float/float, SS = string/string.
+    OP_ADD_II(31),
+    OP_ADD_FF(32),
+    OP_CONCAT_SS(33),
+    OP_SUBTRACT_II(34),
+    OP_SUBTRACT_FF(35),
+    OP_MULTIPLY_II(36),
+    OP_MULTIPLY_FF(37),
+    OP_DIVIDE_II(38),
+    OP_DIVIDE_FF(39),
+    OP_GREATER_II(40),
+    OP_GREATER_FF(41),
+    OP_GREATER_EQUAL_II(42),
+    OP_GREATER_EQUAL_FF(43),
+    OP_LESS_II(44),
+    OP_LESS_FF(45),
+    OP_LESS_EQUAL_II(46),
+    OP_LESS_EQUAL_FF(47),
+    OP_EQUAL_II(48),
+    OP_NOT_EQUAL_II(49),
+
+    // --- 8. Superinstruções (sequências comuns fundidas em um só despacho) ---
+    // Emitidas pelo CompilerVisitor (ver SuperinstructionMiner para a escolha).
+    // x = expr;              -> ... OP_SET_GLOBAL x          (STORE + POP)
+    OP_SET_GLOBAL(50, 1),
+    OP_SET_LOCAL(51, 1),
+    // x = x <op> k;          -> OP_UPDATE_GLOBAL_CONST x k op
+    OP_UPDATE_GLOBAL_CONST(52, 3),
+    OP_UPDATE_LOCAL_CONST(53, 3),
+    // while/if (x <cmp> k)   -> OP_CMP_GLOBAL_CONST_JUMP x k cmp offset
+    // (pula 'offset' se a comparação for falsa)
+    OP_CMP_GLOBAL_CONST_JUMP(54, 4),
+    OP_CMP_LOCAL_CONST_JUMP(55, 4),
+    // print k;               -> OP_PRINT_CONST k
+    OP_PRINT_CONST(56, 1),
+    // print x; (x global)    -> OP_PRINT_GLOBAL x
+    OP_PRINT_GLOBAL(57, 1),
+
+    // --- 9. Operandos largos ---
+    // Prefixo: a instrução seguinte lê seus operandos com 16 bits (big-endian)
+    // em vez de 8. Só vale para instruções de UM operando (constante, slot ou
+    // offset de pulo); o compilador só o emite quando o operando não cabe em
+    // um byte. Ex: OP_WIDE OP_PUSH_CONST hi lo
+    OP_WIDE(58),
+
+    // --- 10. Tier 2 (JIT) ---
+    // Nunca é emitido pelo compilador. Quando um laço fica quente, a VM
+    // reescreve a primeira instrução do laço para este opcode, que executa
+    // a versão compilada para a JVM (ver JitCompiler).
+    OP_JIT_ENTER(59),
+
+    // --- 11. Combustível ---
+    // Nunca é emitido pelo compilador. Quando a execução passa a ser limitada
+    // (VM.setFuel), a VM reescreve cada OP_JUMP para trás da sua cópia do
+    // código para este opcode, que gasta uma unidade de combustível por
+    // volta. Sem limite, os laços continuam no OP_JUMP, sem custo extra.
+    OP_JUMP_FUEL(60, 1);
 
     // --- A Lógica da Boa Prática ---
 
+    // values() devolve uma CÓPIA do array a cada chamada; guardamos uma só.
+    private static final OpCode[] VALUES = values();
+
     private final byte value; // Armazena o valor como byte
+    private final int operandBytes; // Quantos bytes de operando seguem o opcode
+
+    /**
+     * O construtor é chamado para cada item acima (instruções sem operandos).
+     */
+    OpCode(int value) {
+        this(value, 0);
+    }
 
     /**
      * O construtor é chamado para cada item acima.
      * Ele lida com a conversão int -> byte UMA VEZ, aqui dentro.
      */
-    OpCode(int value) {
+    OpCode(int value, int operandBytes) {
         if (value > 255 || value < 0) {
             // Segurança: garante que o valor se encaixa em um byte (0-255)
             throw new IllegalArgumentException("Valor do OpCode fora do intervalo de byte: " + value);
         }
         this.value = (byte) value;
+        this.operandBytes = operandBytes;
     }
 
     /**
@@ -78,6 +152,29 @@ public enum OpCode {
         return this.value;
     }
 
+    /**
+     * @return Quantos bytes de operando seguem esta instrução no bytecode.
+     */
+    public int getOperandBytes() {
+        return this.operandBytes;
+    }
+
+    /**
+     * @return O tamanho total da instrução (opcode + operandos), em bytes.
+     */
+    public int getLength() {
+        return 1 + this.operandBytes;
+    }
+
+    /**
+     * @return Verdadeiro se esta instrução aceita o prefixo OP_WIDE
+     * (instruções com exatamente um operando; as superinstruções com vários
+     * operandos nunca são "alargadas").
+     */
+    public boolean isWidenable() {
+        return this.operandBytes == 1;
+    }
+
     /**
      * Permite que a VM converta um byte de volta para um OpCode.
      * (A VM precisará disso).
@@ -85,6 +182,13 @@ public enum OpCode {
     public static OpCode fromByte(byte b) {
         // Esta é uma forma rápida de buscar o OpCode pelo seu valor de byte.
         // Assume que os valores são contínuos (0, 1, 2, 3...)
-        return OpCode.values()[b];
+        return VALUES[b];
+    }
+
+    /**
+     * Igual a fromByte, mas para o valor já como int (ex: o fluxo do DecodedChunk).
+     */
+    public static OpCode fromValue(int value) {
+        return VALUES[value];
     }
 }
\ No newline at end of file
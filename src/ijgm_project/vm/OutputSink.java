@@ -0,0 +1,60 @@
+package ijgm_project.vm;
+
+/**
+ * Destino da saída do 'print' (OP_PRINT e afins), injetado na VM.
+ *
+ * Cada chamada imprime uma linha "Output: valor", exatamente como o antigo
+ * System.out.println("Output: " + valor). Os métodos tipados existem para
+ * que uma implementação possa formatar o valor sem criar uma String (ex:
+ * BufferedOutputSink escreve os dígitos de um int direto no buffer).
+ *
+ * Implementações:
+ * - BufferedOutputSink: codifica em um buffer de bytes e escreve em lotes;
+ * - AsyncOutputSink: uma thread escritora alimentada por uma fila;
+ * - MemoryOutputSink: guarda as linhas na memória (testes e embutir a VM).
+ *
+ * Uma implementação não precisa ser thread-safe: cada VM usa a sua.
+ */
+public interface OutputSink extends AutoCloseable {
+
+    /** O prefixo de cada linha impressa. */
+    String PREFIX = "Output: ";
+
+    void printInt(int value);
+
+    void printFloat(float value);
+
+    void printBoolean(boolean value);
+
+    /** Imprime um texto ('null' imprime "null", como o println). */
+    void printString(String value);
+
+    /** Garante que tudo o que já foi impresso chegou ao destino. */
+    void flush();
+
+    /** Imprime um valor qualquer da linguagem (Integer, Float, Boolean, String ou null). */
+    default void print(Object value) {
+        if (value instanceof Integer i) {
+            printInt(i);
+        } else if (value instanceof Float f) {
+            printFloat(f);
+        } else if (value instanceof Boolean b) {
+            printBoolean(b);
+        } else {
+            printString(String.valueOf(value));
+        }
+    }
+
+    /** Esvazia o buffer e libera os recursos (o destino em si não é fechado). */
+    @Override
+    default void close() {
+        flush();
+    }
+
+    /**
+     * A saída padrão (System.out), com buffer: o que a VM usa por padrão.
+     */
+    static OutputSink stdout() {
+        return new BufferedOutputSink(System.out);
+    }
+}
@@ -0,0 +1,178 @@
+package ijgm_project.vm;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Perfil exato da execução de um chunk pela VM (modo opcional, ver a
+ * propriedade 'ijgm.profile' na VM).
+ *
+ * Conta quantas vezes cada opcode e cada instrução (offset do bytecode)
+ * foram executados, em arrays primitivos indexados pelo valor do opcode e
+ * pela posição no fluxo pré-decodificado. As instruções já "aceleradas"
+ * (Quickening) contam no opcode especializado, mas na instrução original.
+ *
+ * No modo com tempo, em média 1 a cada 'sampleInterval' instruções é
+ * cronometrada (do despacho até o despacho seguinte); o tempo total de cada
+ * opcode é estimado como (tempo médio das amostras) x (execuções). O
+ * intervalo entre amostras é sorteado, senão um laço cujo tamanho divide
+ * (ou tem fator comum com) o intervalo só teria algumas instruções amostradas.
+ *
+ * O relatório é impresso pelo Decompiler (ao lado de cada instrução) e
+ * pode ser exportado em CSV (writeCsv) para comparar execuções.
+ */
+public final class Profiler {
+
+    private static final int OPCODE_COUNT = OpCode.values().length;
+
+    private final DecodedChunk decoded;
+
+    // Execuções por opcode e por posição do fluxo pré-decodificado
+    private final long[] opcodeCounts = new long[OPCODE_COUNT];
+    private final long[] siteCounts;
+
+    // Modo com tempo: nanossegundos e número de amostras por opcode
+    private final boolean timing;
+    private final int sampleInterval;
+    private final long[] opcodeNanos = new long[OPCODE_COUNT];
+    private final long[] opcodeSamples = new long[OPCODE_COUNT];
+    private int countdown;
+    private int random = 0x2545F491; // Estado do xorshift que sorteia o intervalo
+    private int sampledOp = -1;
+    private long sampleStart;
+
+    // Para o relatório: offset do bytecode -> posição no fluxo pré-decodificado
+    private final int[] indexOfByteOffset;
+
+    /**
+     * @param decoded O chunk que será executado.
+     * @param timing Se também deve estimar o tempo por opcode (por amostragem).
+     * @param sampleInterval A cada quantas instruções uma é cronometrada.
+     */
+    public Profiler(DecodedChunk decoded, boolean timing, int sampleInterval) {
+        this.decoded = decoded;
+        this.siteCounts = new long[decoded.size()];
+        this.timing = timing;
+        this.sampleInterval = Math.max(1, sampleInterval);
+        this.countdown = nextInterval();
+
+        int[] code = decoded.code();
+        this.indexOfByteOffset = new int[decoded.getChunk().size()];
+        Arrays.fill(indexOfByteOffset, -1);
+        for (int index = 0; index < code.length; index += OpCode.fromValue(code[index]).getLength()) {
+            indexOfByteOffset[decoded.getByteOffset(index)] = index;
+        }
+    }
+
+    /**
+     * Registra o despacho da instrução em 'site' (chamado pela VM a cada instrução).
+     * @param site A posição da instrução no fluxo pré-decodificado.
+     * @param opcode O valor do opcode executado (já acelerado, se for o caso).
+     */
+    void enter(int site, int opcode) {
+        opcodeCounts[opcode]++;
+        siteCounts[site]++;
+        if (timing) {
+            if (sampledOp >= 0) {
+                finishSample();
+            }
+            if (--countdown == 0) {
+                countdown = nextInterval();
+                sampledOp = opcode;
+                sampleStart = System.nanoTime();
+            }
+        }
+    }
+
+    /** Encerra a amostra pendente (chamado pela VM no fim da execução). */
+    void finish() {
+        if (sampledOp >= 0) {
+            finishSample();
+        }
+    }
+
+    /** Um intervalo sorteado em [1, 2 * sampleInterval), com média ~sampleInterval. */
+    private int nextInterval() {
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        return 1 + Math.floorMod(random, 2 * sampleInterval - 1);
+    }
+
+    private void finishSample() {
+        opcodeNanos[sampledOp] += System.nanoTime() - sampleStart;
+        opcodeSamples[sampledOp]++;
+        sampledOp = -1;
+    }
+
+    // --- Consultas (usadas pelo relatório) ---
+
+    public DecodedChunk getDecoded() {
+        return decoded;
+    }
+
+    public boolean isTiming() {
+        return timing;
+    }
+
+    /** Total de instruções executadas. */
+    public long getTotalCount() {
+        long total = 0;
+        for (long count : opcodeCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long getOpcodeCount(OpCode op) {
+        return opcodeCounts[op.getValue()];
+    }
+
+    /**
+     * Execuções da instrução que começa no offset 'byteOffset' do bytecode
+     * (0 se o offset não é o início de uma instrução).
+     */
+    public long getCountAt(int byteOffset) {
+        int index = byteOffset < indexOfByteOffset.length ? indexOfByteOffset[byteOffset] : -1;
+        return index < 0 ? 0 : siteCounts[index];
+    }
+
+    /** Tempo total estimado do opcode, em nanossegundos (0 sem o modo com tempo). */
+    public long getEstimatedNanos(OpCode op) {
+        int value = op.getValue();
+        if (opcodeSamples[value] == 0) {
+            return 0;
+        }
+        return (long) ((double) opcodeNanos[value] / opcodeSamples[value] * opcodeCounts[value]);
+    }
+
+    // --- Exportação ---
+
+    /**
+     * Exporta o perfil em CSV, uma linha por opcode executado e uma por
+     * instrução executada:
+     * tipo,offset,opcode,execucoes,ns_estimados
+     * (nas linhas de instrução, 'opcode' é o original do bytecode e
+     * 'ns_estimados' fica vazio; nas de opcode, 'offset' fica vazio).
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("tipo,offset,opcode,execucoes,ns_estimados\n");
+        for (OpCode op : OpCode.values()) {
+            long count = opcodeCounts[op.getValue()];
+            if (count > 0) {
+                out.write(String.format(Locale.ROOT, "opcode,,%s,%d,%s\n", op.name(), count,
+                        timing ? Long.toString(getEstimatedNanos(op)) : ""));
+            }
+        }
+        int[] code = decoded.code();
+        for (int index = 0; index < code.length; index += OpCode.fromValue(code[index]).getLength()) {
+            if (siteCounts[index] > 0) {
+                out.write(String.format(Locale.ROOT, "instrucao,%d,%s,%d,\n", decoded.getByteOffset(index),
+                        OpCode.fromValue(code[index]).name(), siteCounts[index]));
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,73 @@
+package ijgm_project.vm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * O "cartucho" da VM de registradores: o código (int[]) e o layout do frame.
+ *
+ * Layout dos registradores:
+ *   [0, registerCount)                          variáveis e temporários
+ *   [registerCount, registerCount + constants)  constantes (pré-carregadas)
+ */
+public final class RegisterChunk {
+
+    private final int[] code;
+    private final List<Object> constants;
+    private final List<String> variableNames; // Nome de cada registrador de variável (ou null)
+    private final int registerCount;
+
+    RegisterChunk(int[] code, List<Object> constants, List<String> variableNames, int registerCount) {
+        this.code = code;
+        this.constants = Collections.unmodifiableList(constants);
+        this.variableNames = Collections.unmodifiableList(variableNames);
+        this.registerCount = registerCount;
+    }
+
+    /** O código (compartilhado: NÃO modifique). */
+    int[] code() {
+        return code;
+    }
+
+    /**
+     * @return Uma cópia do código.
+     */
+    public int[] getCode() {
+        return Arrays.copyOf(code, code.length);
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+    public List<Object> getConstants() {
+        return constants;
+    }
+
+    /**
+     * @return O número de registradores de variáveis e temporários
+     * (as constantes vêm logo depois).
+     */
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    /**
+     * @return O tamanho total do frame (registradores + constantes).
+     */
+    public int getFrameSize() {
+        return registerCount + constants.size();
+    }
+
+    /**
+     * Descreve um registrador para o descompilador (ex: "r2(i)", "k0", "t5").
+     */
+    public String describeRegister(int register) {
+        if (register >= registerCount) {
+            return "k" + (register - registerCount);
+        }
+        String name = register < variableNames.size() ? variableNames.get(register) : null;
+        return name != null ? "r" + register + "(" + name + ")" : "t" + register;
+    }
+}
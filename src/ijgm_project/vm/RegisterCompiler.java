@@ -0,0 +1,366 @@
+package ijgm_project.vm;
+
+import ijgm_project.parser.ast.*;
+import ijgm_project.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traduz a AST para o bytecode de registradores (ver RegisterOpCode).
+ * É o par do CompilerVisitor para a RegisterVM.
+ *
+ * Alocação de registradores:
+ * - cada variável (global ou de bloco) ganha um registrador fixo, com as
+ *   mesmas regras de escopo e erros da CompilerSymbolTable;
+ * - os resultados intermediários usam temporários, alocados em pilha a
+ *   partir da última variável e liberados ao fim de cada comando;
+ * - cada constante distinta ganha um registrador pré-carregado.
+ *
+ * Cada expressão devolve (visit) o registrador onde está o seu valor:
+ * variáveis e constantes não geram instrução nenhuma. Uma atribuição
+ * "x = a + b" vira uma única instrução (OP_ADD x a b), e a condição de um
+ * laço "while (i < n)" vira um único OP_CMP_JUMP_TRUE no fim do corpo.
+ */
+public class RegisterCompiler implements Visitor<Integer> {
+
+    // O código em construção
+    private int[] code = new int[256];
+    private int size;
+
+    // Constantes (as constantes iguais, do mesmo tipo, compartilham o registrador)
+    private final ConstantPool constants = new ConstantPool();
+
+    // Variáveis: mesmas regras de escopo da CompilerSymbolTable
+    private final Map<String, Integer> globals = new HashMap<>();
+    private final LinkedList<Map<String, Integer>> scopes = new LinkedList<>();
+    private final List<String> variableNames = new ArrayList<>();
+    private int nextVariable;
+
+    // Temporários (acima das variáveis) e o total de registradores usados
+    private int nextTemp;
+    private int registerCount;
+
+    // Registrador onde a próxima expressão binária deve deixar o resultado
+    // (-1 = qualquer um). Só vale para a expressão mais externa de um comando.
+    private int destination = -1;
+
+    /**
+     * Compila o programa.
+     * @return O chunk, ou null se houver erro de compilação (reportado como no CompilerVisitor).
+     */
+    public RegisterChunk compile(List<Statement> ast) {
+        try {
+            for (Statement statement : ast) {
+                statement(statement);
+            }
+            emit(RegisterOpCode.OP_RETURN);
+            relocateConstants();
+            return new RegisterChunk(Arrays.copyOf(code, size), constants.values(), variableNames, registerCount);
+        } catch (Exception e) {
+            System.err.println("Erro de Compilação: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // --- Comandos ---
+
+    /** Compila um comando; os temporários usados por ele são liberados no final. */
+    private void statement(Statement statement) {
+        nextTemp = nextVariable;
+        statement.accept(this);
+        nextTemp = nextVariable;
+    }
+
+    @Override
+    public Integer visit(DeclarationStatement statement) {
+        Object defaultValue = switch (statement.getType()) {
+            case INT -> 0;
+            case FLOAT -> 0.0f;
+            case BOOL -> false;
+            case STRING_TYPE -> "";
+            default -> null;
+        };
+        int register = declare(statement.getVariableName());
+        emit(RegisterOpCode.OP_MOVE, register, constant(defaultValue));
+        return null;
+    }
+
+    @Override
+    public Integer visit(AssignStatement statement) {
+        // Resolve o nome antes da expressão, como o CompilerVisitor (emitFusedAssign)
+        int target = resolve(statement.getVariableName());
+        int value = expressionInto(statement.getExpression(), target);
+        if (value != target) {
+            emit(RegisterOpCode.OP_MOVE, target, value);
+        }
+        return null;
+    }
+
+    @Override
+    public Integer visit(IncrementStatement statement) {
+        emit(RegisterOpCode.OP_INCREMENT, resolve(statement.getVariableName()));
+        return null;
+    }
+
+    @Override
+    public Integer visit(DecrementStatement statement) {
+        emit(RegisterOpCode.OP_DECREMENT, resolve(statement.getVariableName()));
+        return null;
+    }
+
+    @Override
+    public Integer visit(PrintStatement statement) {
+        emit(RegisterOpCode.OP_PRINT, expression(statement.getExpression()));
+        return null;
+    }
+
+    @Override
+    public Integer visit(ScopeStatement statement) {
+        scopes.addFirst(new HashMap<>());
+        int firstLocal = nextVariable;
+        for (Statement stmt : statement.getStatements()) {
+            statement(stmt);
+        }
+        scopes.removeFirst();
+        // Os registradores das variáveis do bloco voltam a ficar livres
+        nextVariable = firstLocal;
+        return null;
+    }
+
+    @Override
+    public Integer visit(IfStatement statement) {
+        int thenJump = conditionJump(statement.getCondition(), false);
+        for (Statement stmt : statement.getThenBody()) {
+            statement(stmt);
+        }
+        if (statement.getElseBody() == null) {
+            patch(thenJump, size);
+            return null;
+        }
+        int elseJump = emit(RegisterOpCode.OP_JUMP, -1);
+        patch(thenJump, size);
+        for (Statement stmt : statement.getElseBody()) {
+            statement(stmt);
+        }
+        patch(elseJump, size);
+        return null;
+    }
+
+    /**
+     * Laço com o teste no fim ("loop inversion"):
+     *     JUMP cond
+     *   body:
+     *     ...
+     *   cond:
+     *     CMP_JUMP_TRUE ... body
+     * Assim cada volta custa um único despacho de controle (o teste).
+     */
+    @Override
+    public Integer visit(WhileStatement statement) {
+        // A condição é compilada depois do corpo, mas seus erros (variável não
+        // declarada) devem aparecer antes, como no CompilerVisitor.
+        checkDeclared(statement.getCondition());
+
+        int entryJump = emit(RegisterOpCode.OP_JUMP, -1);
+        int body = size;
+        for (Statement stmt : statement.getBody()) {
+            statement(stmt);
+        }
+        patch(entryJump, size);
+        nextTemp = nextVariable;
+        int loopJump = conditionJump(statement.getCondition(), true);
+        patch(loopJump, body);
+        return null;
+    }
+
+    /**
+     * Compila a condição e o pulo condicional.
+     * @param jumpIfTrue Se verdadeiro, pula quando a condição é verdadeira (senão, quando é falsa).
+     * @return A posição da instrução, para o patch do destino.
+     */
+    private int conditionJump(Expression condition, boolean jumpIfTrue) {
+        if (condition instanceof BinaryExpression binary) {
+            RegisterOpCode comparison = comparisonOpCode(binary);
+            if (comparison != null) {
+                int left = expression(binary.getLeft());
+                int right = expression(binary.getRight());
+                return emit(jumpIfTrue ? RegisterOpCode.OP_CMP_JUMP_TRUE : RegisterOpCode.OP_CMP_JUMP_FALSE,
+                        comparison.getValue(), left, right, -1);
+            }
+        }
+        int value = expression(condition);
+        return emit(jumpIfTrue ? RegisterOpCode.OP_JUMP_IF_TRUE : RegisterOpCode.OP_JUMP_IF_FALSE, value, -1);
+    }
+
+    private void checkDeclared(Expression expression) {
+        if (expression instanceof VariableExpression variable) {
+            resolve(variable.getName());
+        } else if (expression instanceof BinaryExpression binary) {
+            checkDeclared(binary.getLeft());
+            checkDeclared(binary.getRight());
+        }
+    }
+
+    private static RegisterOpCode comparisonOpCode(BinaryExpression binary) {
+        return switch (binary.getOperator()) {
+            case EQUAL_EQUAL -> RegisterOpCode.OP_EQUAL;
+            case NOT_EQUAL -> RegisterOpCode.OP_NOT_EQUAL;
+            case GREATER_THAN -> RegisterOpCode.OP_GREATER;
+            case GREATER_EQUAL -> RegisterOpCode.OP_GREATER_EQUAL;
+            case LESS_THAN -> RegisterOpCode.OP_LESS;
+            case LESS_EQUAL -> RegisterOpCode.OP_LESS_EQUAL;
+            default -> null;
+        };
+    }
+
+    // --- Expressões ---
+
+    /** Compila a expressão e devolve o registrador com o valor (pode ser uma variável ou constante). */
+    private int expression(Expression expression) {
+        return expressionInto(expression, -1);
+    }
+
+    /** Como expression(), mas uma expressão binária escreve direto em 'target' (se >= 0). */
+    private int expressionInto(Expression expression, int target) {
+        destination = target;
+        try {
+            return expression.accept(this);
+        } finally {
+            destination = -1;
+        }
+    }
+
+    @Override
+    public Integer visit(BinaryExpression expression) {
+        int target = destination;
+        destination = -1; // As subexpressões usam temporários
+
+        int mark = nextTemp;
+        int left = expression.getLeft().accept(this);
+        int right = expression.getRight().accept(this);
+        // Os temporários dos operandos podem ser reaproveitados para o resultado:
+        // a instrução lê os operandos antes de escrever no destino.
+        nextTemp = mark;
+        if (target < 0) {
+            target = temp();
+        }
+
+        RegisterOpCode op = switch (expression.getOperator()) {
+            case PLUS -> RegisterOpCode.OP_ADD;
+            case MINUS -> RegisterOpCode.OP_SUBTRACT;
+            case MULTIPLY -> RegisterOpCode.OP_MULTIPLY;
+            case DIVIDE -> RegisterOpCode.OP_DIVIDE;
+            case EQUAL_EQUAL -> RegisterOpCode.OP_EQUAL;
+            case NOT_EQUAL -> RegisterOpCode.OP_NOT_EQUAL;
+            case GREATER_THAN -> RegisterOpCode.OP_GREATER;
+            case GREATER_EQUAL -> RegisterOpCode.OP_GREATER_EQUAL;
+            case LESS_THAN -> RegisterOpCode.OP_LESS;
+            case LESS_EQUAL -> RegisterOpCode.OP_LESS_EQUAL;
+            case AND -> RegisterOpCode.OP_AND;
+            case OR -> RegisterOpCode.OP_OR;
+            default -> throw new RuntimeException("Operador binário desconhecido: " + expression.getOperator());
+        };
+        emit(op, target, left, right);
+        return target;
+    }
+
+    @Override
+    public Integer visit(VariableExpression expression) {
+        return resolve(expression.getName());
+    }
+
+    @Override
+    public Integer visit(LiteralExpression expression) {
+        return constant(expression.getValue());
+    }
+
+    // --- Registradores ---
+
+    private int declare(String name) {
+        Map<String, Integer> scope = scopes.isEmpty() ? globals : scopes.peekFirst();
+        if (scope.containsKey(name)) {
+            throw new RuntimeException(scopes.isEmpty()
+                    ? "Erro de Compilação: Variável global '" + name + "' já declarada."
+                    : "Erro de Compilação: Variável '" + name + "' já declarada neste escopo.");
+        }
+        int register = nextVariable++;
+        scope.put(name, register);
+        while (variableNames.size() <= register) {
+            variableNames.add(null);
+        }
+        variableNames.set(register, constants.internName(name));
+        registerCount = Math.max(registerCount, nextVariable);
+        return register;
+    }
+
+    private int resolve(String name) {
+        for (Map<String, Integer> scope : scopes) {
+            Integer register = scope.get(name);
+            if (register != null) {
+                return register;
+            }
+        }
+        Integer register = globals.get(name);
+        if (register == null) {
+            throw new RuntimeException("Erro de Compilação: Variável '" + name + "' não foi declarada.");
+        }
+        return register;
+    }
+
+    private int temp() {
+        int register = nextTemp++;
+        registerCount = Math.max(registerCount, nextTemp);
+        return register;
+    }
+
+    /**
+     * O registrador de uma constante. Como o número de registradores só é
+     * conhecido no fim, as constantes são codificadas como -1 - índice e
+     * "relocadas" por relocateConstants().
+     */
+    private int constant(Object value) {
+        return -1 - constants.add(value);
+    }
+
+    private void relocateConstants() {
+        for (int ip = 0; ip < size; ) {
+            RegisterOpCode op = RegisterOpCode.fromValue(code[ip]);
+            String operands = op.getOperands();
+            for (int i = 0; i < operands.length(); i++) {
+                if (operands.charAt(i) == 'R' && code[ip + 1 + i] < 0) {
+                    code[ip + 1 + i] = registerCount + (-1 - code[ip + 1 + i]);
+                }
+            }
+            ip += op.getLength();
+        }
+    }
+
+    // --- Emissão ---
+
+    /** Emite a instrução e devolve a sua posição. */
+    private int emit(RegisterOpCode op, int... operands) {
+        if (operands.length != op.getOperands().length()) {
+            throw new IllegalStateException("Número de operandos inválido para " + op);
+        }
+        if (size + op.getLength() > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + op.getLength()));
+        }
+        int position = size;
+        code[size++] = op.getValue();
+        for (int operand : operands) {
+            code[size++] = operand;
+        }
+        return position;
+    }
+
+    /** Define o destino do pulo emitido em 'position' (o último operando). */
+    private void patch(int position, int target) {
+        RegisterOpCode op = RegisterOpCode.fromValue(code[position]);
+        code[position + op.getLength() - 1] = target;
+    }
+}
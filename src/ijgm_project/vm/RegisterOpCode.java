@@ -0,0 +1,83 @@
+package ijgm_project.vm;
+
+/**
+ * Conjunto de instruções da VM de registradores (ver RegisterVM).
+ *
+ * Em vez de empilhar e desempilhar valores, cada instrução lê e escreve
+ * diretamente nos registradores do frame ("três endereços"):
+ *   OP_ADD a b c   ->   r[a] = r[b] + r[c]
+ * As variáveis do programa, os temporários e as constantes são todos
+ * registradores (as constantes ficam em registradores pré-carregados no fim
+ * do frame), então os operandos nunca precisam ser decodificados.
+ *
+ * O código é um int[]: o valor do opcode seguido dos operandos. O formato
+ * de cada instrução é descrito por 'operands', uma letra por operando:
+ *   R = registrador, T = destino de pulo (índice absoluto em 'code'),
+ *   C = um opcode de comparação (OP_EQUAL ... OP_LESS_EQUAL).
+ */
+public enum RegisterOpCode {
+
+    // --- 1. Movimentação ---
+    OP_MOVE(0, "RR"),             // r[a] = r[b]
+
+    // --- 2. Aritmética: r[a] = r[b] <op> r[c] ---
+    OP_ADD(1, "RRR"),
+    OP_SUBTRACT(2, "RRR"),
+    OP_MULTIPLY(3, "RRR"),
+    OP_DIVIDE(4, "RRR"),
+
+    // --- 3. Comparação e lógica: r[a] = r[b] <op> r[c] (bool) ---
+    OP_EQUAL(5, "RRR"),
+    OP_NOT_EQUAL(6, "RRR"),
+    OP_GREATER(7, "RRR"),
+    OP_GREATER_EQUAL(8, "RRR"),
+    OP_LESS(9, "RRR"),
+    OP_LESS_EQUAL(10, "RRR"),
+    OP_AND(11, "RRR"),
+    OP_OR(12, "RRR"),
+
+    // --- 4. Controle de fluxo ---
+    OP_JUMP(13, "T"),
+    OP_JUMP_IF_FALSE(14, "RT"),   // se r[a] == false, pula
+    OP_JUMP_IF_TRUE(15, "RT"),    // se r[a] == true, pula (fim de laço 'while')
+    OP_CMP_JUMP_FALSE(16, "CRRT"), // se !(r[b] <cmp> r[c]), pula
+    OP_CMP_JUMP_TRUE(17, "CRRT"),  // se  (r[b] <cmp> r[c]), pula
+
+    // --- 5. Comandos ---
+    OP_INCREMENT(18, "R"),
+    OP_DECREMENT(19, "R"),
+    OP_PRINT(20, "R"),
+    OP_RETURN(21, "");
+
+    private static final RegisterOpCode[] VALUES = values();
+
+    private final int value;
+    private final String operands;
+
+    RegisterOpCode(int value, String operands) {
+        this.value = value;
+        this.operands = operands;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return O formato dos operandos (uma letra por operando: R, T ou C).
+     */
+    public String getOperands() {
+        return operands;
+    }
+
+    /**
+     * @return O tamanho da instrução no código (opcode + operandos).
+     */
+    public int getLength() {
+        return 1 + operands.length();
+    }
+
+    public static RegisterOpCode fromValue(int value) {
+        return VALUES[value];
+    }
+}
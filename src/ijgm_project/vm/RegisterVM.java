@@ -0,0 +1,311 @@
+package ijgm_project.vm;
+
+/**
+ * Máquina virtual de registradores: executa o bytecode do RegisterCompiler.
+ *
+ * Alternativa à VM de pilha. Os valores vivem em registradores do frame
+ * (a mesma representação tag/primitivo/referência da VM, ver ValueTag), e
+ * cada instrução lê os operandos e grava o resultado diretamente neles:
+ * não há empilha/desempilha, e um laço típico despacha cerca de metade das
+ * instruções da VM de pilha.
+ *
+ * A semântica (coerção int -> float, concatenação, igualdade) e as
+ * mensagens de erro são as mesmas da VM. As variáveis sempre são definidas
+ * pela própria declaração antes de qualquer uso (o compilador só aceita
+ * nomes já declarados), então não há a checagem de "global não definida".
+ */
+public class RegisterVM {
+
+    private final int[] code;
+    private final OutputSink output;
+
+    // Os registradores: variáveis, temporários e (no fim) as constantes
+    private final byte[] tags;
+    private final long[] prims;
+    private final Object[] refs;
+
+    // Quantas instruções foram despachadas (para comparar com a VM de pilha)
+    private long dispatchCount;
+
+    /**
+     * @param chunk O código compilado pelo RegisterCompiler.
+     */
+    public RegisterVM(RegisterChunk chunk) {
+        this(chunk, OutputSink.stdout());
+    }
+
+    /**
+     * @param chunk O código compilado pelo RegisterCompiler.
+     * @param output Para onde vai a saída do 'print' (esvaziado ao fim de run()).
+     */
+    public RegisterVM(RegisterChunk chunk, OutputSink output) {
+        this.code = chunk.code();
+        this.output = output;
+
+        int frameSize = chunk.getFrameSize();
+        this.tags = new byte[frameSize];
+        this.prims = new long[frameSize];
+        this.refs = new Object[frameSize];
+
+        // Pré-carrega as constantes nos seus registradores
+        int base = chunk.getRegisterCount();
+        for (int i = 0; i < chunk.getConstants().size(); i++) {
+            Object value = chunk.getConstants().get(i);
+            tags[base + i] = ValueTag.of(value);
+            prims[base + i] = ValueTag.bitsOf(value);
+            refs[base + i] = ValueTag.refOf(value);
+        }
+    }
+
+    /**
+     * Executa o programa.
+     * @return O resultado da interpretação (OK ou RUNTIME_ERROR).
+     */
+    public VM.InterpretResult run() {
+        try {
+            return interpret();
+        } finally {
+            output.flush();
+        }
+    }
+
+    private VM.InterpretResult interpret() {
+        final int[] code = this.code;
+        final byte[] tags = this.tags;
+        final long[] prims = this.prims;
+        int ip = 0;
+        try {
+            while (true) {
+                dispatchCount++;
+                RegisterOpCode op = RegisterOpCode.fromValue(code[ip]);
+                switch (op) {
+                    case OP_MOVE -> {
+                        int a = code[ip + 1];
+                        int b = code[ip + 2];
+                        tags[a] = tags[b];
+                        prims[a] = prims[b];
+                        refs[a] = refs[b];
+                        ip += 3;
+                    }
+
+                    // --- Aritmética (caminho rápido: int/int) ---
+                    case OP_ADD -> {
+                        int a = code[ip + 1];
+                        int b = code[ip + 2];
+                        int c = code[ip + 3];
+                        if (tags[b] == ValueTag.INT && tags[c] == ValueTag.INT) {
+                            setInt(a, (int) prims[b] + (int) prims[c]);
+                        } else {
+                            add(a, b, c);
+                        }
+                        ip += 4;
+                    }
+                    case OP_SUBTRACT, OP_MULTIPLY, OP_DIVIDE -> {
+                        int a = code[ip + 1];
+                        int b = code[ip + 2];
+                        int c = code[ip + 3];
+                        if (tags[b] == ValueTag.INT && tags[c] == ValueTag.INT) {
+                            setInt(a, intArithmetic(op, (int) prims[b], (int) prims[c]));
+                        } else if (isNumber(tags[b]) && isNumber(tags[c])) {
+                            setFloat(a, floatArithmetic(op, asFloat(b), asFloat(c)));
+                        } else {
+                            throw new RuntimeException("Operands must be two numbers for this operation.");
+                        }
+                        ip += 4;
+                    }
+
+                    // --- Comparação e lógica ---
+                    case OP_EQUAL, OP_NOT_EQUAL, OP_GREATER, OP_GREATER_EQUAL, OP_LESS, OP_LESS_EQUAL -> {
+                        setBool(code[ip + 1], compare(op, code[ip + 2], code[ip + 3]));
+                        ip += 4;
+                    }
+                    case OP_AND, OP_OR -> {
+                        int b = code[ip + 2];
+                        int c = code[ip + 3];
+                        if (tags[b] != ValueTag.BOOL || tags[c] != ValueTag.BOOL) {
+                            return runtimeError("Operandos para '" + (op == RegisterOpCode.OP_AND ? "&&" : "||")
+                                    + "' devem ser booleanos.");
+                        }
+                        boolean result = op == RegisterOpCode.OP_AND
+                                ? prims[b] != 0 && prims[c] != 0
+                                : prims[b] != 0 || prims[c] != 0;
+                        setBool(code[ip + 1], result);
+                        ip += 4;
+                    }
+
+                    // --- Controle de fluxo ---
+                    case OP_JUMP -> ip = code[ip + 1];
+                    case OP_JUMP_IF_FALSE, OP_JUMP_IF_TRUE -> {
+                        int a = code[ip + 1];
+                        if (tags[a] != ValueTag.BOOL) {
+                            return runtimeError("Condição do 'if' ou 'while' deve ser um booleano.");
+                        }
+                        boolean jumpWhen = op == RegisterOpCode.OP_JUMP_IF_TRUE;
+                        ip = (prims[a] != 0) == jumpWhen ? code[ip + 2] : ip + 3;
+                    }
+                    case OP_CMP_JUMP_FALSE, OP_CMP_JUMP_TRUE -> {
+                        RegisterOpCode comparison = RegisterOpCode.fromValue(code[ip + 1]);
+                        int b = code[ip + 2];
+                        int c = code[ip + 3];
+                        boolean result;
+                        if (tags[b] == ValueTag.INT && tags[c] == ValueTag.INT) {
+                            result = compareInts(comparison, (int) prims[b], (int) prims[c]);
+                        } else {
+                            result = compare(comparison, b, c);
+                        }
+                        boolean jumpWhen = op == RegisterOpCode.OP_CMP_JUMP_TRUE;
+                        ip = result == jumpWhen ? code[ip + 4] : ip + 5;
+                    }
+
+                    // --- Comandos ---
+                    case OP_INCREMENT, OP_DECREMENT -> {
+                        int a = code[ip + 1];
+                        int delta = op == RegisterOpCode.OP_INCREMENT ? 1 : -1;
+                        if (tags[a] == ValueTag.INT) {
+                            prims[a] = (int) prims[a] + delta;
+                        } else if (tags[a] == ValueTag.FLOAT) {
+                            prims[a] = Float.floatToRawIntBits(Float.intBitsToFloat((int) prims[a]) + delta);
+                        } else {
+                            return runtimeError("Operando '" + (delta > 0 ? "++" : "--")
+                                    + "' deve ser um número (Integer ou Float).");
+                        }
+                        ip += 2;
+                    }
+                    case OP_PRINT -> {
+                        int a = code[ip + 1];
+                        ValueTag.print(output, tags[a], prims[a], refs[a]);
+                        ip += 2;
+                    }
+                    case OP_RETURN -> {
+                        return VM.InterpretResult.OK;
+                    }
+                    default -> {
+                        return runtimeError("Opcode desconhecido: " + op);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            return runtimeError("Erro de VM: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Quantas instruções foram despachadas na última execução.
+     */
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    // --- HELPER METHODS ---
+
+    private void setInt(int register, int value) {
+        tags[register] = ValueTag.INT;
+        prims[register] = value;
+        refs[register] = null;
+    }
+
+    private void setFloat(int register, float value) {
+        tags[register] = ValueTag.FLOAT;
+        prims[register] = Float.floatToRawIntBits(value);
+        refs[register] = null;
+    }
+
+    private void setBool(int register, boolean value) {
+        tags[register] = ValueTag.BOOL;
+        prims[register] = value ? 1L : 0L;
+        refs[register] = null;
+    }
+
+    private static boolean isNumber(byte tag) {
+        return tag == ValueTag.INT || tag == ValueTag.FLOAT;
+    }
+
+    /** Lê um registrador numérico como float (coerção int -> float). */
+    private float asFloat(int register) {
+        return tags[register] == ValueTag.INT
+                ? (float) (int) prims[register]
+                : Float.intBitsToFloat((int) prims[register]);
+    }
+
+    /** '+' fora do caminho rápido: concatenação ou aritmética com float. */
+    private void add(int a, int b, int c) {
+        byte tagB = tags[b];
+        byte tagC = tags[c];
+        if (tagB == ValueTag.STRING || tagC == ValueTag.STRING) {
+            CharSequence result = Rope.concat(ValueTag.text(tagB, prims[b], refs[b]), ValueTag.text(tagC, prims[c], refs[c]));
+            tags[a] = ValueTag.STRING;
+            prims[a] = 0L;
+            refs[a] = result;
+        } else if (isNumber(tagB) && isNumber(tagC)) {
+            setFloat(a, asFloat(b) + asFloat(c));
+        } else {
+            throw new RuntimeException("Operands must be two numbers or two strings for '+'.");
+        }
+    }
+
+    private static int intArithmetic(RegisterOpCode op, int a, int b) {
+        return switch (op) {
+            case OP_SUBTRACT -> a - b;
+            case OP_MULTIPLY -> a * b;
+            default -> { // OP_DIVIDE
+                if (b == 0) {
+                    throw new RuntimeException("Divisão por zero.");
+                }
+                yield a / b;
+            }
+        };
+    }
+
+    private static float floatArithmetic(RegisterOpCode op, float a, float b) {
+        return switch (op) {
+            case OP_SUBTRACT -> a - b;
+            case OP_MULTIPLY -> a * b;
+            default -> { // OP_DIVIDE
+                if (b == 0.0f) {
+                    throw new RuntimeException("Divisão por zero.");
+                }
+                yield a / b;
+            }
+        };
+    }
+
+    private static boolean compareInts(RegisterOpCode op, int a, int b) {
+        return switch (op) {
+            case OP_EQUAL -> a == b;
+            case OP_NOT_EQUAL -> a != b;
+            case OP_GREATER -> a > b;
+            case OP_GREATER_EQUAL -> a >= b;
+            case OP_LESS -> a < b;
+            default -> a <= b; // OP_LESS_EQUAL
+        };
+    }
+
+    /** Avalia r[b] <op> r[c] para qualquer comparação (mesma semântica da VM). */
+    private boolean compare(RegisterOpCode op, int b, int c) {
+        if (op == RegisterOpCode.OP_EQUAL || op == RegisterOpCode.OP_NOT_EQUAL) {
+            boolean equal = ValueTag.equals(tags[b], prims[b], refs[b], tags[c], prims[c], refs[c]);
+            return (op == RegisterOpCode.OP_EQUAL) == equal;
+        }
+        if (tags[b] == ValueTag.INT && tags[c] == ValueTag.INT) {
+            return compareInts(op, (int) prims[b], (int) prims[c]);
+        }
+        if (isNumber(tags[b]) && isNumber(tags[c])) {
+            float x = asFloat(b);
+            float y = asFloat(c);
+            return switch (op) {
+                case OP_GREATER -> x > y;
+                case OP_GREATER_EQUAL -> x >= y;
+                case OP_LESS -> x < y;
+                default -> x <= y; // OP_LESS_EQUAL
+            };
+        }
+        throw new RuntimeException("Operands must be two numbers for this operation.");
+    }
+
+    /** Helper para reportar erros de runtime. */
+    private VM.InterpretResult runtimeError(String message) {
+        output.flush(); // A saída já impressa aparece antes do erro
+        System.err.println(message);
+        return VM.InterpretResult.RUNTIME_ERROR;
+    }
+}
@@ -0,0 +1,92 @@
+package ijgm_project.vm;
+
+/**
+ * Texto resultante de concatenação, "achatado" (virando String) só quando
+ * é observado: impresso, comparado ou convertido com toString().
+ *
+ * É um prefixo de um StringBuilder compartilhado: concatenar algo no fim de
+ * uma Rope que ainda é o texto inteiro do builder só acrescenta ao builder
+ * (a Rope antiga continua válida, porque enxerga apenas os seus primeiros
+ * 'length' caracteres). Assim 's = s + x' dentro de um laço custa O(|x|)
+ * amortizado em vez de copiar 's' inteira a cada volta. Nos outros casos
+ * (ex: 'x + s', ou duas concatenações a partir da mesma Rope) copia, como
+ * a concatenação de Strings.
+ *
+ * Não é thread-safe: os valores de uma VM não são compartilhados.
+ */
+public final class Rope implements CharSequence {
+
+    // Abaixo disso, a concatenação de Strings é mais barata que um builder
+    private static final int MIN_LENGTH = 64;
+
+    private final StringBuilder buffer;
+    private final int length;
+    private String flat; // Cache do toString()
+
+    private Rope(StringBuilder buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Concatena dois textos (String ou Rope).
+     * @return Uma String (se o resultado for curto) ou uma Rope.
+     */
+    public static CharSequence concat(CharSequence a, CharSequence b) {
+        int total = a.length() + b.length();
+        if (total < 0) {
+            throw new RuntimeException("Texto grande demais.");
+        }
+        if (a instanceof Rope rope && rope.buffer.length() == rope.length) {
+            rope.buffer.append(b);
+            return new Rope(rope.buffer, total);
+        }
+        if (total < MIN_LENGTH) {
+            return a.toString().concat(b.toString());
+        }
+        StringBuilder buffer = new StringBuilder(Math.max(MIN_LENGTH, total + (total >> 1)));
+        buffer.append(a).append(b);
+        return new Rope(buffer, total);
+    }
+
+    /** Igualdade de conteúdo entre dois textos (String ou Rope), como String.equals. */
+    public static boolean contentEquals(CharSequence a, CharSequence b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.length() != b.length()) {
+            return false;
+        }
+        if (a instanceof Rope x && b instanceof Rope y && x.buffer == y.buffer) {
+            return true; // Prefixos do mesmo tamanho do mesmo builder
+        }
+        return a.toString().equals(b.toString());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return buffer.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /** Achata a Rope (uma vez) e devolve o texto. */
+    @Override
+    public String toString() {
+        if (flat == null) {
+            flat = buffer.substring(0, length);
+        }
+        return flat;
+    }
+}
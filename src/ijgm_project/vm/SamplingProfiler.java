@@ -0,0 +1,198 @@
+package ijgm_project.vm;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Perfil por amostragem da execução de um chunk pela VM (modo opcional,
+ * '-Dijgm.profile=sample', ver a VM).
+ *
+ * Ao contrário do Profiler (que conta cada despacho e deixa o loop da VM
+ * mais lento), aqui a VM não faz nada a mais: uma thread à parte acorda a
+ * cada 'period' e lê o 'ip' que a VM já mantém (ver VM.sampleIp()). A
+ * instrução em execução é contada, e depois a tabela de linhas do chunk
+ * (ver LineTable) a transforma em linha do fonte e pilha de laços.
+ *
+ * Como o tier 2 continua ligado, uma amostra tirada enquanto um laço roda
+ * compilado cai no sítio do OP_JIT_ENTER (o cabeçalho do laço) e aparece
+ * como "[tier 2]" dentro daquele laço.
+ *
+ * O resultado sai no formato "collapsed" dos flame graphs (uma pilha por
+ * linha, quadros separados por ';' e o número de amostras no fim), ex:
+ *   programa;while (linha 8);while (linha 10);linha 11 523
+ */
+public final class SamplingProfiler {
+
+    private final VM vm;
+    private final DecodedChunk decoded;
+    private final long periodNanos;
+
+    // Para cada posição do fluxo pré-decodificado, o início da sua instrução
+    private final int[] instructionStart;
+
+    // Amostras por instrução (posição do início), interpretada ou em tier 2.
+    // Só a thread de amostragem escreve; o relatório lê depois do stop().
+    private final long[] interpretedSamples;
+    private final long[] compiledSamples;
+    private long totalSamples;
+
+    private volatile boolean running;
+    private Thread sampler;
+
+    /**
+     * @param vm A VM amostrada.
+     * @param decoded O chunk que ela executa.
+     * @param periodMicros O intervalo entre amostras, em microssegundos.
+     */
+    SamplingProfiler(VM vm, DecodedChunk decoded, long periodMicros) {
+        this.vm = vm;
+        this.decoded = decoded;
+        this.periodNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, periodMicros));
+
+        int[] code = decoded.code();
+        this.instructionStart = new int[code.length];
+        for (int index = 0; index < code.length; ) {
+            int length = OpCode.fromValue(code[index]).getLength();
+            for (int i = index; i < index + length; i++) {
+                instructionStart[i] = index;
+            }
+            index += length;
+        }
+        this.interpretedSamples = new long[code.length];
+        this.compiledSamples = new long[code.length];
+    }
+
+    /** Inicia a thread de amostragem (chamado pela VM no começo de run()). */
+    void start() {
+        running = true;
+        sampler = new Thread(this::sampleLoop, "ijgm-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /** Para a thread de amostragem e espera por ela (chamado no fim de run()). */
+    void stop() {
+        running = false;
+        LockSupport.unpark(sampler);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                sampler.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sampleLoop() {
+        while (running) {
+            LockSupport.parkNanos(periodNanos);
+            if (!running) {
+                return;
+            }
+            // O ip já passou do opcode (e talvez dos operandos) da instrução em
+            // execução; ip - 1 ainda está dentro dela.
+            int position = vm.sampleIp() - 1;
+            if (position < 0 || position >= instructionStart.length) {
+                continue;
+            }
+            int site = instructionStart[position];
+            if (vm.opcodeAt(site) == OpCode.OP_JIT_ENTER.getValue()) {
+                compiledSamples[site]++;
+            } else {
+                interpretedSamples[site]++;
+            }
+            totalSamples++;
+        }
+    }
+
+    // --- Consultas (usadas pelo relatório) ---
+
+    public DecodedChunk getDecoded() {
+        return decoded;
+    }
+
+    /** O intervalo entre amostras, em microssegundos. */
+    public long getPeriodMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(periodNanos);
+    }
+
+    /** Total de amostras coletadas. */
+    public long getTotalSamples() {
+        return totalSamples;
+    }
+
+    /** Amostras tiradas enquanto um laço rodava compilado (tier 2). */
+    public long getCompiledSamples() {
+        long total = 0;
+        for (long count : compiledSamples) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Amostras por linha do fonte.
+     * @return Linha -> número de amostras (só as linhas amostradas, em ordem).
+     */
+    public Map<Integer, Long> getSamplesByLine() {
+        LineTable lines = decoded.getChunk().getLineTable();
+        Map<Integer, Long> result = new TreeMap<>();
+        for (int site = 0; site < interpretedSamples.length; site++) {
+            long count = interpretedSamples[site] + compiledSamples[site];
+            if (count > 0) {
+                result.merge(lines.getLine(decoded.getByteOffset(site)), count, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Amostras por pilha, no formato "collapsed" (ver a descrição da classe).
+     * @return Pilha -> número de amostras, em ordem alfabética das pilhas.
+     */
+    public Map<String, Long> getCollapsedStacks() {
+        Map<String, Long> stacks = new TreeMap<>();
+        for (int site = 0; site < interpretedSamples.length; site++) {
+            if (interpretedSamples[site] > 0) {
+                stacks.merge(stackOf(site) + ";linha " + lineOf(site), interpretedSamples[site], Long::sum);
+            }
+            if (compiledSamples[site] > 0) {
+                stacks.merge(stackOf(site) + ";[tier 2]", compiledSamples[site], Long::sum);
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * Exporta as pilhas no formato "collapsed", pronto para o flamegraph.pl
+     * (ou speedscope, etc.): "programa;while (linha 3);linha 5 42".
+     */
+    public void writeCollapsed(Writer out) throws IOException {
+        for (Map.Entry<String, Long> entry : getCollapsedStacks().entrySet()) {
+            out.write(entry.getKey() + " " + entry.getValue() + "\n");
+        }
+        out.flush();
+    }
+
+    private int lineOf(int site) {
+        return decoded.getChunk().getLineTable().getLine(decoded.getByteOffset(site));
+    }
+
+    /** "programa" seguido dos laços que contêm a instrução, do mais externo ao mais interno. */
+    private String stackOf(int site) {
+        StringBuilder stack = new StringBuilder("programa");
+        for (LineTable.Loop loop : decoded.getChunk().getLineTable().loopsAt(decoded.getByteOffset(site))) {
+            stack.append(";while (linha ").append(loop.line()).append(')');
+        }
+        return stack.toString();
+    }
+}
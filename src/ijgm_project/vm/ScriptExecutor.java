@@ -0,0 +1,387 @@
+package ijgm_project.vm;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Executa muitos programas IJGM ao mesmo tempo, cada um com a sua própria VM.
+ *
+ * Cada programa (fonte ou chunk já compilado) vira uma tarefa que roda em
+ * uma thread virtual (JDK 21+; em JDKs anteriores, em um pool de threads de
+ * plataforma do mesmo tamanho do limite). O estado de uma execução é só o
+ * da VM criada para ela (pilha, globais, código acelerado); o chunk e a sua
+ * forma pré-decodificada são imutáveis e compartilhados, então o mesmo
+ * BytecodeChunk pode ser submetido muitas vezes em paralelo.
+ *
+ * No máximo 'maxConcurrency' programas rodam ao mesmo tempo: os demais
+ * esperam na fila (com threads virtuais, cada um espera parado na sua
+ * thread, que não ocupa uma thread do sistema). A saída de cada programa é
+ * capturada (MemoryOutputSink) e os erros não vão para o System.err: tudo
+ * volta no ScriptResult do future (inclusive os erros de compilação, ver
+ * BatchCompiler.compile).
+ *
+ * (Atualizado) Divisão de tempo: cada programa roda em fatias de
+ * "ijgm.executor.slice" unidades de combustível (pulos para trás, ver
+ * VM.setFuel; padrão 100000). Ao fim de uma fatia o programa devolve a vez
+ * e volta para o fim da fila, então um laço infinito não segura uma vaga
+ * para sempre. Com um limite de combustível por programa, quem passar dele
+ * termina com RUNTIME_ERROR.
+ *
+ * (Atualizado) Com um BytecodeCache, submit(String) procura o chunk no
+ * cache antes de compilar e guarda lá o que compilou.
+ */
+public final class ScriptExecutor implements AutoCloseable {
+
+    /**
+     * O resultado de um programa.
+     * @param status OK, COMPILE_ERROR ou RUNTIME_ERROR.
+     * @param output As linhas impressas (com o prefixo "Output: ").
+     * @param error A mensagem de erro, ou null se o status é OK.
+     * @param nanos Quanto tempo a execução levou (compilação incluída, fila não).
+     * @param fuel O combustível gasto (pulos para trás).
+     */
+    public record ScriptResult(VM.InterpretResult status, List<String> output, String error, long nanos, long fuel) {
+
+        public boolean isOk() {
+            return status == VM.InterpretResult.OK;
+        }
+    }
+
+    /**
+     * Um retrato das métricas do executor.
+     * @param submitted Programas submetidos desde a criação.
+     * @param completed Programas terminados (com ou sem erro).
+     * @param failed Programas terminados com erro (de compilação, de runtime ou exceção).
+     * @param running Programas rodando agora.
+     * @param queued Programas esperando a vez (a profundidade da fila).
+     * @param yields Quantas vezes um programa devolveu a vez ao fim de uma fatia.
+     * @param throughput Programas terminados por segundo, desde a criação.
+     */
+    public record Metrics(long submitted, long completed, long failed, int running, int queued, long yields,
+                          double throughput) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d submetidos, %d terminados (%d com erro), %d rodando, %d na fila, %d trocas, %.1f programas/s",
+                    submitted, completed, failed, running, queued, yields, throughput);
+        }
+    }
+
+    // Combustível de cada fatia de execução (0 = sem fatias: cada programa roda até o fim)
+    private static final long SLICE_FUEL = Long.getLong("ijgm.executor.slice", 100_000);
+
+    /** Um programa em andamento: a VM é criada na primeira fatia e continua nas seguintes. */
+    private static final class Task {
+        final Supplier<BytecodeChunk> compiler;
+        final CompletableFuture<ScriptResult> future = new CompletableFuture<>();
+        final MemoryOutputSink output = new MemoryOutputSink();
+        VM vm;
+        long nanos;
+        long sliceStart;
+        long fuelUsed;
+
+        Task(Supplier<BytecodeChunk> compiler) {
+            this.compiler = compiler;
+        }
+
+        /** Soma o tempo da fatia atual. */
+        void endSlice() {
+            nanos += System.nanoTime() - sliceStart;
+        }
+
+        ScriptResult result(VM.InterpretResult status, String error) {
+            endSlice();
+            return new ScriptResult(status, output.getLines(), error, nanos, fuelUsed);
+        }
+    }
+
+    private final int maxConcurrency;
+    private final long fuelLimit;
+    private final BytecodeCache cache;
+    private final ExecutorService threads;
+    private final boolean virtualThreads;
+    private final Semaphore permits;
+
+    private final long createdAt = System.nanoTime();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong yields = new AtomicLong();
+    // Programas ainda não terminados (close() espera chegar a zero)
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Um executor com no máximo um programa por processador ao mesmo tempo.
+     */
+    public ScriptExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxConcurrency Quantos programas podem rodar ao mesmo tempo.
+     */
+    public ScriptExecutor(int maxConcurrency) {
+        this(maxConcurrency, 0);
+    }
+
+    /**
+     * @param maxConcurrency Quantos programas podem rodar ao mesmo tempo.
+     * @param fuelLimit O combustível máximo de cada programa (0 = sem limite).
+     */
+    public ScriptExecutor(int maxConcurrency, long fuelLimit) {
+        this(maxConcurrency, fuelLimit, null);
+    }
+
+    /**
+     * @param maxConcurrency Quantos programas podem rodar ao mesmo tempo.
+     * @param fuelLimit O combustível máximo de cada programa (0 = sem limite).
+     * @param cache O cache dos chunks compilados por submit(String), ou null.
+     */
+    public ScriptExecutor(int maxConcurrency, long fuelLimit, BytecodeCache cache) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency deve ser pelo menos 1: " + maxConcurrency);
+        }
+        if (fuelLimit < 0) {
+            throw new IllegalArgumentException("fuelLimit negativo: " + fuelLimit);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.fuelLimit = fuelLimit;
+        this.cache = cache;
+        // Justo (FIFO): quem devolveu a vez espera atrás de quem já estava na fila
+        this.permits = new Semaphore(maxConcurrency, true);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.threads = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrency, platformThreads());
+    }
+
+    /**
+     * Compila e executa um programa.
+     * @param source O código-fonte IJGM.
+     * @return O resultado, quando o programa terminar (COMPILE_ERROR se não compilar).
+     */
+    public CompletableFuture<ScriptResult> submit(String source) {
+        if (cache != null) {
+            return submit(() -> cache.getOrCompile(source, ScriptExecutor::compile));
+        }
+        return submit(() -> compile(source));
+    }
+
+    /** Fases 1 a 3, como no Main (sem a saída de depuração nem os erros no System.err). */
+    private static BytecodeChunk compile(String source) {
+        List<String> diagnostics = new ArrayList<>();
+        BytecodeChunk chunk = BatchCompiler.compile(source, diagnostics);
+        if (chunk == null) {
+            throw new IllegalArgumentException(String.join("\n", diagnostics));
+        }
+        return chunk;
+    }
+
+    /**
+     * Executa um programa já compilado (o mesmo chunk pode ser submetido várias vezes).
+     * @param chunk O chunk de bytecode.
+     * @return O resultado, quando o programa terminar.
+     */
+    public CompletableFuture<ScriptResult> submit(BytecodeChunk chunk) {
+        return submit(() -> chunk);
+    }
+
+    private CompletableFuture<ScriptResult> submit(Supplier<BytecodeChunk> compiler) {
+        if (closed) {
+            throw new IllegalStateException("ScriptExecutor fechado.");
+        }
+        Task task = new Task(compiler);
+        submitted.incrementAndGet();
+        pending.incrementAndGet();
+        enqueue(task);
+        return task.future;
+    }
+
+    /** Põe o programa na fila para a próxima fatia. */
+    private void enqueue(Task task) {
+        queued.incrementAndGet();
+        threads.execute(() -> runSlice(task));
+    }
+
+    /** Roda uma fatia do programa e o devolve à fila (YIELDED) ou o termina. */
+    private void runSlice(Task task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            queued.decrementAndGet();
+            finish(task, null, e);
+            return;
+        }
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        ScriptResult result = null;
+        Throwable failure = null;
+        try {
+            result = step(task);
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            running.decrementAndGet();
+            permits.release();
+        }
+        // Só depois de liberar a vaga: quem espera o future já vê as métricas
+        // (e as vagas) sem este programa
+        if (result != null || failure != null) {
+            finish(task, result, failure);
+        } else {
+            yields.incrementAndGet();
+            enqueue(task);
+        }
+    }
+
+    /** @return O resultado final, ou null se o programa só devolveu a vez. */
+    private ScriptResult step(Task task) {
+        task.sliceStart = System.nanoTime();
+        if (task.vm == null) {
+            BytecodeChunk chunk;
+            try {
+                chunk = task.compiler.get();
+            } catch (RuntimeException e) {
+                return task.result(VM.InterpretResult.COMPILE_ERROR, e.getMessage());
+            }
+            if (chunk == null) {
+                return task.result(VM.InterpretResult.COMPILE_ERROR, "Falha na compilação.");
+            }
+            task.vm = new VM(chunk, task.output, null);
+        }
+
+        VM vm = task.vm;
+        long remaining = fuelLimit > 0 ? fuelLimit - task.fuelUsed : Long.MAX_VALUE;
+        long slice = SLICE_FUEL > 0 ? Math.min(SLICE_FUEL, remaining) : remaining;
+        if (slice != Long.MAX_VALUE) {
+            vm.setFuel(slice);
+        }
+        VM.InterpretResult status = vm.run();
+        if (slice != Long.MAX_VALUE) {
+            task.fuelUsed += slice - vm.getFuel();
+        }
+        if (status != VM.InterpretResult.YIELDED) {
+            return task.result(status, vm.getErrorMessage());
+        }
+        if (fuelLimit > 0 && task.fuelUsed >= fuelLimit) {
+            return task.result(VM.InterpretResult.RUNTIME_ERROR,
+                    "Limite de combustível excedido (" + fuelLimit + " voltas de laço).");
+        }
+        task.endSlice();
+        return null;
+    }
+
+    private void finish(Task task, ScriptResult result, Throwable failure) {
+        if (result == null || !result.isOk()) {
+            failed.incrementAndGet();
+        }
+        completed.incrementAndGet();
+        if (result != null) {
+            task.future.complete(result);
+        } else {
+            task.future.completeExceptionally(failure);
+        }
+        if (pending.decrementAndGet() == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return As métricas atuais (vazão, fila, programas rodando).
+     */
+    public Metrics getMetrics() {
+        long done = completed.get();
+        double seconds = (System.nanoTime() - createdAt) / 1e9;
+        return new Metrics(submitted.get(), done, failed.get(), running.get(), queued.get(), yields.get(),
+                seconds > 0 ? done / seconds : 0);
+    }
+
+    /** O combustível máximo de cada programa (0 = sem limite). */
+    public long getFuelLimit() {
+        return fuelLimit;
+    }
+
+    /** Quantos programas podem rodar ao mesmo tempo. */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /** Se as tarefas rodam em threads virtuais (JDK 21+). */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Para de aceitar programas e espera os já submetidos terminarem.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        boolean interrupted = false;
+        // Primeiro espera todos terminarem: até lá, quem devolve a vez volta à fila do executor
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                try {
+                    pending.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        threads.shutdown();
+        while (true) {
+            try {
+                if (threads.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- HELPER METHODS ---
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor(), se o JDK tiver threads
+     * virtuais (21+). O projeto compila para o 17, por isso a chamada é
+     * por reflexão.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /** Threads de plataforma "daemon" (não seguram a JVM aberta), com nome. */
+    private static ThreadFactory platformThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "ijgm-script-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
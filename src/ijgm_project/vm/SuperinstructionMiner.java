@@ -0,0 +1,145 @@
+package ijgm_project.vm;
+
+import ijgm_project.lexer.Lexer;
+import ijgm_project.parser.Parser;
+import ijgm_project.parser.ast.Statement;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Ferramenta para escolher novas superinstruções.
+ *
+ * Compila um "corpus" de programas IJGM SEM superinstruções e conta a
+ * frequência de cada sequência de N opcodes consecutivos (n-gramas).
+ * As sequências mais frequentes são as candidatas a virar uma instrução
+ * fundida (ver OpCode, seção 8).
+ *
+ * Uma sequência nunca atravessa um alvo de pulo: uma instrução fundida só
+ * pode ser "entrada" pelo seu primeiro opcode.
+ *
+ * Uso: java ijgm_project.vm.SuperinstructionMiner [-n N] [-top K] arquivo|diretório...
+ */
+public class SuperinstructionMiner {
+
+    /**
+     * Conta os n-gramas de opcodes de um conjunto de chunks.
+     * @param chunks Os chunks do corpus.
+     * @param n O tamanho da sequência (2 = pares, 3 = trios...).
+     * @return Mapa "OP_A OP_B ..." -> número de ocorrências.
+     */
+    public static Map<String, Integer> mine(List<BytecodeChunk> chunks, int n) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (BytecodeChunk chunk : chunks) {
+            List<Integer> offsets = new ArrayList<>();
+            List<OpCode> ops = new ArrayList<>();
+            boolean[] jumpTargets = new boolean[chunk.size() + 1];
+
+            // 1. Decodifica a sequência de instruções e marca os alvos de pulo
+            int ip = 0;
+            while (ip < chunk.size()) {
+                // Um OP_WIDE conta como parte da instrução que ele prefixa
+                boolean wide = OpCode.fromByte(chunk.getByte(ip)) == OpCode.OP_WIDE;
+                OpCode op = OpCode.fromByte(chunk.getByte(wide ? ip + 1 : ip));
+                int length = chunk.instructionLength(ip);
+                offsets.add(ip);
+                ops.add(op);
+                if (op == OpCode.OP_JUMP || op == OpCode.OP_JUMP_IF_FALSE) {
+                    int offset = wide
+                            ? (short) ((chunk.getByte(ip + 2) << 8) | (chunk.getByte(ip + 3) & 0xFF))
+                            : chunk.getByte(ip + 1);
+                    int target = ip + length + offset;
+                    if (target >= 0 && target < jumpTargets.length) {
+                        jumpTargets[target] = true;
+                    }
+                }
+                ip += length;
+            }
+
+            // 2. Conta as janelas de tamanho n que não contêm alvos de pulo no meio
+            for (int start = 0; start + n <= ops.size(); start++) {
+                boolean crossesTarget = false;
+                StringBuilder key = new StringBuilder(ops.get(start).name());
+                for (int k = 1; k < n; k++) {
+                    if (jumpTargets[offsets.get(start + k)]) {
+                        crossesTarget = true;
+                        break;
+                    }
+                    key.append(' ').append(ops.get(start + k).name());
+                }
+                if (!crossesTarget) {
+                    counts.merge(key.toString(), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Compila um arquivo-fonte sem superinstruções (para ver as sequências originais).
+     * @return O chunk, ou null se a compilação falhar.
+     */
+    public static BytecodeChunk compileWithoutFusion(String filePath) throws IOException {
+        Lexer lexer = new Lexer(filePath);
+        Parser parser = new Parser(lexer.tokenize());
+        List<Statement> ast = parser.parse();
+        return new CompilerVisitor(false).compile(ast);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxN = 4;
+        int top = 10;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n" -> maxN = Integer.parseInt(args[++i]);
+                case "-top" -> top = Integer.parseInt(args[++i]);
+                default -> inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(Paths.get("input"));
+        }
+
+        // 1. Junta o corpus (arquivos .txt, recursivamente nos diretórios)
+        List<BytecodeChunk> corpus = new ArrayList<>();
+        for (Path input : inputs) {
+            List<Path> files = new ArrayList<>();
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    walk.filter(p -> p.toString().endsWith(".txt")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(input);
+            }
+            for (Path file : files) {
+                try {
+                    BytecodeChunk chunk = compileWithoutFusion(file.toString());
+                    if (chunk != null) {
+                        corpus.add(chunk);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Ignorando " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Corpus: " + corpus.size() + " chunk(s).");
+
+        // 2. Imprime os n-gramas mais frequentes para cada tamanho
+        for (int n = 2; n <= maxN; n++) {
+            System.out.println("\n--- " + n + "-gramas mais frequentes ---");
+            mine(corpus, n).entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(top)
+                    .forEach(e -> System.out.printf("%6d  %s\n", e.getValue(), e.getKey()));
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package ijgm_project.vm;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Stack;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 
 /**
  * A Máquina Virtual (VM) da linguagem IJGM.
@@ -10,19 +11,131 @@ import java.util.Stack;
  * (Atualizada para corrigir o Furo #2 - Inconsistência de ++/-- com Floats)
  * (Atualizada para corrigir o Furo #3 - Verificação de "Truthiness" em
  * Jumps)
+ * (Refatorada: valores "etiquetados" (ver ValueTag) em arrays paralelos,
+ * sem boxing de int/float/bool na pilha, nos locais ou nas globais)
+ * (Quickening: opcodes genéricos de aritmética/comparação são reescritos
+ * no próprio código para versões especializadas por tipo, ex: OP_ADD_II)
+ * (Superinstruções: sequências comuns fundidas em um só despacho)
+ * (Executa o fluxo pré-decodificado do chunk (ver DecodedChunk): opcodes e
+ * operandos já são int, e os pulos já apontam para o índice de destino)
+ * (Tier 2: laços quentes são compilados para classes da JVM, ver JitCompiler)
+ * (A saída do 'print' vai para um OutputSink injetado; por padrão, o
+ * System.out com buffer)
+ * (Perfil opcional de execução por opcode e por instrução, ver Profiler, ou
+ * por amostragem do 'ip' em outra thread, ver SamplingProfiler)
+ * (On-stack replacement: a troca de tier acontece no pulo para trás, com o
+ * laço ainda rodando; um laço de-otimizado volta a ser contado e é
+ * recompilado com os tipos atuais das globais)
  */
 public class VM {
 
+    private static final int INITIAL_STACK_CAPACITY = 256;
+
+    // Tier 2 (JIT). Modos (propriedade "ijgm.jit"):
+    // - "off": só o interpretador;
+    // - "loops" (padrão): laços quentes são compilados para a JVM;
+    // - "eager": tenta compilar o chunk inteiro antes de interpretar
+    //   (se não der, continua como em "loops").
+    private static final String JIT_MODE = System.getProperty("ijgm.jit", "loops");
+
+    // Perfil (propriedade "ijgm.profile"):
+    // - "off" (padrão): nada é contado (o teste abaixo é uma constante, e o
+    //   JIT do HotSpot elimina o código de perfil do loop de despacho);
+    // - "counts": conta execuções por opcode e por instrução;
+    // - "time": idem, e estima o tempo por opcode cronometrando 1 a cada
+    //   "ijgm.profile.interval" instruções.
+    // - "sample": uma thread à parte lê o 'ip' a cada "ijgm.profile.period"
+    //   microssegundos (padrão 1000); a VM não faz nada a mais.
+    // Com o perfil exato ("counts"/"time") o tier 2 fica desligado: as
+    // instruções de um laço compilado não passariam pelo loop de despacho e
+    // não seriam contadas. A amostragem mantém o tier 2.
+    private static final String PROFILE_MODE = System.getProperty("ijgm.profile", "off");
+    private static final boolean SAMPLING = PROFILE_MODE.equals("sample");
+    private static final boolean PROFILING = !PROFILE_MODE.equals("off") && !SAMPLING;
+    private static final int PROFILE_INTERVAL = Integer.getInteger("ijgm.profile.interval", 64);
+    private static final long SAMPLE_PERIOD = Long.getLong("ijgm.profile.period", 1000);
+
+    private static final boolean JIT_LOOPS = !JIT_MODE.equals("off") && !PROFILING;
+    private static final boolean JIT_EAGER = JIT_MODE.equals("eager") && !PROFILING;
+    // Quantas voltas (pulos para trás) até um laço ser compilado.
+    private static final int JIT_THRESHOLD = Integer.getInteger("ijgm.jit.threshold", 1000);
+    // Quantas vezes um mesmo laço pode ser recompilado depois de de-otimizar
+    // (evita recompilar para sempre um laço cujos tipos não se estabilizam).
+    private static final int JIT_MAX_RECOMPILES = Integer.getInteger("ijgm.jit.recompiles", 3);
+
+    // Acesso ao campo 'ip' pela thread do SamplingProfiler
+    private static final VarHandle IP;
+
+    static {
+        try {
+            IP = MethodHandles.lookup().findVarHandle(VM.class, "ip", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // O "cartucho" de programa contendo Opcodes e constantes
     private final BytecodeChunk chunk;
+    // Para onde vai a saída do 'print'
+    private final OutputSink output;
+    // Onde os erros de runtime são impressos (null = só guardar, ver getErrorMessage())
+    private final PrintStream errors;
+    private String errorMessage;
+    // O perfil da execução (null se o perfil estiver desligado)
+    private final Profiler profiler;
+    private final SamplingProfiler sampler;
+    private final DecodedChunk decoded;
+
+    // Cópia privada do fluxo pré-decodificado do chunk, lida diretamente pelo
+    // loop de despacho. É uma cópia porque o Quickening a reescreve.
+    private final int[] code;
+
+    // Quickening: sítios que já foram de-especializados ficam genéricos para
+    // sempre (evita "ping-pong" entre versões especializadas).
+    private final boolean[] genericOnly;
+    private int quickenCount;
+    private int deoptCount;
+
+    // JIT: indexados pela posição da primeira instrução de cada laço
+    // (alocados só quando aparece o primeiro laço).
+    private int[] backEdgeCounts;          // -1 = já tentou compilar
+    private int[] recompileCounts;         // Recompilações após de-otimização
+    private CompiledCode[] compiledCode;   // Código instalado (com OP_JIT_ENTER)
+    private int[] jitOriginalOps;          // O opcode que o OP_JIT_ENTER substituiu
+    private int jitCount;
+    private int jitDeoptCount;
+
+    // Combustível (ver setFuel): quantos pulos para trás ainda podem ser
+    // dados antes de a execução ser suspensa. Sem limite, nada é contado
+    // (os pulos para trás só viram OP_JUMP_FUEL ao limitar a execução).
+    private long fuel = Long.MAX_VALUE;
+    private boolean metered;
+    private final int[] fuelCell = new int[1]; // O orçamento passado ao código compilado
+
+    // A pool de constantes, já "desmontada" em tag/primitivo/referência
+    // (compartilhada com o DecodedChunk; somente leitura).
+    private final byte[] constTags;
+    private final long[] constPrims;
+    private final Object[] constRefs;
 
     // A "mesa de trabalho" da VM. Usada para todos os cálculos.
-    private final Stack<Object> stack;
+    // Pilha pré-alocada em arrays paralelos, com ponteiro explícito 'sp'
+    // (sp = próximo slot livre). Os locais vivem nos slots do fundo da pilha.
+    private byte[] stackTags;
+    private long[] stackPrims;
+    private Object[] stackRefs;
+    private int sp;
 
     // Armazenamento para variáveis globais.
-    private final Map<String, Object> globals;
+    // Indexado pelo slot atribuído em tempo de compilação (CompilerSymbolTable).
+    // Uma global ainda não definida tem a tag ValueTag.NONE (sem hashing).
+    private final byte[] globalTags;
+    private final long[] globalPrims;
+    private final Object[] globalRefs;
 
-    // "Instruction Pointer": Aponta para o byte que está prestes a ser lido.
+    // "Instruction Pointer": Aponta para a posição (do fluxo pré-decodificado)
+    // que está prestes a ser lida. (Também lido pelo SamplingProfiler, de
+    // outra thread, via IP; as escritas da VM continuam simples.)
     private int ip;
 
     /**
@@ -30,306 +143,1096 @@ public class VM {
      */
     public enum InterpretResult {
         OK,
-        RUNTIME_ERROR
+        COMPILE_ERROR, // O programa nem chegou a rodar (ex: ScriptExecutor com um fonte inválido)
+        RUNTIME_ERROR,
+        YIELDED // O combustível acabou: run() de novo continua de onde parou (ver setFuel)
     }
 
     /**
      * Construtor da VM.
-     * 
+     *
      * @param chunk O "cartucho" de bytecode compilado pelo CompilerVisitor.
      */
     public VM(BytecodeChunk chunk) {
+        this(chunk, OutputSink.stdout());
+    }
+
+    /**
+     * Construtor da VM com um destino próprio para a saída.
+     *
+     * @param chunk O "cartucho" de bytecode compilado pelo CompilerVisitor.
+     * @param output Para onde vai a saída do 'print' (esvaziado ao fim de run()).
+     */
+    public VM(BytecodeChunk chunk, OutputSink output) {
+        this(chunk, output, System.err);
+    }
+
+    /**
+     * Construtor da VM com destinos próprios para a saída e para os erros.
+     *
+     * @param chunk O "cartucho" de bytecode compilado pelo CompilerVisitor.
+     * @param output Para onde vai a saída do 'print' (esvaziado ao fim de run()).
+     * @param errors Onde imprimir os erros de runtime, ou null para só guardá-los
+     *               (ver getErrorMessage()), ex: várias VMs rodando em paralelo.
+     */
+    public VM(BytecodeChunk chunk, OutputSink output, PrintStream errors) {
         this.chunk = chunk;
-        this.stack = new Stack<>();
-        this.globals = new HashMap<>();
+        this.output = output;
+        this.errors = errors;
+
+        // A decodificação é feita uma vez por chunk e reaproveitada por todas as VMs
+        this.decoded = chunk.decode();
+        this.code = decoded.code().clone();
+        this.genericOnly = new boolean[code.length];
+
+        this.profiler = PROFILING ? new Profiler(decoded, PROFILE_MODE.equals("time"), PROFILE_INTERVAL) : null;
+        this.sampler = SAMPLING ? new SamplingProfiler(this, decoded, SAMPLE_PERIOD) : null;
+
+        this.constTags = decoded.constTags();
+        this.constPrims = decoded.constPrims();
+        this.constRefs = decoded.constRefs();
+
+        this.stackTags = new byte[INITIAL_STACK_CAPACITY];
+        this.stackPrims = new long[INITIAL_STACK_CAPACITY];
+        this.stackRefs = new Object[INITIAL_STACK_CAPACITY];
+        this.sp = 0;
+
+        int globalCount = chunk.getGlobalCount();
+        this.globalTags = new byte[globalCount];
+        this.globalPrims = new long[globalCount];
+        this.globalRefs = new Object[globalCount];
+
         this.ip = 0; // Começa na primeira instrução
     }
 
     /**
      * O "coração" da VM. Executa o bytecode em um loop.
-     * 
-     * @return O resultado da interpretação (OK ou RUNTIME_ERROR).
+     *
+     * Se a execução foi suspensa (YIELDED), chamar run() de novo (depois de
+     * setFuel) continua do ponto onde ela parou.
+     *
+     * @return O resultado da interpretação (OK, RUNTIME_ERROR ou YIELDED).
      */
     public InterpretResult run() {
+        if (SAMPLING) {
+            sampler.start();
+        }
         try {
-            while (ip < chunk.getCode().size()) {
-                // 1. Fetch & Decode (Buscar e Decodificar)
-                byte rawInstruction = readByte();
+            return interpret();
+        } finally {
+            if (PROFILING) {
+                profiler.finish();
+            }
+            if (SAMPLING) {
+                sampler.stop();
+            }
+            output.flush();
+        }
+    }
 
-                OpCode instruction = OpCode.fromByte(rawInstruction);
+    private InterpretResult interpret() {
+        if (JIT_EAGER && ip == 0 && compiledCode == null) { // (Não de novo ao continuar após YIELDED)
+            installCompiled(0, JitCompiler.compileRegion(decoded, 0, code.length, globalTags, metered));
+        }
+        try {
+            while (ip < code.length) {
+                // 1. Fetch (a decodificação já foi feita pelo DecodedChunk)
+                if (PROFILING) {
+                    profiler.enter(ip, code[ip]);
+                }
+                OpCode instruction = OpCode.fromValue(next());
 
                 // 2. Execute (Executar)
                 switch (instruction) {
 
                     // --- Opcodes de Pilha e Literais ---
                     case OP_PUSH_CONST -> {
-                        Object constant = readConstant();
-                        push(constant);
+                        int constIndex = next(); // Lê o índice da constante
+                        push(constTags[constIndex], constPrims[constIndex], constRefs[constIndex]);
+                    }
+                    case OP_PUSH_TRUE -> pushBool(true);
+                    case OP_PUSH_FALSE -> pushBool(false);
+                    case OP_POP -> {
+                        pop();
+                        stackRefs[sp] = null;
                     }
-                    case OP_PUSH_TRUE -> push(true);
-                    case OP_PUSH_FALSE -> push(false);
-                    case OP_POP -> pop();
 
                     // --- Opcodes de Operações ---
-                    case OP_ADD -> binaryAdd();
-                    case OP_SUBTRACT -> binaryNumericOp(OpCode.OP_SUBTRACT);
-                    case OP_MULTIPLY -> binaryNumericOp(OpCode.OP_MULTIPLY);
-                    case OP_DIVIDE -> binaryNumericOp(OpCode.OP_DIVIDE);
+                    // (cada versão genérica tenta primeiro se "acelerar")
+                    case OP_ADD -> {
+                        quicken(OpCode.OP_ADD);
+                        binaryAdd();
+                    }
+                    case OP_SUBTRACT -> {
+                        quicken(OpCode.OP_SUBTRACT);
+                        binaryNumericOp(OpCode.OP_SUBTRACT);
+                    }
+                    case OP_MULTIPLY -> {
+                        quicken(OpCode.OP_MULTIPLY);
+                        binaryNumericOp(OpCode.OP_MULTIPLY);
+                    }
+                    case OP_DIVIDE -> {
+                        quicken(OpCode.OP_DIVIDE);
+                        binaryNumericOp(OpCode.OP_DIVIDE);
+                    }
 
                     // --- Opcodes de Comparação e Lógica ---
                     case OP_EQUAL -> {
-                        Object b = pop();
-                        Object a = pop();
-                        if (a == null)
-                            push(b == null);
-                        else
-                            push(a.equals(b));
+                        quicken(OpCode.OP_EQUAL);
+                        boolean equal = topTwoEqual();
+                        sp -= 2;
+                        pushBool(equal);
                     }
                     case OP_NOT_EQUAL -> {
-                        Object b = pop();
-                        Object a = pop();
-                        if (a == null)
-                            push(b != null);
-                        else
-                            push(!a.equals(b));
+                        quicken(OpCode.OP_NOT_EQUAL);
+                        boolean equal = topTwoEqual();
+                        sp -= 2;
+                        pushBool(!equal);
+                    }
+                    case OP_GREATER -> {
+                        quicken(OpCode.OP_GREATER);
+                        binaryNumericOp(OpCode.OP_GREATER);
+                    }
+                    case OP_GREATER_EQUAL -> {
+                        quicken(OpCode.OP_GREATER_EQUAL);
+                        binaryNumericOp(OpCode.OP_GREATER_EQUAL);
+                    }
+                    case OP_LESS -> {
+                        quicken(OpCode.OP_LESS);
+                        binaryNumericOp(OpCode.OP_LESS);
+                    }
+                    case OP_LESS_EQUAL -> {
+                        quicken(OpCode.OP_LESS_EQUAL);
+                        binaryNumericOp(OpCode.OP_LESS_EQUAL);
                     }
-                    case OP_GREATER -> binaryNumericOp(OpCode.OP_GREATER);
-                    case OP_GREATER_EQUAL -> binaryNumericOp(OpCode.OP_GREATER_EQUAL);
-                    case OP_LESS -> binaryNumericOp(OpCode.OP_LESS);
-                    case OP_LESS_EQUAL -> binaryNumericOp(OpCode.OP_LESS_EQUAL);
 
                     case OP_AND -> {
-                        Object b = pop();
-                        Object a = pop();
-                        if (!(a instanceof Boolean) || !(b instanceof Boolean)) {
+                        checkUnderflow(2);
+                        if (stackTags[sp - 1] != ValueTag.BOOL || stackTags[sp - 2] != ValueTag.BOOL) {
                             return runtimeError("Operandos para '&&' devem ser booleanos.");
                         }
-                        push((Boolean) a && (Boolean) b);
+                        boolean result = stackPrims[sp - 2] != 0 && stackPrims[sp - 1] != 0;
+                        sp -= 2;
+                        pushBool(result);
                     }
                     case OP_OR -> {
-                        Object b = pop();
-                        Object a = pop();
-                        if (!(a instanceof Boolean) || !(b instanceof Boolean)) {
+                        checkUnderflow(2);
+                        if (stackTags[sp - 1] != ValueTag.BOOL || stackTags[sp - 2] != ValueTag.BOOL) {
                             return runtimeError("Operandos para '||' devem ser booleanos.");
                         }
-                        push((Boolean) a || (Boolean) b);
+                        boolean result = stackPrims[sp - 2] != 0 || stackPrims[sp - 1] != 0;
+                        sp -= 2;
+                        pushBool(result);
                     }
 
                     // --- Opcodes de Variáveis Globais ---
                     case OP_DEFINE_GLOBAL -> {
-                        String name = readConstantName();
-                        globals.put(name, pop());
+                        int slot = next();
+                        pop();
+                        globalTags[slot] = stackTags[sp];
+                        globalPrims[slot] = stackPrims[sp];
+                        globalRefs[slot] = stackRefs[sp];
+                        stackRefs[sp] = null;
                     }
                     case OP_LOAD_GLOBAL -> {
-                        String name = readConstantName();
-                        if (!globals.containsKey(name)) {
-                            return runtimeError("Variável global '" + name + "' não definida.");
+                        int slot = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida.");
                         }
-                        push(globals.get(name));
+                        push(globalTags[slot], globalPrims[slot], globalRefs[slot]);
                     }
                     case OP_STORE_GLOBAL -> {
-                        String name = readConstantName();
-                        if (!globals.containsKey(name)) {
-                            return runtimeError("Variável global '" + name + "' não definida.");
+                        int slot = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida.");
                         }
                         // Atribuição não "puxa" (pop) o valor, apenas o armazena
-                        globals.put(name, peek(0));
+                        checkUnderflow(1);
+                        globalTags[slot] = stackTags[sp - 1];
+                        globalPrims[slot] = stackPrims[sp - 1];
+                        globalRefs[slot] = stackRefs[sp - 1];
                     }
 
                     // --- Opcodes de Variáveis Locais (na Pilha) ---
                     case OP_LOAD_LOCAL -> {
-                        int slot = readByte() & 0xFF; // Converte byte para índice (0-255)
-                        push(stack.get(slot));
+                        int slot = next();
+                        push(stackTags[slot], stackPrims[slot], stackRefs[slot]);
                     }
                     case OP_STORE_LOCAL -> {
-                        int slot = readByte() & 0xFF;
+                        int slot = next();
                         // Atribuição não "puxa" (pop) o valor, apenas o armazena
-                        stack.set(slot, peek(0));
+                        checkUnderflow(1);
+                        stackTags[slot] = stackTags[sp - 1];
+                        stackPrims[slot] = stackPrims[sp - 1];
+                        stackRefs[slot] = stackRefs[sp - 1];
                     }
 
                     // --- Opcodes de Controle de Fluxo (Jumps) ---
                     case OP_JUMP -> {
-                        short offset = readByte();
-                        ip += offset;
+                        int target = next(); // O operando já é o destino absoluto
+                        if (target < ip && JIT_LOOPS) {
+                            countBackEdge(target, ip); // Pulo para trás: fim de uma volta de laço
+                        }
+                        ip = target;
+                    }
+                    case OP_JUMP_FUEL -> { // Pulo para trás com o combustível limitado (ver setFuel)
+                        int target = next();
+                        if (--fuel < 0) {
+                            // Suspende NO pulo: ele é cobrado quando a execução continuar
+                            fuel = 0;
+                            ip -= OpCode.OP_JUMP_FUEL.getLength();
+                            return InterpretResult.YIELDED;
+                        }
+                        if (JIT_LOOPS) {
+                            countBackEdge(target, ip);
+                        }
+                        ip = target;
                     }
 
                     // --- CORREÇÃO (FURO #3) ---
                     // Adicionada checagem de tipo antes de chamar isFalsey
                     case OP_JUMP_IF_FALSE -> {
-                        short offset = readByte();
-                        Object condition = pop(); // Pula e SEMPRE consome a condição
+                        int target = next();
+                        pop(); // Pula e SEMPRE consome a condição
 
                         // Checagem de tipo estrito
-                        if (!(condition instanceof Boolean)) {
+                        if (stackTags[sp] != ValueTag.BOOL) {
                             return runtimeError("Condição do 'if' ou 'while' deve ser um booleano.");
                         }
 
-                        if (isFalsey(condition)) { // isFalsey agora só recebe booleanos
-                            ip += offset;
+                        if (stackPrims[sp] == 0) { // Só booleanos chegam aqui
+                            ip = target;
                         }
                     }
                     // --- FIM DA CORREÇÃO #3 ---
 
                     // --- Opcodes de Comandos ---
                     case OP_PRINT -> {
-                        System.out.println("Output: " + pop());
+                        pop();
+                        ValueTag.print(output, stackTags[sp], stackPrims[sp], stackRefs[sp]);
+                        stackRefs[sp] = null;
                     }
                     case OP_RETURN -> {
                         return InterpretResult.OK; // Fim da execução
                     }
 
                     case OP_NEGATE -> {
-                        Object val = pop();
-                        if (val instanceof Integer)
-                            push(-(Integer) val);
-                        else if (val instanceof Float)
-                            push(-(Float) val);
+                        checkUnderflow(1);
+                        int top = sp - 1;
+                        if (stackTags[top] == ValueTag.INT)
+                            stackPrims[top] = -(int) stackPrims[top];
+                        else if (stackTags[top] == ValueTag.FLOAT)
+                            stackPrims[top] = Float.floatToRawIntBits(-Float.intBitsToFloat((int) stackPrims[top]));
                         else
                             return runtimeError("Operando para '-' deve ser um número.");
                     }
                     case OP_NOT -> {
-                        push(isFalsey(pop()));
+                        pop();
+                        // Apenas 'false' é "falso"; qualquer outro valor vira 'false'.
+                        boolean falsey = stackTags[sp] == ValueTag.BOOL && stackPrims[sp] == 0;
+                        stackRefs[sp] = null;
+                        pushBool(falsey);
                     }
 
                     // --- CORREÇÃO (FURO #2) ---
                     // Lógica de incremento/decremento atualizada para aceitar Float
                     case OP_INCREMENT_LOCAL -> {
-                        int slot = readByte() & 0xFF;
-                        Object val = stack.get(slot);
-                        if (val instanceof Integer) {
-                            stack.set(slot, (Integer) val + 1);
-                        } else if (val instanceof Float) {
-                            stack.set(slot, (Float) val + 1.0f);
-                        } else {
+                        int slot = next();
+                        if (!addInPlace(stackTags, stackPrims, slot, 1)) {
                             return runtimeError("Operando '++' deve ser um número (Integer ou Float).");
                         }
                     }
 
                     case OP_INCREMENT_GLOBAL -> {
-                        String name = readConstantName();
-                        if (!globals.containsKey(name)) {
-                            return runtimeError("Variável global '" + name + "' não definida para '++'.");
-                        }
-                        Object val = globals.get(name);
-                        if (val instanceof Integer) {
-                            globals.put(name, (Integer) val + 1);
-                        } else if (val instanceof Float) {
-                            globals.put(name, (Float) val + 1.0f);
-                        } else {
+                        int slot = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida para '++'.");
+                        }
+                        if (!addInPlace(globalTags, globalPrims, slot, 1)) {
                             return runtimeError("Operando '++' deve ser um número (Integer ou Float).");
                         }
                     }
 
                     case OP_DECREMENT_LOCAL -> {
-                        int slot = readByte() & 0xFF;
-                        Object val = stack.get(slot);
-                        if (val instanceof Integer) {
-                            stack.set(slot, (Integer) val - 1);
-                        } else if (val instanceof Float) {
-                            stack.set(slot, (Float) val - 1.0f);
-                        } else {
+                        int slot = next();
+                        if (!addInPlace(stackTags, stackPrims, slot, -1)) {
                             return runtimeError("Operando '--' deve ser um número (Integer ou Float).");
                         }
                     }
 
                     case OP_DECREMENT_GLOBAL -> {
-                        String name = readConstantName();
-                        if (!globals.containsKey(name)) {
-                            return runtimeError("Variável global '" + name + "' não definida para '--'.");
-                        }
-                        Object val = globals.get(name);
-                        if (val instanceof Integer) {
-                            globals.put(name, (Integer) val - 1);
-                        } else if (val instanceof Float) {
-                            globals.put(name, (Float) val - 1.0f);
-                        } else {
+                        int slot = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida para '--'.");
+                        }
+                        if (!addInPlace(globalTags, globalPrims, slot, -1)) {
                             return runtimeError("Operando '--' deve ser um número (Integer ou Float).");
                         }
                     }
                     // --- FIM DA CORREÇÃO #2 ---
 
+                    // --- Opcodes "acelerados" (Quickening) ---
+                    // Se os tipos do topo da pilha não forem os esperados, o sítio
+                    // volta para o opcode genérico (de-especialização).
+                    case OP_ADD_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            stackPrims[sp - 1] = (int) stackPrims[sp - 1] + (int) stackPrims[sp];
+                        } else {
+                            despecialize(OpCode.OP_ADD);
+                            binaryAdd();
+                        }
+                    }
+                    case OP_ADD_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            float b = topFloat(0);
+                            sp--;
+                            setTopFloat(topFloat(0) + b);
+                        } else {
+                            despecialize(OpCode.OP_ADD);
+                            binaryAdd();
+                        }
+                    }
+                    case OP_CONCAT_SS -> {
+                        if (topTwoTagged(ValueTag.STRING)) {
+                            sp--;
+                            stackRefs[sp - 1] = Rope.concat((CharSequence) stackRefs[sp - 1], (CharSequence) stackRefs[sp]);
+                            stackRefs[sp] = null;
+                        } else {
+                            despecialize(OpCode.OP_ADD);
+                            binaryAdd();
+                        }
+                    }
+                    case OP_SUBTRACT_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            stackPrims[sp - 1] = (int) stackPrims[sp - 1] - (int) stackPrims[sp];
+                        } else {
+                            despecialize(OpCode.OP_SUBTRACT);
+                            binaryNumericOp(OpCode.OP_SUBTRACT);
+                        }
+                    }
+                    case OP_SUBTRACT_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            float b = topFloat(0);
+                            sp--;
+                            setTopFloat(topFloat(0) - b);
+                        } else {
+                            despecialize(OpCode.OP_SUBTRACT);
+                            binaryNumericOp(OpCode.OP_SUBTRACT);
+                        }
+                    }
+                    case OP_MULTIPLY_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            stackPrims[sp - 1] = (int) stackPrims[sp - 1] * (int) stackPrims[sp];
+                        } else {
+                            despecialize(OpCode.OP_MULTIPLY);
+                            binaryNumericOp(OpCode.OP_MULTIPLY);
+                        }
+                    }
+                    case OP_MULTIPLY_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            float b = topFloat(0);
+                            sp--;
+                            setTopFloat(topFloat(0) * b);
+                        } else {
+                            despecialize(OpCode.OP_MULTIPLY);
+                            binaryNumericOp(OpCode.OP_MULTIPLY);
+                        }
+                    }
+                    case OP_DIVIDE_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            int divisor = (int) stackPrims[sp - 1];
+                            if (divisor == 0)
+                                throw new RuntimeException("Divisão por zero.");
+                            sp--;
+                            stackPrims[sp - 1] = (int) stackPrims[sp - 1] / divisor;
+                        } else {
+                            despecialize(OpCode.OP_DIVIDE);
+                            binaryNumericOp(OpCode.OP_DIVIDE);
+                        }
+                    }
+                    case OP_DIVIDE_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            float divisor = topFloat(0);
+                            if (divisor == 0.0f)
+                                throw new RuntimeException("Divisão por zero.");
+                            sp--;
+                            setTopFloat(topFloat(0) / divisor);
+                        } else {
+                            despecialize(OpCode.OP_DIVIDE);
+                            binaryNumericOp(OpCode.OP_DIVIDE);
+                        }
+                    }
+                    case OP_GREATER_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            setTopBool((int) stackPrims[sp - 1] > (int) stackPrims[sp]);
+                        } else {
+                            despecialize(OpCode.OP_GREATER);
+                            binaryNumericOp(OpCode.OP_GREATER);
+                        }
+                    }
+                    case OP_GREATER_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            sp--;
+                            setTopBool(topFloat(0) > Float.intBitsToFloat((int) stackPrims[sp]));
+                        } else {
+                            despecialize(OpCode.OP_GREATER);
+                            binaryNumericOp(OpCode.OP_GREATER);
+                        }
+                    }
+                    case OP_GREATER_EQUAL_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            setTopBool((int) stackPrims[sp - 1] >= (int) stackPrims[sp]);
+                        } else {
+                            despecialize(OpCode.OP_GREATER_EQUAL);
+                            binaryNumericOp(OpCode.OP_GREATER_EQUAL);
+                        }
+                    }
+                    case OP_GREATER_EQUAL_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            sp--;
+                            setTopBool(topFloat(0) >= Float.intBitsToFloat((int) stackPrims[sp]));
+                        } else {
+                            despecialize(OpCode.OP_GREATER_EQUAL);
+                            binaryNumericOp(OpCode.OP_GREATER_EQUAL);
+                        }
+                    }
+                    case OP_LESS_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            setTopBool((int) stackPrims[sp - 1] < (int) stackPrims[sp]);
+                        } else {
+                            despecialize(OpCode.OP_LESS);
+                            binaryNumericOp(OpCode.OP_LESS);
+                        }
+                    }
+                    case OP_LESS_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            sp--;
+                            setTopBool(topFloat(0) < Float.intBitsToFloat((int) stackPrims[sp]));
+                        } else {
+                            despecialize(OpCode.OP_LESS);
+                            binaryNumericOp(OpCode.OP_LESS);
+                        }
+                    }
+                    case OP_LESS_EQUAL_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            setTopBool((int) stackPrims[sp - 1] <= (int) stackPrims[sp]);
+                        } else {
+                            despecialize(OpCode.OP_LESS_EQUAL);
+                            binaryNumericOp(OpCode.OP_LESS_EQUAL);
+                        }
+                    }
+                    case OP_LESS_EQUAL_FF -> {
+                        if (topTwoTagged(ValueTag.FLOAT)) {
+                            sp--;
+                            setTopBool(topFloat(0) <= Float.intBitsToFloat((int) stackPrims[sp]));
+                        } else {
+                            despecialize(OpCode.OP_LESS_EQUAL);
+                            binaryNumericOp(OpCode.OP_LESS_EQUAL);
+                        }
+                    }
+                    case OP_EQUAL_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            setTopBool(stackPrims[sp - 1] == stackPrims[sp]);
+                        } else {
+                            despecialize(OpCode.OP_EQUAL);
+                            boolean equal = topTwoEqual();
+                            sp -= 2;
+                            pushBool(equal);
+                        }
+                    }
+                    case OP_NOT_EQUAL_II -> {
+                        if (topTwoTagged(ValueTag.INT)) {
+                            sp--;
+                            setTopBool(stackPrims[sp - 1] != stackPrims[sp]);
+                        } else {
+                            despecialize(OpCode.OP_NOT_EQUAL);
+                            boolean equal = topTwoEqual();
+                            sp -= 2;
+                            pushBool(!equal);
+                        }
+                    }
+
+                    // --- Superinstruções ---
+                    case OP_SET_GLOBAL -> {
+                        int slot = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida.");
+                        }
+                        pop();
+                        globalTags[slot] = stackTags[sp];
+                        globalPrims[slot] = stackPrims[sp];
+                        globalRefs[slot] = stackRefs[sp];
+                        stackRefs[sp] = null;
+                    }
+                    case OP_SET_LOCAL -> {
+                        int slot = next();
+                        pop();
+                        stackTags[slot] = stackTags[sp];
+                        stackPrims[slot] = stackPrims[sp];
+                        stackRefs[slot] = stackRefs[sp];
+                        stackRefs[sp] = null;
+                    }
+                    case OP_UPDATE_GLOBAL_CONST -> {
+                        int slot = next();
+                        int constIndex = next();
+                        OpCode op = OpCode.fromValue(next());
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida.");
+                        }
+                        if (!updateInPlace(globalTags, globalPrims, slot, constIndex, op)) {
+                            push(globalTags[slot], globalPrims[slot], globalRefs[slot]);
+                            applyConstant(constIndex, op);
+                            pop();
+                            globalTags[slot] = stackTags[sp];
+                            globalPrims[slot] = stackPrims[sp];
+                            globalRefs[slot] = stackRefs[sp];
+                            stackRefs[sp] = null;
+                        }
+                    }
+                    case OP_UPDATE_LOCAL_CONST -> {
+                        int slot = next();
+                        int constIndex = next();
+                        OpCode op = OpCode.fromValue(next());
+                        if (!updateInPlace(stackTags, stackPrims, slot, constIndex, op)) {
+                            push(stackTags[slot], stackPrims[slot], stackRefs[slot]);
+                            applyConstant(constIndex, op);
+                            pop();
+                            stackTags[slot] = stackTags[sp];
+                            stackPrims[slot] = stackPrims[sp];
+                            stackRefs[slot] = stackRefs[sp];
+                            stackRefs[sp] = null;
+                        }
+                    }
+                    case OP_CMP_GLOBAL_CONST_JUMP -> {
+                        int slot = next();
+                        int constIndex = next();
+                        OpCode op = OpCode.fromValue(next());
+                        int target = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida.");
+                        }
+                        if (!compareWithConstant(globalTags[slot], globalPrims[slot], globalRefs[slot], constIndex, op)) {
+                            ip = target;
+                        }
+                    }
+                    case OP_CMP_LOCAL_CONST_JUMP -> {
+                        int slot = next();
+                        int constIndex = next();
+                        OpCode op = OpCode.fromValue(next());
+                        int target = next();
+                        if (!compareWithConstant(stackTags[slot], stackPrims[slot], stackRefs[slot], constIndex, op)) {
+                            ip = target;
+                        }
+                    }
+                    case OP_PRINT_CONST -> {
+                        int constIndex = next();
+                        ValueTag.print(output, constTags[constIndex], constPrims[constIndex], constRefs[constIndex]);
+                    }
+                    case OP_PRINT_GLOBAL -> {
+                        int slot = next();
+                        if (globalTags[slot] == ValueTag.NONE) {
+                            return runtimeError("Variável global '" + chunk.getGlobalName(slot) + "' não definida.");
+                        }
+                        ValueTag.print(output, globalTags[slot], globalPrims[slot], globalRefs[slot]);
+                    }
+
+                    // --- Tier 2: executa a versão compilada do laço (ou do chunk) ---
+                    case OP_JIT_ENTER -> {
+                        int site = ip - 1;
+                        int budget = metered ? (int) Math.min(fuel, Integer.MAX_VALUE) : 0;
+                        if (metered) {
+                            fuelCell[0] = budget;
+                        }
+                        int exit;
+                        try {
+                            exit = compiledCode[site].execute(globalTags, globalPrims, globalRefs, output, fuelCell);
+                        } finally {
+                            if (metered) {
+                                // Também com um erro de execução: o código compilado devolve
+                                // o que sobrou antes de lançar (ver JitCompiler.generate).
+                                // fuelCell[0] < 0: o orçamento acabou em um pulo para trás,
+                                // e 'exit' é esse pulo (ainda não cobrado)
+                                fuel -= budget - Math.max(fuelCell[0], 0);
+                            }
+                        }
+                        if (metered && fuel == 0 && fuelCell[0] < 0) {
+                            ip = exit;
+                            return InterpretResult.YIELDED;
+                        }
+                        if (exit == CompiledCode.DEOPT) {
+                            // As globais mudaram de tipo desde a compilação: volta
+                            // a interpretar este sítio (e, se for um laço, a contar
+                            // as voltas para recompilá-lo com os novos tipos).
+                            code[site] = jitOriginalOps[site];
+                            compiledCode[site] = null;
+                            jitDeoptCount++;
+                            rearmBackEdge(site);
+                            ip = site;
+                        } else {
+                            ip = exit;
+                        }
+                    }
+
                     default -> {
                         return runtimeError("Opcode desconhecido: " + instruction);
                     }
                 }
             }
         } catch (Exception e) {
-            // Pega erros de runtime (ex: ClassCastException, StackOverflow)
+            // Pega erros de runtime (ex: Divisão por zero, índices inválidos)
             return runtimeError("Erro de VM: " + e.getMessage());
         }
         return InterpretResult.OK; // (Se o loop terminar sem OP_RETURN)
     }
 
+    /** Quantos sítios foram "acelerados" (reescritos para um opcode especializado). */
+    public int getQuickenCount() {
+        return quickenCount;
+    }
+
+    /** Quantas vezes um sítio especializado viu outros tipos e voltou ao opcode genérico. */
+    public int getDeoptimizationCount() {
+        return deoptCount;
+    }
+
+    /** Quantas regiões (laços ou o chunk inteiro) foram compiladas para a JVM. */
+    public int getJitCompileCount() {
+        return jitCount;
+    }
+
+    /** Quantas vezes um código compilado foi descartado por mudança de tipos. */
+    public int getJitDeoptimizationCount() {
+        return jitDeoptCount;
+    }
+
+    /**
+     * Limita a execução: cada pulo para trás (uma volta de laço, no
+     * interpretador ou no código compilado) gasta uma unidade de combustível
+     * e, quando ele acaba, run() devolve YIELDED com a VM parada nesse pulo
+     * (que só é cobrado quando a execução continuar). Como a IJGM não tem funções, só os laços repetem código: o resto
+     * do programa roda no máximo uma vez, então o combustível limita a
+     * execução inteira. Um escalonador pode assim dividir o tempo entre
+     * várias VMs (ver ScriptExecutor) ou impor um limite a um programa.
+     *
+     * @param fuel O novo saldo (substitui o anterior), >= 0.
+     */
+    public void setFuel(long fuel) {
+        if (fuel < 0) {
+            throw new IllegalArgumentException("Combustível negativo: " + fuel);
+        }
+        if (!metered) {
+            metered = true;
+            discardCompiled(); // O código já compilado não mede o combustível
+            meterBackEdges();
+        }
+        this.fuel = fuel;
+    }
+
+    /** O combustível que sobrou (Long.MAX_VALUE se a execução não é limitada). */
+    public long getFuel() {
+        return fuel;
+    }
+
+    /** A mensagem do erro de runtime da última execução, ou null se não houve erro. */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /** O perfil da execução, ou null se o perfil estiver desligado ("ijgm.profile"). */
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /** O perfil por amostragem, ou null se não foi pedido ("ijgm.profile=sample"). */
+    public SamplingProfiler getSamplingProfiler() {
+        return sampler;
+    }
+
+    /** O 'ip' atual, lido de outra thread (ver SamplingProfiler; pode vir um pouco atrasado). */
+    int sampleIp() {
+        return (int) IP.getOpaque(this);
+    }
+
+    /** O opcode atual em uma posição do fluxo (reescrito pelo Quickening e pelo JIT). */
+    int opcodeAt(int index) {
+        return code[index];
+    }
+
     // --- HELPER METHODS ---
 
-    /** Lê o próximo byte da instrução e avança o ponteiro. */
-    private byte readByte() {
-        return chunk.getCode().get(ip++);
+    /** Lê a próxima posição do fluxo (opcode ou operando) e avança o ponteiro. */
+    private int next() {
+        return code[ip++];
+    }
+
+    /** Empurra um valor (já "desmontado") para a pilha. */
+    private void push(byte tag, long prim, Object ref) {
+        if (sp == stackTags.length) {
+            growStack();
+        }
+        stackTags[sp] = tag;
+        stackPrims[sp] = prim;
+        stackRefs[sp] = ref;
+        sp++;
     }
 
-    /** Lê os próximos dois bytes como um 'short' (para offsets de pulo). */
-    private short readShort() {
-        ip += 2;
-        byte high = chunk.getCode().get(ip - 2);
-        byte low = chunk.getCode().get(ip - 1);
-        return (short) ((high << 8) | (low & 0xFF));
+    private void pushInt(int value) {
+        push(ValueTag.INT, value, null);
     }
 
-    /** Lê um operando de constante (o índice) e busca o valor na pool. */
-    private Object readConstant() {
-        int constIndex = readByte() & 0xFF; // Lê o índice (0-255)
-        return chunk.getConstant(constIndex);
+    private void pushFloat(float value) {
+        push(ValueTag.FLOAT, Float.floatToRawIntBits(value), null);
     }
 
-    /** Lê um operando de constante e o converte para String (Nome da Variável). */
-    private String readConstantName() {
-        return (String) readConstant();
+    private void pushBool(boolean value) {
+        push(ValueTag.BOOL, value ? 1L : 0L, null);
     }
 
-    /** Empurra um valor para a pilha. */
-    private void push(Object value) {
-        stack.push(value);
+    /**
+     * Puxa (remove) um valor da pilha.
+     * O valor removido continua legível em stackTags/Prims/Refs[sp].
+     */
+    private void pop() {
+        if (sp == 0) {
+            throw new RuntimeException("Stack underflow.");
+        }
+        sp--;
     }
 
-    /** Puxa (remove) um valor da pilha. */
-    private Object pop() {
-        if (stack.isEmpty()) {
+    /** Garante que a pilha tem pelo menos 'count' valores. */
+    private void checkUnderflow(int count) {
+        if (sp < count) {
             throw new RuntimeException("Stack underflow.");
         }
-        return stack.pop();
+    }
+
+    /** Dobra a capacidade da pilha (raro: só em expressões muito profundas). */
+    private void growStack() {
+        int capacity = stackTags.length * 2;
+        stackTags = Arrays.copyOf(stackTags, capacity);
+        stackPrims = Arrays.copyOf(stackPrims, capacity);
+        stackRefs = Arrays.copyOf(stackRefs, capacity);
+    }
+
+    // --- Tier 2 (JIT) ---
+
+    /**
+     * Conta uma volta do laço que começa em 'loopStart' (e termina em 'loopEnd',
+     * logo após o pulo para trás). Ao atingir o limite, tenta compilá-lo uma vez.
+     */
+    private void countBackEdge(int loopStart, int loopEnd) {
+        if (backEdgeCounts == null) {
+            backEdgeCounts = new int[code.length];
+            recompileCounts = new int[code.length];
+        }
+        int count = backEdgeCounts[loopStart];
+        if (count < 0) {
+            return;
+        }
+        if (++count < JIT_THRESHOLD) {
+            backEdgeCounts[loopStart] = count;
+            return;
+        }
+        backEdgeCounts[loopStart] = -1;
+        // O código compilado assume a pilha vazia no início do laço
+        if (sp == 0) {
+            installCompiled(loopStart, JitCompiler.compileRegion(decoded, loopStart, loopEnd, globalTags, metered));
+        }
+    }
+
+    /**
+     * Depois de uma de-otimização em 'site', zera o contador do laço para que
+     * ele volte a esquentar e seja recompilado (no próximo pulo para trás que
+     * atingir o limite), até JIT_MAX_RECOMPILES vezes.
+     */
+    private void rearmBackEdge(int site) {
+        if (backEdgeCounts == null || backEdgeCounts[site] >= 0) {
+            return; // Não é um laço contado (ex: o chunk inteiro no modo "eager")
+        }
+        if (recompileCounts[site] < JIT_MAX_RECOMPILES) {
+            recompileCounts[site]++;
+            backEdgeCounts[site] = 0;
+        }
     }
 
     /**
-     * "Espia" um valor na pilha sem removê-lo.
-     * peek(0) = topo, peek(1) = segundo item.
+     * Descarta todo o código compilado (os sítios voltam aos opcodes
+     * originais) e rearma os contadores, para os laços serem recompilados.
      */
-    private Object peek(int distance) {
-        return stack.get(stack.size() - 1 - distance);
+    private void discardCompiled() {
+        if (compiledCode != null) {
+            for (int site = 0; site < compiledCode.length; site++) {
+                if (compiledCode[site] != null) {
+                    code[site] = jitOriginalOps[site];
+                    compiledCode[site] = null;
+                }
+            }
+        }
+        if (backEdgeCounts != null) {
+            Arrays.fill(backEdgeCounts, 0);
+        }
     }
 
-    /** Define quais valores são "falsos" na linguagem (apenas 'false'). */
-    private boolean isFalsey(Object condition) {
-        // Esta checagem agora é segura, pois 'condition' sempre será um Boolean
-        // graças à correção no OP_JUMP_IF_FALSE.
-        return (condition instanceof Boolean) && !(Boolean) condition;
+    /** Reescreve cada OP_JUMP para trás para OP_JUMP_FUEL (como o Quickening, só na cópia da VM). */
+    private void meterBackEdges() {
+        for (int pc = 0; pc < code.length; pc += OpCode.fromValue(code[pc]).getLength()) {
+            if (code[pc] == OpCode.OP_JUMP.getValue() && code[pc + 1] < pc) {
+                code[pc] = OpCode.OP_JUMP_FUEL.getValue();
+            }
+        }
+    }
+
+    /** Reescreve o sítio para OP_JIT_ENTER, que passa a executar 'compiled'. */
+    private void installCompiled(int site, CompiledCode compiled) {
+        if (compiled == null) {
+            return; // Região não suportada: continua no interpretador
+        }
+        if (compiledCode == null) {
+            compiledCode = new CompiledCode[code.length];
+            jitOriginalOps = new int[code.length];
+        }
+        compiledCode[site] = compiled;
+        jitOriginalOps[site] = code[site];
+        code[site] = OpCode.OP_JIT_ENTER.getValue();
+        jitCount++;
+    }
+
+    // --- Quickening ---
+
+    /**
+     * Chamado por um opcode genérico (que acabou de ser lido em ip - 1):
+     * reescreve o sítio para a versão especializada nos tipos do topo da pilha.
+     */
+    private void quicken(OpCode generic) {
+        int site = ip - 1;
+        if (genericOnly[site] || sp < 2) {
+            return;
+        }
+        OpCode specialized = specialize(generic, stackTags[sp - 2], stackTags[sp - 1]);
+        if (specialized != null) {
+            code[site] = specialized.getValue();
+            quickenCount++;
+        }
+    }
+
+    /** Devolve o sítio (em ip - 1) ao opcode genérico, de forma permanente. */
+    private void despecialize(OpCode generic) {
+        int site = ip - 1;
+        code[site] = generic.getValue();
+        genericOnly[site] = true;
+        deoptCount++;
+    }
+
+    /** Escolhe o opcode especializado para (op, tipoA, tipoB), ou null se não houver. */
+    private static OpCode specialize(OpCode op, byte tagA, byte tagB) {
+        if (tagA != tagB) {
+            return null; // Tipos mistos (ex: int + float) ficam no genérico
+        }
+        if (tagA == ValueTag.INT) {
+            return switch (op) {
+                case OP_ADD -> OpCode.OP_ADD_II;
+                case OP_SUBTRACT -> OpCode.OP_SUBTRACT_II;
+                case OP_MULTIPLY -> OpCode.OP_MULTIPLY_II;
+                case OP_DIVIDE -> OpCode.OP_DIVIDE_II;
+                case OP_GREATER -> OpCode.OP_GREATER_II;
+                case OP_GREATER_EQUAL -> OpCode.OP_GREATER_EQUAL_II;
+                case OP_LESS -> OpCode.OP_LESS_II;
+                case OP_LESS_EQUAL -> OpCode.OP_LESS_EQUAL_II;
+                case OP_EQUAL -> OpCode.OP_EQUAL_II;
+                case OP_NOT_EQUAL -> OpCode.OP_NOT_EQUAL_II;
+                default -> null;
+            };
+        }
+        if (tagA == ValueTag.FLOAT) {
+            return switch (op) {
+                case OP_ADD -> OpCode.OP_ADD_FF;
+                case OP_SUBTRACT -> OpCode.OP_SUBTRACT_FF;
+                case OP_MULTIPLY -> OpCode.OP_MULTIPLY_FF;
+                case OP_DIVIDE -> OpCode.OP_DIVIDE_FF;
+                case OP_GREATER -> OpCode.OP_GREATER_FF;
+                case OP_GREATER_EQUAL -> OpCode.OP_GREATER_EQUAL_FF;
+                case OP_LESS -> OpCode.OP_LESS_FF;
+                case OP_LESS_EQUAL -> OpCode.OP_LESS_EQUAL_FF;
+                default -> null;
+            };
+        }
+        if (tagA == ValueTag.STRING && op == OpCode.OP_ADD) {
+            return OpCode.OP_CONCAT_SS;
+        }
+        return null;
+    }
+
+    /** Verifica se os dois valores do topo da pilha têm a mesma tag 'tag'. */
+    private boolean topTwoTagged(byte tag) {
+        return sp >= 2 && stackTags[sp - 1] == tag && stackTags[sp - 2] == tag;
+    }
+
+    /** Lê como float o valor a 'distance' posições do topo (0 = topo). */
+    private float topFloat(int distance) {
+        return Float.intBitsToFloat((int) stackPrims[sp - 1 - distance]);
+    }
+
+    /** Sobrescreve o topo da pilha com um float. */
+    private void setTopFloat(float value) {
+        stackPrims[sp - 1] = Float.floatToRawIntBits(value);
+    }
+
+    /** Sobrescreve o topo da pilha com um booleano. */
+    private void setTopBool(boolean value) {
+        stackTags[sp - 1] = ValueTag.BOOL;
+        stackPrims[sp - 1] = value ? 1L : 0L;
+    }
+
+    /** Compara (sem removê-los) os dois valores do topo da pilha. */
+    private boolean topTwoEqual() {
+        checkUnderflow(2);
+        int a = sp - 2;
+        int b = sp - 1;
+        return ValueTag.equals(stackTags[a], stackPrims[a], stackRefs[a],
+                stackTags[b], stackPrims[b], stackRefs[b]);
+    }
+
+    /**
+     * Soma 'delta' (+1 ou -1) a um slot numérico, no próprio array (sem alocar).
+     * @return false se o slot não contiver um número.
+     */
+    private static boolean addInPlace(byte[] tags, long[] prims, int slot, int delta) {
+        if (tags[slot] == ValueTag.INT) {
+            prims[slot] = (int) prims[slot] + delta;
+        } else if (tags[slot] == ValueTag.FLOAT) {
+            prims[slot] = Float.floatToRawIntBits(Float.intBitsToFloat((int) prims[slot]) + delta);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // --- Superinstruções (helpers) ---
+
+    /**
+     * Caminho rápido de OP_UPDATE_*_CONST: aplica "slot = slot <op> k" no próprio
+     * array quando ambos são int ou ambos são float (sem alocar).
+     * @return false se os tipos exigirem o caminho genérico (applyConstant).
+     */
+    private boolean updateInPlace(byte[] tags, long[] prims, int slot, int constIndex, OpCode op) {
+        byte tag = tags[slot];
+        if (tag != constTags[constIndex]) {
+            return false;
+        }
+        if (tag == ValueTag.INT) {
+            int a = (int) prims[slot];
+            int b = (int) constPrims[constIndex];
+            switch (op) {
+                case OP_ADD -> prims[slot] = a + b;
+                case OP_SUBTRACT -> prims[slot] = a - b;
+                case OP_MULTIPLY -> prims[slot] = a * b;
+                case OP_DIVIDE -> {
+                    if (b == 0)
+                        throw new RuntimeException("Divisão por zero.");
+                    prims[slot] = a / b;
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (tag == ValueTag.FLOAT) {
+            float a = Float.intBitsToFloat((int) prims[slot]);
+            float b = Float.intBitsToFloat((int) constPrims[constIndex]);
+            float result;
+            switch (op) {
+                case OP_ADD -> result = a + b;
+                case OP_SUBTRACT -> result = a - b;
+                case OP_MULTIPLY -> result = a * b;
+                case OP_DIVIDE -> {
+                    if (b == 0.0f)
+                        throw new RuntimeException("Divisão por zero.");
+                    result = a / b;
+                }
+                default -> {
+                    return false;
+                }
+            }
+            prims[slot] = Float.floatToRawIntBits(result);
+            return true;
+        }
+        return false;
+    }
+
+    /** Caminho genérico: empurra a constante e aplica 'op' aos dois valores do topo. */
+    private void applyConstant(int constIndex, OpCode op) {
+        push(constTags[constIndex], constPrims[constIndex], constRefs[constIndex]);
+        if (op == OpCode.OP_ADD) {
+            binaryAdd();
+        } else {
+            binaryNumericOp(op);
+        }
+    }
+
+    /** Avalia "valor <op> constante" para OP_CMP_*_CONST_JUMP (mesma semântica dos opcodes genéricos). */
+    private boolean compareWithConstant(byte tag, long prim, Object ref, int constIndex, OpCode op) {
+        byte constTag = constTags[constIndex];
+        long constPrim = constPrims[constIndex];
+        if (op == OpCode.OP_EQUAL || op == OpCode.OP_NOT_EQUAL) {
+            boolean equal = ValueTag.equals(tag, prim, ref, constTag, constPrim, constRefs[constIndex]);
+            return (op == OpCode.OP_EQUAL) == equal;
+        }
+        if (tag == ValueTag.INT && constTag == ValueTag.INT) {
+            int a = (int) prim;
+            int b = (int) constPrim;
+            return switch (op) {
+                case OP_GREATER -> a > b;
+                case OP_GREATER_EQUAL -> a >= b;
+                case OP_LESS -> a < b;
+                default -> a <= b; // OP_LESS_EQUAL
+            };
+        }
+        if (isNumber(tag) && isNumber(constTag)) {
+            float a = asFloat(tag, prim);
+            float b = asFloat(constTag, constPrim);
+            return switch (op) {
+                case OP_GREATER -> a > b;
+                case OP_GREATER_EQUAL -> a >= b;
+                case OP_LESS -> a < b;
+                default -> a <= b; // OP_LESS_EQUAL
+            };
+        }
+        throw new RuntimeException("Operands must be two numbers for this operation.");
     }
 
     /** Lógica de operação para '+' (que suporta concatenação de string). */
     private void binaryAdd() {
-        Object b = pop();
-        Object a = pop();
+        checkUnderflow(2);
+        int a = sp - 2;
+        int b = sp - 1;
+        byte tagA = stackTags[a];
+        byte tagB = stackTags[b];
 
         // Lógica portada do InterpreterVisitor
-        if (a instanceof String || b instanceof String) {
-            push(String.valueOf(a) + String.valueOf(b));
-        } else if (a instanceof Float && b instanceof Float) {
-            push((Float) a + (Float) b);
-        } else if (a instanceof Integer && b instanceof Integer) {
-            push((Integer) a + (Integer) b);
-        } else if (a instanceof Float && b instanceof Integer) {
-            push((Float) a + ((Integer) b).floatValue());
-        } else if (a instanceof Integer && b instanceof Float) {
-            push(((Integer) a).floatValue() + (Float) b);
+        if (tagA == ValueTag.STRING || tagB == ValueTag.STRING) {
+            CharSequence result = Rope.concat(ValueTag.text(tagA, stackPrims[a], stackRefs[a]),
+                    ValueTag.text(tagB, stackPrims[b], stackRefs[b]));
+            sp -= 2;
+            push(ValueTag.STRING, 0L, result);
+            stackRefs[b] = null;
+        } else if (tagA == ValueTag.INT && tagB == ValueTag.INT) {
+            int result = (int) stackPrims[a] + (int) stackPrims[b];
+            sp -= 2;
+            pushInt(result);
+        } else if (isNumber(tagA) && isNumber(tagB)) {
+            // Float + Float, ou coerção int -> float
+            float result = asFloat(tagA, stackPrims[a]) + asFloat(tagB, stackPrims[b]);
+            sp -= 2;
+            pushFloat(result);
         } else {
             throw new RuntimeException("Operands must be two numbers or two strings for '+'.");
         }
@@ -337,71 +1240,70 @@ public class VM {
 
     /** Lógica de operação para todos os outros operadores numéricos. */
     private void binaryNumericOp(OpCode op) {
-        Object b = pop();
-        Object a = pop();
-
-        // Coerção: int -> float (como no InterpreterVisitor)
-        if (a instanceof Integer && b instanceof Float) {
-            a = ((Integer) a).floatValue();
-        } else if (a instanceof Float && b instanceof Integer) {
-            b = ((Integer) b).floatValue();
-        }
+        checkUnderflow(2);
+        int a = sp - 2;
+        int b = sp - 1;
+        byte tagA = stackTags[a];
+        byte tagB = stackTags[b];
 
-        if (a instanceof Float && b instanceof Float) {
-            float valA = (Float) a;
-            float valB = (Float) b;
+        if (tagA == ValueTag.INT && tagB == ValueTag.INT) {
+            int valA = (int) stackPrims[a];
+            int valB = (int) stackPrims[b];
+            sp -= 2;
             switch (op) {
                 case OP_SUBTRACT:
-                    push(valA - valB);
+                    pushInt(valA - valB);
                     break;
                 case OP_MULTIPLY:
-                    push(valA * valB);
+                    pushInt(valA * valB);
                     break;
                 case OP_DIVIDE:
-                    if (valB == 0.0f)
+                    if (valB == 0)
                         throw new RuntimeException("Divisão por zero.");
-                    push(valA / valB);
+                    pushInt(valA / valB);
                     break;
                 case OP_GREATER:
-                    push(valA > valB);
+                    pushBool(valA > valB);
                     break;
                 case OP_GREATER_EQUAL:
-                    push(valA >= valB);
+                    pushBool(valA >= valB);
                     break;
                 case OP_LESS:
-                    push(valA < valB);
+                    pushBool(valA < valB);
                     break;
                 case OP_LESS_EQUAL:
-                    push(valA <= valB);
+                    pushBool(valA <= valB);
                     break;
                 default: // Unreachable
             }
-        } else if (a instanceof Integer && b instanceof Integer) {
-            int valA = (Integer) a;
-            int valB = (Integer) b;
+        } else if (isNumber(tagA) && isNumber(tagB)) {
+            // Coerção: int -> float (como no InterpreterVisitor)
+            float valA = asFloat(tagA, stackPrims[a]);
+            float valB = asFloat(tagB, stackPrims[b]);
+            sp -= 2;
             switch (op) {
                 case OP_SUBTRACT:
-                    push(valA - valB);
+                    pushFloat(valA - valB);
                     break;
                 case OP_MULTIPLY:
-                    push(valA * valB);
+                    pushFloat(valA * valB);
                     break;
                 case OP_DIVIDE:
-                    if (valB == 0)
+                    if (valB == 0.0f)
                         throw new RuntimeException("Divisão por zero.");
-                    push(valA / valB);
+                    pushFloat(valA / valB);
                     break;
                 case OP_GREATER:
-                    push(valA > valB);
+                    pushBool(valA > valB);
                     break;
                 case OP_GREATER_EQUAL:
-                    push(valA >= valB);
+                    pushBool(valA >= valB);
                     break;
                 case OP_LESS:
-                    push(valA < valB);
+                    pushBool(valA < valB);
                     break;
                 case OP_LESS_EQUAL:
-                    push(valA <= valB);
+                    pushBool(valA <= valB);
                     break;
                 default: // Unreachable
             }
@@ -410,10 +1312,23 @@ public class VM {
         }
     }
 
+    private static boolean isNumber(byte tag) {
+        return tag == ValueTag.INT || tag == ValueTag.FLOAT;
+    }
+
+    /** Lê um número (int ou float) como float, aplicando a coerção int -> float. */
+    private static float asFloat(byte tag, long prim) {
+        return tag == ValueTag.INT ? (float) (int) prim : Float.intBitsToFloat((int) prim);
+    }
+
     /** Helper para reportar erros de runtime. */
     private InterpretResult runtimeError(String message) {
-        System.err.println(message);
+        output.flush(); // A saída já impressa aparece antes do erro
+        errorMessage = message;
+        if (errors != null) {
+            errors.println(message);
+        }
         // (Opcional: imprimir a linha do erro, se o chunk a armazenar)
         return InterpretResult.RUNTIME_ERROR;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package ijgm_project.vm;
+
+/**
+ * Etiquetas ("tags") de tipo usadas pela representação de valores da VM.
+ *
+ * Cada valor em tempo de execução é guardado em três partes paralelas:
+ * - uma tag (byte) com o tipo;
+ * - um 'long' com o valor primitivo (int, bits do float ou 0/1 do bool);
+ * - uma referência, usada apenas para strings.
+ *
+ * Assim, int/float/bool nunca são "encaixotados" (boxing) na pilha,
+ * nos slots locais ou nas globais.
+ */
+final class ValueTag {
+
+    /** Slot vazio (ex: global ainda não definida). */
+    static final byte NONE = 0;
+    static final byte INT = 1;
+    static final byte FLOAT = 2;
+    static final byte BOOL = 3;
+    static final byte STRING = 4;
+    /** Valor nulo (só aparece para tipos de declaração desconhecidos). */
+    static final byte NULL = 5;
+
+    private ValueTag() {
+    }
+
+    /** Descobre a tag de um valor "encaixotado" (ex: uma constante da pool). */
+    static byte of(Object value) {
+        if (value instanceof Integer) return INT;
+        if (value instanceof Float) return FLOAT;
+        if (value instanceof Boolean) return BOOL;
+        if (value instanceof String) return STRING;
+        if (value == null) return NULL;
+        throw new IllegalArgumentException("Tipo de valor não suportado pela VM: " + value.getClass().getSimpleName());
+    }
+
+    /** Extrai a parte primitiva de um valor "encaixotado". */
+    static long bitsOf(Object value) {
+        if (value instanceof Integer) return (Integer) value;
+        if (value instanceof Float) return Float.floatToRawIntBits((Float) value);
+        if (value instanceof Boolean) return ((Boolean) value) ? 1L : 0L;
+        return 0L;
+    }
+
+    /** Extrai a parte de referência de um valor "encaixotado" (só strings). */
+    static Object refOf(Object value) {
+        return (value instanceof String) ? value : null;
+    }
+
+    /** Reconstrói o valor "encaixotado" (usado fora do caminho quente). */
+    static Object box(byte tag, long prim, Object ref) {
+        return switch (tag) {
+            case INT -> (int) prim;
+            case FLOAT -> Float.intBitsToFloat((int) prim);
+            case BOOL -> prim != 0;
+            case STRING -> ref;
+            default -> null;
+        };
+    }
+
+    /** Converte o valor para texto, como String.valueOf() faria com o valor "encaixotado". */
+    static String toString(byte tag, long prim, Object ref) {
+        return switch (tag) {
+            case INT -> Integer.toString((int) prim);
+            case FLOAT -> Float.toString(Float.intBitsToFloat((int) prim));
+            case BOOL -> prim != 0 ? "true" : "false";
+            case STRING -> ref.toString(); // Achata uma Rope
+            default -> "null";
+        };
+    }
+
+    /** O valor como texto, para concatenação: uma string (ou Rope) é devolvida sem achatar. */
+    static CharSequence text(byte tag, long prim, Object ref) {
+        return tag == STRING ? (CharSequence) ref : toString(tag, prim, ref);
+    }
+
+    /** Imprime o valor em 'output' (o equivalente a println("Output: " + toString(...))). */
+    static void print(OutputSink output, byte tag, long prim, Object ref) {
+        switch (tag) {
+            case INT -> output.printInt((int) prim);
+            case FLOAT -> output.printFloat(Float.intBitsToFloat((int) prim));
+            case BOOL -> output.printBoolean(prim != 0);
+            case STRING -> output.printString(ref.toString());
+            default -> output.printString("null");
+        }
+    }
+
+    /**
+     * Igualdade com a mesma semântica de a.equals(b) sobre valores "encaixotados":
+     * tipos diferentes nunca são iguais, e floats comparam pelos bits canônicos.
+     */
+    static boolean equals(byte tagA, long primA, Object refA, byte tagB, long primB, Object refB) {
+        if (tagA != tagB) {
+            return false;
+        }
+        return switch (tagA) {
+            case INT, BOOL -> primA == primB;
+            case FLOAT -> Float.floatToIntBits(Float.intBitsToFloat((int) primA))
+                    == Float.floatToIntBits(Float.intBitsToFloat((int) primB));
+            case STRING -> Rope.contentEquals((CharSequence) refA, (CharSequence) refB);
+            default -> true; // null == null
+        };
+    }
+}
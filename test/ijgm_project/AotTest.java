@@ -0,0 +1,63 @@
+package ijgm_project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * O Aot não gera nada (e sai com código 1) para um programa que não compila,
+ * tanto para uma classe quanto para um .ijbc.
+ */
+class AotTest {
+
+    @Test
+    void programThatDoesNotCompile() throws IOException {
+        Path dir = Files.createTempDirectory("aot");
+        try {
+            for (String source : new String[] {"int x; print y;", "int x; int x;"}) {
+                Path file = Files.writeString(dir.resolve("programa.txt"), source);
+                for (String target : new String[] {"out", "programa.ijbc", "programa.jar"}) {
+                    Path output = dir.resolve(target);
+                    String errors = runCapturingErrors(file.toString(), output.toString());
+                    assertTrue(errors.contains("Falha na compilação"), errors);
+                    assertFalse(errors.contains("null"), errors); // (Nada de NullPointerException)
+                    assertFalse(Files.exists(output), target);
+                }
+            }
+
+            // Um programa correto continua sendo gerado
+            Path file = Files.writeString(dir.resolve("programa.txt"), "int x; x = 2; print x * 21;");
+            assertEquals(0, Aot.run(new String[] {file.toString(), dir.resolve("ok.ijbc").toString()}));
+            assertTrue(Files.exists(dir.resolve("ok.ijbc")));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path path : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /** Roda o Aot esperando o código 1 e devolve o que ele escreveu no System.err. */
+    private static String runCapturingErrors(String... args) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream original = System.err;
+        System.setErr(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        try {
+            assertEquals(1, Aot.run(args));
+        } finally {
+            System.setErr(original);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
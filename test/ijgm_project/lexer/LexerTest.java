@@ -0,0 +1,64 @@
+package ijgm_project.lexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * O Lexer deve produzir os mesmos tokens lendo de um String, de um Reader
+ * ou de um arquivo mapeado, inclusive com pares substitutos (caracteres
+ * fora do BMP) na fronteira do buffer de leitura.
+ */
+class LexerTest {
+
+    private static final String EMOJI = "😀"; // 😀: dois chars em UTF-16
+
+    @Test
+    void nonBmpCharactersAcrossTheBufferBoundary() throws IOException {
+        Path file = Files.createTempFile("lexer", ".txt");
+        try {
+            for (int boundary : new int[] {8192, 16384}) {
+                for (int padding = boundary - 12; padding <= boundary + 4; padding++) {
+                    String source = "print \"" + "a".repeat(padding) + EMOJI + "\"; print \"" + EMOJI + EMOJI + "\";";
+                    Files.writeString(file, source, StandardCharsets.UTF_8);
+                    String expected = tokensOf(Lexer.fromSource(source));
+                    assertEquals(7, Lexer.fromSource(source).tokenize().size());
+
+                    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                        assertEquals(expected, tokensOf(new Lexer(new StringReader(source))));
+                        assertEquals(expected, tokensOf(Lexer.fromMappedFile(file, StandardCharsets.UTF_8)));
+                    }, "padding " + padding);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void lexemesLongerThanTheBuffer() {
+        String name = "x".repeat(20000);
+        List<Token> tokens = new Lexer(new StringReader("int " + name + "; /* " + "c".repeat(30000) + " */ 1.5"))
+                .tokenize();
+        assertEquals(name, tokens.get(1).getValue());
+        assertEquals("1.5", tokens.get(3).getValue());
+        assertEquals(TokenType.EOF, tokens.get(4).getType());
+    }
+
+    private static String tokensOf(Lexer lexer) {
+        StringBuilder text = new StringBuilder();
+        for (Token token : lexer.tokenize()) {
+            text.append(token).append('\n');
+        }
+        return text.toString();
+    }
+}
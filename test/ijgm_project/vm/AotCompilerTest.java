@@ -0,0 +1,87 @@
+package ijgm_project.vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Um programa que a VM roda também compila com o AOT: uma instrução mal
+ * tipada só falha (com o erro da VM e código 1) se for executada.
+ */
+class AotCompilerTest {
+
+    @Test
+    void illTypedStatementsInBranchesThatNeverRun() throws Exception {
+        String source = """
+                int x;
+                bool b;
+                x = 1;
+                b = true;
+                if (x > 5) { print true + 1; print x && true; b++; print "a" * 2; }
+                while (x < 3) { x = x + 1; }
+                print x;
+                """;
+        assertEquals(new Result(0, "Output: 3\n", ""), run(source));
+    }
+
+    @Test
+    void illTypedStatementFailsWhenReached() throws Exception {
+        assertEquals(new Result(1, "Output: antes\n", "Condição do 'if' ou 'while' deve ser um booleano.\n"),
+                run("print \"antes\"; if (10) { print \"dentro\"; } print \"depois\";"));
+        assertEquals(new Result(1, "", "Erro de VM: Operands must be two numbers or two strings for '+'.\n"),
+                run("bool b; b = false; b = b + 1;"));
+        assertEquals(new Result(1, "", "Erro de VM: Divisão por zero.\n"),
+                run("int x; print 1 / x;"));
+    }
+
+    @Test
+    void typeChangesInsideLoopsAreStillRejected() {
+        assertThrows(RuntimeException.class,
+                () -> run("int x; float f; f = 1.5; while (x < 3) { x = x + 1; if (x == 2) { f = 1; } }"));
+    }
+
+    private record Result(int exitCode, String out, String err) {
+    }
+
+    /** Compila 'source' com o AOT e roda a classe em outra JVM (o 'fail' chama System.exit). */
+    private static Result run(String source) throws IOException, InterruptedException {
+        List<String> diagnostics = new ArrayList<>();
+        BytecodeChunk chunk = BatchCompiler.compile(source, diagnostics);
+        assertEquals(List.of(), diagnostics);
+        byte[] classBytes = AotCompiler.compile(chunk, "Program");
+
+        Path dir = Files.createTempDirectory("aot");
+        Path out = dir.resolve("out.txt");
+        Path err = dir.resolve("err.txt");
+        try {
+            AotCompiler.writeClass(classBytes, "Program", dir);
+            Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Dstdout.encoding=UTF-8", "-Dsun.stdout.encoding=UTF-8",
+                    "-Dstderr.encoding=UTF-8", "-Dsun.stderr.encoding=UTF-8", "-cp", dir.toString(), "Program")
+                    .redirectOutput(out.toFile())
+                    .redirectError(err.toFile())
+                    .start();
+            int exitCode = process.waitFor();
+            return new Result(exitCode, read(out), read(err));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+    }
+}
@@ -0,0 +1,69 @@
+package ijgm_project.vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * O BufferedOutputSink deve produzir exatamente o mesmo texto que o
+ * MemoryOutputSink, inclusive quando uma linha termina na fronteira do buffer.
+ */
+class BufferedOutputSinkTest {
+
+    private static final int CAPACITY = 64;
+
+    @Test
+    void asciiLinesAcrossTheBufferBoundary() {
+        // Todos os tamanhos em volta da capacidade, em todas as posições iniciais do buffer
+        for (int offset = 0; offset < CAPACITY; offset++) {
+            for (int length = CAPACITY - 20; length <= 2 * CAPACITY + 2; length++) {
+                assertSameOutput(offset, "a".repeat(length));
+            }
+        }
+    }
+
+    @Test
+    void nonAsciiLinesAcrossTheBufferBoundary() {
+        for (int offset = 0; offset < CAPACITY; offset++) {
+            for (int length = CAPACITY - 20; length <= CAPACITY + 2; length++) {
+                assertSameOutput(offset, "ç".repeat(length));
+            }
+        }
+    }
+
+    @Test
+    void repeatedLongLiteral() {
+        // O caso do bug: um texto longo impresso várias vezes com o buffer padrão
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(bytes, StandardCharsets.UTF_8, 8192);
+        MemoryOutputSink expected = new MemoryOutputSink();
+        String text = "x".repeat(2722);
+        for (int i = 0; i < 5; i++) {
+            sink.printString(text);
+            expected.printString(text);
+        }
+        sink.flush();
+        assertEquals(expected + System.lineSeparator(), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    /** Imprime 'offset' bytes de enchimento, depois 'text' e um inteiro, e compara com o MemoryOutputSink. */
+    private static void assertSameOutput(int offset, String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(bytes, StandardCharsets.UTF_8, CAPACITY);
+        MemoryOutputSink expected = new MemoryOutputSink();
+        String filler = "f".repeat(Math.max(0, offset - OutputSink.PREFIX.length() - System.lineSeparator().length()));
+        for (OutputSink out : new OutputSink[] {sink, expected}) {
+            if (offset > 0) {
+                out.printString(filler);
+            }
+            out.printString(text);
+            out.printInt(42);
+        }
+        sink.flush();
+        assertEquals(expected + System.lineSeparator(), bytes.toString(StandardCharsets.UTF_8),
+                "offset " + offset + ", tamanho " + text.length());
+    }
+}
@@ -0,0 +1,88 @@
+package ijgm_project.vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A remoção do BytecodeCache também limpa os temporários que um processo
+ * interrompido deixou para trás, mas não os de uma gravação em andamento.
+ */
+class BytecodeCacheTest {
+
+    private static final String SOURCE = "int i; while (i < 3) { i++; print i; }";
+
+    @Test
+    void staleTempFilesAreEvicted() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        try {
+            String key = BytecodeCache.key(SOURCE);
+            Path orphan = Files.write(directory.resolve(key + "123.tmp"), new byte[4096]);
+            Files.setLastModifiedTime(orphan, FileTime.fromMillis(System.currentTimeMillis()
+                    - TimeUnit.HOURS.toMillis(1)));
+            Path writing = Files.write(directory.resolve(key + "456.tmp"), new byte[4096]);
+
+            BytecodeCache cache = new BytecodeCache(directory, 1024 * 1024, TimeUnit.DAYS.toMillis(30));
+            assertFalse(Files.exists(orphan));
+            assertTrue(Files.exists(writing));
+
+            // O put e o get continuam funcionando ao lado do temporário em andamento
+            cache.put(SOURCE, compile(SOURCE));
+            assertNotNull(cache.get(SOURCE));
+            assertTrue(Files.exists(cache.fileOf(key)));
+            assertTrue(cache.toString().contains("1 remoções"), cache.toString());
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    @Test
+    void staleTempFilesDoNotCrowdOutEntries() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        try {
+            // Órfãos que sozinhos passariam do tamanho máximo
+            long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+            for (int i = 0; i < 8; i++) {
+                Path orphan = Files.write(directory.resolve("orphan" + i + ".tmp"), new byte[64 * 1024]);
+                Files.setLastModifiedTime(orphan, FileTime.fromMillis(old));
+            }
+            BytecodeCache cache = new BytecodeCache(directory, 256 * 1024, TimeUnit.DAYS.toMillis(30));
+            cache.put(SOURCE, compile(SOURCE));
+            cache.evict();
+            assertNotNull(cache.get(SOURCE));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            deleteTree(directory);
+        }
+    }
+
+    private static BytecodeChunk compile(String source) {
+        List<String> diagnostics = new ArrayList<>();
+        BytecodeChunk chunk = BatchCompiler.compile(source, diagnostics);
+        assertEquals(List.of(), diagnostics);
+        return chunk;
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
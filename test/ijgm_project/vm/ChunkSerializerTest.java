@@ -0,0 +1,165 @@
+package ijgm_project.vm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Um .ijbc é lido de volta igual ao que foi gravado, e um arquivo inválido
+ * (montado à mão ou corrompido) é recusado: a tabela de linhas na leitura,
+ * o código na primeira decodificação.
+ */
+class ChunkSerializerTest {
+
+    private static final byte PUSH_CONST = OpCode.OP_PUSH_CONST.getValue();
+    private static final byte PRINT = OpCode.OP_PRINT.getValue();
+    private static final byte RETURN = OpCode.OP_RETURN.getValue();
+    private static final byte JUMP = OpCode.OP_JUMP.getValue();
+    private static final byte WIDE = OpCode.OP_WIDE.getValue();
+
+    @Test
+    void roundTrip() throws IOException {
+        List<String> diagnostics = new ArrayList<>();
+        BytecodeChunk chunk = BatchCompiler.compile("""
+                int i;
+                while (i < 3) { i = i + 1; print "i: " + i; }
+                """, diagnostics);
+        assertEquals(List.of(), diagnostics);
+
+        Path file = Files.createTempFile("chunk", ChunkSerializer.EXTENSION);
+        try {
+            ChunkSerializer.write(chunk, file);
+            BytecodeChunk loaded = ChunkSerializer.map(file);
+            assertArrayEquals(chunk.getCode(), loaded.getCode());
+            assertEquals(chunk.getConstants(), loaded.getConstants());
+            assertEquals(chunk.getGlobalCount(), loaded.getGlobalCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void jumpsMustLandOnAnInstruction() {
+        // PUSH_CONST 0; JUMP -3 (para o operando do PUSH_CONST, offset 1)
+        assertInvalid("não é o início de uma instrução", PUSH_CONST, 0, JUMP, -3, RETURN);
+        // Antes do início e depois do fim do código
+        assertInvalid("pulo para o offset", JUMP, -10, RETURN);
+        assertInvalid("pulo para o offset", JUMP, 10, RETURN);
+        // O fim do código é um destino válido (a VM termina ali)
+        ChunkSerializer.fromBytes(ByteBuffer.wrap(chunkBytes(PUSH_CONST, 0, JUMP, 1, PRINT))).decode();
+    }
+
+    @Test
+    void codeIsValidatedOnFirstDecode() {
+        // A leitura não percorre o código (carregar um arquivo mapeado não depende do tamanho dele)
+        BytecodeChunk chunk = ChunkSerializer.fromBytes(ByteBuffer.wrap(chunkBytes(PUSH_CONST, 1, PRINT, RETURN)));
+        assertThrows(IllegalArgumentException.class, chunk::decode);
+        assertThrows(IllegalArgumentException.class, () -> new VM(chunk));
+    }
+
+    @Test
+    void lineTableMustFitTheCode() {
+        int[] code = {PUSH_CONST, 0, PRINT, PUSH_CONST, 0, PRINT, RETURN};
+        // Válida: corridas crescentes e um laço dentro do código
+        ChunkSerializer.fromBytes(ByteBuffer.wrap(chunkBytes(new int[] {0, 1, 3, 2}, new int[] {0, 7, 1}, code)));
+
+        assertInvalidLines("corrida de linha no offset 7", new int[] {0, 1, 7, 2}, new int[0], code);
+        assertInvalidLines("corrida de linha no offset -1", new int[] {-1, 1}, new int[0], code);
+        assertInvalidLines("corrida de linha no offset 0", new int[] {3, 1, 0, 2}, new int[0], code);
+        assertInvalidLines("linha -5", new int[] {0, -5}, new int[0], code);
+        assertInvalidLines("laço", new int[] {0, 1}, new int[] {0, 8, 1}, code);
+        assertInvalidLines("laço", new int[] {0, 1}, new int[] {5, 2, 1}, code);
+        assertInvalidLines("laço", new int[] {0, 1}, new int[] {-1, 3, 1}, code);
+    }
+
+    @Test
+    void operandsMustExist() {
+        assertInvalid("constante 1 fora da pool", PUSH_CONST, 1, PRINT, RETURN);
+        assertInvalid("constante 256 fora da pool", WIDE, PUSH_CONST, 1, 0, PRINT, RETURN);
+        assertInvalid("global 1 fora da tabela", OpCode.OP_LOAD_GLOBAL.getValue(), 1, PRINT, RETURN);
+        assertInvalid("global 3 fora da tabela", OpCode.OP_PRINT_GLOBAL.getValue(), 3, RETURN);
+        assertInvalid("constante 9 fora da pool", OpCode.OP_UPDATE_GLOBAL_CONST.getValue(), 0, 9, OpCode.OP_ADD.getValue());
+        assertInvalid("operação", OpCode.OP_UPDATE_GLOBAL_CONST.getValue(), 0, 0, OpCode.OP_LESS.getValue());
+        assertInvalid("operação", OpCode.OP_CMP_GLOBAL_CONST_JUMP.getValue(), 0, 0, OpCode.OP_ADD.getValue(), 0);
+    }
+
+    @Test
+    void instructionsMustBeComplete() {
+        assertInvalid("cortada pelo fim do código", PUSH_CONST);
+        assertInvalid("cortada pelo fim do código", WIDE, PUSH_CONST, 0);
+        assertInvalid("OP_WIDE antes de", WIDE, PRINT, RETURN);
+        assertInvalid("opcode desconhecido 200", 200);
+        assertInvalid("instrução interna", OpCode.OP_JIT_ENTER.getValue(), RETURN);
+    }
+
+    /** Um chunk com uma constante (o int 7), uma global e o código dado. */
+    private static byte[] chunkBytes(int... code) {
+        return chunkBytes(null, null, code);
+    }
+
+    /**
+     * Idem, com uma tabela de linhas (se 'runs' não for null).
+     * @param runs Pares (offset, linha).
+     * @param loops Trios (início, fim, linha).
+     */
+    private static byte[] chunkBytes(int[] runs, int[] loops, int... code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(ChunkSerializer.MAGIC);
+            out.writeShort(ChunkSerializer.FORMAT_VERSION);
+            out.writeShort(runs != null ? 1 : 0);
+            out.writeInt(1);
+            out.writeByte(ValueTag.INT);
+            out.writeInt(7);
+            out.writeInt(1);
+            byte[] name = "x".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeInt(code.length);
+            for (int b : code) {
+                out.writeByte(b);
+            }
+            if (runs != null) {
+                out.writeInt(runs.length / 2);
+                for (int value : runs) {
+                    out.writeInt(value);
+                }
+                out.writeInt(loops.length / 3);
+                for (int value : loops) {
+                    out.writeInt(value);
+                }
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertInvalid(String expected, int... code) {
+        assertMessage(expected, assertThrows(IllegalArgumentException.class,
+                () -> ChunkSerializer.fromBytes(ByteBuffer.wrap(chunkBytes(code))).decode()));
+    }
+
+    private static void assertInvalidLines(String expected, int[] runs, int[] loops, int... code) {
+        assertMessage(expected, assertThrows(IllegalArgumentException.class,
+                () -> ChunkSerializer.fromBytes(ByteBuffer.wrap(chunkBytes(runs, loops, code)))));
+    }
+
+    private static void assertMessage(String expected, IllegalArgumentException e) {
+        assertTrue(e.getMessage().startsWith("Bytecode inválido: ") && e.getMessage().contains(expected),
+                e.getMessage());
+    }
+}
@@ -0,0 +1,40 @@
+package ijgm_project.vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Quando o future de um programa completa, as métricas já não o contam
+ * como rodando: quem junta todos os futures vê o executor parado.
+ */
+class ScriptExecutorTest {
+
+    @Test
+    void metricsAfterJoiningEveryFuture() {
+        for (int round = 0; round < 50; round++) {
+            try (ScriptExecutor executor = new ScriptExecutor(3)) {
+                List<CompletableFuture<ScriptExecutor.ScriptResult>> results = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    // Alguns programas devolvem a vez (mais voltas que uma fatia), um falha
+                    String source = i % 5 == 0 ? "int i; while (i < 250000) { i++; } print i;"
+                            : i == 7 ? "int z; print 1 / z;"
+                            : "print " + i + ";";
+                    results.add(executor.submit(source));
+                }
+                results.forEach(CompletableFuture::join);
+
+                ScriptExecutor.Metrics metrics = executor.getMetrics();
+                assertEquals(20, metrics.submitted());
+                assertEquals(20, metrics.completed());
+                assertEquals(1, metrics.failed());
+                assertEquals(0, metrics.running(), metrics.toString());
+                assertEquals(0, metrics.queued(), metrics.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ijgm_project.vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * O combustível gasto é o mesmo com e sem o JIT, inclusive quando o
+ * programa falha no meio de um laço compilado. (O modo do JIT é lido uma
+ * vez por JVM, então cada modo roda em outro processo.)
+ */
+class VMFuelTest {
+
+    private static final String ERROR_IN_HOT_LOOP = """
+            int i;
+            int z;
+            while (i < 5000) {
+                i = i + 1;
+                if (i == 2999) { print 1 / z; }
+            }
+            """;
+
+    @Test
+    void errorInsideAHotLoop() throws Exception {
+        String expected = "RUNTIME_ERROR 2998";
+        assertEquals(expected, run("off", ERROR_IN_HOT_LOOP, 1_000_000));
+        assertEquals(expected, run("loops", ERROR_IN_HOT_LOOP, 1_000_000));
+        assertEquals(expected, run("eager", ERROR_IN_HOT_LOOP, 1_000_000));
+        // Em fatias pequenas (a VM suspende e continua várias vezes antes do erro)
+        assertEquals(expected, run("loops", ERROR_IN_HOT_LOOP, 700));
+        assertEquals(expected, run("eager", ERROR_IN_HOT_LOOP, 700));
+    }
+
+    /** Roda o Probe em outra JVM com -Dijgm.jit=mode. */
+    private static String run(String mode, String source, long slice) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dijgm.jit=" + mode, "-Dijgm.jit.threshold=100",
+                "-cp", System.getProperty("java.class.path"), Probe.class.getName(), source, Long.toString(slice))
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).strip();
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+
+    /** Compila o fonte e roda em fatias de 'slice', imprimindo o status final e o combustível gasto. */
+    static final class Probe {
+
+        public static void main(String[] args) {
+            List<String> diagnostics = new ArrayList<>();
+            BytecodeChunk chunk = BatchCompiler.compile(args[0], diagnostics);
+            long slice = Long.parseLong(args[1]);
+            VM vm = new VM(chunk, new MemoryOutputSink(), null);
+            long used = 0;
+            VM.InterpretResult status;
+            do {
+                vm.setFuel(slice);
+                status = vm.run();
+                used += slice - vm.getFuel();
+            } while (status == VM.InterpretResult.YIELDED);
+            System.out.println(status + " " + used);
+        }
+    }
+}